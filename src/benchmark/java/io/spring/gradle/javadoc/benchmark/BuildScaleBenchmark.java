@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.spring.gradle.javadoc.AggregateJavadocPlugin;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+
+/**
+ * Measures how the plugins scale with the size of a build. A multi-project build with a
+ * configurable number of modules and classes per module is generated and the aggregate
+ * Javadoc of it is built with TestKit. Each build records the configuration time, the
+ * time of the {@code aggregateJavadoc} task and the heap of the Gradle daemon after a
+ * collection, once the build was configured and once it finished.
+ * <p>
+ * The first iteration of each scale starts the daemon, so only the later iterations are
+ * compared with the baseline. A scale that is missing from the baseline is recorded in
+ * it. The benchmark fails if a mean exceeds its baseline by more than the threshold, so
+ * that it can guard against regressions in CI.
+ * <p>
+ * Arguments are the comma-separated numbers of modules, the number of classes per
+ * module, the number of iterations, the baseline file and the threshold, which defaults
+ * to {@code 0.2}. The baseline file is required, as it has to outlive the build
+ * directory to be of use, for example {@code 50,200 20 3 src/benchmark/baseline.properties}.
+ *
+ * @author Rob Winch
+ */
+public final class BuildScaleBenchmark {
+
+	private static final String TASK = ":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME;
+
+	private static final Pattern METRIC = Pattern.compile("^benchmark\\.(\\w+)=(\\d+)$", Pattern.MULTILINE);
+
+	private static final String[] COMPARED_METRICS = { "configurationMillis", "aggregateJavadocMillis",
+			"configurationHeapMegabytes", "buildHeapMegabytes" };
+
+	private static final int CLASSES_PER_PACKAGE = 20;
+
+	private final int classes;
+
+	private final int iterations;
+
+	private BuildScaleBenchmark(int classes, int iterations) {
+		this.classes = classes;
+		this.iterations = iterations;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 4) {
+			throw new IllegalArgumentException(
+					"Usage: BuildScaleBenchmark <modules,...> <classes> <iterations> <baseline file> [threshold]");
+		}
+		String[] scales = args[0].split(",");
+		int classes = Integer.parseInt(args[1]);
+		int iterations = Integer.parseInt(args[2]);
+		Path baselineFile = Paths.get(args[3]);
+		double threshold = (args.length > 4) ? Double.parseDouble(args[4]) : 0.2;
+		BuildScaleBenchmark benchmark = new BuildScaleBenchmark(classes, iterations);
+		Properties baseline = load(baselineFile);
+		boolean recorded = false;
+		List<String> regressions = new ArrayList<>();
+		System.out.printf("%8s %8s %10s %20s %17s %20s %17s%n", "modules", "classes", "iteration",
+				"configuration (ms)", "aggregate (ms)", "config heap (MB)", "build heap (MB)");
+		for (String scale : scales) {
+			int modules = Integer.parseInt(scale.trim());
+			Map<String, Long> means = benchmark.run(modules);
+			for (String metric : COMPARED_METRICS) {
+				String key = modules + "x" + classes + "." + metric;
+				String expected = baseline.getProperty(key);
+				long actual = means.get(metric);
+				if (expected == null) {
+					baseline.setProperty(key, String.valueOf(actual));
+					recorded = true;
+				}
+				else if (actual > Long.parseLong(expected) * (1 + threshold)) {
+					regressions.add(String.format("%s is %d, which regressed by more than %.0f%% from %s", key, actual,
+							threshold * 100, expected));
+				}
+			}
+		}
+		if (recorded) {
+			store(baseline, baselineFile);
+			System.out.println("Recorded the baseline in " + baselineFile.toAbsolutePath());
+		}
+		if (!regressions.isEmpty()) {
+			throw new IllegalStateException("The build scale benchmark regressed:\n" + String.join("\n", regressions));
+		}
+	}
+
+	private Map<String, Long> run(int modules) throws IOException {
+		Path projectDir = Files.createTempDirectory("build-scale-benchmark");
+		generate(projectDir, modules);
+		Map<String, Long> totals = new LinkedHashMap<>();
+		for (int iteration = 1; iteration <= this.iterations; iteration++) {
+			delete(projectDir.resolve("aggregator/build/docs"));
+			BuildResult result = GradleRunner.create().withProjectDir(projectDir.toFile()).withPluginClasspath()
+					.withArguments(TASK, "--stacktrace").build();
+			Map<String, Long> metrics = metrics(result.getOutput());
+			System.out.printf("%8d %8d %10d %20d %17d %20d %17d%n", modules, this.classes, iteration,
+					metrics.get("configurationMillis"), metrics.get("aggregateJavadocMillis"),
+					metrics.get("configurationHeapMegabytes"), metrics.get("buildHeapMegabytes"));
+			if (iteration > 1 || this.iterations == 1) {
+				metrics.forEach((metric, value) -> totals.merge(metric, value, Long::sum));
+			}
+		}
+		int measured = Math.max(1, this.iterations - 1);
+		Map<String, Long> means = new LinkedHashMap<>();
+		totals.forEach((metric, total) -> means.put(metric, total / measured));
+		System.out.printf("%8d %8d %10s %20d %17d %20d %17d%n", modules, this.classes, "warm mean",
+				means.get("configurationMillis"), means.get("aggregateJavadocMillis"),
+				means.get("configurationHeapMegabytes"), means.get("buildHeapMegabytes"));
+		delete(projectDir);
+		return means;
+	}
+
+	private void generate(Path projectDir, int modules) throws IOException {
+		StringBuilder settings = new StringBuilder();
+		settings.append("def benchmarkStart = System.nanoTime()\n");
+		settings.append("def usedHeapMegabytes = {\n");
+		settings.append("\tSystem.gc()\n");
+		settings.append("\tdef runtime = Runtime.runtime\n");
+		settings.append("\t(runtime.totalMemory() - runtime.freeMemory()).intdiv(1024 * 1024)\n");
+		settings.append("}\n");
+		settings.append("gradle.taskGraph.whenReady {\n");
+		settings.append("\tprintln \"benchmark.configurationMillis=${(System.nanoTime() - benchmarkStart)")
+				.append(".intdiv(1000000)}\"\n");
+		settings.append("\tprintln \"benchmark.configurationHeapMegabytes=${usedHeapMegabytes()}\"\n");
+		settings.append("}\n");
+		settings.append("gradle.taskGraph.afterTask { task ->\n");
+		settings.append("\tif (task.path == '").append(TASK).append("') {\n");
+		settings.append("\t\tprintln \"benchmark.buildHeapMegabytes=${usedHeapMegabytes()}\"\n");
+		settings.append("\t}\n");
+		settings.append("}\n");
+		settings.append("rootProject.name = 'build-scale'\n");
+		settings.append("include 'aggregator'\n");
+		for (int module = 0; module < modules; module++) {
+			settings.append("include 'module").append(module).append("'\n");
+		}
+		write(projectDir.resolve("settings.gradle"), settings.toString());
+		write(projectDir.resolve("aggregator/build.gradle"),
+				"plugins {\n\tid 'io.spring.javadoc-aggregate'\n}\n\naggregateJavadoc {\n"
+						+ "\tdoFirst { ext.benchmarkStart = System.nanoTime() }\n"
+						+ "\tdoLast { println \"benchmark.aggregateJavadocMillis="
+						+ "${(System.nanoTime() - ext.benchmarkStart).intdiv(1000000)}\" }\n}\n");
+		for (int module = 0; module < modules; module++) {
+			generateModule(projectDir.resolve("module" + module), module);
+		}
+	}
+
+	private void generateModule(Path moduleDir, int module) throws IOException {
+		String dependencies = (module != 0) ? "\ndependencies {\n\tapi project(':module0')\n}\n" : "";
+		write(moduleDir.resolve("build.gradle"), "plugins {\n\tid 'java-library'\n\tid 'io.spring.javadoc'\n"
+				+ "\tid 'io.spring.javadoc-conventions'\n}\n" + dependencies);
+		for (int type = 0; type < this.classes; type++) {
+			String packageName = "module" + module + ".package" + (type / CLASSES_PER_PACKAGE);
+			String className = "Type" + type;
+			String reference = (module != 0) ? "module0.package0.Type0" : "Object";
+			String source = "package " + packageName + ";\n\n/**\n * Type " + type + " of module " + module + ".\n */\n"
+					+ "public class " + className + " {\n\n"
+					+ "\t/**\n\t * Returns the name.\n\t * @param prefix the prefix\n\t * @return the name\n\t */\n"
+					+ "\tpublic String name(String prefix) {\n\t\treturn prefix + \"" + className + "\";\n\t}\n\n"
+					+ "\t/**\n\t * Returns the reference.\n\t * @return the reference\n\t */\n"
+					+ "\tpublic " + reference + " reference() {\n\t\treturn null;\n\t}\n\n}\n";
+			write(moduleDir.resolve("src/main/java/" + packageName.replace('.', '/') + "/" + className + ".java"),
+					source);
+		}
+	}
+
+	private static Map<String, Long> metrics(String output) {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		Matcher matcher = METRIC.matcher(output);
+		while (matcher.find()) {
+			metrics.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+		}
+		for (String metric : COMPARED_METRICS) {
+			if (!metrics.containsKey(metric)) {
+				throw new IllegalStateException("Unable to find " + metric + " in the output of the build");
+			}
+		}
+		return metrics;
+	}
+
+	private static Properties load(Path file) throws IOException {
+		Properties properties = new Properties();
+		if (Files.isRegularFile(file)) {
+			try (InputStream input = Files.newInputStream(file)) {
+				properties.load(input);
+			}
+		}
+		return properties;
+	}
+
+	private static void store(Properties properties, Path file) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		try (OutputStream output = Files.newOutputStream(file)) {
+			properties.store(output, "Build scale benchmark baseline");
+		}
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void delete(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+}
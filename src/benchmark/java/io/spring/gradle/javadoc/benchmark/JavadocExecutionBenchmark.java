@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.spring.gradle.javadoc.AggregateJavadocPlugin;
+import io.spring.gradle.javadoc.JavadocExecution;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+
+/**
+ * Compares the latency per module of the {@code incrementalAggregateJavadoc} task when
+ * javadoc is forked for each module with the latency when it runs in worker daemons. The
+ * builds run with TestKit, which reuses its Gradle daemon, so the worker daemons are only
+ * cold in the first iteration.
+ * <p>
+ * Arguments are the fixture to run, which defaults to the {@code simple} aggregate
+ * fixture of the integration tests, and the number of iterations, which defaults to
+ * {@code 5}.
+ *
+ * @author Rob Winch
+ */
+public final class JavadocExecutionBenchmark {
+
+	private static final String TASK = ":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME;
+
+	private static final Pattern TASK_TIME = Pattern.compile("benchmark: (\\d+) ms");
+
+	private static final Pattern MODULES = Pattern.compile("Regenerated Javadoc for (\\d+) of (\\d+) modules");
+
+	private final Path fixture;
+
+	private JavadocExecutionBenchmark(Path fixture) {
+		this.fixture = fixture;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path fixture = Paths.get((args.length > 0) ? args[0] : "src/integTest/resources/javadoc/aggregate/simple");
+		int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		JavadocExecutionBenchmark benchmark = new JavadocExecutionBenchmark(fixture);
+		System.out.printf("%-14s %10s %8s %10s %17s%n", "execution", "iteration", "modules", "task (ms)",
+				"per module (ms)");
+		for (JavadocExecution execution : JavadocExecution.values()) {
+			benchmark.run(execution, iterations);
+		}
+	}
+
+	private void run(JavadocExecution execution, int iterations) throws IOException {
+		File projectDir = Files.createTempDirectory("javadoc-execution-benchmark").toFile();
+		copy(this.fixture, projectDir.toPath());
+		String configuration = "\nincrementalAggregateJavadoc {\n"
+				+ "\texecution = " + JavadocExecution.class.getName() + "." + execution.name() + "\n"
+				+ "\tdoFirst { ext.benchmarkStart = System.nanoTime() }\n"
+				+ "\tdoLast { println \"benchmark: ${(System.nanoTime() - ext.benchmarkStart).intdiv(1000000)} ms\" }\n"
+				+ "}\n";
+		Files.write(projectDir.toPath().resolve("aggregator/build.gradle"),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		long total = 0;
+		int modules = 0;
+		for (int iteration = 1; iteration <= iterations; iteration++) {
+			BuildResult result = GradleRunner.create().withProjectDir(projectDir).withPluginClasspath()
+					.withArguments(TASK, "--rerun-tasks", "--info").build();
+			long taskTime = group(TASK_TIME, result.getOutput(), 1);
+			modules = (int) group(MODULES, result.getOutput(), 1);
+			if (iteration > 1 || iterations == 1) {
+				total += taskTime;
+			}
+			System.out.printf("%-14s %10d %8d %10d %17d%n", execution, iteration, modules, taskTime,
+					taskTime / Math.max(1, modules));
+		}
+		long warm = total / Math.max(1, iterations - 1);
+		System.out.printf("%-14s %10s %8d %10d %17d%n", execution, "warm mean", modules, warm,
+				warm / Math.max(1, modules));
+	}
+
+	private static long group(Pattern pattern, String output, int group) {
+		Matcher matcher = pattern.matcher(output);
+		if (!matcher.find()) {
+			throw new IllegalStateException("Unable to find '" + pattern + "' in the output of the build");
+		}
+		return Long.parseLong(matcher.group(group));
+	}
+
+	private static void copy(Path source, Path destination) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(source)) {
+			paths = walk.collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Path target = destination.resolve(source.relativize(path).toString());
+			if (Files.isDirectory(path)) {
+				Files.createDirectories(target);
+			}
+			else {
+				Files.copy(path, target);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc.benchmark;
+
+import java.io.File;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.ConfigurationPublications;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.tasks.SourceSet;
+
+/**
+ * Publishes the {@code sourcesElements} variant with one artifact per source file, the
+ * way {@code io.spring.javadoc} used to. Used as the baseline of
+ * {@link SourcesElementsBenchmark}.
+ *
+ * @author Rob Winch
+ */
+public class PerFileSourcesElementsPlugin implements Plugin<Project> {
+
+	@Override
+	public void apply(Project project) {
+		project.getPlugins().apply(JavaPlugin.class);
+		project.getConfigurations().create("sourcesElements", (config) -> {
+			config.setCanBeResolved(false);
+			config.setCanBeConsumed(true);
+			config.attributes((AttributeContainer attributes) -> {
+				ObjectFactory objects = project.getObjects();
+				attributes.attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.class, Usage.JAVA_RUNTIME));
+				attributes.attribute(Category.CATEGORY_ATTRIBUTE,
+						objects.named(Category.class, Category.DOCUMENTATION));
+				attributes.attribute(DocsType.DOCS_TYPE_ATTRIBUTE, objects.named(DocsType.class, DocsType.SOURCES));
+				attributes.attribute(Attribute.of("org.gradle.docselements", String.class), "sources");
+			});
+			config.outgoing((ConfigurationPublications publications) -> {
+				JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+				SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+				for (File file : mainSrc.getAllJava()) {
+					publications.artifact(file);
+				}
+			});
+		});
+	}
+
+}
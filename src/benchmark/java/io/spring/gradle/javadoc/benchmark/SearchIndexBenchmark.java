@@ -0,0 +1,278 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.spring.gradle.javadoc.AggregateJavadocPlugin;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.testfixtures.ProjectBuilder;
+
+/**
+ * Compares the size and the load time of the search index that javadoc generates with
+ * the compact search index on a generated site. The site only holds search index scripts
+ * in the format of Java 17, with names built from common words so that the shards are as
+ * uneven as in real code bases. The index is compacted by the action that
+ * {@link AggregateJavadocPlugin} adds to its {@code aggregateJavadoc} task when the
+ * compact search index is enabled.
+ * <p>
+ * Sizes are measured for the scripts that a page loads eagerly and for the shards that a
+ * query of two to four characters loads. Load times are measured by evaluating the
+ * scripts with {@code node} when it is on the path and are not reported otherwise.
+ * <p>
+ * Arguments are the number of types, the number of members per type and the number of
+ * packages, which default to {@code 20000 10 1000}.
+ *
+ * @author Rob Winch
+ */
+public final class SearchIndexBenchmark {
+
+	private static final String[] KINDS = { "package", "type", "member" };
+
+	private static final String[] WORDS = { "Abstract", "Annotation", "Application", "Bean", "Binding", "Cache",
+			"Channel", "Client", "Codec", "Config", "Connection", "Context", "Converter", "Default", "Definition",
+			"Delegating", "Encoder", "Event", "Exception", "Factory", "Filter", "Handler", "Header", "Http",
+			"Integration", "Jdbc", "Json", "Listener", "Mapping", "Message", "Method", "Name", "Object", "Operations",
+			"Parameter", "Property", "Reactive", "Registry", "Repository", "Request", "Resolver", "Resource",
+			"Response", "Security", "Server", "Session", "Simple", "Source", "Support", "Template", "Transaction",
+			"Type", "Utils", "Value", "Web", "Xml" };
+
+	private static final String[] VERBS = { "get", "set", "create", "is", "add", "remove", "find", "resolve",
+			"handle", "to", "with", "apply", "build", "register", "convert" };
+
+	private static final String LOAD_SCRIPT = "search-index-benchmark.js";
+
+	private static final String COMPACT_PROPERTY_NAME = "io.spring.javadoc.search.compact";
+
+	private static final String DIRECTORY_NAME = "search-index";
+
+	private final int types;
+
+	private final int members;
+
+	private final int packages;
+
+	private SearchIndexBenchmark(int types, int members, int packages) {
+		this.types = types;
+		this.members = members;
+		this.packages = packages;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int types = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		int members = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		int packages = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+		new SearchIndexBenchmark(types, members, packages).run();
+		// The services of ProjectBuilder keep non-daemon threads running
+		System.exit(0);
+	}
+
+	private void run() throws IOException, InterruptedException {
+		Path original = Files.createTempDirectory("search-index-benchmark-original");
+		Path compact = Files.createTempDirectory("search-index-benchmark-compact");
+		generate(original);
+		for (String kind : KINDS) {
+			Files.copy(original.resolve(kind + "-search-index.js"), compact.resolve(kind + "-search-index.js"));
+		}
+		Javadoc javadoc = aggregateJavadoc(compact);
+		List<Action<? super Task>> actions = javadoc.getActions();
+		long start = System.nanoTime();
+		actions.get(actions.size() - 1).execute(javadoc);
+		long compactTime = System.nanoTime() - start;
+		Map<String, Long> shardSizes = shardSizes(compact.resolve(DIRECTORY_NAME));
+		long originalEager = eagerSize(original, false);
+		long compactEager = eagerSize(compact, true);
+		long shardBytes = shardSizes.values().stream().mapToLong(Long::longValue).sum();
+		System.out.printf("types %d, members %d, packages %d, compacted into %d shards in %d ms%n", this.types,
+				this.types * this.members, this.packages, shardSizes.size(), compactTime / 1_000_000);
+		System.out.printf("%-34s %14s%n", "", "bytes");
+		System.out.printf("%-34s %14d%n", "javadoc index (loaded eagerly)", originalEager);
+		System.out.printf("%-34s %14d%n", "compact index (loaded eagerly)", compactEager);
+		System.out.printf("%-34s %14d%n", "compact shards (total)", shardBytes);
+		printQuerySizes("query of 2 characters", queryPrefixes(shardSizes, 2), shardSizes);
+		printQuerySizes("query of 3 characters", queryPrefixes(shardSizes, 3), shardSizes);
+		printQuerySizes("query of 4 characters", queryPrefixes(shardSizes, 4), shardSizes);
+		printLoadTimes(original, compact, shardSizes);
+	}
+
+	/**
+	 * Returns the {@code aggregateJavadoc} task of a project with the compact search index
+	 * enabled, whose last action compacts the search index of the site.
+	 * @param site the site that the task generates
+	 * @return the task
+	 */
+	private static Javadoc aggregateJavadoc(Path site) throws IOException {
+		Project project = ProjectBuilder.builder().withName("search-index-benchmark")
+				.withProjectDir(Files.createTempDirectory("search-index-benchmark-project").toFile()).build();
+		project.getExtensions().getExtraProperties().set(COMPACT_PROPERTY_NAME, "true");
+		project.getPlugins().apply(AggregateJavadocPlugin.class);
+		Javadoc javadoc = (Javadoc) project.getTasks().getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		javadoc.setDestinationDir(site.toFile());
+		return javadoc;
+	}
+
+	private void generate(Path site) throws IOException {
+		Random random = new Random(42);
+		List<String> packageNames = new ArrayList<>(this.packages);
+		StringBuilder packageIndex = new StringBuilder("{\"l\":\"All Packages\",\"u\":\"allpackages-index.html\"}");
+		for (int i = 0; i < this.packages; i++) {
+			String name = "org.example.module" + (i / 20) + "." + word(random).toLowerCase() + i;
+			packageNames.add(name);
+			packageIndex.append(",{\"l\":\"").append(name).append("\"}");
+		}
+		StringBuilder typeIndex = new StringBuilder(
+				"{\"l\":\"All Classes and Interfaces\",\"u\":\"allclasses-index.html\"}");
+		StringBuilder memberIndex = new StringBuilder();
+		for (int i = 0; i < this.types; i++) {
+			String packageName = packageNames.get(random.nextInt(packageNames.size()));
+			String type = word(random) + word(random) + ((random.nextInt(3) == 0) ? word(random) : "") + i;
+			typeIndex.append(",{\"p\":\"").append(packageName).append("\",\"l\":\"").append(type).append("\"}");
+			for (int j = 0; j < this.members; j++) {
+				if (memberIndex.length() > 0) {
+					memberIndex.append(',');
+				}
+				String member = VERBS[random.nextInt(VERBS.length)] + word(random);
+				String parameters = (random.nextBoolean()) ? "()" : "(java.lang.String," + type + ")";
+				memberIndex.append("{\"p\":\"").append(packageName).append("\",\"c\":\"").append(type)
+						.append("\",\"l\":\"").append(member).append(parameters).append("\"");
+				if (parameters.length() > 2) {
+					memberIndex.append(",\"u\":\"").append(member).append("(java.lang.String,")
+							.append(packageName).append('.').append(type).append(")\"");
+				}
+				memberIndex.append('}');
+			}
+		}
+		write(site.resolve("package-search-index.js"), "packageSearchIndex", packageIndex);
+		write(site.resolve("type-search-index.js"), "typeSearchIndex", typeIndex);
+		write(site.resolve("member-search-index.js"), "memberSearchIndex", memberIndex);
+	}
+
+	private static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	private static void write(Path script, String variable, CharSequence entries) throws IOException {
+		String content = variable + " = [" + entries + "];updateSearchResults();";
+		Files.write(script, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, Long> shardSizes(Path directory) throws IOException {
+		Map<String, Long> sizes = new TreeMap<>();
+		try (Stream<Path> shards = Files.list(directory)) {
+			for (Path shard : shards.collect(Collectors.toList())) {
+				String name = shard.getFileName().toString();
+				if (!name.equals("loader.js")) {
+					sizes.put(name.substring(0, name.length() - ".js".length()), Files.size(shard));
+				}
+			}
+		}
+		return sizes;
+	}
+
+	private static long eagerSize(Path site, boolean compact) throws IOException {
+		long size = 0;
+		for (String kind : KINDS) {
+			size += Files.size(site.resolve(kind + "-search-index.js"));
+		}
+		if (compact) {
+			size += Files.size(site.resolve(DIRECTORY_NAME).resolve("loader.js"));
+		}
+		return size;
+	}
+
+	private static List<String> queryPrefixes(Map<String, Long> shardSizes, int length) {
+		return shardSizes.keySet().stream().map((shard) -> shard.substring(shard.indexOf('-') + 1))
+				.filter((key) -> key.length() >= length).map((key) -> key.substring(0, length)).distinct()
+				.collect(Collectors.toList());
+	}
+
+	private static long queryBytes(String prefix, Map<String, Long> shardSizes) {
+		long bytes = 0;
+		for (Map.Entry<String, Long> shard : shardSizes.entrySet()) {
+			String key = shard.getKey().substring(shard.getKey().indexOf('-') + 1);
+			if (key.startsWith(prefix) || prefix.startsWith(key)) {
+				bytes += shard.getValue();
+			}
+		}
+		return bytes;
+	}
+
+	private static void printQuerySizes(String label, List<String> prefixes, Map<String, Long> shardSizes) {
+		long total = 0;
+		long max = 0;
+		for (String prefix : prefixes) {
+			long bytes = queryBytes(prefix, shardSizes);
+			total += bytes;
+			max = Math.max(max, bytes);
+		}
+		System.out.printf("%-34s %14d (max %d)%n", label + ", mean", total / Math.max(1, prefixes.size()), max);
+	}
+
+	private static void printLoadTimes(Path original, Path compact, Map<String, Long> shardSizes)
+			throws IOException, InterruptedException {
+		Path script = Files.createTempFile("search-index-benchmark", ".js");
+		try (InputStream resource = SearchIndexBenchmark.class.getResourceAsStream(LOAD_SCRIPT)) {
+			Files.copy(resource, script, StandardCopyOption.REPLACE_EXISTING);
+		}
+		List<String> command = new ArrayList<>();
+		command.add("node");
+		command.add(script.toString());
+		command.add(original.toString());
+		command.add(compact.toString());
+		for (int length = 2; length <= 4; length++) {
+			command.add(queryPrefixes(shardSizes, length).stream()
+					.max((left, right) -> Long.compare(queryBytes(left, shardSizes), queryBytes(right, shardSizes)))
+					.orElse(""));
+		}
+		Process node;
+		try {
+			node = new ProcessBuilder(command).redirectErrorStream(true).start();
+		}
+		catch (IOException ex) {
+			System.out.println("node is not on the path, load times are not measured");
+			return;
+		}
+		try (BufferedReader output = new BufferedReader(
+				new InputStreamReader(node.getInputStream(), StandardCharsets.UTF_8))) {
+			System.out.printf("%-34s %14s%n", "", "load (ms)");
+			for (String line = output.readLine(); line != null; line = output.readLine()) {
+				System.out.println(line);
+			}
+		}
+		node.waitFor();
+		new File(script.toString()).delete();
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.spring.gradle.javadoc.AggregateJavadocPlugin;
+import io.spring.gradle.javadoc.JavadocPlugin;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.testfixtures.ProjectBuilder;
+
+/**
+ * Measures the cost of publishing the {@code sourcesElements} variant and resolving it
+ * from an aggregator. The per-file baseline publishes one artifact per source file
+ * while {@link JavadocPlugin} publishes a single directory artifact.
+ * <p>
+ * Arguments are the number of modules, the number of source files per module and the
+ * number of iterations, which default to {@code 20 500 3}.
+ *
+ * @author Rob Winch
+ */
+public final class SourcesElementsBenchmark {
+
+	private final int modules;
+
+	private final int files;
+
+	private final Path root;
+
+	private SourcesElementsBenchmark(int modules, int files, Path root) {
+		this.modules = modules;
+		this.files = files;
+		this.root = root;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int modules = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int files = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+		int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+		SourcesElementsBenchmark benchmark = new SourcesElementsBenchmark(modules, files,
+				Files.createTempDirectory("sources-elements-benchmark"));
+		benchmark.generateSources();
+		System.out.printf("%-10s %8s %10s %10s %15s %13s %10s%n", "variant", "modules", "files", "artifacts",
+				"configure (ms)", "resolve (ms)", "heap (MB)");
+		for (int i = 0; i < iterations; i++) {
+			benchmark.run("per-file", PerFileSourcesElementsPlugin.class);
+			benchmark.run("directory", JavadocPlugin.class);
+		}
+	}
+
+	private void generateSources() throws IOException {
+		for (int module = 0; module < this.modules; module++) {
+			String packageName = "module" + module;
+			Path packageDir = this.root.resolve(packageName + "/src/main/java/" + packageName);
+			Files.createDirectories(packageDir);
+			for (int file = 0; file < this.files; file++) {
+				String className = "Type" + file;
+				String source = "package " + packageName + ";\n\n/**\n * Type " + file + ".\n */\npublic class "
+						+ className + " {\n}\n";
+				Files.write(packageDir.resolve(className + ".java"), source.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private void run(String variant, Class<? extends Plugin<Project>> sourcesPlugin) {
+		long heapBefore = usedHeap();
+		long start = System.nanoTime();
+		Project rootProject = ProjectBuilder.builder().withName("benchmark").withProjectDir(this.root.toFile())
+				.build();
+		Project aggregator = ProjectBuilder.builder().withParent(rootProject).withName("aggregator")
+				.withProjectDir(new File(this.root.toFile(), "aggregator")).build();
+		aggregator.getPlugins().apply(AggregateJavadocPlugin.class);
+		List<Project> moduleProjects = new ArrayList<>();
+		for (int module = 0; module < this.modules; module++) {
+			String name = "module" + module;
+			Project project = ProjectBuilder.builder().withParent(rootProject).withName(name)
+					.withProjectDir(new File(this.root.toFile(), name)).build();
+			project.getPlugins().apply(JavaPlugin.class);
+			project.getPlugins().apply(sourcesPlugin);
+			moduleProjects.add(project);
+		}
+		Configuration classpath = aggregator.getConfigurations()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_CLASSPATH_CONFIGURATION_NAME);
+		for (Project project : moduleProjects) {
+			classpath.getDependencies().add(aggregator.getDependencies().create(project));
+		}
+		long configured = System.nanoTime();
+		int artifacts = aggregator.getConfigurations().getByName("sourcesPath").getIncoming().getArtifacts()
+				.getArtifacts().size();
+		long resolved = System.nanoTime();
+		long heap = usedHeap() - heapBefore;
+		System.out.printf("%-10s %8d %10d %10d %15d %13d %10d%n", variant, this.modules, this.modules * this.files,
+				artifacts, (configured - start) / 1_000_000, (resolved - configured) / 1_000_000,
+				heap / (1024 * 1024));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Measures the time to evaluate search index scripts the way a page loads them. The
+ * arguments are the directory of the javadoc index, the directory of the compact index
+ * and the prefixes of the queries whose shards are loaded. Each measurement is the median
+ * of several runs in a fresh context.
+ */
+const fs = require("fs");
+const path = require("path");
+const vm = require("vm");
+
+const [original, compact, ...prefixes] = process.argv.slice(2);
+const kinds = ["package", "type", "member"];
+const runs = 7;
+
+function context() {
+	const scripts = [];
+	const sandbox = { updateSearchResults: function() {} };
+	sandbox.window = sandbox;
+	sandbox.document = {
+		currentScript: null,
+		head: { appendChild: function(script) { scripts.push(script); } },
+		createElement: function() { return {}; },
+		addEventListener: function() {}
+	};
+	vm.createContext(sandbox);
+	return sandbox;
+}
+
+function evaluate(sandbox, file) {
+	sandbox.document.currentScript = { src: "file://" + file };
+	vm.runInContext(fs.readFileSync(file, "utf8"), sandbox);
+}
+
+function median(measure) {
+	const times = [];
+	for (let i = 0; i < runs; i++) {
+		times.push(measure());
+	}
+	return times.sort(function(a, b) { return a - b; })[Math.floor(runs / 2)];
+}
+
+function time(sandbox, files) {
+	const start = process.hrtime.bigint();
+	files.forEach(function(file) { evaluate(sandbox, file); });
+	return Number(process.hrtime.bigint() - start) / 1e6;
+}
+
+function indexFiles(dir) {
+	return kinds.map(function(kind) { return path.join(dir, kind + "-search-index.js"); });
+}
+
+const shardDir = path.join(compact, "search-index");
+const loader = path.join(shardDir, "loader.js");
+function shards(prefix) {
+	return fs.readdirSync(shardDir).filter(function(name) {
+		const key = name.substring(name.indexOf("-") + 1, name.length - ".js".length);
+		return name !== "loader.js" && (key.startsWith(prefix) || prefix.startsWith(key));
+	}).map(function(name) { return path.join(shardDir, name); });
+}
+
+function print(label, value) {
+	console.log(label.padEnd(34) + " " + value.toFixed(1).padStart(14));
+}
+
+print("javadoc index", median(function() { return time(context(), indexFiles(original)); }));
+print("compact index", median(function() { return time(context(), indexFiles(compact).concat([loader])); }));
+prefixes.forEach(function(prefix) {
+	const files = shards(prefix);
+	print("compact shards for \"" + prefix + "\"", median(function() {
+		const sandbox = context();
+		indexFiles(compact).concat([loader]).forEach(function(file) { evaluate(sandbox, file); });
+		return time(sandbox, files);
+	}));
+});
@@ -18,15 +18,31 @@ package io.spring.gradle.javadoc;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+import org.gradle.api.JavaVersion;
 import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.BuildTask;
 import org.gradle.testkit.runner.GradleRunner;
 import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.contentOf;
 
 public class AggregateJavadocPluginITest {
 
@@ -41,6 +57,15 @@ public class AggregateJavadocPluginITest {
 		assertThat(aggregateJavadocPath("test")).doesNotExist();
 	}
 
+	@Test
+	void aggregateJavadocWhenConfigureOnDemandThenProjectsAggregated() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME, "--configure-on-demand");
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("module2/M2")).exists();
+		assertThat(aggregateJavadocPath("test")).doesNotExist();
+	}
+
 	@Test
 	void aggregateJavadocWhenAspectsThenSuccess() throws Exception {
 		runAggregateJavadocTask("aspects");
@@ -66,22 +91,406 @@ public class AggregateJavadocPluginITest {
 		assertThat(aggregateJavadocPath("test")).doesNotExist();
 	}
 
+	@Test
+	void incrementalAggregateJavadocWhenModuleChangesThenOnlyModuleRegenerated() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		String task = ":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME;
+		runTask(task);
+		assertThat(incrementalAggregateJavadocPath("module1/M1")).exists();
+		assertThat(incrementalAggregateJavadocPath("module2/M2")).exists();
+		assertThat(contentOf(incrementalAggregateJavadocPath("index-all"))).contains("mm1()", "mm2(");
+		assertThat(contentOf(incrementalAggregateJavadocPath("allclasses-index"))).contains("module1/M1.html",
+				"module2/M2.html");
+		assertThat(incrementalAggregateJavadocPath("test")).doesNotExist();
+		File module2Page = incrementalModulePath("module2", "module2/M2");
+		long module2LastModified = module2Page.lastModified();
+		Path m1 = new File(this.workingDir, "module1/src/main/java/module1/M1.java").toPath();
+		String source = new String(Files.readAllBytes(m1), StandardCharsets.UTF_8);
+		Files.write(m1, source.replace("Method mm1.", "Changed mm1.")
+				.replace("ImmutableList.of()", "ImmutableList.of(\"mm1\")").getBytes(StandardCharsets.UTF_8));
+		runTask(task);
+		assertThat(contentOf(incrementalAggregateJavadocPath("module1/M1"))).contains("Changed mm1.");
+		assertThat(module2Page.lastModified()).isEqualTo(module2LastModified);
+	}
+
+	@Test
+	void incrementalAggregateJavadocWhenWorkerDaemonThenSuccess() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		String configuration = "\nincrementalAggregateJavadoc {\n"
+				+ "\texecution = io.spring.gradle.javadoc.JavadocExecution.WORKER_DAEMON\n" + "}\n";
+		Files.write(new File(this.workingDir, "aggregator/build.gradle").toPath(),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		BuildResult result = runTask(":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME,
+				"--info");
+		assertThat(result.getOutput()).contains("in process with the documentation tool of")
+				.doesNotContain("javadoc.options by running");
+		assertThat(incrementalAggregateJavadocPath("module1/M1")).exists();
+		assertThat(incrementalAggregateJavadocPath("module2/M2")).exists();
+		assertThat(contentOf(incrementalAggregateJavadocPath("index-all"))).contains("mm1()", "mm2(");
+	}
+
+	@Test
+	void aggregateJavadocWhenCompactSearchIndexThenShardsLoadedOnDemand() throws Exception {
+		Assumptions.assumeTrue(JavaVersion.current().isJava9Compatible(), "Java 8 javadoc has no search index");
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		Files.write(new File(this.workingDir, "gradle.properties").toPath(),
+				(CompactSearchIndex.PROPERTY_NAME + "=true\n").getBytes(StandardCharsets.UTF_8));
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(contentOf(aggregateJavadocFile("type-search-index.js"))).doesNotContain("M1")
+				.contains("search-index/loader.js");
+		assertThat(aggregateJavadocFile("search-index/loader.js")).exists();
+		assertThat(contentOf(aggregateJavadocFile("search-index/type-m1.js"))).contains("\"M1\"");
+	}
+
+	@Test
+	void aggregateJavadocJarWhenPrecompressedThenGzipSidecars() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		String configuration = "\naggregateJavadocJar {\n\tprecompressed = true\n}\n";
+		Files.write(new File(this.workingDir, "aggregator/build.gradle").toPath(),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_JAR_TASK_NAME);
+		try (ZipFile jar = new ZipFile(new File(this.workingDir, "aggregator/build/libs/aggregator-javadoc.jar"))) {
+			ZipEntry page = jar.getEntry("module1/M1.html");
+			assertThat(page).isNotNull();
+			assertThat(jar.getEntry("META-INF/MANIFEST.MF")).isNotNull();
+			try (InputStream expected = jar.getInputStream(page);
+					InputStream sidecar = new GZIPInputStream(jar.getInputStream(jar.getEntry("module1/M1.html.gz")))) {
+				assertThat(sidecar).hasSameContentAs(expected);
+			}
+		}
+	}
+
+	@Test
+	void storeAggregateJavadocWhenTwoVersionsThenIdenticalFilesShared() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		String task = ":aggregator:" + AggregateJavadocPlugin.STORE_AGGREGATE_JAVADOC_TASK_NAME;
+		runTask(task, "-Pversion=1.0");
+		runTask(task, "-Pversion=1.1");
+		Path store = new File(this.workingDir, "aggregator/build/javadoc-store").toPath();
+		assertThat(store.resolve("manifests/1.0.sha256")).exists();
+		assertThat(store.resolve("manifests/1.1.sha256")).exists();
+		assertThat(Files.isSameFile(store.resolve("sites/1.0/module1/M1.html"),
+				store.resolve("sites/1.1/module1/M1.html"))).isTrue();
+	}
+
+	@Test
+	void publishAggregateJavadocWhenPublishedAgainThenOnlyChangedFilesPublished() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		File buildFile = new File(this.workingDir, "aggregator/build.gradle");
+		Files.write(buildFile.toPath(),
+				"\npublishAggregateJavadoc { targetDirectory = file('site') }\n".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+		String task = ":aggregator:" + AggregateJavadocPlugin.PUBLISH_AGGREGATE_JAVADOC_TASK_NAME;
+		runTask(task);
+		Path site = new File(this.workingDir, "aggregator/site").toPath();
+		Path page = site.resolve("module1/M1.html");
+		assertThat(page).exists();
+		assertThat(site.resolve(LocalJavadocPublishTarget.MANIFEST_FILE_NAME)).exists();
+		Files.write(page, "stale".getBytes(StandardCharsets.UTF_8));
+		Path removed = site.resolve("module1/Removed.html");
+		Files.write(removed, "removed".getBytes(StandardCharsets.UTF_8));
+
+		runTask(task);
+
+		assertThat(page).hasContent("stale");
+		assertThat(removed).exists();
+	}
+
+	@Test
+	void publishAggregateJavadocWhenPagesChangedOrRemovedThenOnlyThoseFilesPublished() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		appendToBuild("aggregator", "\npublishAggregateJavadoc { targetDirectory = file('site') }\n");
+		writeClass("module1", "module1", "Extra");
+		String task = ":aggregator:" + AggregateJavadocPlugin.PUBLISH_AGGREGATE_JAVADOC_TASK_NAME;
+		runTask(task);
+		Path site = new File(this.workingDir, "aggregator/site").toPath();
+		Path changed = site.resolve("module1/M1.html");
+		Path removed = site.resolve("module1/Extra.html");
+		Path unchanged = site.resolve("module2/M2.html");
+		assertThat(removed).exists();
+		Files.write(unchanged, "unchanged".getBytes(StandardCharsets.UTF_8));
+		Path m1 = new File(this.workingDir, "module1/src/main/java/module1/M1.java").toPath();
+		String source = new String(Files.readAllBytes(m1), StandardCharsets.UTF_8);
+		Files.write(m1, source.replace("Class M1.", "Class M1 changed.").getBytes(StandardCharsets.UTF_8));
+		Files.delete(new File(this.workingDir, "module1/src/main/java/module1/Extra.java").toPath());
+
+		BuildResult result = runTask(task, "--info");
+
+		assertThat(contentOf(changed.toFile())).contains("Class M1 changed.");
+		assertThat(removed).doesNotExist();
+		assertThat(unchanged).hasContent("unchanged");
+		assertThat(result.getOutput()).contains("Published 0 added, ").contains(" and 1 deleted files of ");
+	}
+
+	@Test
+	void aggregateJavadocWhenSignaturesClasspathThenSuccess() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME,
+				"-P" + ApiClasspath.PROPERTY_NAME + "=" + ApiClasspath.SIGNATURES);
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("module2/M2")).exists();
+	}
+
+	@Test
+	void aggregateJavadocThenJarTasksNotExecuted() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		String task = ":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME;
+		BuildResult runtime = runTask(task);
+		assertThat(runtime.getTasks()).extracting(BuildTask::getPath).contains(":module1:compileJava")
+				.noneMatch((path) -> path.endsWith(":jar"));
+		BuildResult api = runTask(task, "-P" + ApiClasspath.PROPERTY_NAME + "=" + ApiClasspath.API, "--rerun-tasks");
+		assertThat(api.getTasks()).extracting(BuildTask::getPath).contains(":module1:compileJava")
+				.noneMatch((path) -> path.endsWith(":jar"));
+	}
+
+	@Test
+	void aggregateJavadocWhenLinkThenLinkedOffline() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		File guavaDocs = new File(this.workingDir, "guava-docs");
+		guavaDocs.mkdirs();
+		Files.write(new File(guavaDocs, "package-list").toPath(),
+				"com.google.common.collect\n".getBytes(StandardCharsets.UTF_8));
+		String configuration = "\napply plugin: 'io.spring.javadoc-conventions'\n\njavadocLinks {\n"
+				+ "\tlink(rootProject.file('guava-docs').toURI().toString())\n}\n";
+		Files.write(new File(this.workingDir, "aggregator/build.gradle").toPath(),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		String href = guavaDocs.toURI() + "com/google/common/collect/ImmutableList.html";
+		assertThat(contentOf(aggregateJavadocPath("module1/M1"))).contains("href=\"" + href);
+		assertThat(new File(this.workingDir, "aggregator/build/javadoc-links")).isDirectory();
+	}
+
+	@Test
+	void aggregateJavadocWhenPackagesExcludedThenNotPublished() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		writeClass("module1", "module1.internal", "Internal1");
+		writeClass("module2", "module2.internal", "Internal2");
+		writeClass("module2", "module2.support", "Support2");
+		appendToBuild("aggregator", "\njavadocPackages {\n\texclude '**.internal'\n}\n");
+		appendToBuild("module2", "\njavadocPackages {\n\texclude 'module2.support'\n}\n");
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("module2/M2")).exists();
+		assertThat(aggregateJavadocPath("module1/internal/Internal1")).doesNotExist();
+		assertThat(aggregateJavadocPath("module2/internal/Internal2")).doesNotExist();
+		assertThat(aggregateJavadocPath("module2/support/Support2")).doesNotExist();
+		assertThat(new File(this.workingDir, "module1/build/javadoc-sources/module1/internal")).isDirectory();
+		assertThat(new File(this.workingDir, "module2/build/javadoc-sources/module2/support")).doesNotExist();
+	}
+
+	@Test
+	void incrementalAggregateJavadocWhenPackagesExcludedThenNotGenerated() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		writeClass("module1", "module1.internal", "Internal1");
+		appendToBuild("aggregator", "\njavadocPackages {\n\texclude '**.internal'\n}\n");
+		runTask(":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(incrementalAggregateJavadocPath("module1/M1")).exists();
+		assertThat(incrementalAggregateJavadocPath("module1/internal/Internal1")).doesNotExist();
+	}
+
+	@Test
+	void aggregateJavadocWhenExternalSourcesThenAggregated() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		writeExternalModule();
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(aggregateJavadocPath("ext/Ext")).exists();
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("module2/M2")).exists();
+		runTask(":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(incrementalAggregateJavadocPath("ext/Ext")).exists();
+	}
+
+	@Test
+	void resolveWhenExternalSourcesAndOtherDirectoryRequestThenJarsNotUnpacked() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		writeExternalModule();
+		appendToBuild("aggregator", "\nconfigurations {\n\tdirectories {\n\t\tcanBeConsumed = false\n"
+				+ "\t\tattributes { attribute(Attribute.of('artifactType', String), 'directory') }\n\t}\n}\n\n"
+				+ "dependencies {\n\tdirectories 'org.example:ext:1.0'\n}\n\n"
+				+ "tasks.register('directories') {\n\tdoLast {\n\t\tconfigurations.directories.incoming"
+				+ ".artifactView { lenient(true) }.files.each { println \"directory ${it.name}\" }\n\t}\n}\n");
+		BuildResult result = runTask(":aggregator:directories");
+		assertThat(result.getOutput()).doesNotContain("directory ext-1.0");
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(aggregateJavadocPath("ext/Ext")).exists();
+	}
+
+	@Test
+	void aggregateJavadocWhenCompositeThenIncludedBuildsAggregated() throws Exception {
+		runAggregateJavadocTask("composite");
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("library/Library")).exists();
+		Path m1 = new File(this.workingDir, "module1/src/main/java/module1/M1.java").toPath();
+		String source = new String(Files.readAllBytes(m1), StandardCharsets.UTF_8);
+		Files.write(m1, source.replace("Class M1.", "Class M1 changed.").getBytes(StandardCharsets.UTF_8));
+		BuildResult result = runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(result.task(":module1:" + JavadocPlugin.SYNC_JAVADOC_SOURCES_TASK_NAME).getOutcome())
+				.isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(result.task(":included:library:" + JavadocPlugin.SYNC_JAVADOC_SOURCES_TASK_NAME).getOutcome())
+				.isEqualTo(TaskOutcome.UP_TO_DATE);
+		assertThat(contentOf(aggregateJavadocPath("module1/M1"))).contains("Class M1 changed.");
+	}
+
+	@Test
+	void aggregateJavadocWhenCompositeAndConfigureOnDemandThenIncludedBuildsAggregated() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/composite", this.workingDir);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME, "--configure-on-demand");
+		assertThat(aggregateJavadocPath("module1/M1")).exists();
+		assertThat(aggregateJavadocPath("library/Library")).exists();
+	}
+
+	@Test
+	void helpThenNoJavadocTasksRealized() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		appendToBuild("aggregator", "\napply plugin: 'io.spring.javadoc-conventions'\n");
+		appendToBuild("module1", "\napply plugin: 'io.spring.javadoc-conventions'\n");
+		appendToBuild(".", "\ndef realized = []\nallprojects {\n\ttasks.configureEach { task ->\n"
+				+ "\t\tif (task instanceof Javadoc || task.class.name.startsWith('io.spring.gradle.javadoc.')) {\n"
+				+ "\t\t\trealized << task.path\n\t\t}\n\t}\n}\n\ntasks.named('help') {\n\tdoLast {\n"
+				+ "\t\tprintln \"Realized Javadoc tasks: $realized\"\n\t}\n}\n");
+
+		BuildResult result = runTask(":help");
+
+		assertThat(result.getOutput()).contains("Realized Javadoc tasks: []");
+	}
+
+	@Test
+	void aggregateJavadocThenMetricsReportPerProject() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		String report = contentOf(new File(this.workingDir, "aggregator/build/reports/javadoc/aggregateJavadoc.json"));
+		assertThat(report).contains("\"task\": \":aggregator:aggregateJavadoc\"");
+		assertThat(report).contains("\"sourceFiles\": 2,");
+		assertThat(report).contains("{ \"path\": \":module1\", \"sourceFiles\": 1,");
+		assertThat(report).contains("{ \"path\": \":module2\", \"sourceFiles\": 1,");
+	}
+
+	@Test
+	void aggregateJavadocWhenReproducibleAndRelocatedThenFromCache() throws Exception {
+		assertRelocatedFromCache(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME,
+				"aggregator/build/docs/javadoc/module1/M1.html");
+	}
+
+	@Test
+	void incrementalAggregateJavadocWhenReproducibleAndRelocatedThenFromCache() throws Exception {
+		assertRelocatedFromCache(":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME,
+				"aggregator/build/docs/incrementalAggregateJavadoc/module1/M1.html");
+	}
+
+	@Test
+	void aggregateJavadocWhenReproducibleAndRelocatedToWarmBuildDirectoryThenFromCache() throws Exception {
+		assertRelocatedFromCache(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME,
+				"aggregator/build/docs/javadoc/module1/M1.html", ":module1:javadoc", ":module2:javadoc");
+	}
+
+	@Test
+	void incrementalAggregateJavadocWhenReproducibleAndRelocatedToWarmBuildDirectoryThenFromCache()
+			throws Exception {
+		assertRelocatedFromCache(":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME,
+				"aggregator/build/docs/incrementalAggregateJavadoc/module1/M1.html", ":module1:javadoc",
+				":module2:javadoc");
+	}
+
+	private void assertRelocatedFromCache(String task, String page, String... warmUpTasks) throws Exception {
+		File original = new File(this.workingDir, "original");
+		File relocated = new File(this.workingDir, "relocated");
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/reproducible", original);
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/reproducible", relocated);
+		if (warmUpTasks.length > 0) {
+			runTaskWithBuildCache(relocated, warmUpTasks);
+		}
+		BuildResult originalResult = runTaskWithBuildCache(original, task);
+		assertThat(originalResult.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(contentOf(new File(original, page))).doesNotContain("<meta name=\"date\"");
+		BuildResult relocatedResult = runTaskWithBuildCache(relocated, task);
+		assertThat(relocatedResult.task(task).getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+		assertThat(contentOf(new File(relocated, page))).isEqualTo(contentOf(new File(original, page)));
+	}
+
+	private BuildResult runTaskWithBuildCache(File projectDir, String... tasks) {
+		List<String> arguments = new ArrayList<>(Arrays.asList(tasks));
+		arguments.add("--build-cache");
+		// @formatter:off
+		return GradleRunner.create()
+				.withProjectDir(projectDir)
+				.withPluginClasspath()
+				.withArguments(arguments)
+				.forwardOutput()
+				.build();
+		// @formatter:on
+	}
+
+	private void writeClass(String project, String packageName, String className) throws IOException {
+		Path source = new File(this.workingDir, project + "/src/main/java/" + packageName.replace('.', '/') + "/"
+				+ className + ".java").toPath();
+		Files.createDirectories(source.getParent());
+		String content = "package " + packageName + ";\n\n/**\n * Class " + className + ".\n */\npublic class "
+				+ className + " {\n}\n";
+		Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void writeExternalModule() throws IOException {
+		Path module = new File(this.workingDir, "repo/org/example/ext/1.0").toPath();
+		Files.createDirectories(module);
+		String pom = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n<modelVersion>4.0.0</modelVersion>\n"
+				+ "<groupId>org.example</groupId>\n<artifactId>ext</artifactId>\n<version>1.0</version>\n</project>\n";
+		Files.write(module.resolve("ext-1.0.pom"), pom.getBytes(StandardCharsets.UTF_8));
+		writeJar(module.resolve("ext-1.0.jar"), "ext/Ext.java", "package ext;\n\npublic class Ext {\n}\n");
+		writeJar(module.resolve("ext-1.0-sources.jar"), "ext/Ext.java",
+				"package ext;\n\n/**\n * Class Ext.\n */\npublic class Ext {\n}\n");
+		appendToBuild("aggregator", "\nrepositories {\n\tmaven { url rootProject.file('repo') }\n}\n\n"
+				+ "dependencies {\n\taggregateJavadocSources 'org.example:ext:1.0'\n}\n");
+	}
+
+	private void writeJar(Path jar, String entry, String content) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zip.putNextEntry(new ZipEntry(entry));
+			zip.write(content.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+	}
+
+	private void appendToBuild(String project, String configuration) throws IOException {
+		Files.write(new File(this.workingDir, project + "/build.gradle").toPath(),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
 	private void runAggregateJavadocTask(String project) throws IOException, URISyntaxException {
 		CopyUtils.fromResourceNameToDir("javadoc/aggregate/" + project, this.workingDir);
-		String task = ":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME;
+		runTask(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+	}
+
+	private BuildResult runTask(String task, String... arguments) {
+		String[] allArguments = new String[arguments.length + 1];
+		allArguments[0] = task;
+		System.arraycopy(arguments, 0, allArguments, 1, arguments.length);
 		// @formatter:off
 		BuildResult buildResult = GradleRunner.create()
 				.withProjectDir(this.workingDir)
 				.withPluginClasspath()
-				.withArguments(task)
+				.withArguments(allArguments)
 				.forwardOutput()
 				.build();
 		// @formatter:on
 		assertThat(buildResult.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		return buildResult;
+	}
+
+	private File aggregateJavadocFile(String path) {
+		return new File(this.workingDir, "aggregator/build/docs/javadoc/" + path);
 	}
 
 	private File aggregateJavadocPath(String path) {
 		return new File(this.workingDir, "aggregator/build/docs/javadoc/" + path + ".html");
 	}
 
+	private File incrementalAggregateJavadocPath(String path) {
+		return new File(this.workingDir, "aggregator/build/docs/incrementalAggregateJavadoc/" + path + ".html");
+	}
+
+	private File incrementalModulePath(String module, String path) {
+		return new File(this.workingDir,
+				"aggregator/build/tmp/incrementalAggregateJavadoc/modules/" + module + "/docs/" + path + ".html");
+	}
+
 }
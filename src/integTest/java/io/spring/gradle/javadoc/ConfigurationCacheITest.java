@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests that run the plugins with the configuration cache enabled.
+ *
+ * @author Rob Winch
+ */
+class ConfigurationCacheITest {
+
+	/**
+	 * The configuration cache is not available in the Gradle version used to build the
+	 * plugins, so these tests run with a version that supports it.
+	 */
+	private static final String GRADLE_VERSION = "7.0.2";
+
+	@TempDir
+	File workingDir;
+
+	@Test
+	void aggregateJavadocWhenConfigurationCacheThenReused() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		assertConfigurationCacheReused(":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(new File(this.workingDir, "aggregator/build/docs/javadoc/module1/M1.html")).exists();
+	}
+
+	@Test
+	void incrementalAggregateJavadocWhenConfigurationCacheThenReused() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		assertConfigurationCacheReused(
+				":aggregator:" + AggregateJavadocPlugin.INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME);
+		assertThat(new File(this.workingDir, "aggregator/build/docs/incrementalAggregateJavadoc/module2/M2.html"))
+				.exists();
+	}
+
+	@Test
+	void aggregateJavadocWhenPackagesExcludedThenExcludedWhenReused() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/aggregate/simple", this.workingDir);
+		Path source = new File(this.workingDir, "module1/src/main/java/module1/internal/Internal1.java").toPath();
+		Files.createDirectories(source.getParent());
+		Files.write(source,
+				"package module1.internal;\n\npublic class Internal1 {\n}\n".getBytes(StandardCharsets.UTF_8));
+		appendToBuild("aggregator", "\njavadocPackages {\n\texclude '**.internal'\n}\n");
+		File internal = new File(this.workingDir, "aggregator/build/docs/javadoc/module1/internal/Internal1.html");
+		String task = ":aggregator:" + AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME;
+		BuildResult stored = build(task, "--rerun-tasks");
+		assertThat(stored.getOutput()).contains("Configuration cache entry stored");
+		assertThat(internal).doesNotExist();
+		BuildResult reused = build(task, "--rerun-tasks");
+		assertThat(reused.getOutput()).contains("Reusing configuration cache");
+		assertThat(new File(this.workingDir, "aggregator/build/docs/javadoc/module1/M1.html")).exists();
+		assertThat(internal).doesNotExist();
+	}
+
+	@Test
+	void javadocWhenConfigurationCacheThenReused() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/conventions/simple", this.workingDir);
+		assertConfigurationCacheReused(":javadoc");
+		assertThat(new File(this.workingDir, "build/docs/javadoc/stylesheet.css")).exists();
+	}
+
+	private void assertConfigurationCacheReused(String task) {
+		BuildResult stored = build(task, "--rerun-tasks");
+		assertThat(stored.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(stored.getOutput()).contains("Configuration cache entry stored");
+		BuildResult reused = build(task, "--rerun-tasks");
+		assertThat(reused.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(reused.getOutput()).contains("Reusing configuration cache");
+	}
+
+	private void appendToBuild(String project, String configuration) throws IOException {
+		Files.write(new File(this.workingDir, project + "/build.gradle").toPath(),
+				configuration.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	private BuildResult build(String task, String... arguments) {
+		String[] allArguments = new String[arguments.length + 2];
+		allArguments[0] = task;
+		allArguments[1] = "--configuration-cache";
+		System.arraycopy(arguments, 0, allArguments, 2, arguments.length);
+		// @formatter:off
+		return GradleRunner.create()
+				.withGradleVersion(GRADLE_VERSION)
+				.withProjectDir(this.workingDir)
+				.withPluginClasspath()
+				.withArguments(allArguments)
+				.forwardOutput()
+				.build();
+		// @formatter:on
+	}
+
+}
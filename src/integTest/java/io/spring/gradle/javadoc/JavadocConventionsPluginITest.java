@@ -17,6 +17,10 @@
 package io.spring.gradle.javadoc;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.GradleRunner;
@@ -25,6 +29,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.contentOf;
 
 /**
  * Integration tests for JavadocConventionsPlugin.
@@ -37,24 +42,20 @@ class JavadocConventionsPluginITest {
 	File workingDir;
 
 	@Test
-	void syncJavadocStylesheet() throws Exception {
-
+	void javadocWhenMinifiedStylesheetThenMinifiedStylesheetUsed() throws Exception {
 		CopyUtils.fromResourceNameToDir("javadoc/conventions/simple", this.workingDir);
-		String task = ":syncJavadocStylesheet";
-
+		String task = ":javadoc";
 		// @formatter:off
 		BuildResult buildResult = GradleRunner.create()
 				.withProjectDir(this.workingDir)
 				.withPluginClasspath()
-				.withArguments(task)
+				.withArguments(task, "-P" + JavadocConventionsPlugin.MINIFIED_STYLESHEET_PROPERTY_NAME + "=true")
 				.forwardOutput()
 				.build();
 		// @formatter:on
-
 		assertThat(buildResult.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
-		File stylesheet = styleSheet();
-		assertThat(stylesheet).exists();
-		assertThat(stylesheet).isFile();
+		assertThat(buildResult.task(":syncJavadocStylesheet")).isNull();
+		assertThat(contentOf(buildJavadocFile("stylesheet.css"))).doesNotContain("/*").contains("body{");
 	}
 
 	@Test
@@ -70,16 +71,96 @@ class JavadocConventionsPluginITest {
 				.build();
 		// @formatter:on
 		assertThat(buildResult.task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
-		assertThat(styleSheet()).exists();
+		assertThat(new File(this.workingDir, "build/io.spring.gradle.javadoc-conventions").listFiles())
+				.hasSize(1);
 		assertThat(buildJavadocFile("stylesheet.css")).hasDigest("MD5", "c99e8f025fbd2a04f67a43eb7df9cd0a");
 	}
 
-	private File buildJavadocFile(String path) {
-		return new File(this.workingDir, "build/docs/javadoc/" + path);
+	@Test
+	void javadocWhenImplementationChangesThenUpToDate() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/conventions/simple", this.workingDir);
+		String task = ":javadoc";
+		assertThat(runTask(task).task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		Path m1 = new File(this.workingDir, "src/main/java/module1/M1.java").toPath();
+		String source = new String(Files.readAllBytes(m1), StandardCharsets.UTF_8);
+		Files.write(m1, source.replace("return ImmutableList.of();", "return ImmutableList.of(\"changed\");")
+				.getBytes(StandardCharsets.UTF_8));
+		assertThat(runTask(task).task(task).getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+		Files.write(m1, source.replace("Method mm1.", "Changed mm1.").getBytes(StandardCharsets.UTF_8));
+		assertThat(runTask(task).task(task).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(contentOf(buildJavadocFile("module1/M1.html"))).contains("Changed mm1.");
+	}
+
+	@Test
+	void javadocLintWhenSeparateDoclintThenLintedSeparatelyAndCacheable() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/conventions/lint", this.workingDir);
+		String lint = ":javadocLint";
+		String separate = "-P" + SeparateDoclint.PROPERTY_NAME + "=true";
+		// @formatter:off
+		BuildResult failed = GradleRunner.create()
+				.withProjectDir(this.workingDir)
+				.withPluginClasspath()
+				.withArguments(lint, separate)
+				.forwardOutput()
+				.buildAndFail();
+		// @formatter:on
+		assertThat(failed.task(lint).getOutcome()).isEqualTo(TaskOutcome.FAILED);
+		assertThat(failed.task(":compileJava")).isNull();
+		File report = new File(this.workingDir, "build/reports/javadoc/javadocLint.json");
+		assertThat(contentOf(report)).contains("\"errors\": 1", "\"file\": \"build/javadoc-sources/module1/M1.java\"",
+				"\"message\": \"@param name not found\"");
+		assertThat(runTask(":javadoc", separate).task(":javadoc").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(contentOf(new File(this.workingDir, "build/tmp/javadoc/javadoc.options")))
+				.contains("-Xdoclint:none");
+		Path m1 = new File(this.workingDir, "src/main/java/module1/M1.java").toPath();
+		String source = new String(Files.readAllBytes(m1), StandardCharsets.UTF_8);
+		Files.write(m1, source.replace("@param name The name", "@see Object").getBytes(StandardCharsets.UTF_8));
+		assertThat(runTask(lint, separate, "--build-cache").task(lint).getOutcome()).isIn(TaskOutcome.SUCCESS,
+				TaskOutcome.FROM_CACHE);
+		assertThat(contentOf(report)).contains("\"errors\": 0", "\"problems\": []");
+		assertThat(runTask("clean", lint, separate, "--build-cache").task(lint).getOutcome())
+				.isEqualTo(TaskOutcome.FROM_CACHE);
+		assertThat(runTask("check", separate).task(lint).getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+	}
+
+	@Test
+	void javadocWhenPackagesExcludedThenDocumentedButNotPublished() throws Exception {
+		CopyUtils.fromResourceNameToDir("javadoc/conventions/lint", this.workingDir);
+		writeSource("module1/M1.java", "package module1;\n\n/**\n * Class M1.\n */\npublic class M1 {\n\n"
+				+ "\t/**\n\t * Method mm1.\n\t * @return the internal\n\t */\n"
+				+ "\tpublic module1.internal.Internal1 mm1() {\n\t\treturn null;\n\t}\n\n}\n");
+		writeSource("module1/internal/Internal1.java",
+				"package module1.internal;\n\n/**\n * Class Internal1.\n */\npublic class Internal1 {\n}\n");
+		Files.write(new File(this.workingDir, "build.gradle").toPath(),
+				"\njavadocPackages {\n\texclude '**.internal'\n}\n".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+		assertThat(runTask(":javadoc").task(":javadoc").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(buildJavadocFile("module1/M1.html")).exists();
+		assertThat(buildJavadocFile("module1/internal/Internal1.html")).exists();
+		assertThat(new File(this.workingDir, "build/javadoc-sources/module1/internal")).doesNotExist();
+		assertThat(new File(this.workingDir, "build/javadoc-sources-excluded/module1/internal/Internal1.java"))
+				.exists();
+	}
+
+	private void writeSource(String path, String content) throws Exception {
+		Path source = new File(this.workingDir, "src/main/java/" + path).toPath();
+		Files.createDirectories(source.getParent());
+		Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private BuildResult runTask(String... arguments) {
+		// @formatter:off
+		return GradleRunner.create()
+				.withProjectDir(this.workingDir)
+				.withPluginClasspath()
+				.withArguments(arguments)
+				.forwardOutput()
+				.build();
+		// @formatter:on
 	}
 
-	private File styleSheet() {
-		return new File(this.workingDir, JavadocConventionsPlugin.STYLESHEET_FILE_NAME);
+	private File buildJavadocFile(String path) {
+		return new File(this.workingDir, "build/docs/javadoc/" + path);
 	}
 
 }
@@ -0,0 +1,8 @@
+package library;
+
+/**
+ * Class Library.
+ */
+public class Library {
+
+}
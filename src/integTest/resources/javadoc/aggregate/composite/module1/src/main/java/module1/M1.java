@@ -0,0 +1,8 @@
+package module1;
+
+/**
+ * Class M1.
+ */
+public class M1 {
+
+}
@@ -0,0 +1,18 @@
+package module1;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Class M1.
+ */
+public class M1 {
+
+	/**
+	 * Method mm1.
+	 *
+	 * @return The List
+	 */
+	public ImmutableList<String> mm1() {
+		return ImmutableList.of();
+	}
+}
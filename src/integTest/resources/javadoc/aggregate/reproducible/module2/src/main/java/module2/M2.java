@@ -0,0 +1,18 @@
+package module2;
+
+import org.apache.commons.lang3.Range;
+
+/**
+ * Class M2.
+ */
+public class M2 {
+
+	/**
+	 * Method mm2.
+	 *
+	 * @param range The Range
+	 */
+	public void mm2(Range<Integer> range) {
+
+	}
+}
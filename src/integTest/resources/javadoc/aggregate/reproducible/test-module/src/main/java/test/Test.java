@@ -0,0 +1,16 @@
+package moduel2;
+
+import org.slf4j.Logger;
+
+/**
+ * Class Test.
+ */
+public class Test {
+
+	/**
+	 * Logger
+	 *
+	 * @return The Logger
+	 */
+	Logger logger();
+}
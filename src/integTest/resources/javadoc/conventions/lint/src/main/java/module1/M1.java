@@ -0,0 +1,15 @@
+package module1;
+
+/**
+ * Class M1.
+ */
+public class M1 {
+
+	/**
+	 * Method mm1.
+	 *
+	 * @param name The name
+	 */
+	public void mm1() {
+	}
+}
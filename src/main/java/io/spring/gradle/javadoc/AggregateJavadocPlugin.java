@@ -16,27 +16,35 @@
 
 package io.spring.gradle.javadoc;
 
-import java.io.File;
-import java.util.function.Consumer;
+import java.util.Collections;
 
 import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.ConfigurationContainer;
-import org.gradle.api.artifacts.ConfigurationPublications;
-import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.DependencySet;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.dsl.DependencyHandler;
+import org.gradle.api.artifacts.transform.TransformParameters;
+import org.gradle.api.artifacts.transform.TransformSpec;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.attributes.Category;
 import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.LibraryElements;
 import org.gradle.api.attributes.Usage;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.invocation.Gradle;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.JavaPlugin;
-import org.gradle.api.plugins.JavaPluginConvention;
-import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
 
 /**
  * Provides support for aggregate javadoc.
@@ -55,12 +63,61 @@ public class AggregateJavadocPlugin implements Plugin<Project> {
 	 */
 	public static final String AGGREGATE_JAVADOC_CLASSPATH_CONFIGURATION_NAME = "aggregateJavadocClasspath";
 
+	/**
+	 * The name of the configuration that resolves the API classpath of the aggregated
+	 * projects.
+	 */
+	public static final String AGGREGATE_JAVADOC_API_CLASSPATH_CONFIGURATION_NAME = "aggregateJavadocApiClasspath";
+
+	/**
+	 * The name of the configuration that declares the external modules whose
+	 * {@code -sources.jar} is aggregated.
+	 */
+	public static final String AGGREGATE_JAVADOC_SOURCES_CONFIGURATION_NAME = "aggregateJavadocSources";
+
+	/**
+	 * The task name for incremental aggregate Javadoc.
+	 */
+	public static final String INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME = "incrementalAggregateJavadoc";
+
+	/**
+	 * The task name for packaging the aggregate Javadoc.
+	 */
+	public static final String AGGREGATE_JAVADOC_JAR_TASK_NAME = "aggregateJavadocJar";
+
+	/**
+	 * The task name for storing the aggregate Javadoc in a content-addressed store.
+	 */
+	public static final String STORE_AGGREGATE_JAVADOC_TASK_NAME = "storeAggregateJavadoc";
+
+	/**
+	 * The task name for the manifest of the aggregate Javadoc.
+	 */
+	public static final String AGGREGATE_JAVADOC_MANIFEST_TASK_NAME = "aggregateJavadocManifest";
+
+	/**
+	 * The task name for publishing the aggregate Javadoc incrementally.
+	 */
+	public static final String PUBLISH_AGGREGATE_JAVADOC_TASK_NAME = "publishAggregateJavadoc";
+
+	private static final Attribute<String> ARTIFACT_TYPE_ATTRIBUTE = Attribute.of("artifactType", String.class);
+
 	@Override
 	public void apply(Project project) {
 		project.getPlugins().apply(JavaPlugin.class);
+		JavadocPackages packages = JavadocPackages.of(project);
 		Configuration aggregatedConfiguration = aggregatedConfiguration(project);
-		Configuration sourcesPath = sourcesPath(project, aggregatedConfiguration);
-		aggregatedJavadoc(project, sourcesPath, aggregatedConfiguration);
+		Configuration externalSources = externalSources(project, aggregatedConfiguration);
+		Configuration sourcesPath = sourcesPath(project, aggregatedConfiguration, externalSources);
+		Configuration apiClasspath = apiClasspath(project, aggregatedConfiguration);
+		boolean reproducible = ReproducibleJavadoc.isEnabled(project);
+		TaskProvider<Javadoc> aggregateJavadoc = aggregatedJavadoc(project, sourcesPath, aggregatedConfiguration,
+				apiClasspath, packages);
+		incrementalAggregatedJavadoc(project, sourcesPath, aggregatedConfiguration, apiClasspath, packages,
+				reproducible);
+		aggregatedJavadocJar(project, aggregateJavadoc, reproducible);
+		storeAggregatedJavadoc(project, aggregateJavadoc);
+		publishAggregatedJavadoc(project, aggregateJavadoc);
 	}
 
 	private Configuration aggregatedConfiguration(Project project) {
@@ -68,34 +125,114 @@ public class AggregateJavadocPlugin implements Plugin<Project> {
 		Configuration aggregatedConfiguration = configurations
 				.maybeCreate(AGGREGATE_JAVADOC_CLASSPATH_CONFIGURATION_NAME);
 		configurations.getByName(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME).extendsFrom(aggregatedConfiguration);
+		aggregatedConfiguration.setCanBeConsumed(false);
+		aggregatedConfiguration.attributes(new Action<AttributeContainer>() {
+			@Override
+			public void execute(AttributeContainer attributes) {
+				ObjectFactory objects = project.getObjects();
+				attributes.attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.class, Usage.JAVA_RUNTIME));
+				attributes.attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category.class, Category.LIBRARY));
+				attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE,
+						objects.named(LibraryElements.class, LibraryElements.CLASSES));
+			}
+		});
+		Provider<JavadocContributors> contributors = JavadocContributors.registerIfAbsent(project.getGradle());
+		String aggregatorPath = project.getPath();
+		Gradle gradle = project.getGradle();
+		DependencyHandler dependencies = project.getDependencies();
 		aggregatedConfiguration.defaultDependencies(new Action<DependencySet>() {
 			@Override
 			public void execute(DependencySet defaultDependencies) {
-				project.getGradle().getRootProject().subprojects(new Action<Project>() {
-					@Override
-					public void execute(Project subproject) {
-						subproject.getPlugins().withType(JavadocPlugin.class, new Action<JavadocPlugin>() {
-							@Override
-							public void execute(JavadocPlugin javadoc) {
-								Dependency dependency = project.getDependencies().create(subproject);
-								defaultDependencies.add(dependency);
-							}
-						});
+				if (gradle.getStartParameter().isConfigureOnDemand()) {
+					evaluateOtherProjects(project);
+				}
+				for (String path : contributors.get().getProjectPaths()) {
+					if (path.equals(aggregatorPath)) {
+						continue;
 					}
-				});
+					defaultDependencies.add(dependencies.project(Collections.singletonMap("path", path)));
+				}
+				for (String coordinates : IncludedBuildContributors.getCoordinates(gradle)) {
+					defaultDependencies.add(dependencies.create(coordinates));
+				}
 			}
 		});
 		return aggregatedConfiguration;
 	}
 
-	private Configuration sourcesPath(Project project, Configuration aggregatedConfiguration) {
+	/**
+	 * Evaluates the other projects of the build, so that the projects with
+	 * {@link JavadocPlugin} applied have registered themselves with
+	 * {@link JavadocContributors}. This is only needed with configure on demand, where
+	 * Gradle only configures the projects that the requested tasks need, and uses the
+	 * project hierarchy only, not the state of the projects.
+	 * @param project the aggregating project
+	 */
+	private static void evaluateOtherProjects(Project project) {
+		for (Project other : project.getRootProject().getSubprojects()) {
+			if (other != project) {
+				project.evaluationDependsOn(other.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Creates the configuration that declares external modules whose
+	 * {@code -sources.jar} is aggregated. The modules are also added to the classpath.
+	 * Each jar is unpacked by {@link UnpackJavadocSources} into a directory, like the
+	 * sources that projects with {@link JavadocPlugin} publish.
+	 * @param project the aggregating project
+	 * @param aggregatedConfiguration the configuration of the aggregated projects
+	 * @return the configuration
+	 */
+	private Configuration externalSources(Project project, Configuration aggregatedConfiguration) {
+		DependencyHandler dependencies = project.getDependencies();
+		dependencies.getAttributesSchema().attribute(UnpackJavadocSources.UNPACKED_ATTRIBUTE);
+		dependencies.registerTransform(UnpackJavadocSources.class,
+				new Action<TransformSpec<TransformParameters.None>>() {
+					@Override
+					public void execute(TransformSpec<TransformParameters.None> spec) {
+						ObjectFactory objects = project.getObjects();
+						spec.getFrom().attribute(ARTIFACT_TYPE_ATTRIBUTE, ArtifactTypeDefinition.JAR_TYPE)
+								.attribute(Category.CATEGORY_ATTRIBUTE,
+										objects.named(Category.class, Category.DOCUMENTATION))
+								.attribute(DocsType.DOCS_TYPE_ATTRIBUTE,
+										objects.named(DocsType.class, DocsType.SOURCES))
+								.attribute(UnpackJavadocSources.UNPACKED_ATTRIBUTE, false);
+						spec.getTo().attribute(ARTIFACT_TYPE_ATTRIBUTE, ArtifactTypeDefinition.DIRECTORY_TYPE)
+								.attribute(UnpackJavadocSources.UNPACKED_ATTRIBUTE, true);
+					}
+				});
+		Configuration externalSources = project.getConfigurations()
+				.create(AGGREGATE_JAVADOC_SOURCES_CONFIGURATION_NAME, new Action<Configuration>() {
+					@Override
+					public void execute(Configuration externalSources) {
+						externalSources.setCanBeResolved(false);
+						externalSources.setCanBeConsumed(false);
+						externalSources.getDependencies().withType(ExternalModuleDependency.class,
+								new Action<ExternalModuleDependency>() {
+									@Override
+									public void execute(ExternalModuleDependency dependency) {
+										dependencies.getComponents().withModule(
+												dependency.getGroup() + ":" + dependency.getName(),
+												JavadocSourcesVariantRule.class);
+									}
+								});
+					}
+				});
+		aggregatedConfiguration.extendsFrom(externalSources);
+		return externalSources;
+	}
+
+	private Configuration sourcesPath(Project project, Configuration aggregatedConfiguration,
+			Configuration externalSources) {
 		ConfigurationContainer configurations = project.getConfigurations();
 		return configurations.create("sourcesPath", new Action<Configuration>() {
 			@Override
 			public void execute(Configuration sourcesPath) {
 				sourcesPath.setCanBeResolved(true);
 				sourcesPath.setCanBeConsumed(false);
-				sourcesPath.extendsFrom(aggregatedConfiguration);
+				sourcesPath.extendsFrom(aggregatedConfiguration, externalSources);
 				sourcesPath.attributes(new Action<AttributeContainer>() {
 					@Override
 					public void execute(AttributeContainer attributes) {
@@ -106,36 +243,166 @@ public class AggregateJavadocPlugin implements Plugin<Project> {
 						attributes.attribute(DocsType.DOCS_TYPE_ATTRIBUTE,
 								objects.named(DocsType.class, DocsType.SOURCES));
 						attributes.attribute(Attribute.of("org.gradle.docselements", String.class), "sources");
+						attributes.attribute(ARTIFACT_TYPE_ATTRIBUTE, ArtifactTypeDefinition.DIRECTORY_TYPE);
+						attributes.attribute(UnpackJavadocSources.UNPACKED_ATTRIBUTE, true);
 					}
 				});
-				sourcesPath.outgoing(new Action<ConfigurationPublications>() {
+			}
+		});
+	}
+
+	/**
+	 * Creates the configuration that resolves the API classpath of the aggregated
+	 * projects, that is the classes of the projects and what they are compiled against,
+	 * resolved to the API of each dependency rather than to everything that the projects
+	 * need at runtime.
+	 * @param project the aggregating project
+	 * @param aggregatedConfiguration the configuration of the aggregated projects
+	 * @return the API classpath
+	 */
+	private Configuration apiClasspath(Project project, Configuration aggregatedConfiguration) {
+		ConfigurationContainer configurations = project.getConfigurations();
+		project.getDependencies().getAttributesSchema().attribute(Usage.USAGE_ATTRIBUTE).getCompatibilityRules()
+				.add(JavadocClasspathCompatibilityRule.class);
+		return configurations.create(AGGREGATE_JAVADOC_API_CLASSPATH_CONFIGURATION_NAME,
+				new Action<Configuration>() {
 					@Override
-					public void execute(ConfigurationPublications publications) {
-						JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
-						SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
-						mainSrc.getAllJava().forEach(new Consumer<File>() {
+					public void execute(Configuration apiClasspath) {
+						apiClasspath.setCanBeResolved(true);
+						apiClasspath.setCanBeConsumed(false);
+						apiClasspath.extendsFrom(aggregatedConfiguration);
+						apiClasspath.attributes(new Action<AttributeContainer>() {
 							@Override
-							public void accept(File file) {
-								publications.artifact(file);
+							public void execute(AttributeContainer attributes) {
+								ObjectFactory objects = project.getObjects();
+								attributes.attribute(Usage.USAGE_ATTRIBUTE,
+										objects.named(Usage.class, JavadocClasspathCompatibilityRule.USAGE));
+								attributes.attribute(Category.CATEGORY_ATTRIBUTE,
+										objects.named(Category.class, Category.LIBRARY));
+								attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE,
+										objects.named(LibraryElements.class, LibraryElements.CLASSES));
 							}
 						});
 					}
 				});
-			}
-		});
 	}
 
-	private void aggregatedJavadoc(Project project, Configuration sourcesPath, Configuration aggregatedConfiguration) {
-		project.getTasks().create(AGGREGATE_JAVADOC_TASK_NAME, Javadoc.class, new Action<Javadoc>() {
+	private TaskProvider<Javadoc> aggregatedJavadoc(Project project, Configuration sourcesPath,
+			Configuration aggregatedConfiguration, Configuration apiClasspath, JavadocPackages packages) {
+		return project.getTasks().register(AGGREGATE_JAVADOC_TASK_NAME, Javadoc.class, new Action<Javadoc>() {
 			@Override
 			public void execute(Javadoc javadoc) {
 				javadoc.setGroup("Documentation");
 				javadoc.setDescription("Generates the aggregate Javadoc");
-				ConfigurationContainer configurations = project.getConfigurations();
 				javadoc.setSource(sourcesPath);
-				javadoc.setClasspath(aggregatedConfiguration);
+				javadoc.include("**/*.java");
+				packages.excludeFrom(javadoc);
+				javadoc.setClasspath(
+						ApiClasspath.of(project, aggregatedConfiguration, apiClasspath, javadoc.getSource()));
+				JavadocMetrics.configure(javadoc, project.getBuildDir(), sourcesPath.getIncoming().getArtifacts());
+				if (SeparateDoclint.isEnabled(project)) {
+					SeparateDoclint.disable((StandardJavadocDocletOptions) javadoc.getOptions());
+				}
+				if (CompactSearchIndex.isEnabled(project)) {
+					CompactSearchIndex.configure(javadoc);
+				}
 			}
 		});
 	}
 
+	private void incrementalAggregatedJavadoc(Project project, Configuration sourcesPath,
+			Configuration aggregatedConfiguration, Configuration apiClasspath, JavadocPackages packages,
+			boolean reproducible) {
+		project.getTasks().register(INCREMENTAL_AGGREGATE_JAVADOC_TASK_NAME, IncrementalAggregateJavadoc.class,
+				new Action<IncrementalAggregateJavadoc>() {
+					@Override
+					public void execute(IncrementalAggregateJavadoc javadoc) {
+						javadoc.setGroup("Documentation");
+						javadoc.setDescription(
+								"Generates the aggregate Javadoc, regenerating only the modules whose sources changed");
+						javadoc.setSources(sourcesPath.getIncoming().getArtifacts());
+						javadoc.getPackageIncludes().set(packages.getIncludes());
+						javadoc.getPackageExcludes().set(packages.getExcludes());
+						javadoc.getClasspath().from(ApiClasspath.of(project, aggregatedConfiguration, apiClasspath,
+								javadoc.getSourceFiles()));
+						javadoc.getModuleClasses().from(aggregatedConfiguration.getIncoming()
+								.artifactView((view) -> view.componentFilter(
+										(component) -> component instanceof ProjectComponentIdentifier))
+								.getFiles());
+						ProjectLayout layout = project.getLayout();
+						javadoc.getModulesDirectory()
+								.set(layout.getBuildDirectory().dir("tmp/" + javadoc.getName() + "/modules"));
+						javadoc.getDestinationDirectory()
+								.set(layout.getBuildDirectory().dir("docs/" + javadoc.getName()));
+						if (reproducible) {
+							javadoc.getOutputs().cacheIf("reproducible mode is enabled", (task) -> true);
+						}
+						if (SeparateDoclint.isEnabled(project)) {
+							SeparateDoclint.disable(javadoc.getOptions());
+						}
+					}
+				});
+	}
+
+	private void aggregatedJavadocJar(Project project, TaskProvider<Javadoc> aggregateJavadoc, boolean reproducible) {
+		project.getTasks().register(AGGREGATE_JAVADOC_JAR_TASK_NAME, JavadocJar.class, new Action<JavadocJar>() {
+			@Override
+			public void execute(JavadocJar jar) {
+				jar.setGroup("Documentation");
+				jar.setDescription("Packages the aggregate Javadoc into a jar");
+				jar.dependsOn(aggregateJavadoc);
+				ProjectLayout layout = project.getLayout();
+				jar.getSource().set(layout.dir(aggregateJavadoc.map(Javadoc::getDestinationDir)));
+				jar.getArchiveFile().set(layout.getBuildDirectory().file("libs/" + project.getName() + "-javadoc.jar"));
+				if (reproducible) {
+					jar.getPreserveFileTimestamps().set(false);
+				}
+			}
+		});
+	}
+
+	private void storeAggregatedJavadoc(Project project, TaskProvider<Javadoc> aggregateJavadoc) {
+		project.getTasks().register(STORE_AGGREGATE_JAVADOC_TASK_NAME, JavadocStore.class, new Action<JavadocStore>() {
+			@Override
+			public void execute(JavadocStore store) {
+				store.setGroup("Documentation");
+				store.setDescription("Stores the aggregate Javadoc as a version of a content-addressed store");
+				store.dependsOn(aggregateJavadoc);
+				ProjectLayout layout = project.getLayout();
+				store.getSource().set(layout.dir(aggregateJavadoc.map(Javadoc::getDestinationDir)));
+				store.getStoreDirectory().convention(layout.getBuildDirectory().dir("javadoc-store"));
+				store.getVersion().convention(project.provider(() -> project.getVersion().toString()));
+			}
+		});
+	}
+
+	private void publishAggregatedJavadoc(Project project, TaskProvider<Javadoc> aggregateJavadoc) {
+		ProjectLayout layout = project.getLayout();
+		Provider<Directory> source = layout.dir(aggregateJavadoc.map(Javadoc::getDestinationDir));
+		TaskProvider<GenerateJavadocManifest> manifest = project.getTasks().register(
+				AGGREGATE_JAVADOC_MANIFEST_TASK_NAME, GenerateJavadocManifest.class,
+				new Action<GenerateJavadocManifest>() {
+					@Override
+					public void execute(GenerateJavadocManifest manifest) {
+						manifest.setGroup("Documentation");
+						manifest.setDescription("Hashes each file of the aggregate Javadoc");
+						manifest.dependsOn(aggregateJavadoc);
+						manifest.getSource().set(source);
+						manifest.getManifestFile()
+								.set(layout.getBuildDirectory().file("javadoc-manifest/" + AGGREGATE_JAVADOC_TASK_NAME
+										+ ContentAddressedStore.MANIFEST_EXTENSION));
+					}
+				});
+		project.getTasks().register(PUBLISH_AGGREGATE_JAVADOC_TASK_NAME, JavadocPublish.class,
+				new Action<JavadocPublish>() {
+					@Override
+					public void execute(JavadocPublish publish) {
+						publish.setGroup("Documentation");
+						publish.setDescription("Publishes the files of the aggregate Javadoc that changed");
+						publish.getSource().set(source);
+						publish.getManifestFile().set(manifest.flatMap(GenerateJavadocManifest::getManifestFile));
+					}
+				});
+	}
+
 }
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+
+/**
+ * Support for the javadoc classpath of the aggregate Javadoc, which is selected with the
+ * {@value #PROPERTY_NAME} project property:
+ * <ul>
+ * <li>{@value #RUNTIME}, the default, is the runtime classpath of the aggregated
+ * projects.</li>
+ * <li>{@value #API} is what the aggregated projects are compiled against, resolved to
+ * the API of each dependency, so it does not contain the dependencies that are only
+ * needed at runtime.</li>
+ * <li>{@value #SIGNATURES} is the API classpath pruned to the entries that contain the
+ * types that the documented sources import or refer to in their declarations,
+ * signatures and doc comments, together with the supertypes of those types.</li>
+ * </ul>
+ *
+ * @author Rob Winch
+ */
+final class ApiClasspath {
+
+	/**
+	 * The name of the project property that selects the javadoc classpath.
+	 */
+	static final String PROPERTY_NAME = "io.spring.javadoc.classpath";
+
+	static final String RUNTIME = "runtime";
+
+	static final String API = "api";
+
+	static final String SIGNATURES = "signatures";
+
+	private static final Pattern DOC_REFERENCE = Pattern
+			.compile("(?:\\{@link|\\{@linkplain|@see|@throws|@exception)\\s+([\\w$.]+)");
+
+	private ApiClasspath() {
+	}
+
+	static String mode(Project project) {
+		Object mode = project.findProperty(PROPERTY_NAME);
+		return (mode != null) ? mode.toString() : RUNTIME;
+	}
+
+	/**
+	 * Returns the javadoc classpath that the {@value #PROPERTY_NAME} project property
+	 * selects.
+	 * @param project the aggregating project
+	 * @param runtimeClasspath the runtime classpath of the aggregated projects
+	 * @param apiClasspath the API classpath of the aggregated projects
+	 * @param sources the documented sources
+	 * @return the classpath
+	 */
+	static FileCollection of(Project project, Configuration runtimeClasspath, Configuration apiClasspath,
+			FileCollection sources) {
+		String mode = mode(project);
+		if (RUNTIME.equals(mode)) {
+			return runtimeClasspath;
+		}
+		if (API.equals(mode)) {
+			return apiClasspath;
+		}
+		if (!SIGNATURES.equals(mode)) {
+			throw new IllegalArgumentException("Unsupported value '" + mode + "' of " + PROPERTY_NAME
+					+ ". Use one of " + RUNTIME + ", " + API + " or " + SIGNATURES);
+		}
+		Callable<List<File>> prune = () -> prune(sources, apiClasspath);
+		ConfigurableFileCollection pruned = project.files(prune);
+		pruned.builtBy(apiClasspath, sources);
+		return pruned;
+	}
+
+	/**
+	 * Prunes a classpath to the entries that contain the types that the sources import or
+	 * refer to in their declarations, signatures and doc comments, and the supertypes of
+	 * those types.
+	 * @param sources the source files
+	 * @param classpath the classpath
+	 * @return the entries of the classpath that are needed, in classpath order
+	 */
+	static List<File> prune(Iterable<File> sources, Iterable<File> classpath) {
+		try (ClassIndex index = new ClassIndex(classpath)) {
+			Deque<String> pending = new ArrayDeque<>();
+			for (File source : sources) {
+				if (source.getName().endsWith(".java")) {
+					pending.addAll(references(DocumentedApiFingerprint.tokens(source.toPath())));
+				}
+			}
+			Set<String> visited = new HashSet<>();
+			Set<File> needed = new HashSet<>();
+			while (!pending.isEmpty()) {
+				String name = pending.poll();
+				List<File> entries = index.entries(name);
+				if (entries.isEmpty() || !visited.add(name)) {
+					continue;
+				}
+				needed.addAll(entries);
+				pending.addAll(index.supertypes(name));
+			}
+			return index.entries.stream().filter(needed::contains).collect(Collectors.toList());
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Returns the fully qualified names of the types and packages that the tokens of a
+	 * source file may refer to. Every import is included, since javadoc resolves the
+	 * imports whether or not they are used in signatures. Other simple names are
+	 * qualified with the package of the file and its on-demand imports, so some of the
+	 * names may not exist. Packages are named with a trailing {@code .*}.
+	 * @param tokens the tokens of the source file
+	 * @return the qualified names
+	 */
+	static Set<String> references(List<String> tokens) {
+		String packageName = "";
+		Map<String, String> imports = new HashMap<>();
+		List<String> onDemandImports = new ArrayList<>();
+		Set<String> names = new LinkedHashSet<>();
+		Set<String> references = new LinkedHashSet<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (token.startsWith("/**")) {
+				Matcher matcher = DOC_REFERENCE.matcher(token);
+				while (matcher.find()) {
+					names.add(matcher.group(1));
+				}
+			}
+			else if ("package".equals(token) || "import".equals(token)) {
+				StringBuilder name = new StringBuilder();
+				int end = i + 1;
+				boolean staticImport = end < tokens.size() && "static".equals(tokens.get(end));
+				if (staticImport) {
+					end++;
+				}
+				while (end < tokens.size() && !";".equals(tokens.get(end))) {
+					name.append(tokens.get(end++));
+				}
+				i = end;
+				String qualified = name.toString();
+				if ("package".equals(token)) {
+					packageName = qualified;
+				}
+				else if (staticImport) {
+					references.add(qualified.substring(0, Math.max(0, qualified.lastIndexOf('.'))));
+				}
+				else if (qualified.endsWith(".*")) {
+					references.add(qualified);
+					onDemandImports.add(qualified.substring(0, qualified.length() - 2));
+				}
+				else {
+					references.add(qualified);
+					imports.put(qualified.substring(qualified.lastIndexOf('.') + 1), qualified);
+				}
+			}
+			else if (Character.isJavaIdentifierStart(token.charAt(0))) {
+				StringBuilder name = new StringBuilder(token);
+				while (i + 2 < tokens.size() && ".".equals(tokens.get(i + 1))
+						&& Character.isJavaIdentifierStart(tokens.get(i + 2).charAt(0))) {
+					name.append('.').append(tokens.get(i + 2));
+					i += 2;
+				}
+				names.add(name.toString());
+			}
+		}
+		for (String name : names) {
+			String first = name.split("\\.")[0];
+			if (imports.containsKey(first)) {
+				continue;
+			}
+			if (!Character.isUpperCase(first.charAt(0))) {
+				if (name.indexOf('.') < 0) {
+					continue;
+				}
+				for (int dot = name.lastIndexOf('.'); dot > 0; dot = name.lastIndexOf('.', dot - 1)) {
+					references.add(name.substring(0, dot));
+				}
+				references.add(name);
+				continue;
+			}
+			if (!packageName.isEmpty()) {
+				references.add(packageName + "." + first);
+			}
+			for (String onDemandImport : onDemandImports) {
+				references.add(onDemandImport + "." + first);
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * The classes of each entry of a classpath, named by their qualified names with the
+	 * names of nested classes separated by {@code .}. A class is found in the first entry
+	 * that contains it, while a package is found in every entry that contains one of its
+	 * classes, since an on-demand import may refer to the classes of any of them.
+	 */
+	private static final class ClassIndex implements AutoCloseable {
+
+		private final List<File> entries = new ArrayList<>();
+
+		private final Map<String, File> entryByClass = new HashMap<>();
+
+		private final Map<String, String> pathByClass = new HashMap<>();
+
+		private final Map<String, Set<File>> entriesByPackage = new HashMap<>();
+
+		private final Map<File, ZipFile> archives = new HashMap<>();
+
+		private ClassIndex(Iterable<File> classpath) throws IOException {
+			for (File entry : classpath) {
+				this.entries.add(entry);
+				for (String path : classFiles(entry)) {
+					String name = path.substring(0, path.length() - ".class".length()).replace('/', '.')
+							.replace('$', '.');
+					this.entryByClass.putIfAbsent(name, entry);
+					this.pathByClass.putIfAbsent(name, path);
+					int slash = path.lastIndexOf('/');
+					String packageName = path.substring(0, Math.max(0, slash)).replace('/', '.') + ".*";
+					this.entriesByPackage.computeIfAbsent(packageName, (key) -> new LinkedHashSet<>()).add(entry);
+				}
+			}
+		}
+
+		private List<String> classFiles(File entry) throws IOException {
+			List<String> paths = new ArrayList<>();
+			if (entry.isDirectory()) {
+				Path root = entry.toPath();
+				try (Stream<Path> files = Files.walk(root)) {
+					files.filter(Files::isRegularFile)
+							.map((file) -> root.relativize(file).toString().replace('\\', '/'))
+							.filter(ApiClasspath::isClassFile).forEach(paths::add);
+				}
+			}
+			else if (entry.isFile()) {
+				ZipFile archive = new ZipFile(entry);
+				this.archives.put(entry, archive);
+				archive.stream().map(ZipEntry::getName).filter(ApiClasspath::isClassFile).forEach(paths::add);
+			}
+			return paths;
+		}
+
+		private List<File> entries(String name) {
+			if (name.endsWith(".*")) {
+				return new ArrayList<>(this.entriesByPackage.getOrDefault(name, Collections.emptySet()));
+			}
+			File entry = this.entryByClass.get(name);
+			return (entry != null) ? Collections.singletonList(entry) : Collections.emptyList();
+		}
+
+		private List<String> supertypes(String name) throws IOException {
+			if (name.endsWith(".*")) {
+				return new ArrayList<>();
+			}
+			File entry = this.entryByClass.get(name);
+			String path = this.pathByClass.get(name);
+			ZipFile archive = this.archives.get(entry);
+			try (InputStream input = (archive != null) ? archive.getInputStream(archive.getEntry(path))
+					: Files.newInputStream(entry.toPath().resolve(path))) {
+				List<String> supertypes = new ArrayList<>();
+				for (String supertype : ClassFile.supertypes(input)) {
+					supertypes.add(supertype.replace('/', '.').replace('$', '.'));
+				}
+				return supertypes;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (ZipFile archive : this.archives.values()) {
+				archive.close();
+			}
+		}
+
+	}
+
+	private static boolean isClassFile(String path) {
+		return path.endsWith(".class") && !path.startsWith("META-INF/") && !path.endsWith("module-info.class")
+				&& !path.endsWith("package-info.class");
+	}
+
+	/**
+	 * Reads the names of the superclass and the interfaces from a class file.
+	 */
+	private static final class ClassFile {
+
+		private ClassFile() {
+		}
+
+		static List<String> supertypes(InputStream input) throws IOException {
+			DataInputStream data = new DataInputStream(input);
+			if (data.readInt() != 0xCAFEBABE) {
+				return new ArrayList<>();
+			}
+			data.readUnsignedShort();
+			data.readUnsignedShort();
+			int count = data.readUnsignedShort();
+			String[] utf8 = new String[count];
+			int[] classNames = new int[count];
+			for (int i = 1; i < count; i++) {
+				int tag = data.readUnsignedByte();
+				switch (tag) {
+				case 1:
+					utf8[i] = data.readUTF();
+					break;
+				case 7:
+					classNames[i] = data.readUnsignedShort();
+					break;
+				case 8:
+				case 16:
+				case 19:
+				case 20:
+					data.skipBytes(2);
+					break;
+				case 15:
+					data.skipBytes(3);
+					break;
+				case 3:
+				case 4:
+				case 9:
+				case 10:
+				case 11:
+				case 12:
+				case 17:
+				case 18:
+					data.skipBytes(4);
+					break;
+				case 5:
+				case 6:
+					data.skipBytes(8);
+					i++;
+					break;
+				default:
+					throw new IOException("Unknown constant pool tag " + tag);
+				}
+			}
+			data.readUnsignedShort();
+			data.readUnsignedShort();
+			List<String> supertypes = new ArrayList<>();
+			int superclass = data.readUnsignedShort();
+			if (superclass != 0) {
+				supertypes.add(utf8[classNames[superclass]]);
+			}
+			int interfaces = data.readUnsignedShort();
+			for (int i = 0; i < interfaces; i++) {
+				supertypes.add(utf8[classNames[data.readUnsignedShort()]]);
+			}
+			return supertypes;
+		}
+
+	}
+
+}
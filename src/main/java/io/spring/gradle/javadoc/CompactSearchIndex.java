@@ -0,0 +1,438 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.javadoc.Javadoc;
+
+/**
+ * Rewrites the package, type and member search indexes of a generated Javadoc site into
+ * a compact form that is loaded on demand. It is enabled by setting the
+ * {@value #PROPERTY_NAME} project property to {@code true}.
+ * <p>
+ * Each entry is added to a shard for the first two characters of every word of its name,
+ * so that {@code HashMap} is in the {@code ha} and {@code ma} shards. Shards with more
+ * than {@value #MAX_SHARD_ENTRIES} entries are split by the next character, up to
+ * {@value #MAX_KEY_LENGTH} characters, so that common prefixes such as {@code re} are
+ * spread over {@code reg}, {@code res} and so on. Shards store their entries as arrays,
+ * which start with the position of the entry in the index so that entries in several
+ * shards are only added once, and share repeated package, class and module names through
+ * a string table. The original index scripts are replaced by scripts that only hold the
+ * entries that link to the summary pages and that load {@code search-index/loader.js},
+ * which loads the shards that a query needs as it is typed.
+ *
+ * @author Rob Winch
+ */
+final class CompactSearchIndex {
+
+	/**
+	 * The name of the project property that enables the compact search index.
+	 */
+	static final String PROPERTY_NAME = "io.spring.javadoc.search.compact";
+
+	/**
+	 * The name of the directory of the site that holds the shards.
+	 */
+	static final String DIRECTORY_NAME = "search-index";
+
+	private static final int MIN_KEY_LENGTH = 2;
+
+	private static final int MAX_KEY_LENGTH = 4;
+
+	private static final int MAX_SHARD_ENTRIES = 1000;
+
+	private static final String LOADER_RESOURCE_NAME = "/io/spring/gradle/javadoc/internal/search-index-loader.js";
+
+	private static final String[] KINDS = { "package", "type", "member" };
+
+	private static final Set<String> SHARED_KEYS = new TreeSet<>(Arrays.asList("p", "c", "m"));
+
+	private static final String BOOTSTRAP = ";(function(){if(!window.javadocSearchShard){"
+			+ "window.javadocSearchShard=function(){};var s=document.createElement('script');"
+			+ "s.src=document.currentScript.src.replace(/[^\\/]*$/,'" + DIRECTORY_NAME + "/loader.js');"
+			+ "document.head.appendChild(s);}})();";
+
+	private CompactSearchIndex() {
+	}
+
+	static boolean isEnabled(Project project) {
+		Object compact = project.findProperty(PROPERTY_NAME);
+		return (compact != null) && Boolean.parseBoolean(compact.toString());
+	}
+
+	/**
+	 * Configures a task to compact the search index of the site that it generates.
+	 * @param javadoc the task to configure
+	 */
+	static void configure(Javadoc javadoc) {
+		javadoc.doLast(new Compact());
+	}
+
+	/**
+	 * Compacts the search index of a site. Sites without a search index, such as those
+	 * generated by Java 8, and sites that were already compacted are left unchanged.
+	 * @param site the directory of the site
+	 * @return the number of shards that were written
+	 * @throws IOException if the site cannot be read or written
+	 */
+	static int compact(Path site) throws IOException {
+		Map<String, Set<String>> shardsByKind = new LinkedHashMap<>();
+		Path directory = site.resolve(DIRECTORY_NAME);
+		if (Files.exists(directory.resolve("loader.js"))) {
+			return 0;
+		}
+		for (String kind : KINDS) {
+			Path script = site.resolve(kind + "-search-index.js");
+			if (!Files.isRegularFile(script)) {
+				continue;
+			}
+			String content = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+			int start = content.indexOf('[');
+			int end = content.lastIndexOf(']');
+			if (start == -1 || end < start) {
+				continue;
+			}
+			List<String> inline = new ArrayList<>();
+			List<IndexEntry> sharded = new ArrayList<>();
+			for (Map<String, String> entry : parseEntries(content.substring(start, end + 1))) {
+				if (!entry.containsKey("p") && (entry.containsKey("u") || entry.containsKey("url"))) {
+					inline.add(toJson(entry));
+				}
+				else {
+					sharded.add(new IndexEntry(sharded.size(), entry));
+				}
+			}
+			Map<String, List<IndexEntry>> shards = new TreeMap<>();
+			addShards(shards, sharded, "", MIN_KEY_LENGTH);
+			Files.createDirectories(directory);
+			for (Map.Entry<String, List<IndexEntry>> shard : shards.entrySet()) {
+				write(directory.resolve(kind + "-" + shard.getKey() + ".js"),
+						"javadocSearchShard(\"" + kind + "\"," + shardJson(shard.getValue()) + ");");
+			}
+			shardsByKind.put(kind, shards.keySet());
+			String entries = String.join(",", inline);
+			write(script, content.substring(0, start + 1) + entries + content.substring(end) + BOOTSTRAP);
+			Path archive = site.resolve(kind + "-search-index.zip");
+			if (Files.isRegularFile(archive)) {
+				writeArchive(archive, kind + "-search-index.json", "[" + entries + "]");
+			}
+		}
+		if (shardsByKind.isEmpty()) {
+			return 0;
+		}
+		write(directory.resolve("loader.js"), loader().replace("/*SHARDS*/{}", manifestJson(shardsByKind)));
+		return shardsByKind.values().stream().mapToInt(Set::size).sum();
+	}
+
+	private static void addShards(Map<String, List<IndexEntry>> shards, List<IndexEntry> entries, String prefix,
+			int length) {
+		Map<String, List<IndexEntry>> buckets = new TreeMap<>();
+		for (IndexEntry entry : entries) {
+			for (String word : entry.words) {
+				if (!word.startsWith(prefix)) {
+					continue;
+				}
+				List<IndexEntry> bucket = buckets
+						.computeIfAbsent(word.substring(0, Math.min(length, word.length())), (k) -> new ArrayList<>());
+				if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != entry) {
+					bucket.add(entry);
+				}
+			}
+		}
+		for (Map.Entry<String, List<IndexEntry>> bucket : buckets.entrySet()) {
+			String key = bucket.getKey();
+			if (key.length() == length && length < MAX_KEY_LENGTH && bucket.getValue().size() > MAX_SHARD_ENTRIES) {
+				addShards(shards, bucket.getValue(), key, length + 1);
+			}
+			else {
+				shards.put(key, bucket.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns the words of a name that its entry is indexed by. Words start at the
+	 * beginning of the name, at each upper case character and after each character that
+	 * is not a letter or a digit. Words are lower case, limited to
+	 * {@value #MAX_KEY_LENGTH} characters and characters other than letters and digits
+	 * are replaced by {@code _}. The parameters of a member are ignored.
+	 * @param name the name of the entry
+	 * @return the words
+	 */
+	static Set<String> words(String name) {
+		int parameters = name.indexOf('(');
+		String simpleName = (parameters != -1) ? name.substring(0, parameters) : name;
+		Set<String> words = new TreeSet<>();
+		for (int i = 0; i < simpleName.length(); i++) {
+			char c = simpleName.charAt(i);
+			if (!Character.isLetterOrDigit(c)) {
+				continue;
+			}
+			char previous = (i > 0) ? simpleName.charAt(i - 1) : ' ';
+			if (i == 0 || Character.isUpperCase(c) || !Character.isLetterOrDigit(previous)) {
+				words.add(normalize(simpleName.substring(i, Math.min(i + MAX_KEY_LENGTH, simpleName.length()))));
+			}
+		}
+		if (words.isEmpty()) {
+			words.add("_");
+		}
+		return words;
+	}
+
+	private static String normalize(String prefix) {
+		StringBuilder key = new StringBuilder(prefix.length());
+		for (char c : prefix.toLowerCase(Locale.ROOT).toCharArray()) {
+			key.append(((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) ? c : '_');
+		}
+		return key.toString();
+	}
+
+	private static String shardJson(List<IndexEntry> entries) {
+		List<String> keys = new ArrayList<>();
+		for (IndexEntry entry : entries) {
+			for (String key : entry.values.keySet()) {
+				if (!keys.contains(key)) {
+					keys.add(key);
+				}
+			}
+		}
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		StringBuilder rows = new StringBuilder(entries.size() * 64);
+		for (IndexEntry entry : entries) {
+			rows.append((rows.length() > 0) ? ",[" : "[").append(entry.id);
+			int nulls = 0;
+			for (String key : keys) {
+				String value = entry.values.get(key);
+				if (value == null) {
+					nulls++;
+					continue;
+				}
+				for (; nulls > 0; nulls--) {
+					rows.append(",null");
+				}
+				rows.append(',');
+				if (SHARED_KEYS.contains(key)) {
+					rows.append(strings.computeIfAbsent(value, (v) -> strings.size()));
+				}
+				else {
+					rows.append(value);
+				}
+			}
+			rows.append(']');
+		}
+		List<String> quotedKeys = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			quotedKeys.add("\"" + key + "\"");
+		}
+		return "{\"k\":[" + String.join(",", quotedKeys) + "],\"s\":[" + String.join(",", strings.keySet())
+				+ "],\"e\":[" + rows + "]}";
+	}
+
+	private static String manifestJson(Map<String, Set<String>> shardsByKind) {
+		List<String> kinds = new ArrayList<>();
+		for (Map.Entry<String, Set<String>> kind : shardsByKind.entrySet()) {
+			List<String> keys = new ArrayList<>();
+			for (String key : kind.getValue()) {
+				keys.add("\"" + key + "\"");
+			}
+			kinds.add("\"" + kind.getKey() + "\":[" + String.join(",", keys) + "]");
+		}
+		return "{" + String.join(",", kinds) + "}";
+	}
+
+	/**
+	 * Writes an object that was parsed by {@link #parseEntries(String)} as JSON.
+	 * @param entry the object
+	 * @return the JSON object
+	 */
+	static String toJson(Map<String, String> entry) {
+		List<String> members = new ArrayList<>();
+		for (Map.Entry<String, String> member : entry.entrySet()) {
+			members.add("\"" + member.getKey() + "\":" + member.getValue());
+		}
+		return "{" + String.join(",", members) + "}";
+	}
+
+	/**
+	 * Parses a JSON array of flat objects. The values are kept as JSON literals.
+	 * @param json the JSON array
+	 * @return the objects
+	 */
+	static List<Map<String, String>> parseEntries(String json) {
+		List<Map<String, String>> entries = new ArrayList<>();
+		Map<String, String> entry = null;
+		String key = null;
+		int i = 0;
+		while (i < json.length()) {
+			char c = json.charAt(i);
+			if (c == '{') {
+				entry = new LinkedHashMap<>();
+				i++;
+			}
+			else if (c == '}') {
+				if (entry != null) {
+					entries.add(entry);
+				}
+				entry = null;
+				i++;
+			}
+			else if (c == '"' && entry != null) {
+				int end = endOfString(json, i);
+				String literal = json.substring(i, end);
+				if (key == null) {
+					key = unquote(literal);
+				}
+				else {
+					entry.put(key, literal);
+					key = null;
+				}
+				i = end;
+			}
+			else if (key != null && entry != null && c != ':' && !Character.isWhitespace(c)) {
+				int end = i;
+				while (end < json.length() && ",}".indexOf(json.charAt(end)) == -1) {
+					end++;
+				}
+				entry.put(key, json.substring(i, end).trim());
+				key = null;
+				i = end;
+			}
+			else {
+				i++;
+			}
+		}
+		return entries;
+	}
+
+	private static int endOfString(String json, int start) {
+		int i = start + 1;
+		while (i < json.length() && json.charAt(i) != '"') {
+			i += (json.charAt(i) == '\\') ? 2 : 1;
+		}
+		return Math.min(i + 1, json.length());
+	}
+
+	private static String unquote(String literal) {
+		StringBuilder value = new StringBuilder(literal.length());
+		for (int i = 1; i < literal.length() - 1; i++) {
+			char c = literal.charAt(i);
+			if (c != '\\' || i + 1 >= literal.length() - 1) {
+				value.append(c);
+				continue;
+			}
+			char escaped = literal.charAt(++i);
+			if (escaped == 'u' && i + 4 < literal.length()) {
+				value.append((char) Integer.parseInt(literal.substring(i + 1, i + 5), 16));
+				i += 4;
+			}
+			else if (escaped == 'n') {
+				value.append('\n');
+			}
+			else if (escaped == 't') {
+				value.append('\t');
+			}
+			else {
+				value.append(escaped);
+			}
+		}
+		return value.toString();
+	}
+
+	private static String loader() throws IOException {
+		try (InputStream resource = CompactSearchIndex.class.getResourceAsStream(LOADER_RESOURCE_NAME)) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = resource.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void writeArchive(Path archive, String entryName, String json) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+			ZipEntry zipEntry = new ZipEntry(entryName);
+			zipEntry.setTime(JavadocSiteMerger.ZIP_ENTRY_TIME);
+			zip.putNextEntry(zipEntry);
+			zip.write(json.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+	}
+
+	private static void write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * An entry of a search index, along with its position among the entries that are
+	 * sharded, which identifies it across shards, and the words that it is indexed by.
+	 */
+	private static final class IndexEntry {
+
+		private final int id;
+
+		private final Map<String, String> values;
+
+		private final Set<String> words;
+
+		private IndexEntry(int id, Map<String, String> values) {
+			this.id = id;
+			this.values = values;
+			this.words = words(unquote(values.getOrDefault("l", "\"\"")));
+		}
+
+	}
+
+	private static final class Compact implements Action<Task> {
+
+		@Override
+		public void execute(Task task) {
+			Javadoc javadoc = (Javadoc) task;
+			try {
+				int shards = compact(javadoc.getDestinationDir().toPath());
+				task.getLogger().info("Compacted the search index of {} into {} shards", task.getPath(), shards);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory that stores the files of several versions of a site once per content. Each
+ * file is stored as an object that is named after the SHA-256 of its content, so that the
+ * files that are identical across versions are only stored once:
+ *
+ * <pre>
+ * objects/ab/cdef...       the content of each file
+ * manifests/1.0.0.sha256   the hash and the path of each file of a version
+ * sites/1.0.0/...          the files of a version, hard linked to their objects
+ * </pre>
+ *
+ * Manifests are {@link JavadocManifest JavadocManifests}, so a site can be verified
+ * with {@code sha256sum -c}. Objects are written atomically and never modified, so that a
+ * store can be shared by concurrent builds.
+ *
+ * @author Rob Winch
+ */
+final class ContentAddressedStore {
+
+	static final String OBJECTS_DIRECTORY_NAME = "objects";
+
+	static final String MANIFESTS_DIRECTORY_NAME = "manifests";
+
+	static final String SITES_DIRECTORY_NAME = "sites";
+
+	static final String MANIFEST_EXTENSION = ".sha256";
+
+	private final Path directory;
+
+	ContentAddressedStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the manifest of a version.
+	 * @param version the version
+	 * @return the manifest
+	 */
+	Path manifest(String version) {
+		return this.directory.resolve(MANIFESTS_DIRECTORY_NAME).resolve(version + MANIFEST_EXTENSION);
+	}
+
+	/**
+	 * Returns the directory that the files of a version are linked into.
+	 * @param version the version
+	 * @return the site directory
+	 */
+	Path site(String version) {
+		return this.directory.resolve(SITES_DIRECTORY_NAME).resolve(version);
+	}
+
+	/**
+	 * Stores the files of a site as a version, replacing the version if it was stored
+	 * before.
+	 * @param source the directory of the site
+	 * @param version the version to store the site as
+	 * @param linkSite whether the files are also linked into the {@link #site(String)
+	 * site directory} of the version
+	 * @return what was stored
+	 * @throws IOException if the site cannot be read or the store cannot be written
+	 */
+	Result store(Path source, String version, boolean linkSite) throws IOException {
+		JavadocManifest manifest = JavadocManifest.of(source, Runtime.getRuntime().availableProcessors());
+		Result result = new Result();
+		for (Map.Entry<String, String> file : manifest.getHashes().entrySet()) {
+			Path path = source.resolve(file.getKey());
+			long size = Files.size(path);
+			result.files++;
+			result.bytes += size;
+			if (put(path, file.getValue())) {
+				result.objects++;
+				result.objectBytes += size;
+			}
+		}
+		if (linkSite) {
+			linkSite(version, manifest.getHashes(), result);
+		}
+		manifest.write(manifest(version));
+		return result;
+	}
+
+	private boolean put(Path file, String hash) throws IOException {
+		Path object = object(hash);
+		if (Files.exists(object)) {
+			return false;
+		}
+		Files.createDirectories(object.getParent());
+		Path temp = Files.createTempFile(object.getParent(), hash, ".tmp");
+		try {
+			Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		catch (FileAlreadyExistsException ex) {
+			return false;
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void linkSite(String version, Map<String, String> hashes, Result result) throws IOException {
+		Path site = site(version);
+		delete(site);
+		for (Map.Entry<String, String> file : hashes.entrySet()) {
+			Path target = site.resolve(file.getKey());
+			Files.createDirectories(target.getParent());
+			Path object = object(file.getValue());
+			try {
+				Files.createLink(target, object);
+			}
+			catch (UnsupportedOperationException | IOException ex) {
+				Files.copy(object, target);
+				result.copies++;
+			}
+		}
+	}
+
+	private Path object(String hash) {
+		return this.directory.resolve(OBJECTS_DIRECTORY_NAME).resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+	}
+
+	private static void delete(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * What was stored for a version.
+	 */
+	static final class Result {
+
+		private int files;
+
+		private long bytes;
+
+		private int objects;
+
+		private long objectBytes;
+
+		private int copies;
+
+		/**
+		 * The number of files of the version.
+		 * @return the number of files
+		 */
+		int getFiles() {
+			return this.files;
+		}
+
+		/**
+		 * The size of the files of the version.
+		 * @return the size in bytes
+		 */
+		long getBytes() {
+			return this.bytes;
+		}
+
+		/**
+		 * The number of objects that were added to the store, that is the number of files
+		 * whose content was not stored by another version.
+		 * @return the number of new objects
+		 */
+		int getObjects() {
+			return this.objects;
+		}
+
+		/**
+		 * The size of the objects that were added to the store.
+		 * @return the size in bytes
+		 */
+		long getObjectBytes() {
+			return this.objectBytes;
+		}
+
+		/**
+		 * The number of files that were copied into the site directory because they could
+		 * not be hard linked.
+		 * @return the number of copies
+		 */
+		int getCopies() {
+			return this.copies;
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import javax.tools.DocumentationTool;
+import javax.tools.ToolProvider;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.workers.WorkAction;
+
+/**
+ * Generates the Javadoc of a single shard of the aggregate Javadoc by running the
+ * {@link DocumentationTool} of the JDK in the worker process rather than forking the
+ * javadoc executable. Used with {@link JavadocExecution#WORKER_DAEMON}.
+ *
+ * @author Rob Winch
+ */
+public abstract class DocumentationToolWorkAction implements WorkAction<JavadocShardWorkAction.Parameters> {
+
+	private static final Logger logger = Logging.getLogger(DocumentationToolWorkAction.class);
+
+	@Override
+	public void execute() {
+		JavadocShardWorkAction.Parameters parameters = getParameters();
+		DocumentationTool documentationTool = ToolProvider.getSystemDocumentationTool();
+		if (documentationTool == null) {
+			throw new GradleException("Unable to find the documentation tool of " + System.getProperty("java.home")
+					+ ". Run Gradle with a JDK or use " + JavadocExecution.FORK);
+		}
+		String optionsFile = parameters.getOptionsFile().get().getAsFile().getAbsolutePath();
+		int result = documentationTool.run(null, null, null, "@" + optionsFile);
+		if (result != 0) {
+			throw new GradleException("Javadoc generation failed with exit code " + result + ". See the options in "
+					+ optionsFile + " and the output above.");
+		}
+		logger.info("Generated {} in process with the documentation tool of {}", optionsFile,
+				System.getProperty("java.home"));
+		JavadocShardWorkAction.writeKey(parameters);
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gradle.api.GradleException;
+
+/**
+ * Computes a fingerprint of the part of a Java source file that Javadoc output depends
+ * on: declarations, signatures, annotations, field initializers and doc comments. The
+ * source is read with a streaming lexer rather than parsed, so computing a fingerprint
+ * is cheap. The bodies of methods, constructors and initializers as well as comments
+ * that are not doc comments and whitespace do not contribute to the fingerprint, so
+ * changes to the implementation only do not change it.
+ *
+ * @author Rob Winch
+ */
+final class DocumentedApiFingerprint {
+
+	private static final char TOKEN_SEPARATOR = '\n';
+
+	private final MessageDigest digest = sha256();
+
+	private final StringBuilder token = new StringBuilder();
+
+	private final Reader reader;
+
+	private List<String> tokens;
+
+	private int next = -2;
+
+	private String previous = "";
+
+	private boolean bodyMayFollow;
+
+	private boolean recordDeclaration;
+
+	private boolean recordHeaderPending;
+
+	private int recordHeaderDepth = -1;
+
+	private int parenthesisDepth;
+
+	private DocumentedApiFingerprint(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Computes the fingerprint of a source file, which is expected to be encoded in
+	 * UTF-8.
+	 * @param source the source file
+	 * @return the fingerprint
+	 * @throws IOException if the file cannot be read
+	 */
+	static String of(Path source) throws IOException {
+		try (Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+			return of(reader);
+		}
+	}
+
+	/**
+	 * Computes the fingerprint of the source that is read from a {@link Reader}.
+	 * @param source the source
+	 * @return the fingerprint
+	 * @throws IOException if the source cannot be read
+	 */
+	static String of(Reader source) throws IOException {
+		DocumentedApiFingerprint fingerprint = new DocumentedApiFingerprint(
+				(source instanceof BufferedReader) ? source : new BufferedReader(source));
+		fingerprint.lex();
+		StringBuilder hex = new StringBuilder();
+		for (byte b : fingerprint.digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Returns the tokens of the part of a source file that contribute to its fingerprint,
+	 * which are the tokens of its declarations and signatures and its doc comments.
+	 * @param source the source file, which is expected to be encoded in UTF-8
+	 * @return the tokens, in the order of the source
+	 * @throws IOException if the file cannot be read
+	 */
+	static List<String> tokens(Path source) throws IOException {
+		try (Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+			DocumentedApiFingerprint fingerprint = new DocumentedApiFingerprint(reader);
+			fingerprint.tokens = new ArrayList<>();
+			fingerprint.lex();
+			return fingerprint.tokens;
+		}
+	}
+
+	private void lex() throws IOException {
+		int c;
+		while ((c = read()) != -1) {
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (c == '/' && peek() == '/') {
+				skipLineComment();
+			}
+			else if (c == '/' && peek() == '*') {
+				read();
+				comment();
+			}
+			else if (c == '"' || c == '\'') {
+				literal(c, true);
+			}
+			else if (Character.isJavaIdentifierPart(c)) {
+				word(c);
+			}
+			else if (c == '{' && isCodeBlock()) {
+				skipCodeBlock();
+			}
+			else {
+				punctuation((char) c);
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a block that starts at the current position is a code block
+	 * (the body of a method or constructor or an initializer) rather than a type body,
+	 * an array initializer or the body of a lambda.
+	 * @return {@code true} if the block is a code block
+	 */
+	private boolean isCodeBlock() {
+		return this.bodyMayFollow || "static".equals(this.previous) || ";".equals(this.previous)
+				|| "}".equals(this.previous) || "{".equals(this.previous);
+	}
+
+	private void word(int first) throws IOException {
+		this.token.setLength(0);
+		this.token.append((char) first);
+		while (peek() != -1 && Character.isJavaIdentifierPart(peek())) {
+			this.token.append((char) read());
+		}
+		String word = this.token.toString();
+		if (this.recordDeclaration && Character.isJavaIdentifierStart(first)) {
+			this.recordHeaderPending = true;
+		}
+		this.recordDeclaration = "record".equals(word);
+		// a throws clause may appear between the parameters and the body, while the value
+		// of an annotation element that follows default is not a body and a type
+		// declaration that follows the arguments of an annotation has a type body
+		this.bodyMayFollow = this.bodyMayFollow && Character.isJavaIdentifierStart(first) && !"default".equals(word)
+				&& !isTypeDeclaration(word);
+		emit(word);
+	}
+
+	private static boolean isTypeDeclaration(String word) {
+		return "class".equals(word) || "interface".equals(word) || "enum".equals(word) || "record".equals(word);
+	}
+
+	private void punctuation(char c) {
+		this.recordDeclaration = false;
+		if (c == '(') {
+			if (this.recordHeaderPending && this.recordHeaderDepth == -1) {
+				this.recordHeaderDepth = this.parenthesisDepth;
+			}
+			this.parenthesisDepth++;
+			this.bodyMayFollow = false;
+		}
+		else if (c == ')') {
+			this.parenthesisDepth = Math.max(0, this.parenthesisDepth - 1);
+			boolean recordHeader = this.parenthesisDepth == this.recordHeaderDepth;
+			if (recordHeader) {
+				this.recordHeaderDepth = -1;
+				this.recordHeaderPending = false;
+			}
+			this.bodyMayFollow = !recordHeader;
+		}
+		else if (c != '.' && c != ',' && c != '<' && c != '>' && c != '?' && c != '[' && c != ']' && c != '&'
+				&& c != '@') {
+			this.bodyMayFollow = false;
+			if (c == '{' || c == ';') {
+				this.recordHeaderPending = false;
+			}
+		}
+		emit(String.valueOf(c));
+	}
+
+	private void comment() throws IOException {
+		boolean documentation = peek() == '*';
+		this.token.setLength(0);
+		this.token.append("/*");
+		int c;
+		int previous = -1;
+		while ((c = read()) != -1) {
+			this.token.append((char) c);
+			if (previous == '*' && c == '/' && this.token.length() > 3) {
+				break;
+			}
+			previous = c;
+		}
+		if (documentation && !"/**/".equals(this.token.toString())) {
+			update(this.token);
+		}
+	}
+
+	private void literal(int quote, boolean emit) throws IOException {
+		this.token.setLength(0);
+		this.token.append((char) quote);
+		boolean textBlock = false;
+		if (quote == '"' && peek() == '"') {
+			this.token.append((char) read());
+			if (peek() != '"') {
+				emitLiteral(emit);
+				return;
+			}
+			this.token.append((char) read());
+			textBlock = true;
+		}
+		int quotes = 0;
+		int c;
+		while ((c = read()) != -1) {
+			this.token.append((char) c);
+			if (c == '\\') {
+				int escaped = read();
+				if (escaped != -1) {
+					this.token.append((char) escaped);
+				}
+				quotes = 0;
+				continue;
+			}
+			if (c == quote) {
+				quotes++;
+				if (!textBlock || quotes == 3) {
+					break;
+				}
+			}
+			else {
+				quotes = 0;
+			}
+			if (!textBlock && c == '\n') {
+				break;
+			}
+		}
+		emitLiteral(emit);
+	}
+
+	private void emitLiteral(boolean emit) {
+		if (emit) {
+			this.recordDeclaration = false;
+			this.bodyMayFollow = false;
+			emit(this.token.toString());
+		}
+	}
+
+	private void skipCodeBlock() throws IOException {
+		int depth = 1;
+		int c;
+		while (depth > 0 && (c = read()) != -1) {
+			if (c == '/' && peek() == '/') {
+				skipLineComment();
+			}
+			else if (c == '/' && peek() == '*') {
+				read();
+				skipBlockComment();
+			}
+			else if (c == '"' || c == '\'') {
+				literal(c, false);
+			}
+			else if (c == '{') {
+				depth++;
+			}
+			else if (c == '}') {
+				depth--;
+			}
+		}
+		this.bodyMayFollow = false;
+		this.recordDeclaration = false;
+		emit("{}");
+		this.previous = "}";
+	}
+
+	private void skipLineComment() throws IOException {
+		int c;
+		while ((c = read()) != -1 && c != '\n') {
+			// skip
+		}
+	}
+
+	private void skipBlockComment() throws IOException {
+		int c;
+		int previous = -1;
+		while ((c = read()) != -1) {
+			if (previous == '*' && c == '/') {
+				return;
+			}
+			previous = c;
+		}
+	}
+
+	private void emit(String token) {
+		update(token);
+		this.previous = token;
+	}
+
+	private void update(CharSequence token) {
+		if (this.tokens != null) {
+			this.tokens.add(token.toString());
+		}
+		this.digest.update(token.toString().getBytes(StandardCharsets.UTF_8));
+		this.digest.update((byte) TOKEN_SEPARATOR);
+	}
+
+	private int read() throws IOException {
+		if (this.next != -2) {
+			int c = this.next;
+			this.next = -2;
+			return c;
+		}
+		return this.reader.read();
+	}
+
+	private int peek() throws IOException {
+		if (this.next == -2) {
+			this.next = this.reader.read();
+		}
+		return this.next;
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new GradleException("SHA-256 is not supported", ex);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Writes a manifest of the SHA-256 of each file of generated Javadoc in the format of
+ * {@code sha256sum}. The files are hashed concurrently.
+ *
+ * @author Rob Winch
+ * @see JavadocPublish
+ */
+public class GenerateJavadocManifest extends DefaultTask {
+
+	private final DirectoryProperty source;
+
+	private final RegularFileProperty manifestFile;
+
+	private final Property<Integer> parallelism;
+
+	@Inject
+	public GenerateJavadocManifest(ObjectFactory objects) {
+		this.source = objects.directoryProperty();
+		this.manifestFile = objects.fileProperty();
+		this.parallelism = objects.property(Integer.class).convention(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The directory that contains the generated Javadoc.
+	 * @return the source directory
+	 */
+	@InputDirectory
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public DirectoryProperty getSource() {
+		return this.source;
+	}
+
+	/**
+	 * The manifest to write.
+	 * @return the manifest file
+	 */
+	@OutputFile
+	public RegularFileProperty getManifestFile() {
+		return this.manifestFile;
+	}
+
+	/**
+	 * The number of files that are hashed concurrently. Defaults to the number of
+	 * available processors.
+	 * @return the parallelism
+	 */
+	@Internal
+	public Property<Integer> getParallelism() {
+		return this.parallelism;
+	}
+
+	@TaskAction
+	public void generate() throws IOException {
+		JavadocManifest manifest = JavadocManifest.of(this.source.get().getAsFile().toPath(), this.parallelism.get());
+		manifest.write(this.manifestFile.get().getAsFile().toPath());
+		getLogger().info("Hashed {} files of {}", manifest.getHashes().size(), this.source.get());
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.plugins.ExtensionAware;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+
+/**
+ * The projects with {@link JavadocPlugin} applied in the builds that are included in a
+ * composite build, which {@link AggregateJavadocPlugin} aggregates in addition to the
+ * projects of its own build.
+ * <p>
+ * Build services are scoped to a build and the plugin classes of an included build may
+ * be loaded by a different class loader, so the projects are registered by their
+ * {@code group:name} coordinates in a set that is stored as an extra property of the
+ * root build. The aggregator depends on those coordinates, which Gradle substitutes with
+ * the projects of the included builds. The sources of each included project are then
+ * synced, published and fingerprinted in its own build, independently of the others.
+ * <p>
+ * A project is only known once its build was configured. Gradle configures an included
+ * build to find the projects that it substitutes before the dependencies of the root
+ * build are resolved, also with configure on demand, but not if the included build
+ * declares its substitutions explicitly. The projects of such a build have to be
+ * declared in the configuration of the aggregator. Included builds may be configured
+ * in parallel, so the set is created while holding the lock of the root build.
+ *
+ * @author Rob Winch
+ */
+final class IncludedBuildContributors {
+
+	private static final String PROPERTY_NAME = "io.spring.javadoc.includedBuildContributors";
+
+	private IncludedBuildContributors() {
+	}
+
+	/**
+	 * Registers a project with the root build if it belongs to an included build. The
+	 * project is registered once it was evaluated, as its group is usually set by its
+	 * build script.
+	 * @param project the project
+	 */
+	static void register(Project project) {
+		Gradle rootBuild = rootBuild(project.getGradle());
+		if (rootBuild == project.getGradle()) {
+			return;
+		}
+		project.afterEvaluate(new Action<Project>() {
+			@Override
+			public void execute(Project evaluated) {
+				String group = String.valueOf(evaluated.getGroup());
+				if (group.isEmpty()) {
+					evaluated.getLogger().warn("Not aggregating {} of an included build as its group is not set",
+							evaluated.getPath());
+					return;
+				}
+				coordinates(rootBuild).add(group + ":" + evaluated.getName());
+			}
+		});
+	}
+
+	/**
+	 * The {@code group:name} coordinates of the projects of the included builds of a
+	 * build, in order.
+	 * @param gradle the build
+	 * @return the coordinates
+	 */
+	static Set<String> getCoordinates(Gradle gradle) {
+		return Collections.unmodifiableSet(coordinates(gradle));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<String> coordinates(Gradle gradle) {
+		ExtraPropertiesExtension extraProperties = ((ExtensionAware) gradle).getExtensions().getExtraProperties();
+		synchronized (gradle) {
+			if (!extraProperties.has(PROPERTY_NAME)) {
+				extraProperties.set(PROPERTY_NAME, new ConcurrentSkipListSet<String>());
+			}
+			return (Set<String>) extraProperties.get(PROPERTY_NAME);
+		}
+	}
+
+	private static Gradle rootBuild(Gradle gradle) {
+		Gradle rootBuild = gradle;
+		while (rootBuild.getParent() != null) {
+			rootBuild = rootBuild.getParent();
+		}
+		return rootBuild;
+	}
+
+}
@@ -0,0 +1,573 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Generates aggregate Javadoc as one shard per contributing module so that only the
+ * modules whose sources changed are regenerated. Shards are generated concurrently
+ * using the Worker API. The Javadoc of each module is kept in the
+ * {@link #getModulesDirectory() modules directory} along with a key computed from the
+ * content of its sources and from the signatures of the sources of the other modules,
+ * whose classes are on its classpath. Each shard links to the packages of the other
+ * shards so that references across modules are links. After the modules are up to date the shared
+ * overview, all-classes, index, search and package list pages, and the pages of packages
+ * that are split across modules, are merged into the
+ * {@link #getDestinationDirectory() destination directory}. The uses of a type that are
+ * listed with {@code -use} are those of the module that declares it.
+ *
+ * @author Rob Winch
+ */
+public class IncrementalAggregateJavadoc extends DefaultTask {
+
+	private static final String KEY_FILE_NAME = "sources.key";
+
+	private static final String DOCS_DIRECTORY_NAME = "docs";
+
+	private static final String LINKS_DIRECTORY_NAME = "links";
+
+	private static final String PACKAGE_INFO_FILE_NAME = "package-info.java";
+
+	/**
+	 * An empty overview, which makes javadoc generate the overview page even when a
+	 * module has a single package so that it can be merged with the other modules.
+	 */
+	private static final String EMPTY_OVERVIEW = "<html><body></body></html>\n";
+
+	private final WorkerExecutor workerExecutor;
+
+	private final FileSystemOperations fileSystem;
+
+	private final ConfigurableFileCollection classpath;
+
+	private final ConfigurableFileCollection moduleClasses;
+
+	private final StandardJavadocDocletOptions options = new StandardJavadocDocletOptions();
+
+	private final ListProperty<String> packageIncludes;
+
+	private final ListProperty<String> packageExcludes;
+
+	private final Property<String> executable;
+
+	private final Property<JavadocExecution> execution;
+
+	private final DirectoryProperty modulesDirectory;
+
+	private final DirectoryProperty destinationDirectory;
+
+	private ArtifactCollection sources;
+
+	@Inject
+	public IncrementalAggregateJavadoc(ObjectFactory objects, WorkerExecutor workerExecutor,
+			FileSystemOperations fileSystem) {
+		this.workerExecutor = workerExecutor;
+		this.fileSystem = fileSystem;
+		this.classpath = objects.fileCollection();
+		this.moduleClasses = objects.fileCollection();
+		this.packageIncludes = objects.listProperty(String.class).empty();
+		this.packageExcludes = objects.listProperty(String.class).empty();
+		this.executable = objects.property(String.class);
+		this.execution = objects.property(JavadocExecution.class).convention(JavadocExecution.FORK);
+		this.modulesDirectory = objects.directoryProperty();
+		this.destinationDirectory = objects.directoryProperty();
+	}
+
+	/**
+	 * The sources to generate Javadoc for. Each artifact is attributed to the component
+	 * that produced it so that the sources can be grouped by module.
+	 * @return the sources
+	 */
+	@Internal
+	public ArtifactCollection getSources() {
+		return this.sources;
+	}
+
+	public void setSources(ArtifactCollection sources) {
+		this.sources = sources;
+	}
+
+	@InputFiles
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public FileCollection getSourceFiles() {
+		return this.sources.getArtifactFiles().getAsFileTree().matching((filter) -> {
+			filter.include("**/*.java");
+			filter.exclude((element) -> !isIncluded(element.getRelativePath()));
+		});
+	}
+
+	/**
+	 * The patterns of the packages whose sources are included. Defaults to every
+	 * package.
+	 * @return the package patterns
+	 * @see JavadocPackages
+	 */
+	@Input
+	public ListProperty<String> getPackageIncludes() {
+		return this.packageIncludes;
+	}
+
+	/**
+	 * The patterns of the packages whose sources are excluded.
+	 * @return the package patterns
+	 * @see JavadocPackages
+	 */
+	@Input
+	public ListProperty<String> getPackageExcludes() {
+		return this.packageExcludes;
+	}
+
+	/**
+	 * The classpath of javadoc, including the {@link #getModuleClasses() classes of the
+	 * aggregated modules}.
+	 * @return the classpath
+	 */
+	@Internal
+	public ConfigurableFileCollection getClasspath() {
+		return this.classpath;
+	}
+
+	/**
+	 * The entries of the {@link #getClasspath() classpath} that are classes of the
+	 * aggregated modules. They change whenever the implementation of a module changes,
+	 * so they are not fingerprinted. Instead, the key of each module includes the
+	 * signatures of the sources of the other modules.
+	 * @return the classes of the aggregated modules
+	 */
+	@Internal
+	public ConfigurableFileCollection getModuleClasses() {
+		return this.moduleClasses;
+	}
+
+	/**
+	 * The entries of the {@link #getClasspath() classpath} that are not
+	 * {@link #getModuleClasses() classes of the aggregated modules}. A change to them
+	 * regenerates every module.
+	 * @return the classpath of the dependencies of the aggregated modules
+	 */
+	@Classpath
+	public FileCollection getDependencyClasspath() {
+		return this.classpath.minus(this.moduleClasses);
+	}
+
+	@Nested
+	public StandardJavadocDocletOptions getOptions() {
+		return this.options;
+	}
+
+	/**
+	 * The javadoc executable to use. Defaults to the javadoc executable of the JDK that
+	 * runs Gradle.
+	 * @return the javadoc executable
+	 */
+	@Optional
+	@Input
+	public Property<String> getExecutable() {
+		return this.executable;
+	}
+
+	/**
+	 * How javadoc is run for each module. Defaults to {@link JavadocExecution#FORK}. When
+	 * an {@link #getExecutable() executable} is configured, the worker daemons of
+	 * {@link JavadocExecution#WORKER_DAEMON} run with the JDK that it belongs to.
+	 * @return the execution
+	 */
+	@Internal
+	public Property<JavadocExecution> getExecution() {
+		return this.execution;
+	}
+
+	/**
+	 * The directory that holds the Javadoc of each module between executions.
+	 * @return the modules directory
+	 */
+	@LocalState
+	public DirectoryProperty getModulesDirectory() {
+		return this.modulesDirectory;
+	}
+
+	@OutputDirectory
+	public DirectoryProperty getDestinationDirectory() {
+		return this.destinationDirectory;
+	}
+
+	@TaskAction
+	public void generate(InputChanges inputChanges) throws IOException {
+		String executable = executable();
+		int jdk = JavadocJdk.featureVersion(executable);
+		if (!JavadocSiteMerger.isSupported(jdk)) {
+			throw new GradleException(String.format(
+					"The Javadoc of JDK %d cannot be merged, only the Javadoc of JDK %d to %d is supported. Configure "
+							+ "the executable of a supported JDK or use the %s task instead.",
+					jdk, JavadocSiteMerger.OLDEST_SUPPORTED_JDK, JavadocSiteMerger.LATEST_SUPPORTED_JDK,
+					AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME));
+		}
+		File modulesDir = this.modulesDirectory.get().getAsFile();
+		if (!inputChanges.isIncremental()) {
+			this.fileSystem.delete((spec) -> spec.delete(modulesDir));
+		}
+		Map<String, ModuleSources> sourcesByModule = sourcesByModule();
+		Map<String, File> moduleDocs = new LinkedHashMap<>();
+		boolean workerDaemon = this.execution.get() == JavadocExecution.WORKER_DAEMON;
+		WorkQueue workQueue = workerDaemon ? workerDaemonQueue() : this.workerExecutor.noIsolation();
+		Class<? extends WorkAction<JavadocShardWorkAction.Parameters>> workAction = workerDaemon
+				? DocumentationToolWorkAction.class : JavadocShardWorkAction.class;
+		int regenerated = 0;
+		for (Map.Entry<String, ModuleSources> module : sourcesByModule.entrySet()) {
+			File moduleDir = new File(modulesDir, directoryName(module.getKey()));
+			List<File> sources = module.getValue().files;
+			Set<String> linkedPackages = linkedPackages(module.getKey(), sourcesByModule);
+			String key = key(module.getValue(), linkedPackages, otherSignatures(module.getKey(), sourcesByModule));
+			if (!key.equals(readKey(moduleDir))) {
+				File optionsFile = writeOptionsFile(sources, linkedPackages, moduleDir);
+				workQueue.submit(workAction, (parameters) -> {
+					parameters.getExecutable().set(executable);
+					parameters.getOptionsFile().set(optionsFile);
+					parameters.getKeyFile().set(new File(moduleDir, KEY_FILE_NAME));
+					parameters.getKey().set(key);
+				});
+				regenerated++;
+			}
+			moduleDocs.put(module.getKey(), new File(moduleDir, DOCS_DIRECTORY_NAME));
+		}
+		deleteStaleModules(modulesDir, moduleDocs);
+		workQueue.await();
+		getLogger().info("Regenerated Javadoc for {} of {} modules", regenerated, moduleDocs.size());
+		new JavadocSiteMerger().merge(moduleDocs, this.destinationDirectory.get().getAsFile());
+	}
+
+	private Map<String, ModuleSources> sourcesByModule() throws IOException {
+		Map<String, ModuleSources> sourcesByModule = new TreeMap<>();
+		for (ResolvedArtifactResult artifact : this.sources.getArtifacts()) {
+			String module = moduleName(artifact.getId().getComponentIdentifier());
+			addJavaSources(artifact.getFile(), sourcesByModule.computeIfAbsent(module, (key) -> new ModuleSources()));
+		}
+		sourcesByModule.values().removeIf((sources) -> sources.files.isEmpty());
+		sharePackageInfos(sourcesByModule);
+		sourcesByModule.values().forEach((sources) -> sources.files.sort(null));
+		for (ModuleSources sources : sourcesByModule.values()) {
+			sources.signatures = signatures(sources);
+		}
+		return sourcesByModule;
+	}
+
+	private void addJavaSources(File artifact, ModuleSources sources) throws IOException {
+		if (!artifact.isDirectory()) {
+			if (artifact.getName().endsWith(".java")) {
+				sources.add(artifact, artifact.getName());
+			}
+			return;
+		}
+		Path root = artifact.toPath();
+		try (Stream<Path> paths = Files.walk(root)) {
+			List<RelativePath> javaSources = paths
+					.filter((path) -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+					.map((path) -> RelativePath.parse(true,
+							root.relativize(path).toString().replace(File.separatorChar, '/')))
+					.filter(this::isIncluded).collect(Collectors.toList());
+			for (RelativePath javaSource : javaSources) {
+				File file = javaSource.getFile(artifact);
+				sources.add(file, javaSource.getPathString());
+				if (javaSource.getSegments().length > 1) {
+					String packageName = String.join(".", javaSource.getParent().getSegments());
+					sources.packages.add(packageName);
+					if (PACKAGE_INFO_FILE_NAME.equals(javaSource.getLastName())) {
+						sources.packageInfos.put(packageName, file);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the {@code package-info.java} of a package that is split across modules to
+	 * the modules that do not declare one, so that the pages of the package are
+	 * described whichever module generated them.
+	 */
+	private static void sharePackageInfos(Map<String, ModuleSources> sourcesByModule) {
+		Map<String, File> packageInfos = new HashMap<>();
+		sourcesByModule.values().forEach((sources) -> sources.packageInfos.forEach(packageInfos::putIfAbsent));
+		for (ModuleSources sources : sourcesByModule.values()) {
+			for (String packageName : sources.packages) {
+				File packageInfo = packageInfos.get(packageName);
+				if (packageInfo != null && !sources.packageInfos.containsKey(packageName)) {
+					sources.add(packageInfo, packageName.replace('.', '/') + "/" + PACKAGE_INFO_FILE_NAME);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the packages of the other modules that a module links to. This includes
+	 * the packages that are split across modules, where javadoc links the types of the
+	 * other modules and keeps the types that the module documents itself local.
+	 */
+	private static Set<String> linkedPackages(String module, Map<String, ModuleSources> sourcesByModule) {
+		Set<String> linkedPackages = new TreeSet<>();
+		sourcesByModule.forEach((otherModule, sources) -> {
+			if (!otherModule.equals(module)) {
+				linkedPackages.addAll(sources.packages);
+			}
+		});
+		return linkedPackages;
+	}
+
+	/**
+	 * Returns the signatures of the modules other than a module, whose classes are on the
+	 * classpath of its shard.
+	 */
+	private static String otherSignatures(String module, Map<String, ModuleSources> sourcesByModule) {
+		StringBuilder signatures = new StringBuilder();
+		sourcesByModule.forEach((otherModule, sources) -> {
+			if (!otherModule.equals(module)) {
+				signatures.append(otherModule).append('=').append(sources.signatures).append(',');
+			}
+		});
+		return signatures.toString();
+	}
+
+	/**
+	 * Computes a fingerprint of the declarations and signatures of the sources of a
+	 * module. The Javadoc of the other modules only depends on the classes of the
+	 * module, so the bodies and the doc comments of its sources do not contribute to
+	 * the fingerprint.
+	 */
+	private static String signatures(ModuleSources sources) throws IOException {
+		MessageDigest digest = sha256();
+		for (File source : sources.files) {
+			digest.update((sources.paths.get(source) + ":").getBytes(StandardCharsets.UTF_8));
+			for (String token : DocumentedApiFingerprint.tokens(source.toPath())) {
+				if (!token.startsWith("/**")) {
+					digest.update((token + "\n").getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return hex(digest);
+	}
+
+	private boolean isIncluded(RelativePath path) {
+		return JavadocPackages.isIncluded(this.packageIncludes.get(), this.packageExcludes.get(), path);
+	}
+
+	private File writeOptionsFile(List<File> sources, Set<String> linkedPackages, File moduleDir)
+			throws IOException {
+		this.fileSystem.delete((spec) -> spec.delete(moduleDir));
+		Files.createDirectories(moduleDir.toPath());
+		StandardJavadocDocletOptions moduleOptions = new StandardJavadocDocletOptions(this.options);
+		moduleOptions.setDestinationDirectory(new File(moduleDir, DOCS_DIRECTORY_NAME));
+		moduleOptions.setClasspath(new ArrayList<>(this.classpath.getFiles()));
+		moduleOptions.setSplitIndex(false);
+		if (!linkedPackages.isEmpty()) {
+			File links = new File(moduleDir, LINKS_DIRECTORY_NAME);
+			Files.createDirectories(links.toPath());
+			String packageList = linkedPackages.stream().map((name) -> name + "\n").collect(Collectors.joining());
+			Files.write(new File(links, "element-list").toPath(), packageList.getBytes(StandardCharsets.UTF_8));
+			Files.write(new File(links, "package-list").toPath(), packageList.getBytes(StandardCharsets.UTF_8));
+			moduleOptions.linksOffline(".", links.getAbsolutePath());
+		}
+		if (moduleOptions.getOverview() == null) {
+			File overview = new File(moduleDir, "overview.html");
+			Files.write(overview.toPath(), EMPTY_OVERVIEW.getBytes(StandardCharsets.UTF_8));
+			moduleOptions.setOverview(overview.getAbsolutePath());
+		}
+		List<String> sourceNames = new ArrayList<>();
+		for (File source : sources) {
+			sourceNames.add(source.getAbsolutePath());
+		}
+		moduleOptions.setSourceNames(sourceNames);
+		File optionsFile = new File(moduleDir, "javadoc.options");
+		moduleOptions.write(optionsFile);
+		return optionsFile;
+	}
+
+	private void deleteStaleModules(File modulesDir, Map<String, File> moduleDocs) {
+		File[] moduleDirs = modulesDir.listFiles();
+		if (moduleDirs == null) {
+			return;
+		}
+		for (File moduleDir : moduleDirs) {
+			if (!moduleDocs.containsValue(new File(moduleDir, DOCS_DIRECTORY_NAME))) {
+				this.fileSystem.delete((spec) -> spec.delete(moduleDir));
+			}
+		}
+	}
+
+	private WorkQueue workerDaemonQueue() {
+		return this.workerExecutor.processIsolation((spec) -> {
+			if (this.executable.isPresent()) {
+				File bin = new File(this.executable.get()).getAbsoluteFile().getParentFile();
+				spec.getForkOptions().setExecutable(new File(bin, windows() ? "java.exe" : "java"));
+			}
+		});
+	}
+
+	private String executable() {
+		if (this.executable.isPresent()) {
+			return this.executable.get();
+		}
+		File javaHome = new File(System.getProperty("java.home"));
+		File javadoc = javadocExecutable(javaHome);
+		if (!javadoc.exists() && "jre".equals(javaHome.getName())) {
+			javadoc = javadocExecutable(javaHome.getParentFile());
+		}
+		return javadoc.getAbsolutePath();
+	}
+
+	private static File javadocExecutable(File javaHome) {
+		return new File(javaHome, "bin/" + (windows() ? "javadoc.exe" : "javadoc"));
+	}
+
+	private static boolean windows() {
+		return System.getProperty("os.name").toLowerCase().contains("windows");
+	}
+
+	private static String moduleName(ComponentIdentifier component) {
+		if (component instanceof ProjectComponentIdentifier) {
+			return ((ProjectComponentIdentifier) component).getProjectPath();
+		}
+		return component.getDisplayName();
+	}
+
+	private static String directoryName(String moduleName) {
+		String name = moduleName.startsWith(":") ? moduleName.substring(1) : moduleName;
+		return name.isEmpty() ? "root" : name.replaceAll("[^A-Za-z0-9._-]", "-");
+	}
+
+	/**
+	 * Computes the key of a module from the path of each source relative to the root of
+	 * its artifact and its content, the packages that it links to and the signatures of
+	 * the other modules.
+	 */
+	private static String key(ModuleSources sources, Set<String> linkedPackages, String otherSignatures) {
+		MessageDigest digest = sha256();
+		digest.update((String.join(",", linkedPackages) + ":").getBytes(StandardCharsets.UTF_8));
+		digest.update((otherSignatures + ":").getBytes(StandardCharsets.UTF_8));
+		for (File source : sources.files) {
+			try {
+				byte[] content = Files.readAllBytes(source.toPath());
+				String header = sources.paths.get(source) + ":" + content.length + ":";
+				digest.update(header.getBytes(StandardCharsets.UTF_8));
+				digest.update(content);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException("Unable to read " + source, ex);
+			}
+		}
+		return hex(digest);
+	}
+
+	private static String hex(MessageDigest digest) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new GradleException("SHA-256 is not supported", ex);
+		}
+	}
+
+	private static String readKey(File moduleDir) throws IOException {
+		File keyFile = new File(moduleDir, KEY_FILE_NAME);
+		if (!keyFile.exists() || !new File(moduleDir, DOCS_DIRECTORY_NAME).isDirectory()) {
+			return null;
+		}
+		return new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The sources of a module along with the packages that they belong to.
+	 */
+	private static final class ModuleSources {
+
+		private final List<File> files = new ArrayList<>();
+
+		private final Map<File, String> paths = new HashMap<>();
+
+		private final Set<String> packages = new TreeSet<>();
+
+		private final Map<String, File> packageInfos = new HashMap<>();
+
+		private String signatures;
+
+		private void add(File source, String path) {
+			this.files.add(source);
+			this.paths.put(source, path);
+		}
+
+	}
+
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a directory to a jar, compressing its files concurrently. Files are compressed
+ * by a pool of threads and written to the archive in the order of their paths as soon as
+ * they are compressed, so that at most a few files per thread are held in memory. Files
+ * with a {@link #PRECOMPRESSED_EXTENSIONS precompressed extension} can be followed by a
+ * gzip sidecar entry so that a static host is able to serve them without compressing
+ * them on each request.
+ * <p>
+ * The archive is written with the zip64 extensions when it has more than 65535 entries or
+ * is larger than 4GB.
+ *
+ * @author Rob Winch
+ */
+final class JavadocArchiveWriter {
+
+	/**
+	 * The extensions of the files that a gzip sidecar is written for.
+	 */
+	static final Set<String> PRECOMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList("html", "js", "css"));
+
+	private static final String MANIFEST = "Manifest-Version: 1.0\r\n\r\n";
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+
+	private static final int CENTRAL_HEADER = 0x02014b50;
+
+	private static final int ZIP64_END = 0x06064b50;
+
+	private static final int ZIP64_LOCATOR = 0x07064b50;
+
+	private static final int END = 0x06054b50;
+
+	private static final int UTF8_FLAG = 0x0800;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private static final int VERSION = 20;
+
+	private static final int ZIP64_VERSION = 45;
+
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+	private final int parallelism;
+
+	private final boolean precompressed;
+
+	private final boolean preserveFileTimestamps;
+
+	JavadocArchiveWriter(int parallelism, boolean precompressed, boolean preserveFileTimestamps) {
+		this.parallelism = parallelism;
+		this.precompressed = precompressed;
+		this.preserveFileTimestamps = preserveFileTimestamps;
+	}
+
+	/**
+	 * Writes the files of a directory to a jar.
+	 * @param source the directory to write
+	 * @param archive the jar to write to
+	 * @return the number of entries that were written
+	 * @throws IOException if the directory cannot be read or the jar cannot be written
+	 */
+	int write(Path source, Path archive) throws IOException {
+		List<Path> paths = paths(source);
+		ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+		try (CountingOutputStream out = new CountingOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(archive), 64 * 1024))) {
+			List<CentralEntry> central = new ArrayList<>();
+			writeEntry(out, central, directory("META-INF/"));
+			writeEntry(out, central, compress("META-INF/MANIFEST.MF", MANIFEST.getBytes(StandardCharsets.UTF_8),
+					JavadocSiteMerger.ZIP_ENTRY_TIME));
+			Deque<Future<List<Entry>>> pending = new ArrayDeque<>();
+			int window = this.parallelism * 4;
+			for (Path path : paths) {
+				pending.add(executor.submit(() -> entries(source, path)));
+				if (pending.size() >= window) {
+					writeEntries(out, central, pending.poll());
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeEntries(out, central, pending.poll());
+			}
+			writeCentralDirectory(out, central);
+			return central.size();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Path> paths(Path source) throws IOException {
+		try (Stream<Path> paths = Files.walk(source)) {
+			return paths.filter((path) -> !path.equals(source)).sorted(
+					(left, right) -> entryName(source, left).compareTo(entryName(source, right)))
+					.collect(Collectors.toList());
+		}
+	}
+
+	private List<Entry> entries(Path source, Path path) throws IOException {
+		String name = entryName(source, path);
+		if (Files.isDirectory(path)) {
+			return Arrays.asList(directory(name + "/"));
+		}
+		byte[] content = Files.readAllBytes(path);
+		long time = this.preserveFileTimestamps ? Files.getLastModifiedTime(path).toMillis()
+				: JavadocSiteMerger.ZIP_ENTRY_TIME;
+		Entry entry = compress(name, content, time);
+		if (!this.precompressed || !PRECOMPRESSED_EXTENSIONS.contains(extension(name))) {
+			return Arrays.asList(entry);
+		}
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream(entry.data.length + 32);
+		try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+			out.write(content);
+		}
+		return Arrays.asList(entry, stored(name + ".gz", gzip.toByteArray(), time));
+	}
+
+	private static String entryName(Path source, Path path) {
+		return source.relativize(path).toString().replace('\\', '/');
+	}
+
+	private static String extension(String name) {
+		int dot = name.lastIndexOf('.');
+		return (dot < name.lastIndexOf('/') + 1) ? "" : name.substring(dot + 1);
+	}
+
+	private static Entry directory(String name) {
+		Entry entry = stored(name, new byte[0], JavadocSiteMerger.ZIP_ENTRY_TIME);
+		entry.externalAttributes = DIRECTORY_ATTRIBUTE;
+		return entry;
+	}
+
+	private static Entry compress(String name, byte[] content, long time) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater, 8 * 1024)) {
+			out.write(content);
+		}
+		finally {
+			deflater.end();
+		}
+		if (compressed.size() >= content.length) {
+			return stored(name, content, time);
+		}
+		return new Entry(name, DEFLATED, crc(content), content.length, compressed.toByteArray(), time);
+	}
+
+	private static Entry stored(String name, byte[] content, long time) {
+		return new Entry(name, STORED, crc(content), content.length, content, time);
+	}
+
+	private static long crc(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return crc.getValue();
+	}
+
+	private void writeEntries(CountingOutputStream out, List<CentralEntry> central, Future<List<Entry>> entries)
+			throws IOException {
+		try {
+			for (Entry entry : entries.get()) {
+				writeEntry(out, central, entry);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the archive", ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private void writeEntry(CountingOutputStream out, List<CentralEntry> central, Entry entry) throws IOException {
+		if (entry.size >= ZIP64_MAGIC || entry.data.length >= ZIP64_MAGIC) {
+			throw new IOException("Entry " + entry.name + " is too large to be archived");
+		}
+		long offset = out.count;
+		byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+		int dosTime = dosTime(entry.time);
+		writeInt(out, LOCAL_HEADER);
+		writeShort(out, VERSION);
+		writeShort(out, UTF8_FLAG);
+		writeShort(out, entry.method);
+		writeInt(out, dosTime);
+		writeInt(out, entry.crc);
+		writeInt(out, entry.data.length);
+		writeInt(out, entry.size);
+		writeShort(out, name.length);
+		writeShort(out, 0);
+		out.write(name);
+		out.write(entry.data);
+		central.add(new CentralEntry(entry, name, dosTime, offset));
+	}
+
+	private void writeCentralDirectory(CountingOutputStream out, List<CentralEntry> central) throws IOException {
+		long start = out.count;
+		for (CentralEntry entry : central) {
+			boolean zip64 = entry.offset >= ZIP64_MAGIC;
+			writeInt(out, CENTRAL_HEADER);
+			writeShort(out, zip64 ? ZIP64_VERSION : VERSION);
+			writeShort(out, zip64 ? ZIP64_VERSION : VERSION);
+			writeShort(out, UTF8_FLAG);
+			writeShort(out, entry.method);
+			writeInt(out, entry.dosTime);
+			writeInt(out, entry.crc);
+			writeInt(out, entry.compressedSize);
+			writeInt(out, entry.size);
+			writeShort(out, entry.name.length);
+			writeShort(out, zip64 ? 12 : 0);
+			writeShort(out, 0);
+			writeShort(out, 0);
+			writeShort(out, 0);
+			writeInt(out, entry.externalAttributes);
+			writeInt(out, zip64 ? ZIP64_MAGIC : entry.offset);
+			out.write(entry.name);
+			if (zip64) {
+				writeShort(out, 0x0001);
+				writeShort(out, 8);
+				writeLong(out, entry.offset);
+			}
+		}
+		long end = out.count;
+		long size = end - start;
+		long count = central.size();
+		if (count >= ZIP64_MAGIC_COUNT || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+			writeInt(out, ZIP64_END);
+			writeLong(out, 44);
+			writeShort(out, ZIP64_VERSION);
+			writeShort(out, ZIP64_VERSION);
+			writeInt(out, 0);
+			writeInt(out, 0);
+			writeLong(out, count);
+			writeLong(out, count);
+			writeLong(out, size);
+			writeLong(out, start);
+			writeInt(out, ZIP64_LOCATOR);
+			writeInt(out, 0);
+			writeLong(out, end);
+			writeInt(out, 1);
+		}
+		writeInt(out, END);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeShort(out, (int) Math.min(count, ZIP64_MAGIC_COUNT));
+		writeShort(out, (int) Math.min(count, ZIP64_MAGIC_COUNT));
+		writeInt(out, Math.min(size, ZIP64_MAGIC));
+		writeInt(out, Math.min(start, ZIP64_MAGIC));
+		writeShort(out, 0);
+	}
+
+	private static int dosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return ((year - 1980) << 25) | ((calendar.get(Calendar.MONTH) + 1) << 21)
+				| (calendar.get(Calendar.DAY_OF_MONTH) << 16) | (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+				| (calendar.get(Calendar.MINUTE) << 5) | (calendar.get(Calendar.SECOND) >> 1);
+	}
+
+	private static void writeShort(OutputStream out, int value) throws IOException {
+		out.write(value & 0xFF);
+		out.write((value >>> 8) & 0xFF);
+	}
+
+	private static void writeInt(OutputStream out, long value) throws IOException {
+		writeShort(out, (int) (value & 0xFFFF));
+		writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+	}
+
+	private static void writeLong(OutputStream out, long value) throws IOException {
+		writeInt(out, value & 0xFFFFFFFFL);
+		writeInt(out, value >>> 32);
+	}
+
+	private static final class Entry {
+
+		private final String name;
+
+		private final int method;
+
+		private final long crc;
+
+		private final long size;
+
+		private final byte[] data;
+
+		private final long time;
+
+		private int externalAttributes;
+
+		private Entry(String name, int method, long crc, long size, byte[] data, long time) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.data = data;
+			this.time = time;
+		}
+
+	}
+
+	/**
+	 * The part of an {@link Entry} that is written to the central directory, which does
+	 * not hold on to the content of the entry.
+	 */
+	private static final class CentralEntry {
+
+		private final byte[] name;
+
+		private final int method;
+
+		private final long crc;
+
+		private final long size;
+
+		private final long compressedSize;
+
+		private final int externalAttributes;
+
+		private final int dosTime;
+
+		private final long offset;
+
+		private CentralEntry(Entry entry, byte[] name, int dosTime, long offset) {
+			this.name = name;
+			this.method = entry.method;
+			this.crc = entry.crc;
+			this.size = entry.size;
+			this.compressedSize = entry.data.length;
+			this.externalAttributes = entry.externalAttributes;
+			this.dosTime = dosTime;
+			this.offset = offset;
+		}
+
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.gradle.api.attributes.AttributeCompatibilityRule;
+import org.gradle.api.attributes.CompatibilityCheckDetails;
+import org.gradle.api.attributes.Usage;
+
+/**
+ * Makes the {@value #USAGE} usage that the aggregate Javadoc requests for its API
+ * classpath compatible with {@link Usage#JAVA_API}. Projects with {@link JavadocPlugin}
+ * applied provide their compile classpath with the {@value #USAGE} usage, and every
+ * other component provides its API instead.
+ *
+ * @author Rob Winch
+ */
+public class JavadocClasspathCompatibilityRule implements AttributeCompatibilityRule<Usage> {
+
+	/**
+	 * The usage of the variant that provides the compile classpath of a project for
+	 * aggregate Javadoc.
+	 */
+	public static final String USAGE = "io.spring.javadoc-classpath";
+
+	@Override
+	public void execute(CompatibilityCheckDetails<Usage> details) {
+		Usage consumer = details.getConsumerValue();
+		Usage producer = details.getProducerValue();
+		if (consumer != null && producer != null && USAGE.equals(consumer.getName())
+				&& Usage.JAVA_API.equals(producer.getName())) {
+			details.compatible();
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * A build service that the projects with {@link JavadocPlugin} applied register
+ * themselves with. This allows {@link AggregateJavadocPlugin} to find the projects to
+ * aggregate without accessing the state of other projects, so that projects can be
+ * configured in parallel and in isolation.
+ *
+ * @author Rob Winch
+ */
+public abstract class JavadocContributors implements BuildService<BuildServiceParameters.None> {
+
+	private static final String SERVICE_NAME = "io.spring.javadoc.contributors";
+
+	private final Set<String> projectPaths = new ConcurrentSkipListSet<>();
+
+	/**
+	 * Registers a project whose Javadoc should be aggregated.
+	 * @param projectPath the path of the project
+	 */
+	public void register(String projectPath) {
+		this.projectPaths.add(projectPath);
+	}
+
+	/**
+	 * The paths of the projects that were registered so far, in path order.
+	 * @return the project paths
+	 */
+	public Set<String> getProjectPaths() {
+		return Collections.unmodifiableSet(this.projectPaths);
+	}
+
+	static Provider<JavadocContributors> registerIfAbsent(Gradle gradle) {
+		return gradle.getSharedServices().registerIfAbsent(SERVICE_NAME, JavadocContributors.class, (spec) -> {
+		});
+	}
+
+}
@@ -17,12 +17,18 @@
 package io.spring.gradle.javadoc;
 
 import java.io.File;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
-import org.gradle.api.tasks.Sync;
+import org.gradle.api.Task;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.plugins.JavaBasePlugin;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.javadoc.Javadoc;
 import org.gradle.external.javadoc.JavadocMemberLevel;
@@ -41,34 +47,216 @@ public class JavadocConventionsPlugin implements Plugin<Project> {
 	 */
 	public static final String STYLESHEET_RESOURCE_NAME = "/io/spring/gradle/javadoc/internal/stylesheet.css";
 
-	static final String STYLESHEET_FILE_NAME = "build/io.spring.gradle.javadoc-conventions/stylesheet.css";
+	/**
+	 * The name of the project property that uses the minified Spring stylesheet when set
+	 * to {@code true}.
+	 */
+	public static final String MINIFIED_STYLESHEET_PROPERTY_NAME = "io.spring.javadoc.stylesheet.minified";
+
+	/**
+	 * The name of the task that syncs the descriptors of the {@link JavadocLinks links}.
+	 */
+	public static final String SYNC_JAVADOC_LINKS_TASK_NAME = "syncJavadocLinks";
+
+	/**
+	 * The name of the task that lints the Javadoc comments of the main source set.
+	 */
+	public static final String JAVADOC_LINT_TASK_NAME = "javadocLint";
+
+	/**
+	 * The name of the task that serves a preview of the Javadoc of the main source set
+	 * that is updated while the sources are edited.
+	 */
+	public static final String JAVADOC_PREVIEW_TASK_NAME = "javadocPreview";
 
 	@Override
 	public void apply(Project project) {
-		TaskProvider<Sync> syncJavadocStylesheet = project.getTasks().register("syncJavadocStylesheet", Sync.class,
-				(sync) -> {
-					sync.setGroup("Documentation");
-					sync.setDescription("Syncs the javadoc stylesheet");
-
-					URL resource = getClass().getResource(STYLESHEET_RESOURCE_NAME);
-					sync.from(resource);
-					String relativeToPath = project.relativeProjectPath(new File(STYLESHEET_FILE_NAME).getParent());
-					sync.into(relativeToPath);
+		String title = title(project);
+		Provider<File> stylesheetFile = stylesheetFile(project);
+		JavadocHeapSizing heapSizing = project.getExtensions().create(JavadocHeapSizing.EXTENSION_NAME,
+				JavadocHeapSizing.class);
+		JavadocLinks links = project.getExtensions().create(JavadocLinks.EXTENSION_NAME, JavadocLinks.class,
+				project);
+		TaskProvider<JavadocLinksSync> syncJavadocLinks = syncJavadocLinks(project, links);
+		File buildDir = project.getBuildDir();
+		boolean separateDoclint = SeparateDoclint.isEnabled(project);
+		project.getTasks().withType(Javadoc.class).configureEach((javadoc) -> {
+			configureOptions((StandardJavadocDocletOptions) javadoc.getOptions(), title);
+			configureStylesheet(javadoc, stylesheetFile);
+			configureLinks(javadoc, links, syncJavadocLinks);
+			JavadocMetrics.configure(javadoc, buildDir, null);
+			JavadocHeap.configure(javadoc, buildDir, heapSizing);
+			if (separateDoclint) {
+				SeparateDoclint.disable((StandardJavadocDocletOptions) javadoc.getOptions());
+			}
+		});
+		project.getTasks().withType(IncrementalAggregateJavadoc.class).configureEach((javadoc) -> {
+			configureOptions(javadoc.getOptions(), title);
+			configureStylesheet(javadoc, stylesheetFile);
+			configureLinks(javadoc, links, syncJavadocLinks);
+			if (separateDoclint) {
+				SeparateDoclint.disable(javadoc.getOptions());
+			}
+		});
+		project.getTasks().withType(JavadocPreview.class).configureEach((preview) -> {
+			configureOptions(preview.getOptions(), title);
+			configureStylesheet(preview, stylesheetFile);
+			configureLinks(preview, links, syncJavadocLinks);
+			if (separateDoclint) {
+				SeparateDoclint.disable(preview.getOptions());
+			}
+		});
+		project.getPlugins().withType(JavaPlugin.class, (javaPlugin) -> {
+			javadocLint(project, separateDoclint);
+			javadocPreview(project);
+		});
+		project.getPlugins().withType(JavadocPlugin.class, (javadocPlugin) -> project.getPlugins()
+				.withType(JavaPlugin.class, (javaPlugin) -> documentedApiSources(project)));
+	}
+
+	/**
+	 * Generates the Javadoc of the main source set from the sources that are synced by
+	 * {@link JavadocPlugin}, which only change when the documented API changes. The
+	 * sources of the packages that the project does not publish are synced separately
+	 * and are documented as well, so that every type that the sources refer to is read
+	 * from source. The classes of the main source set are therefore not needed and are
+	 * removed from the classpath so that changes to the implementation only do not
+	 * change the classpath either.
+	 * @param project the project to configure
+	 */
+	private void documentedApiSources(Project project) {
+		TaskProvider<JavadocSourcesSync> syncJavadocSources = project.getTasks()
+				.named(JavadocPlugin.SYNC_JAVADOC_SOURCES_TASK_NAME, JavadocSourcesSync.class);
+		project.getTasks().named(JavaPlugin.JAVADOC_TASK_NAME, Javadoc.class, (javadoc) -> {
+			JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+			SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+			javadoc.setSource(syncJavadocSources.flatMap(JavadocSourcesSync::getDestinationDirectory));
+			javadoc.source(syncJavadocSources.flatMap(JavadocSourcesSync::getExcludedDirectory));
+			javadoc.setClasspath(mainSrc.getCompileClasspath());
+		});
+	}
+
+	/**
+	 * Lints the Java sources of the main source set, with its compile classpath,
+	 * separately from generating the Javadoc. The sources of the {@code javadoc} task
+	 * are not used, as they may be synced by {@link JavadocPlugin}, which only copies a
+	 * source again when its documented API changes, while doclint compiles the bodies
+	 * as well. In the {@link SeparateDoclint separate doclint mode} the {@code check}
+	 * task depends on the lint.
+	 * @param project the project to configure
+	 * @param separateDoclint whether the separate doclint mode is enabled
+	 */
+	private void javadocLint(Project project, boolean separateDoclint) {
+		JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+		SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+		TaskProvider<JavadocLint> javadocLint = project.getTasks().register(JAVADOC_LINT_TASK_NAME,
+				JavadocLint.class, (lint) -> {
+					lint.setGroup("Verification");
+					lint.setDescription("Checks the Javadoc comments of the main Java sources with doclint");
+					lint.getSource().from(mainSrc.getAllJava());
+					lint.getClasspath().from(mainSrc.getCompileClasspath());
+					lint.getReportFile().set(project.getLayout().getBuildDirectory()
+							.file(JavadocMetrics.REPORTS_DIRECTORY_NAME + "/" + lint.getName() + ".json"));
 				});
+		if (separateDoclint) {
+			project.getTasks().named(JavaBasePlugin.CHECK_TASK_NAME, (check) -> check.dependsOn(javadocLint));
+		}
+	}
 
-		project.getTasks().withType(Javadoc.class, (javadoc) -> {
-			javadoc.dependsOn(syncJavadocStylesheet);
-			StandardJavadocDocletOptions options = (StandardJavadocDocletOptions) javadoc.getOptions();
-			String title = title(project);
-			options.setAuthor(true);
-			options.setDocTitle(title);
-			options.setEncoding(StandardCharsets.UTF_8.name());
-			options.setMemberLevel(JavadocMemberLevel.PROTECTED);
-			options.setOutputLevel(JavadocOutputLevel.QUIET);
-			options.splitIndex(true);
-			options.setStylesheetFile(project.file(STYLESHEET_FILE_NAME));
-			options.setUse(true);
-			options.setWindowTitle(title);
+	/**
+	 * Previews the Javadoc of the {@code javadoc} task. The preview watches the source
+	 * directories of the main source set rather than the sources of the task, which may
+	 * be synced, so that edits are picked up without running another task. The preview
+	 * has options of its own, which are configured like those of the {@code javadoc}
+	 * task.
+	 * @param project the project to configure
+	 */
+	private void javadocPreview(Project project) {
+		TaskProvider<Javadoc> javadoc = project.getTasks().named(JavaPlugin.JAVADOC_TASK_NAME, Javadoc.class);
+		project.getTasks().register(JAVADOC_PREVIEW_TASK_NAME, JavadocPreview.class, (preview) -> {
+			preview.setGroup("Documentation");
+			preview.setDescription("Serves a preview of the Javadoc that is updated while the main Java sources "
+					+ "are edited");
+			JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+			SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+			preview.dependsOn(javadoc);
+			preview.getSourceDirectories().from(project.provider(() -> mainSrc.getJava().getSrcDirs()));
+			preview.getClasspath().from(project.provider(() -> javadoc.get().getClasspath()));
+			ProjectLayout layout = project.getLayout();
+			preview.getJavadocDirectory().set(layout.dir(javadoc.map(Javadoc::getDestinationDir)));
+			preview.getDestinationDirectory().set(layout.getBuildDirectory().dir("javadoc-preview"));
+		});
+	}
+
+	private void configureOptions(StandardJavadocDocletOptions options, String title) {
+		options.setAuthor(true);
+		options.setDocTitle(title);
+		options.setEncoding(StandardCharsets.UTF_8.name());
+		options.setMemberLevel(JavadocMemberLevel.PROTECTED);
+		options.setOutputLevel(JavadocOutputLevel.QUIET);
+		options.splitIndex(true);
+		options.setUse(true);
+		options.setWindowTitle(title);
+	}
+
+	/**
+	 * The stylesheet that is shared by every project of the build.
+	 * @param project the project
+	 * @return the stylesheet, which is extracted when the provider is queried
+	 */
+	private Provider<File> stylesheetFile(Project project) {
+		Object minified = project.findProperty(MINIFIED_STYLESHEET_PROPERTY_NAME);
+		Provider<JavadocStylesheet> stylesheet = JavadocStylesheet.registerIfAbsent(project);
+		if (minified != null && Boolean.parseBoolean(minified.toString())) {
+			return stylesheet.map(JavadocStylesheet::getMinifiedStylesheet);
+		}
+		return stylesheet.map(JavadocStylesheet::getStylesheet);
+	}
+
+	/**
+	 * Configures the stylesheet. The stylesheet option of Gradle is fingerprinted by its
+	 * absolute path, so the stylesheet is passed as a custom option instead and is
+	 * registered as an input that is fingerprinted by its content only. The option is
+	 * added when the task runs, so the stylesheet is not extracted while the task is
+	 * configured, and resolving the input then extracts it if it was deleted since.
+	 * @param task the task to configure
+	 * @param stylesheetFile the stylesheet
+	 */
+	private void configureStylesheet(Task task, Provider<File> stylesheetFile) {
+		task.getInputs().file(stylesheetFile).withPropertyName("stylesheetFile")
+				.withPathSensitivity(PathSensitivity.NONE);
+		task.doFirst(JavadocStylesheet.stylesheetFileOption(stylesheetFile));
+	}
+
+	private TaskProvider<JavadocLinksSync> syncJavadocLinks(Project project, JavadocLinks links) {
+		return project.getTasks().register(SYNC_JAVADOC_LINKS_TASK_NAME, JavadocLinksSync.class, (sync) -> {
+			sync.setGroup("Documentation");
+			sync.setDescription("Syncs the descriptors of the external documentation that Javadoc links to");
+			sync.getUrls().set(links.getUrls());
+			sync.setDescriptors(links.getConfiguration().getIncoming()
+					.artifactView((view) -> view.lenient(true)).getArtifacts());
+			sync.getDestinationDirectory().set(project.getLayout().getBuildDirectory().dir("javadoc-links"));
+		});
+	}
+
+	/**
+	 * Links the Javadoc of a task to the external documentation with
+	 * {@code -linkoffline}. The task is only wired to the links once the first link is
+	 * declared, so the tasks of a project without links do not depend on
+	 * {@code syncJavadocLinks}. The options are added when the task runs, as further
+	 * links can be declared after the task was configured, and the URLs and descriptors
+	 * are registered as inputs instead.
+	 * @param task the task to configure
+	 * @param links the links
+	 * @param syncJavadocLinks the task that syncs the descriptors of the links
+	 */
+	private void configureLinks(Task task, JavadocLinks links, TaskProvider<JavadocLinksSync> syncJavadocLinks) {
+		links.whenLinked(() -> {
+			task.getInputs().property("javadocLinks", links.getUrls());
+			task.getInputs().files(syncJavadocLinks).withPropertyName("javadocLinkDescriptors")
+					.withPathSensitivity(PathSensitivity.RELATIVE);
+			task.doFirst(JavadocLinksSync.linkOffline(links.getUrls(),
+					syncJavadocLinks.flatMap(JavadocLinksSync::getDestinationDirectory)));
 		});
 	}
 
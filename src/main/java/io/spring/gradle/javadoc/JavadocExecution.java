@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+/**
+ * How {@link IncrementalAggregateJavadoc} runs javadoc for each shard.
+ *
+ * @author Rob Winch
+ */
+public enum JavadocExecution {
+
+	/**
+	 * Forks the javadoc executable for each shard.
+	 */
+	FORK,
+
+	/**
+	 * Runs the {@link javax.tools.DocumentationTool} of the JDK in a Gradle worker
+	 * daemon. Worker daemons are kept alive and reused by later tasks and builds that run
+	 * in the same Gradle daemon, so the cost of starting a JVM and warming it up is only
+	 * paid once.
+	 */
+	WORKER_DAEMON
+
+}
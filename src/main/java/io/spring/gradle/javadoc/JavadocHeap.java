@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.javadoc.Javadoc;
+
+/**
+ * Sizes the heap of a {@link Javadoc} task from its workload using
+ * {@link JavadocHeapSizing} and records the peak heap that it used. The heap is sized
+ * when the task runs, so that the workload is measured from sources that were
+ * generated by other tasks and so that neither the estimate nor the GC log options are
+ * part of the inputs of the task. The heap is only sized if it is not configured
+ * otherwise.
+ *
+ * @author Rob Winch
+ */
+final class JavadocHeap {
+
+	private JavadocHeap() {
+	}
+
+	/**
+	 * Configures a {@link Javadoc} task to size its heap before it runs and to record its
+	 * workload and peak heap after it ran.
+	 * @param javadoc the task to configure
+	 * @param buildDir the build directory of the project of the task
+	 * @param sizing the sizing model
+	 */
+	static void configure(Javadoc javadoc, File buildDir, JavadocHeapSizing sizing) {
+		File gcLog = new File(buildDir, "tmp/" + javadoc.getName() + "/javadoc-gc.log");
+		File workloadFile = new File(buildDir, "javadoc-heap/" + javadoc.getName() + ".properties");
+		AtomicInteger estimate = new AtomicInteger(-1);
+		javadoc.doFirst(new SizeHeap(sizing, estimate, gcLog, workloadFile));
+		javadoc.doLast(new RecordWorkload(estimate, gcLog, workloadFile));
+	}
+
+	/**
+	 * Makes the javadoc JVM of a task write a GC log, from which the peak heap that it
+	 * used is read. Does nothing if the task already writes the log.
+	 * @param javadoc the task that is about to run
+	 * @param gcLog the file that the javadoc JVM writes its GC log to
+	 * @throws IOException if a previous GC log cannot be deleted
+	 */
+	static void logGc(Javadoc javadoc, File gcLog) throws IOException {
+		String[] flags = gcLogFlags(javaVersion(javadoc), gcLog);
+		if (javadoc.getOptions().getJFlags().contains(flags[0])) {
+			return;
+		}
+		Files.deleteIfExists(gcLog.toPath());
+		Files.createDirectories(gcLog.getParentFile().toPath());
+		javadoc.getOptions().jFlags(flags);
+	}
+
+	private static String[] gcLogFlags(JavaVersion javaVersion, File gcLog) {
+		String path = gcLog.getAbsolutePath();
+		if (javaVersion.isJava9Compatible()) {
+			return new String[] { "-Xlog:gc:file=\"" + path + "\"" };
+		}
+		return new String[] { "-Xloggc:" + path, "-XX:+PrintGC" };
+	}
+
+	/**
+	 * Returns the version of the JDK that runs javadoc for a task, which is read from
+	 * the {@code release} file of the JDK of its executable. The JDK that runs Gradle
+	 * is assumed when the task has no executable or when its JDK has no release file.
+	 * @param javadoc the task
+	 * @return the version of the JDK
+	 * @throws IOException if the release file cannot be read
+	 */
+	static JavaVersion javaVersion(Javadoc javadoc) throws IOException {
+		return JavaVersion.toVersion(JavadocJdk.version(javadoc.getExecutable()));
+	}
+
+	private static JavadocWorkload measure(Javadoc javadoc) {
+		return JavadocWorkload.measure(javadoc.getSource(), javadoc.getClasspath());
+	}
+
+	/**
+	 * Sizes the heap of a task that is about to run from its workload and from the
+	 * workload of its previous run.
+	 */
+	private static final class SizeHeap implements Action<Task> {
+
+		private final JavadocHeapSizing sizing;
+
+		private final AtomicInteger estimate;
+
+		private final File gcLog;
+
+		private final File workloadFile;
+
+		private SizeHeap(JavadocHeapSizing sizing, AtomicInteger estimate, File gcLog, File workloadFile) {
+			this.sizing = sizing;
+			this.estimate = estimate;
+			this.gcLog = gcLog;
+			this.workloadFile = workloadFile;
+		}
+
+		@Override
+		public void execute(Task task) {
+			this.estimate.set(-1);
+			Javadoc javadoc = (Javadoc) task;
+			if (!this.sizing.getEnabled().get() || javadoc.getMaxMemory() != null) {
+				return;
+			}
+			try {
+				JavadocWorkload workload = measure(javadoc);
+				if (workload.getSourceFiles() == 0) {
+					return;
+				}
+				int estimate = this.sizing.estimateMegabytes(workload, JavadocWorkload.read(this.workloadFile));
+				javadoc.setMaxMemory(estimate + "m");
+				logGc(javadoc, this.gcLog);
+				this.estimate.set(estimate);
+				task.getLogger().info("Sized the javadoc heap of {} to {}m", task.getPath(), estimate);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+	private static final class RecordWorkload implements Action<Task> {
+
+		private final AtomicInteger estimate;
+
+		private final File gcLog;
+
+		private final File workloadFile;
+
+		private RecordWorkload(AtomicInteger estimate, File gcLog, File workloadFile) {
+			this.estimate = estimate;
+			this.gcLog = gcLog;
+			this.workloadFile = workloadFile;
+		}
+
+		@Override
+		public void execute(Task task) {
+			int estimate = this.estimate.get();
+			if (estimate == -1) {
+				return;
+			}
+			try {
+				int peak = JavadocWorkload.peakHeapMegabytes(this.gcLog);
+				measure((Javadoc) task).withHeap(estimate, peak).write(this.workloadFile);
+				task.getLogger().info("Javadoc of {} used a peak heap of {}m of {}m", task.getPath(), peak, estimate);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+}
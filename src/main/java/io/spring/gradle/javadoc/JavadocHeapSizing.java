@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import javax.inject.Inject;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+/**
+ * The model that {@link JavadocConventionsPlugin} uses to size the heap of javadoc from
+ * the size of its workload. Registered as the {@value #EXTENSION_NAME} extension.
+ * <p>
+ * The heap is estimated as {@link #getBaseMegabytes() a base}, plus
+ * {@link #getMegabytesPerSourceMegabyte() a number of megabytes per megabyte of
+ * sources}, plus {@link #getMegabytesPerClasspathMegabyte() a number of megabytes per
+ * megabyte of classpath}. When a previous run recorded its peak heap, the estimate is
+ * instead that peak scaled by the change in the size of the workload and by
+ * {@link #getHeadroom() a headroom}. The estimate is always kept between
+ * {@link #getMinimumMegabytes() a minimum} and {@link #getMaximumMegabytes() a maximum}.
+ *
+ * @author Rob Winch
+ */
+public class JavadocHeapSizing {
+
+	/**
+	 * The name of the extension.
+	 */
+	public static final String EXTENSION_NAME = "javadocHeapSizing";
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private final Property<Boolean> enabled;
+
+	private final Property<Integer> baseMegabytes;
+
+	private final Property<Integer> megabytesPerSourceMegabyte;
+
+	private final Property<Integer> megabytesPerClasspathMegabyte;
+
+	private final Property<Integer> minimumMegabytes;
+
+	private final Property<Integer> maximumMegabytes;
+
+	private final Property<Double> headroom;
+
+	@Inject
+	public JavadocHeapSizing(ObjectFactory objects) {
+		this.enabled = objects.property(Boolean.class).convention(true);
+		this.baseMegabytes = objects.property(Integer.class).convention(128);
+		this.megabytesPerSourceMegabyte = objects.property(Integer.class).convention(48);
+		this.megabytesPerClasspathMegabyte = objects.property(Integer.class).convention(4);
+		this.minimumMegabytes = objects.property(Integer.class).convention(256);
+		this.maximumMegabytes = objects.property(Integer.class).convention(4096);
+		this.headroom = objects.property(Double.class).convention(1.25);
+	}
+
+	/**
+	 * Whether the heap of javadoc is sized. Defaults to {@code true}.
+	 * @return whether the heap is sized
+	 */
+	public Property<Boolean> getEnabled() {
+		return this.enabled;
+	}
+
+	public Property<Integer> getBaseMegabytes() {
+		return this.baseMegabytes;
+	}
+
+	public Property<Integer> getMegabytesPerSourceMegabyte() {
+		return this.megabytesPerSourceMegabyte;
+	}
+
+	public Property<Integer> getMegabytesPerClasspathMegabyte() {
+		return this.megabytesPerClasspathMegabyte;
+	}
+
+	public Property<Integer> getMinimumMegabytes() {
+		return this.minimumMegabytes;
+	}
+
+	public Property<Integer> getMaximumMegabytes() {
+		return this.maximumMegabytes;
+	}
+
+	/**
+	 * The factor that the recorded peak heap of a previous run is multiplied by.
+	 * Defaults to {@code 1.25}.
+	 * @return the headroom
+	 */
+	public Property<Double> getHeadroom() {
+		return this.headroom;
+	}
+
+	/**
+	 * Estimates the heap that javadoc needs for a workload.
+	 * @param workload the workload
+	 * @param previous the workload of the previous run or {@code null}
+	 * @return the estimated heap in megabytes
+	 */
+	int estimateMegabytes(JavadocWorkload workload, JavadocWorkload previous) {
+		long estimate;
+		if (previous != null && previous.getPeakHeapMegabytes() > 0) {
+			double scale = (double) Math.max(1, workload.getTotalBytes()) / Math.max(1, previous.getTotalBytes());
+			estimate = (long) Math.ceil(previous.getPeakHeapMegabytes() * scale * this.headroom.get());
+		}
+		else {
+			estimate = this.baseMegabytes.get()
+					+ this.megabytesPerSourceMegabyte.get() * workload.getSourceBytes() / MEGABYTE
+					+ this.megabytesPerClasspathMegabyte.get() * workload.getClasspathBytes() / MEGABYTE;
+		}
+		return (int) Math.min(this.maximumMegabytes.get(), Math.max(this.minimumMegabytes.get(), estimate));
+	}
+
+}
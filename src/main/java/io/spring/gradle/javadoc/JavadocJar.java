@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Packages generated Javadoc into a jar. Unlike a {@code Jar} task, which deflates the
+ * files one at a time, the files are compressed concurrently and streamed into the jar
+ * in a stable order. When {@link #getPrecompressed() precompressed} is enabled, each
+ * HTML, JavaScript and CSS file is followed by a {@code .gz} sidecar entry so that a
+ * static host can serve the compressed file directly.
+ *
+ * @author Rob Winch
+ */
+public class JavadocJar extends DefaultTask {
+
+	private final DirectoryProperty source;
+
+	private final RegularFileProperty archiveFile;
+
+	private final Property<Boolean> precompressed;
+
+	private final Property<Boolean> preserveFileTimestamps;
+
+	private final Property<Integer> parallelism;
+
+	@Inject
+	public JavadocJar(ObjectFactory objects) {
+		this.source = objects.directoryProperty();
+		this.archiveFile = objects.fileProperty();
+		this.precompressed = objects.property(Boolean.class).convention(false);
+		this.preserveFileTimestamps = objects.property(Boolean.class).convention(true);
+		this.parallelism = objects.property(Integer.class).convention(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The directory that contains the generated Javadoc.
+	 * @return the source directory
+	 */
+	@InputDirectory
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public DirectoryProperty getSource() {
+		return this.source;
+	}
+
+	@OutputFile
+	public RegularFileProperty getArchiveFile() {
+		return this.archiveFile;
+	}
+
+	/**
+	 * Whether a gzip sidecar entry is written after each HTML, JavaScript and CSS file.
+	 * Defaults to {@code false}.
+	 * @return whether the sidecar entries are written
+	 */
+	@Input
+	public Property<Boolean> getPrecompressed() {
+		return this.precompressed;
+	}
+
+	/**
+	 * Whether the entries keep the last modified time of their files. When
+	 * {@code false}, the entries use a fixed time so that the jar is reproducible.
+	 * Defaults to {@code true}.
+	 * @return whether file timestamps are preserved
+	 */
+	@Input
+	public Property<Boolean> getPreserveFileTimestamps() {
+		return this.preserveFileTimestamps;
+	}
+
+	/**
+	 * The number of files that are compressed concurrently. Defaults to the number of
+	 * available processors.
+	 * @return the parallelism
+	 */
+	@Internal
+	public Property<Integer> getParallelism() {
+		return this.parallelism;
+	}
+
+	@TaskAction
+	public void archive() throws IOException {
+		File archive = this.archiveFile.get().getAsFile();
+		archive.getParentFile().mkdirs();
+		JavadocArchiveWriter writer = new JavadocArchiveWriter(Math.max(1, this.parallelism.get()),
+				this.precompressed.get(), this.preserveFileTimestamps.get());
+		int entries = writer.write(this.source.get().getAsFile().toPath(), archive.toPath());
+		getLogger().info("Wrote {} entries to {}", entries, archive);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * The version of the JDK that a javadoc executable belongs to, which is read from the
+ * {@code release} file of the JDK. The JDK that runs Gradle is assumed when there is no
+ * executable or when its JDK has no release file.
+ *
+ * @author Rob Winch
+ */
+final class JavadocJdk {
+
+	private JavadocJdk() {
+	}
+
+	/**
+	 * Returns the version of the JDK of an executable, such as {@code 1.8.0_392} or
+	 * {@code 17.0.9}.
+	 * @param executable the executable or {@code null}
+	 * @return the version of the JDK
+	 * @throws IOException if the release file cannot be read
+	 */
+	static String version(String executable) throws IOException {
+		if (executable != null) {
+			File bin = new File(executable).getAbsoluteFile().getParentFile();
+			File release = new File(bin.getParentFile(), "release");
+			if (release.isFile()) {
+				Properties properties = new Properties();
+				try (InputStream input = Files.newInputStream(release.toPath())) {
+					properties.load(input);
+				}
+				String version = properties.getProperty("JAVA_VERSION");
+				if (version != null) {
+					return version.replace("\"", "");
+				}
+			}
+		}
+		return System.getProperty("java.version");
+	}
+
+	/**
+	 * Returns the feature version of the JDK of an executable, such as {@code 8} or
+	 * {@code 17}.
+	 * @param executable the executable or {@code null}
+	 * @return the feature version of the JDK
+	 * @throws IOException if the release file cannot be read
+	 */
+	static int featureVersion(String executable) throws IOException {
+		return featureVersionOf(version(executable));
+	}
+
+	static int featureVersionOf(String version) {
+		String[] parts = version.split("[._+-]");
+		int feature = Integer.parseInt(parts[0]);
+		return (feature == 1 && parts.length > 1) ? Integer.parseInt(parts[1]) : feature;
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.dsl.DependencyHandler;
+import org.gradle.api.artifacts.dsl.RepositoryHandler;
+import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Provider;
+
+/**
+ * The external documentation that {@link JavadocConventionsPlugin} links Javadoc to.
+ * Registered as the {@value #EXTENSION_NAME} extension.
+ * <p>
+ * The {@code element-list} and {@code package-list} of each link are resolved as
+ * dependencies of the {@value #CONFIGURATION_NAME} configuration from an Ivy repository
+ * that is only used for that link. They are cached in the Gradle user home like any
+ * other dependency, so Javadoc is linked with {@code -linkoffline} without accessing
+ * the network once they were downloaded.
+ *
+ * @author Rob Winch
+ */
+public class JavadocLinks {
+
+	/**
+	 * The name of the extension.
+	 */
+	public static final String EXTENSION_NAME = "javadocLinks";
+
+	/**
+	 * The name of the configuration that resolves the descriptors of the links.
+	 */
+	public static final String CONFIGURATION_NAME = "javadocLinks";
+
+	/**
+	 * The names of the files that describe the packages of external documentation, in
+	 * order of preference.
+	 */
+	static final String[] DESCRIPTORS = { "element-list", "package-list" };
+
+	private static final String GROUP_PREFIX = "io.spring.javadoc.links.";
+
+	private final RepositoryHandler repositories;
+
+	private final DependencyHandler dependencies;
+
+	private final Configuration configuration;
+
+	private final ListProperty<String> urls;
+
+	private final List<Runnable> linkedActions = new ArrayList<>();
+
+	public JavadocLinks(Project project) {
+		this.repositories = project.getRepositories();
+		this.dependencies = project.getDependencies();
+		this.configuration = project.getConfigurations().maybeCreate(CONFIGURATION_NAME);
+		this.configuration.setCanBeConsumed(false);
+		this.configuration.setVisible(false);
+		this.urls = project.getObjects().listProperty(String.class).empty();
+	}
+
+	/**
+	 * Links Javadoc to the external documentation at a URL.
+	 * @param url the URL of the external documentation
+	 */
+	public void link(String url) {
+		String base = (url.endsWith("/")) ? url : url + "/";
+		if (this.urls.get().contains(base)) {
+			return;
+		}
+		String group = group(base);
+		this.repositories.exclusiveContent((exclusiveContent) -> exclusiveContent
+				.forRepository(() -> this.repositories.ivy((ivy) -> {
+					ivy.setName("javadocLink" + id(base));
+					ivy.setUrl(URI.create(base));
+					ivy.patternLayout((layout) -> layout.artifact("[module]"));
+					ivy.metadataSources(IvyArtifactRepository.MetadataSources::artifact);
+				})).filter((filter) -> filter.includeGroup(group)));
+		for (String descriptor : DESCRIPTORS) {
+			this.configuration.getDependencies().add(this.dependencies.create(group + ":" + descriptor + ":1"));
+		}
+		boolean first = this.urls.get().isEmpty();
+		this.urls.add(base);
+		if (first) {
+			this.linkedActions.forEach(Runnable::run);
+			this.linkedActions.clear();
+		}
+	}
+
+	/**
+	 * Runs an action when the first link is declared, or immediately if a link was
+	 * already declared, so that tasks are only wired to the links of a project that
+	 * declares any.
+	 * @param action the action to run
+	 */
+	void whenLinked(Runnable action) {
+		if (this.urls.get().isEmpty()) {
+			this.linkedActions.add(action);
+		}
+		else {
+			action.run();
+		}
+	}
+
+	/**
+	 * The URLs of the external documentation, each ending with {@code /}.
+	 * @return the URLs
+	 */
+	public Provider<List<String>> getUrls() {
+		return this.urls;
+	}
+
+	Configuration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * The group of the descriptors of the documentation at a URL.
+	 * @param url the URL of the documentation
+	 * @return the group
+	 */
+	static String group(String url) {
+		return GROUP_PREFIX + id(url);
+	}
+
+	/**
+	 * The identifier of the documentation at a URL, which is safe to use as a file name.
+	 * @param url the URL of the documentation
+	 * @return the identifier
+	 */
+	static String id(String url) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+			StringBuilder id = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				id.append(String.format("%02x", digest[i]));
+			}
+			return id.toString();
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
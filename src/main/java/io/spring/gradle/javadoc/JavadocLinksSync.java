@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+
+/**
+ * Copies the resolved descriptors of each {@link JavadocLinks link} into a directory of
+ * its own, named by {@link JavadocLinks#id(String) the identifier of the link}, which
+ * is what javadoc expects as the location of {@code -linkoffline}.
+ *
+ * @author Rob Winch
+ */
+public class JavadocLinksSync extends DefaultTask {
+
+	private final ListProperty<String> urls;
+
+	private final DirectoryProperty destinationDirectory;
+
+	private ArtifactCollection descriptors;
+
+	@Inject
+	public JavadocLinksSync(ObjectFactory objects) {
+		this.urls = objects.listProperty(String.class);
+		this.destinationDirectory = objects.directoryProperty();
+	}
+
+	@Input
+	public ListProperty<String> getUrls() {
+		return this.urls;
+	}
+
+	/**
+	 * The resolved descriptors. A link whose descriptors could not be resolved is not
+	 * linked, so the descriptors are expected to be resolved leniently.
+	 * @return the descriptors
+	 */
+	@Internal
+	public ArtifactCollection getDescriptors() {
+		return this.descriptors;
+	}
+
+	public void setDescriptors(ArtifactCollection descriptors) {
+		this.descriptors = descriptors;
+	}
+
+	@InputFiles
+	@PathSensitive(PathSensitivity.NAME_ONLY)
+	public FileCollection getDescriptorFiles() {
+		return this.descriptors.getArtifactFiles();
+	}
+
+	@OutputDirectory
+	public DirectoryProperty getDestinationDirectory() {
+		return this.destinationDirectory;
+	}
+
+	@TaskAction
+	public void sync() throws IOException {
+		File destination = this.destinationDirectory.get().getAsFile();
+		Files.createDirectories(destination.toPath());
+		deleteContents(destination.toPath());
+		for (ResolvedArtifactResult descriptor : this.descriptors) {
+			ComponentIdentifier component = descriptor.getId().getComponentIdentifier();
+			if (component instanceof ModuleComponentIdentifier) {
+				ModuleComponentIdentifier module = (ModuleComponentIdentifier) component;
+				String id = module.getGroup().substring(module.getGroup().lastIndexOf('.') + 1);
+				Path target = destination.toPath().resolve(id).resolve(module.getModule());
+				Files.createDirectories(target.getParent());
+				Files.copy(descriptor.getFile().toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		for (String url : this.urls.get()) {
+			if (descriptorDirectory(destination, url) == null) {
+				getLogger().warn("Not linking to {} as neither of {} could be resolved", url,
+						String.join(" or ", JavadocLinks.DESCRIPTORS));
+			}
+		}
+	}
+
+	private static void deleteContents(Path directory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.collect(Collectors.toCollection(ArrayList::new));
+		}
+		Collections.reverse(paths);
+		for (Path path : paths) {
+			if (!path.equals(directory)) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * The directory that contains the descriptor of a link.
+	 * @param destination the directory the descriptors were synced to
+	 * @param url the URL of the link
+	 * @return the directory or {@code null} if no descriptor was resolved
+	 */
+	static File descriptorDirectory(File destination, String url) {
+		File directory = new File(destination, JavadocLinks.id(url));
+		for (String descriptor : JavadocLinks.DESCRIPTORS) {
+			if (new File(directory, descriptor).isFile()) {
+				return directory;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the action that links the Javadoc of a task to the synced descriptors
+	 * before the task runs.
+	 * @param urls the URLs of the links
+	 * @param destination the directory the descriptors are synced to
+	 * @return the action
+	 */
+	static Action<Task> linkOffline(Provider<List<String>> urls, Provider<Directory> destination) {
+		return new LinkOffline(urls, destination);
+	}
+
+	private static final class LinkOffline implements Action<Task> {
+
+		private final Provider<List<String>> urls;
+
+		private final Provider<Directory> destination;
+
+		private LinkOffline(Provider<List<String>> urls, Provider<Directory> destination) {
+			this.urls = urls;
+			this.destination = destination;
+		}
+
+		@Override
+		public void execute(Task task) {
+			StandardJavadocDocletOptions options = JavadocTaskOptions.of(task);
+			File destination = this.destination.get().getAsFile();
+			for (String url : this.urls.get()) {
+				File directory = descriptorDirectory(destination, url);
+				if (directory != null) {
+					options.linksOffline(url, directory.getAbsolutePath());
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Checks the Javadoc comments of Java sources with the doclint of the Java compiler,
+ * separately from generating the Javadoc. The sources are analyzed using the Worker API,
+ * so that the lint tasks of different projects run in parallel, and the problems are
+ * recorded in a JSON {@link #getReportFile() report}. The task fails if doclint reports
+ * an error, unless {@link #getIgnoreFailures() failures are ignored}.
+ *
+ * @author Rob Winch
+ */
+@CacheableTask
+public class JavadocLint extends DefaultTask {
+
+	private final WorkerExecutor workerExecutor;
+
+	private final ProjectLayout layout;
+
+	private final ConfigurableFileCollection source;
+
+	private final ConfigurableFileCollection classpath;
+
+	private final Property<String> doclint;
+
+	private final Property<Boolean> ignoreFailures;
+
+	private final RegularFileProperty reportFile;
+
+	@Inject
+	public JavadocLint(ObjectFactory objects, WorkerExecutor workerExecutor, ProjectLayout layout) {
+		this.workerExecutor = workerExecutor;
+		this.layout = layout;
+		this.source = objects.fileCollection();
+		this.classpath = objects.fileCollection();
+		this.doclint = objects.property(String.class).convention("all/protected");
+		this.ignoreFailures = objects.property(Boolean.class).convention(false);
+		this.reportFile = objects.fileProperty();
+	}
+
+	/**
+	 * The Java sources to lint, which are expected to be encoded in UTF-8.
+	 * @return the sources
+	 */
+	@InputFiles
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public ConfigurableFileCollection getSource() {
+		return this.source;
+	}
+
+	@Classpath
+	public ConfigurableFileCollection getClasspath() {
+		return this.classpath;
+	}
+
+	/**
+	 * The groups that doclint checks and the access level of the checked declarations,
+	 * in the format of the {@code -Xdoclint} option of javac. Defaults to
+	 * {@code all/protected}, which matches the member level of the Javadoc. Groups can be
+	 * disabled as in {@code all/protected,-missing}.
+	 * @return the doclint groups and access level
+	 */
+	@Input
+	public Property<String> getDoclint() {
+		return this.doclint;
+	}
+
+	/**
+	 * Whether the task should succeed when doclint reports errors. Defaults to
+	 * {@code false}.
+	 * @return whether failures are ignored
+	 */
+	@Input
+	public Property<Boolean> getIgnoreFailures() {
+		return this.ignoreFailures;
+	}
+
+	/**
+	 * The Java version of the compiler that runs doclint. The sources are linted in the
+	 * JVM that runs Gradle, and the checks of doclint differ between Java versions, so the
+	 * version is an input of the task.
+	 * @return the Java version of the compiler
+	 */
+	@Input
+	public String getJavaVersion() {
+		return JavaVersion.current().toString();
+	}
+
+	@OutputFile
+	public RegularFileProperty getReportFile() {
+		return this.reportFile;
+	}
+
+	@TaskAction
+	public void lint() {
+		File classesDirectory = new File(getTemporaryDir(), "classes");
+		this.workerExecutor.noIsolation().submit(JavadocLintWorkAction.class, (parameters) -> {
+			parameters.getTaskPath().set(getPath());
+			parameters.getProjectDirectory().set(this.layout.getProjectDirectory());
+			parameters.getSource().from(this.source);
+			parameters.getClasspath().from(this.classpath);
+			parameters.getDoclint().set(this.doclint);
+			parameters.getIgnoreFailures().set(this.ignoreFailures);
+			parameters.getClassesDirectory().set(classesDirectory);
+			parameters.getReportFile().set(this.reportFile);
+		});
+	}
+
+}
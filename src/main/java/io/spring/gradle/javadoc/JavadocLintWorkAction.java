@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Lints the sources of a {@link JavadocLint} task by compiling them with the
+ * {@code -Xdoclint} option of the {@link JavaCompiler} of the JDK that runs Gradle. The
+ * classes are compiled into a temporary directory as doclint runs as part of the
+ * compilation.
+ *
+ * @author Rob Winch
+ */
+public abstract class JavadocLintWorkAction implements WorkAction<JavadocLintWorkAction.Parameters> {
+
+	private static final Logger logger = Logging.getLogger(JavadocLintWorkAction.class);
+
+	@Override
+	public void execute() {
+		Parameters parameters = getParameters();
+		Path projectDirectory = parameters.getProjectDirectory().get().getAsFile().toPath();
+		File reportFile = parameters.getReportFile().get().getAsFile();
+		List<Problem> problems = lint(parameters.getSource().getFiles(), parameters.getClasspath().getFiles(),
+				parameters.getDoclint().get(), parameters.getClassesDirectory().get().getAsFile());
+		int errors = 0;
+		for (Problem problem : problems) {
+			if (problem.isError()) {
+				errors++;
+				logger.error(problem.describe(projectDirectory));
+			}
+			else {
+				logger.warn(problem.describe(projectDirectory));
+			}
+		}
+		try {
+			Files.createDirectories(reportFile.getParentFile().toPath());
+			Files.write(reportFile.toPath(), report(parameters.getTaskPath().get(),
+					parameters.getSource().getFiles().size(), problems, projectDirectory)
+							.getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		if (errors != 0 && !parameters.getIgnoreFailures().get()) {
+			throw new GradleException("Javadoc lint found " + errors + ((errors != 1) ? " errors" : " error")
+					+ ". See the report at " + reportFile.toURI());
+		}
+	}
+
+	/**
+	 * Lints the given sources.
+	 * @param sources the sources
+	 * @param classpath the classpath of the sources
+	 * @param doclint the value of the {@code -Xdoclint} option
+	 * @param classesDirectory the directory to compile the classes into
+	 * @return the problems that were reported, in the order they were reported
+	 */
+	static List<Problem> lint(Iterable<File> sources, Iterable<File> classpath, String doclint,
+			File classesDirectory) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new GradleException("Unable to find the Java compiler of " + System.getProperty("java.home")
+					+ ". Run Gradle with a JDK");
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH,
+				StandardCharsets.UTF_8)) {
+			Files.createDirectories(classesDirectory.toPath());
+			List<String> options = new ArrayList<>(Arrays.asList("-Xdoclint:" + doclint, "-proc:none",
+					"-implicit:none", "-Xmaxerrs", String.valueOf(Integer.MAX_VALUE), "-Xmaxwarns",
+					String.valueOf(Integer.MAX_VALUE), "-d", classesDirectory.getAbsolutePath()));
+			List<String> classpathEntries = new ArrayList<>();
+			for (File entry : classpath) {
+				classpathEntries.add(entry.getAbsolutePath());
+			}
+			options.add("-classpath");
+			options.add(String.join(File.pathSeparator, classpathEntries));
+			compiler.getTask(null, fileManager, diagnostics, options, null,
+					fileManager.getJavaFileObjectsFromFiles(sources)).call();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		List<Problem> problems = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.NOTE || diagnostic.getKind() == Diagnostic.Kind.OTHER) {
+				continue;
+			}
+			File file = (diagnostic.getSource() != null) ? new File(diagnostic.getSource().toUri()) : null;
+			problems.add(new Problem(file, diagnostic.getLineNumber(), diagnostic.getColumnNumber(),
+					diagnostic.getKind() == Diagnostic.Kind.ERROR, diagnostic.getMessage(Locale.ENGLISH)));
+		}
+		return problems;
+	}
+
+	/**
+	 * Creates the JSON report of a lint.
+	 * @param task the path of the task
+	 * @param sourceFiles the number of sources that were linted
+	 * @param problems the problems
+	 * @param projectDirectory the directory that the paths of the sources are relative to
+	 * @return the report
+	 */
+	static String report(String task, int sourceFiles, List<Problem> problems, Path projectDirectory) {
+		long errors = problems.stream().filter(Problem::isError).count();
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"task\": ").append(JavadocMetrics.json(task)).append(",\n");
+		json.append("  \"sourceFiles\": ").append(sourceFiles).append(",\n");
+		json.append("  \"errors\": ").append(errors).append(",\n");
+		json.append("  \"warnings\": ").append(problems.size() - errors).append(",\n");
+		json.append("  \"problems\": [");
+		for (int i = 0; i < problems.size(); i++) {
+			json.append((i != 0) ? ",\n    " : "\n    ").append(problems.get(i).toJson(projectDirectory));
+		}
+		json.append(problems.isEmpty() ? "]\n" : "\n  ]\n").append("}\n");
+		return json.toString();
+	}
+
+	/**
+	 * A problem that doclint or the compiler reported.
+	 */
+	static final class Problem {
+
+		private final File file;
+
+		private final long line;
+
+		private final long column;
+
+		private final boolean error;
+
+		private final String message;
+
+		Problem(File file, long line, long column, boolean error, String message) {
+			this.file = file;
+			this.line = line;
+			this.column = column;
+			this.error = error;
+			this.message = message;
+		}
+
+		boolean isError() {
+			return this.error;
+		}
+
+		String getMessage() {
+			return this.message;
+		}
+
+		private String path(Path projectDirectory) {
+			if (this.file == null) {
+				return "";
+			}
+			Path path = this.file.toPath().toAbsolutePath();
+			return (path.startsWith(projectDirectory) ? projectDirectory.relativize(path) : path).toString()
+					.replace(File.separatorChar, '/');
+		}
+
+		private String describe(Path projectDirectory) {
+			String location = (this.file != null) ? path(projectDirectory) + ":" + this.line + ": " : "";
+			return location + (this.error ? "error: " : "warning: ") + this.message;
+		}
+
+		private String toJson(Path projectDirectory) {
+			return "{ \"file\": " + JavadocMetrics.json(path(projectDirectory)) + ", \"line\": " + this.line
+					+ ", \"column\": " + this.column + ", \"kind\": \"" + (this.error ? "error" : "warning")
+					+ "\", \"message\": " + JavadocMetrics.json(this.message) + " }";
+		}
+
+	}
+
+	/**
+	 * The parameters for linting the sources of a task.
+	 */
+	public interface Parameters extends WorkParameters {
+
+		/**
+		 * The path of the task, which is recorded in the report.
+		 * @return the path of the task
+		 */
+		Property<String> getTaskPath();
+
+		/**
+		 * The directory that the paths of the sources in the report are relative to.
+		 * @return the project directory
+		 */
+		DirectoryProperty getProjectDirectory();
+
+		/**
+		 * The sources to lint.
+		 * @return the sources
+		 */
+		ConfigurableFileCollection getSource();
+
+		/**
+		 * The classpath of the sources.
+		 * @return the classpath
+		 */
+		ConfigurableFileCollection getClasspath();
+
+		/**
+		 * The value of the {@code -Xdoclint} option.
+		 * @return the doclint groups and access level
+		 */
+		Property<String> getDoclint();
+
+		/**
+		 * Whether errors do not fail the lint.
+		 * @return whether failures are ignored
+		 */
+		Property<Boolean> getIgnoreFailures();
+
+		/**
+		 * The directory to compile the classes into.
+		 * @return the classes directory
+		 */
+		DirectoryProperty getClassesDirectory();
+
+		/**
+		 * The file to write the report to.
+		 * @return the report file
+		 */
+		RegularFileProperty getReportFile();
+
+	}
+
+}
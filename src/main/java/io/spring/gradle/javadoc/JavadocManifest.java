@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The SHA-256 of each file of a generated site, keyed by the path of the file relative
+ * to the site. Manifests are written in the format of {@code sha256sum}, that is one
+ * {@code <hash>  <path>} line per file, sorted by path.
+ *
+ * @author Rob Winch
+ */
+final class JavadocManifest {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal
+			.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+	private final Map<String, String> hashes;
+
+	private JavadocManifest(Map<String, String> hashes) {
+		this.hashes = Collections.unmodifiableMap(hashes);
+	}
+
+	/**
+	 * Returns the hash of each file keyed by its path.
+	 * @return the hashes
+	 */
+	Map<String, String> getHashes() {
+		return this.hashes;
+	}
+
+	/**
+	 * Hashes the files of a site concurrently.
+	 * @param site the directory of the site
+	 * @param parallelism the number of files that are hashed at the same time
+	 * @return the manifest of the site
+	 * @throws IOException if the site cannot be read
+	 */
+	static JavadocManifest of(Path site, int parallelism) throws IOException {
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(site)) {
+			files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		try {
+			List<Future<String>> hashes = new ArrayList<>(files.size());
+			for (Path file : files) {
+				hashes.add(executor.submit(() -> hash(file)));
+			}
+			Map<String, String> manifest = new TreeMap<>();
+			for (int i = 0; i < files.size(); i++) {
+				manifest.put(site.relativize(files.get(i)).toString().replace('\\', '/'), hashes.get(i).get());
+			}
+			return new JavadocManifest(manifest);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while hashing " + site, ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) ex.getCause()).getCause();
+			}
+			throw new IOException("Unable to hash " + site, ex.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads a manifest in the format of {@code sha256sum}.
+	 * @param lines the lines of the manifest
+	 * @return the manifest
+	 */
+	static JavadocManifest parse(List<String> lines) {
+		Map<String, String> hashes = new TreeMap<>();
+		for (String line : lines) {
+			int separator = line.indexOf("  ");
+			if (separator != -1) {
+				hashes.put(line.substring(separator + 2), line.substring(0, separator));
+			}
+		}
+		return new JavadocManifest(hashes);
+	}
+
+	/**
+	 * Reads a manifest file, which is empty when the file does not exist.
+	 * @param file the manifest file
+	 * @return the manifest
+	 * @throws IOException if the file cannot be read
+	 */
+	static JavadocManifest read(Path file) throws IOException {
+		return parse(Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : Collections.emptyList());
+	}
+
+	/**
+	 * Returns the lines of the manifest in the format of {@code sha256sum}.
+	 * @return the lines
+	 */
+	List<String> lines() {
+		List<String> lines = new ArrayList<>(this.hashes.size());
+		for (Map.Entry<String, String> file : this.hashes.entrySet()) {
+			lines.add(file.getValue() + "  " + file.getKey());
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the manifest atomically.
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void write(Path file) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, lines(), StandardCharsets.UTF_8);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Compares the manifest with a previous manifest.
+	 * @param previous the previous manifest
+	 * @return the files that were added, changed and deleted since the previous manifest
+	 */
+	Diff diff(JavadocManifest previous) {
+		Diff diff = new Diff();
+		for (Map.Entry<String, String> file : this.hashes.entrySet()) {
+			String previousHash = previous.hashes.get(file.getKey());
+			if (previousHash == null) {
+				diff.added.add(file.getKey());
+			}
+			else if (!Objects.equals(previousHash, file.getValue())) {
+				diff.changed.add(file.getKey());
+			}
+		}
+		for (String path : previous.hashes.keySet()) {
+			if (!this.hashes.containsKey(path)) {
+				diff.deleted.add(path);
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * Computes the SHA-256 of a file by reading it through a {@link FileChannel} into a
+	 * direct buffer that is reused by each thread.
+	 * @param file the file to hash
+	 * @return the hash as lower case hex
+	 */
+	static String hash(Path file) {
+		MessageDigest digest = sha256();
+		ByteBuffer buffer = BUFFER.get();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer.clear();
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to hash " + file, ex);
+		}
+		StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * The paths of the files that differ between two manifests.
+	 */
+	static final class Diff {
+
+		private final List<String> added = new ArrayList<>();
+
+		private final List<String> changed = new ArrayList<>();
+
+		private final List<String> deleted = new ArrayList<>();
+
+		List<String> getAdded() {
+			return this.added;
+		}
+
+		List<String> getChanged() {
+			return this.changed;
+		}
+
+		List<String> getDeleted() {
+			return this.deleted;
+		}
+
+		boolean isEmpty() {
+			return this.added.isEmpty() && this.changed.isEmpty() && this.deleted.isEmpty();
+		}
+
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.logging.StandardOutputListener;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+import org.gradle.api.tasks.javadoc.Javadoc;
+
+/**
+ * Records the performance and size metrics of a {@link Javadoc} task in a JSON report:
+ * the wall time, the number and size of the sources, the number of classpath entries,
+ * the number and size of the generated files, the number of warnings and the peak heap.
+ * The sources, generated files and warnings are also broken down per contributing
+ * project, so that the projects that make a slow Javadoc slow can be found.
+ * <p>
+ * For the aggregate Javadoc, the contributing projects are the projects that the sources
+ * were resolved from. A generated file is attributed to the project whose sources contain
+ * its package and a warning to the project whose source it is about. Files that are not
+ * specific to a package, such as the indexes, are only counted in the totals.
+ *
+ * @author Rob Winch
+ */
+final class JavadocMetrics {
+
+	/**
+	 * The directory of the build directory that the reports are written to.
+	 */
+	static final String REPORTS_DIRECTORY_NAME = "reports/javadoc";
+
+	private static final String EXTRA_PROPERTY_NAME = "io.spring.javadoc.metrics";
+
+	private static final Pattern WARNING = Pattern
+			.compile("^(?:(.+\\.java):\\d+: )?(?:javadoc: )?warning(?: -|:)");
+
+	private JavadocMetrics() {
+	}
+
+	/**
+	 * Configures a task to record its metrics in {@code <task>.json} of the
+	 * {@link #REPORTS_DIRECTORY_NAME reports directory}. Configuring a task again only
+	 * replaces its contributing projects.
+	 * @param javadoc the task to configure
+	 * @param buildDir the build directory of the project of the task
+	 * @param contributors the sources of each contributing project or {@code null} if the
+	 * project of the task is the only contributor
+	 */
+	static void configure(Javadoc javadoc, File buildDir, ArtifactCollection contributors) {
+		ExtraPropertiesExtension extraProperties = javadoc.getExtensions().getExtraProperties();
+		if (extraProperties.has(EXTRA_PROPERTY_NAME)) {
+			if (contributors != null) {
+				((Measurement) extraProperties.get(EXTRA_PROPERTY_NAME)).contributors = contributors;
+			}
+			return;
+		}
+		File reportFile = new File(buildDir, REPORTS_DIRECTORY_NAME + "/" + javadoc.getName() + ".json");
+		File gcLog = new File(buildDir, "tmp/" + javadoc.getName() + "/javadoc-gc.log");
+		Measurement measurement = new Measurement(javadoc.getProject().getPath(), contributors);
+		extraProperties.set(EXTRA_PROPERTY_NAME, measurement);
+		javadoc.getOutputs().file(reportFile).withPropertyName("metricsReport");
+		javadoc.doFirst(new Start(measurement, gcLog));
+		javadoc.doLast(new Record(measurement, reportFile, gcLog));
+	}
+
+	/**
+	 * Counts the warnings of javadoc output per source file.
+	 * @param output the output of javadoc
+	 * @return the number of warnings per source file, where warnings that are not about
+	 * a source file are counted with an empty path
+	 */
+	static Map<String, Integer> warnings(String output) {
+		Map<String, Integer> warnings = new LinkedHashMap<>();
+		for (String line : output.split("\r?\n")) {
+			Matcher matcher = WARNING.matcher(line);
+			if (matcher.find()) {
+				String source = (matcher.group(1) != null) ? matcher.group(1) : "";
+				warnings.merge(source, 1, Integer::sum);
+			}
+		}
+		return warnings;
+	}
+
+	/**
+	 * Breaks the workload of a javadoc run down per contributing project.
+	 * @param sources the source files
+	 * @param roots the source directory of each contributing project
+	 * @param destination the directory of the generated files
+	 * @param outputs the generated files
+	 * @param warnings the number of warnings per source file
+	 * @return the metrics of each contributing project, in the order of the roots
+	 * @throws IOException if the generated files cannot be read
+	 */
+	static List<ProjectMetrics> breakDown(Iterable<File> sources, Map<String, Path> roots, Path destination,
+			List<Path> outputs, Map<String, Integer> warnings) throws IOException {
+		Map<String, ProjectMetrics> projects = new LinkedHashMap<>();
+		for (String path : roots.keySet()) {
+			projects.put(path, new ProjectMetrics(path));
+		}
+		Map<String, String> packages = new HashMap<>();
+		for (File source : sources) {
+			Path file = source.toPath().toAbsolutePath();
+			String path = contributor(file, roots);
+			if (path == null) {
+				continue;
+			}
+			ProjectMetrics project = projects.get(path);
+			project.sourceFiles++;
+			project.sourceBytes += source.length();
+			Path root = roots.get(path);
+			if (root != null && file.getParent().startsWith(root)) {
+				packages.putIfAbsent(root.relativize(file.getParent()).toString().replace('\\', '/'), path);
+			}
+		}
+		for (Map.Entry<String, Integer> warning : warnings.entrySet()) {
+			String path = contributor(new File(warning.getKey()).toPath().toAbsolutePath(), roots);
+			if (!warning.getKey().isEmpty() && path != null) {
+				projects.get(path).warnings += warning.getValue();
+			}
+		}
+		String onlyProject = roots.containsValue(null) ? roots.keySet().iterator().next() : null;
+		for (Path file : outputs) {
+			String path = (onlyProject != null) ? onlyProject : owner(destination.relativize(file), packages);
+			if (path != null) {
+				projects.get(path).outputFiles++;
+				projects.get(path).outputBytes += Files.size(file);
+			}
+		}
+		return new ArrayList<>(projects.values());
+	}
+
+	private static String contributor(Path file, Map<String, Path> roots) {
+		for (Map.Entry<String, Path> root : roots.entrySet()) {
+			if (root.getValue() == null || file.startsWith(root.getValue())) {
+				return root.getKey();
+			}
+		}
+		return null;
+	}
+
+	private static String owner(Path file, Map<String, String> packages) {
+		for (Path directory = file.getParent(); directory != null; directory = directory.getParent()) {
+			String path = packages.get(directory.toString().replace('\\', '/'));
+			if (path != null) {
+				return path;
+			}
+		}
+		return null;
+	}
+
+	private static List<Path> files(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return new ArrayList<>();
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Quotes a value as a JSON string.
+	 * @param value the value
+	 * @return the JSON string
+	 */
+	static String json(String value) {
+		StringBuilder json = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	/**
+	 * The metrics of a project that contributes to a javadoc run.
+	 */
+	static final class ProjectMetrics {
+
+		private final String path;
+
+		private long sourceFiles;
+
+		private long sourceBytes;
+
+		private long outputFiles;
+
+		private long outputBytes;
+
+		private long warnings;
+
+		private ProjectMetrics(String path) {
+			this.path = path;
+		}
+
+		String getPath() {
+			return this.path;
+		}
+
+		long getSourceFiles() {
+			return this.sourceFiles;
+		}
+
+		long getSourceBytes() {
+			return this.sourceBytes;
+		}
+
+		long getOutputFiles() {
+			return this.outputFiles;
+		}
+
+		long getOutputBytes() {
+			return this.outputBytes;
+		}
+
+		long getWarnings() {
+			return this.warnings;
+		}
+
+		private String toJson() {
+			return "{ \"path\": " + json(this.path) + ", \"sourceFiles\": " + this.sourceFiles
+					+ ", \"sourceBytes\": " + this.sourceBytes + ", \"outputFiles\": " + this.outputFiles
+					+ ", \"outputBytes\": " + this.outputBytes + ", \"warnings\": " + this.warnings + " }";
+		}
+
+	}
+
+	/**
+	 * The state that is shared by the actions that measure a run.
+	 */
+	private static final class Measurement implements StandardOutputListener {
+
+		private final String projectPath;
+
+		private ArtifactCollection contributors;
+
+		private final StringBuilder output = new StringBuilder();
+
+		private long start;
+
+		private Measurement(String projectPath, ArtifactCollection contributors) {
+			this.projectPath = projectPath;
+			this.contributors = contributors;
+		}
+
+		@Override
+		public synchronized void onOutput(CharSequence output) {
+			this.output.append(output);
+		}
+
+		private Map<String, Path> roots() {
+			Map<String, Path> roots = new LinkedHashMap<>();
+			if (this.contributors == null) {
+				roots.put(this.projectPath, null);
+				return roots;
+			}
+			for (ResolvedArtifactResult artifact : this.contributors.getArtifacts()) {
+				ComponentIdentifier id = artifact.getId().getComponentIdentifier();
+				String path = (id instanceof ProjectComponentIdentifier)
+						? ((ProjectComponentIdentifier) id).getProjectPath() : id.getDisplayName();
+				roots.put(path, artifact.getFile().toPath().toAbsolutePath());
+			}
+			return roots;
+		}
+
+	}
+
+	private static final class Start implements Action<Task> {
+
+		private final Measurement measurement;
+
+		private final File gcLog;
+
+		private Start(Measurement measurement, File gcLog) {
+			this.measurement = measurement;
+			this.gcLog = gcLog;
+		}
+
+		@Override
+		public void execute(Task task) {
+			try {
+				JavadocHeap.logGc((Javadoc) task, this.gcLog);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			synchronized (this.measurement) {
+				this.measurement.output.setLength(0);
+			}
+			task.getLogging().addStandardOutputListener(this.measurement);
+			task.getLogging().addStandardErrorListener(this.measurement);
+			this.measurement.start = System.nanoTime();
+		}
+
+	}
+
+	private static final class Record implements Action<Task> {
+
+		private final Measurement measurement;
+
+		private final File reportFile;
+
+		private final File gcLog;
+
+		private Record(Measurement measurement, File reportFile, File gcLog) {
+			this.measurement = measurement;
+			this.reportFile = reportFile;
+			this.gcLog = gcLog;
+		}
+
+		@Override
+		public void execute(Task task) {
+			long wallTime = (System.nanoTime() - this.measurement.start) / 1_000_000;
+			task.getLogging().removeStandardOutputListener(this.measurement);
+			task.getLogging().removeStandardErrorListener(this.measurement);
+			Javadoc javadoc = (Javadoc) task;
+			try {
+				Map<String, Integer> warnings;
+				synchronized (this.measurement) {
+					warnings = warnings(this.measurement.output.toString());
+				}
+				JavadocWorkload workload = JavadocWorkload.measure(javadoc.getSource(), javadoc.getClasspath());
+				Path destination = javadoc.getDestinationDir().toPath();
+				List<Path> outputs = files(destination);
+				long outputBytes = 0;
+				for (Path file : outputs) {
+					outputBytes += Files.size(file);
+				}
+				List<ProjectMetrics> projects = breakDown(javadoc.getSource(), this.measurement.roots(), destination,
+						outputs, warnings);
+				int peakHeap = JavadocWorkload.peakHeapMegabytes(this.gcLog);
+				StringBuilder json = new StringBuilder();
+				json.append("{\n");
+				json.append("  \"task\": ").append(json(task.getPath())).append(",\n");
+				json.append("  \"wallTimeMillis\": ").append(wallTime).append(",\n");
+				json.append("  \"sourceFiles\": ").append(workload.getSourceFiles()).append(",\n");
+				json.append("  \"sourceBytes\": ").append(workload.getSourceBytes()).append(",\n");
+				json.append("  \"classpathEntries\": ").append(workload.getClasspathEntries()).append(",\n");
+				json.append("  \"classpathBytes\": ").append(workload.getClasspathBytes()).append(",\n");
+				json.append("  \"outputFiles\": ").append(outputs.size()).append(",\n");
+				json.append("  \"outputBytes\": ").append(outputBytes).append(",\n");
+				json.append("  \"warnings\": ").append(warnings.values().stream().mapToInt(Integer::intValue).sum())
+						.append(",\n");
+				json.append("  \"peakHeapMegabytes\": ").append((peakHeap != -1) ? String.valueOf(peakHeap) : "null")
+						.append(",\n");
+				json.append("  \"projects\": [");
+				for (int i = 0; i < projects.size(); i++) {
+					json.append((i != 0) ? ",\n    " : "\n    ").append(projects.get(i).toJson());
+				}
+				json.append(projects.isEmpty() ? "]\n" : "\n  ]\n").append("}\n");
+				Files.createDirectories(this.reportFile.getParentFile().toPath());
+				Files.write(this.reportFile.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+				task.getLogger().info("Javadoc of {} took {}ms, see {}", task.getPath(), wallTime, this.reportFile);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+}
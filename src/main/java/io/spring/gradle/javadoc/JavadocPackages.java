@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+
+import org.gradle.api.Project;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.SourceTask;
+
+/**
+ * The packages whose sources {@link JavadocPlugin} publishes for aggregate Javadoc.
+ * Registered as the {@value #EXTENSION_NAME} extension by {@link JavadocPlugin} for the
+ * sources of a project and by {@link AggregateJavadocPlugin} for the sources of every
+ * aggregated project, which the aggregating tasks apply to the sources they resolve.
+ * <p>
+ * A package pattern matches a package and its subpackages. Its segments are separated
+ * by {@code .}, a {@code *} in a segment matches any characters of that segment and a
+ * {@code **} segment matches any number of segments, so {@code **.internal} matches
+ * every {@code internal} package. A source is published when its package matches one of
+ * the {@link #getIncludes() includes}, or there are none, and none of the
+ * {@link #getExcludes() excludes}.
+ *
+ * @author Rob Winch
+ */
+public class JavadocPackages {
+
+	/**
+	 * The name of the extension.
+	 */
+	public static final String EXTENSION_NAME = "javadocPackages";
+
+	private final ListProperty<String> includes;
+
+	private final ListProperty<String> excludes;
+
+	@Inject
+	public JavadocPackages(ObjectFactory objects) {
+		this.includes = objects.listProperty(String.class).empty();
+		this.excludes = objects.listProperty(String.class).empty();
+	}
+
+	public ListProperty<String> getIncludes() {
+		return this.includes;
+	}
+
+	public ListProperty<String> getExcludes() {
+		return this.excludes;
+	}
+
+	/**
+	 * Adds package patterns to the includes.
+	 * @param packages the package patterns
+	 */
+	public void include(String... packages) {
+		this.includes.addAll(packages);
+	}
+
+	/**
+	 * Adds package patterns to the excludes.
+	 * @param packages the package patterns
+	 */
+	public void exclude(String... packages) {
+		this.excludes.addAll(packages);
+	}
+
+	/**
+	 * The packages of a project, which are registered as an extension if the project
+	 * has none yet.
+	 * @param project the project
+	 * @return the packages
+	 */
+	static JavadocPackages of(Project project) {
+		JavadocPackages packages = project.getExtensions().findByType(JavadocPackages.class);
+		if (packages != null) {
+			return packages;
+		}
+		return project.getExtensions().create(EXTENSION_NAME, JavadocPackages.class);
+	}
+
+	/**
+	 * Whether a source file or directory is included. A directory is only excluded when
+	 * its package is, so that the directories of excluded packages are not visited.
+	 * @param path the path of the file or directory, relative to the root of its sources
+	 * @return whether the file or directory is included
+	 */
+	boolean isIncluded(RelativePath path) {
+		return isIncluded(this.includes.get(), this.excludes.get(), path);
+	}
+
+	/**
+	 * Excludes the sources of the packages that are not included from the sources of a
+	 * task. The patterns are read when the sources of the task are.
+	 * @param task the task
+	 */
+	void excludeFrom(SourceTask task) {
+		ListProperty<String> includes = this.includes;
+		ListProperty<String> excludes = this.excludes;
+		task.exclude((element) -> !isIncluded(includes.get(), excludes.get(), element.getRelativePath()));
+	}
+
+	/**
+	 * Whether a source file or directory is included by package patterns.
+	 * @param includes the patterns of the included packages
+	 * @param excludes the patterns of the excluded packages
+	 * @param path the path of the file or directory, relative to the root of its sources
+	 * @return whether the file or directory is included
+	 * @see #isIncluded(RelativePath)
+	 */
+	static boolean isIncluded(List<String> includes, List<String> excludes, RelativePath path) {
+		String[] segments = path.getSegments();
+		String[] packageName = path.isFile() ? Arrays.copyOf(segments, segments.length - 1) : segments;
+		if (matchesAny(excludes, packageName)) {
+			return false;
+		}
+		return !path.isFile() || includes.isEmpty() || matchesAny(includes, packageName);
+	}
+
+	private static boolean matchesAny(List<String> patterns, String[] packageName) {
+		for (String pattern : patterns) {
+			if (matches(pattern.split("\\."), 0, packageName, 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(String[] pattern, int patternIndex, String[] packageName, int packageIndex) {
+		if (patternIndex == pattern.length) {
+			return true;
+		}
+		if ("**".equals(pattern[patternIndex])) {
+			for (int i = packageIndex; i <= packageName.length; i++) {
+				if (matches(pattern, patternIndex + 1, packageName, i)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return packageIndex < packageName.length && matches(pattern[patternIndex], packageName[packageIndex])
+				&& matches(pattern, patternIndex + 1, packageName, packageIndex + 1);
+	}
+
+	private static boolean matches(String pattern, String segment) {
+		StringBuilder regex = new StringBuilder();
+		for (String part : pattern.split("\\*", -1)) {
+			if (regex.length() > 0) {
+				regex.append(".*");
+			}
+			regex.append(Pattern.quote(part));
+		}
+		return Pattern.matches(regex.toString(), segment);
+	}
+
+}
@@ -17,36 +17,88 @@
 package io.spring.gradle.javadoc;
 
 import java.io.File;
-import java.util.function.Consumer;
 
 import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.ConfigurablePublishArtifact;
 import org.gradle.api.artifacts.Configuration;
-import org.gradle.api.artifacts.ConfigurationPublications;
+import org.gradle.api.artifacts.ConfigurationContainer;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.attributes.Category;
 import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.LibraryElements;
 import org.gradle.api.attributes.Usage;
+import org.gradle.api.file.Directory;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
 
 /**
- * Configures a project to be included in aggregate Javadoc.
+ * Configures a project to be included in aggregate Javadoc. Subprojects register
+ * themselves with {@link JavadocContributors} so that they are aggregated by default.
  *
  * @author Rob Winch
  */
 public class JavadocPlugin implements Plugin<Project> {
 
+	/**
+	 * The name of the task that bundles the sources published for aggregate Javadoc.
+	 */
+	public static final String SYNC_JAVADOC_SOURCES_TASK_NAME = "syncJavadocSources";
+
+	/**
+	 * The name of the configuration that provides the compile classpath of the project
+	 * for aggregate Javadoc.
+	 */
+	public static final String JAVADOC_CLASSPATH_ELEMENTS_CONFIGURATION_NAME = "javadocClasspathElements";
+
 	@Override
 	public void apply(Project project) {
-		project.getPlugins().withType(JavaPlugin.class).all((javaPlugin) -> withSourcesElements(project));
+		Provider<JavadocContributors> contributors = JavadocContributors.registerIfAbsent(project.getGradle());
+		if (project != project.getRootProject()) {
+			contributors.get().register(project.getPath());
+			IncludedBuildContributors.register(project);
+		}
+		JavadocPackages packages = JavadocPackages.of(project);
+		project.getPlugins().withType(JavaPlugin.class).all((javaPlugin) -> {
+			withSourcesElements(project, packages);
+			withJavadocClasspathElements(project);
+		});
 	}
 
-	private void withSourcesElements(Project project) {
+	/**
+	 * Publishes the main Java sources for aggregate Javadoc. Sources of packages that are
+	 * not included by the project are synced into a separate directory that is not
+	 * published. The packages that an aggregating project includes are applied by the
+	 * aggregating project.
+	 * @param project the project
+	 * @param packages the packages that the project includes
+	 */
+	private void withSourcesElements(Project project, JavadocPackages packages) {
+		TaskProvider<JavadocSourcesSync> syncJavadocSources = project.getTasks().register(
+				SYNC_JAVADOC_SOURCES_TASK_NAME, JavadocSourcesSync.class, new Action<JavadocSourcesSync>() {
+					@Override
+					public void execute(JavadocSourcesSync sync) {
+						sync.setGroup("Documentation");
+						sync.setDescription("Syncs the main Java sources that are published for aggregate Javadoc");
+						JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+						SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+						sync.getSource().from(mainSrc.getAllJava());
+						sync.getPackageIncludes().set(packages.getIncludes());
+						sync.getPackageExcludes().set(packages.getExcludes());
+						sync.getDestinationDirectory()
+								.set(project.getLayout().getBuildDirectory().dir("javadoc-sources"));
+						sync.getExcludedDirectory()
+								.set(project.getLayout().getBuildDirectory().dir("javadoc-sources-excluded"));
+					}
+				});
 		project.getConfigurations().create("sourcesElements", new Action<Configuration>() {
 			@Override
 			public void execute(Configuration config) {
@@ -64,17 +116,58 @@ public class JavadocPlugin implements Plugin<Project> {
 						attributes.attribute(Attribute.of("org.gradle.docselements", String.class), "sources");
 					}
 				});
-				config.outgoing(new Action<ConfigurationPublications>() {
+				Provider<File> sources = syncJavadocSources
+						.map((sync) -> sync.getDestinationDirectory().get().getAsFile());
+				config.getOutgoing().artifact(sources, new Action<ConfigurablePublishArtifact>() {
 					@Override
-					public void execute(ConfigurationPublications publications) {
-						JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
-						SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
-						mainSrc.getAllJava().forEach(new Consumer<File>() {
-							@Override
-							public void accept(File file) {
-								publications.artifact(file);
-							}
-						});
+					public void execute(ConfigurablePublishArtifact artifact) {
+						artifact.setType(ArtifactTypeDefinition.DIRECTORY_TYPE);
+						artifact.builtBy(syncJavadocSources);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Provides the classes and the compile classpath of the project, so that the API
+	 * classpath of aggregate Javadoc contains what javadoc needs to resolve the imports
+	 * of the sources, whether they are {@code api}, {@code implementation} or
+	 * {@code compileOnly} dependencies, and not the runtime dependencies of the project.
+	 * The classes directory is published rather than the jar so that aggregate Javadoc
+	 * does not package the project.
+	 * @param project the project
+	 */
+	private void withJavadocClasspathElements(Project project) {
+		ConfigurationContainer configurations = project.getConfigurations();
+		TaskProvider<Task> compileJava = project.getTasks().named(JavaPlugin.COMPILE_JAVA_TASK_NAME);
+		configurations.create(JAVADOC_CLASSPATH_ELEMENTS_CONFIGURATION_NAME, new Action<Configuration>() {
+			@Override
+			public void execute(Configuration config) {
+				config.setCanBeResolved(false);
+				config.setCanBeConsumed(true);
+				config.extendsFrom(configurations.getByName(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME),
+						configurations.getByName(JavaPlugin.COMPILE_ONLY_CONFIGURATION_NAME));
+				config.attributes(new Action<AttributeContainer>() {
+					@Override
+					public void execute(AttributeContainer attributes) {
+						ObjectFactory objects = project.getObjects();
+						attributes.attribute(Usage.USAGE_ATTRIBUTE,
+								objects.named(Usage.class, JavadocClasspathCompatibilityRule.USAGE));
+						attributes.attribute(Category.CATEGORY_ATTRIBUTE,
+								objects.named(Category.class, Category.LIBRARY));
+						attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE,
+								objects.named(LibraryElements.class, LibraryElements.CLASSES));
+					}
+				});
+				JavaPluginConvention javaPlugin = project.getConvention().getPlugin(JavaPluginConvention.class);
+				SourceSet mainSrc = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+				Provider<Directory> classes = mainSrc.getJava().getClassesDirectory();
+				config.getOutgoing().artifact(classes, new Action<ConfigurablePublishArtifact>() {
+					@Override
+					public void execute(ConfigurablePublishArtifact artifact) {
+						artifact.setType(ArtifactTypeDefinition.JVM_CLASS_DIRECTORY);
+						artifact.builtBy(compileJava);
 					}
 				});
 			}
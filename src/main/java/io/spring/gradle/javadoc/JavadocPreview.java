@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+import org.gradle.process.ExecOperations;
+
+/**
+ * Serves a preview of the Javadoc that is updated while the sources are edited. The
+ * preview starts from the generated {@link #getJavadocDirectory() Javadoc}. When a
+ * source in a {@link #getSourceDirectories() source directory} changes, only the pages
+ * of the changed types are regenerated and the browser is reloaded. The preview is
+ * served by {@link JavadocPreviewMain} in a process of its own, which keeps the
+ * documentation tool warm and is stopped when the build is cancelled.
+ *
+ * @author Rob Winch
+ */
+public class JavadocPreview extends DefaultTask {
+
+	private final FileSystemOperations fileSystem;
+
+	private final ExecOperations exec;
+
+	private final ConfigurableFileCollection sourceDirectories;
+
+	private final ConfigurableFileCollection classpath;
+
+	private final DirectoryProperty javadocDirectory;
+
+	private final DirectoryProperty destinationDirectory;
+
+	private final Property<Integer> port;
+
+	private StandardJavadocDocletOptions options = new StandardJavadocDocletOptions();
+
+	@Inject
+	public JavadocPreview(ObjectFactory objects, FileSystemOperations fileSystem, ExecOperations exec) {
+		this.fileSystem = fileSystem;
+		this.exec = exec;
+		this.sourceDirectories = objects.fileCollection();
+		this.classpath = objects.fileCollection();
+		this.javadocDirectory = objects.directoryProperty();
+		this.destinationDirectory = objects.directoryProperty();
+		this.port = objects.property(Integer.class).convention(8000);
+	}
+
+	/**
+	 * The directories of the sources to watch.
+	 * @return the source directories
+	 */
+	@Internal
+	public ConfigurableFileCollection getSourceDirectories() {
+		return this.sourceDirectories;
+	}
+
+	@Internal
+	public ConfigurableFileCollection getClasspath() {
+		return this.classpath;
+	}
+
+	/**
+	 * The options to regenerate the pages with, which are usually configured like the
+	 * options of the task that generated the {@link #getJavadocDirectory() Javadoc}.
+	 * @return the options
+	 */
+	@Internal
+	public StandardJavadocDocletOptions getOptions() {
+		return this.options;
+	}
+
+	public void setOptions(StandardJavadocDocletOptions options) {
+		this.options = options;
+	}
+
+	/**
+	 * The generated Javadoc that the preview starts from.
+	 * @return the Javadoc directory
+	 */
+	@Internal
+	public DirectoryProperty getJavadocDirectory() {
+		return this.javadocDirectory;
+	}
+
+	/**
+	 * The directory that the preview is served from.
+	 * @return the destination directory
+	 */
+	@Internal
+	public DirectoryProperty getDestinationDirectory() {
+		return this.destinationDirectory;
+	}
+
+	/**
+	 * The port of the loopback address to serve the preview on, or {@code 0} for any
+	 * free port. Defaults to {@code 8000}.
+	 * @return the port
+	 */
+	@Internal
+	public Property<Integer> getPort() {
+		return this.port;
+	}
+
+	@TaskAction
+	public void preview() throws IOException {
+		File destination = this.destinationDirectory.get().getAsFile();
+		this.fileSystem.sync((spec) -> {
+			spec.from(this.javadocDirectory);
+			spec.into(destination);
+		});
+		File output = new File(getTemporaryDir(), "javadoc");
+		StandardJavadocDocletOptions previewOptions = new StandardJavadocDocletOptions(this.options);
+		previewOptions.setDestinationDirectory(output);
+		previewOptions.setClasspath(new ArrayList<>(this.classpath.getFiles()));
+		previewOptions.addPathOption("sourcepath").setValue(new ArrayList<>(this.sourceDirectories.getFiles()));
+		previewOptions.linksOffline(".", destination.getAbsolutePath());
+		previewOptions.setSourceNames(new ArrayList<>());
+		File optionsFile = new File(getTemporaryDir(), "javadoc.options");
+		previewOptions.write(optionsFile);
+		List<String> args = new ArrayList<>();
+		args.add("-cp");
+		args.add(mainClasspath());
+		args.add(JavadocPreviewMain.class.getName());
+		args.add(String.valueOf(this.port.get()));
+		args.add(optionsFile.getAbsolutePath());
+		args.add(output.getAbsolutePath());
+		args.add(destination.getAbsolutePath());
+		for (File sourceDirectory : this.sourceDirectories) {
+			args.add(sourceDirectory.getAbsolutePath());
+		}
+		this.exec.exec((spec) -> {
+			spec.setExecutable(javaExecutable());
+			spec.args(args);
+		});
+	}
+
+	private static String mainClasspath() {
+		try {
+			return new File(JavadocPreviewMain.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+					.getAbsolutePath();
+		}
+		catch (URISyntaxException ex) {
+			throw new GradleException("Unable to find the location of " + JavadocPreviewMain.class.getName(), ex);
+		}
+	}
+
+	private static String javaExecutable() {
+		boolean windows = System.getProperty("os.name").toLowerCase().contains("windows");
+		return new File(System.getProperty("java.home"), "bin/" + (windows ? "java.exe" : "java")).getAbsolutePath();
+	}
+
+}
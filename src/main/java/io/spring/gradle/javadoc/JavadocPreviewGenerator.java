@@ -0,0 +1,271 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.DocumentationTool;
+import javax.tools.ToolProvider;
+
+/**
+ * Regenerates the pages of a Javadoc preview that are affected by changed Java sources,
+ * by running the {@link DocumentationTool} of the JDK in process for the changed sources
+ * only. The options are read from an options file, which is expected to link the rest of
+ * the Javadoc with {@code -linkoffline}, using the preview itself as the external
+ * documentation, so that the regenerated pages link to the pages that were not
+ * regenerated. The pages of the changed types are then copied into the preview.
+ * <p>
+ * The generator only depends on the JDK, as it runs in the process of
+ * {@link JavadocPreviewMain}.
+ * <p>
+ * Only the pages of the changed types are regenerated, or the summary of the package
+ * for a {@code package-info.java}. The indexes, trees and summaries that list the
+ * changed types are refreshed by a full generation.
+ *
+ * @author Rob Winch
+ */
+final class JavadocPreviewGenerator {
+
+	private static final String PACKAGE_INFO = "package-info";
+
+	private static final String PACKAGE_SUMMARY = "package-summary.html";
+
+	private final File optionsFile;
+
+	private final File output;
+
+	private final List<File> sourceDirectories;
+
+	private final File destination;
+
+	/**
+	 * Creates a generator.
+	 * @param optionsFile the javadoc options file, without source names
+	 * @param output the destination directory of the options file, which is deleted
+	 * before each generation
+	 * @param sourceDirectories the source directories
+	 * @param destination the directory of the preview, which contains a full generation
+	 * of the Javadoc
+	 */
+	JavadocPreviewGenerator(File optionsFile, File output, List<File> sourceDirectories, File destination) {
+		this.optionsFile = optionsFile;
+		this.output = output;
+		this.sourceDirectories = sourceDirectories;
+		this.destination = destination;
+	}
+
+	/**
+	 * Generates the Javadoc of a source without updating the preview, so that the
+	 * documentation tool is loaded and compiled before the first change. Whether the
+	 * generation succeeds does not matter.
+	 * @throws IOException if the sources cannot be read
+	 */
+	void warmUp() throws IOException {
+		for (File sourceDirectory : this.sourceDirectories) {
+			List<File> sources = javaSources(sourceDirectory.toPath());
+			if (!sources.isEmpty()) {
+				try {
+					generate(Collections.singletonList(sources.get(0)));
+				}
+				catch (IllegalStateException ex) {
+					// only used to load the documentation tool
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Regenerates the pages of the changed sources. The pages of deleted sources are
+	 * deleted and sources that are not in a source directory are ignored.
+	 * @param changed the changed sources
+	 * @return the paths of the pages that were regenerated or deleted, relative to the
+	 * preview
+	 * @throws IOException if the pages cannot be copied
+	 */
+	List<String> regenerate(Iterable<File> changed) throws IOException {
+		Set<File> sources = new LinkedHashSet<>();
+		List<String> pages = new ArrayList<>();
+		List<String[]> regenerated = new ArrayList<>();
+		for (File source : changed) {
+			String relativePath = relativePath(source);
+			if (relativePath == null) {
+				continue;
+			}
+			int slash = relativePath.lastIndexOf('/');
+			String packagePath = (slash != -1) ? relativePath.substring(0, slash + 1) : "";
+			String typeName = relativePath.substring(slash + 1, relativePath.length() - ".java".length());
+			if (!source.isFile()) {
+				pages.addAll(deletePages(packagePath, typeName));
+			}
+			else if (PACKAGE_INFO.equals(typeName)) {
+				sources.addAll(packageSources(packagePath));
+				regenerated.add(new String[] { packagePath, PACKAGE_INFO });
+			}
+			else {
+				sources.add(source);
+				regenerated.add(new String[] { packagePath, typeName });
+			}
+		}
+		if (!sources.isEmpty()) {
+			Path output = generate(new ArrayList<>(sources));
+			for (String[] type : regenerated) {
+				pages.addAll(copyPages(output, this.destination.toPath(), type[0], type[1]));
+			}
+		}
+		return pages;
+	}
+
+	private String relativePath(File source) {
+		Path path = source.toPath().toAbsolutePath();
+		for (File sourceDirectory : this.sourceDirectories) {
+			Path directory = sourceDirectory.toPath().toAbsolutePath();
+			if (path.startsWith(directory)) {
+				return directory.relativize(path).toString().replace(File.separatorChar, '/');
+			}
+		}
+		return null;
+	}
+
+	private List<File> packageSources(String packagePath) throws IOException {
+		List<File> sources = new ArrayList<>();
+		for (File sourceDirectory : this.sourceDirectories) {
+			Path directory = sourceDirectory.toPath().resolve(packagePath);
+			if (Files.isDirectory(directory)) {
+				try (Stream<Path> files = Files.list(directory)) {
+					files.filter((file) -> file.toString().endsWith(".java") && Files.isRegularFile(file))
+							.map(Path::toFile).forEach(sources::add);
+				}
+			}
+		}
+		return sources;
+	}
+
+	private List<String> deletePages(String packagePath, String typeName) throws IOException {
+		List<String> deleted = new ArrayList<>();
+		for (Path page : pages(this.destination.toPath().resolve(packagePath), typeName)) {
+			Files.delete(page);
+			deleted.add(packagePath + page.getFileName());
+		}
+		return deleted;
+	}
+
+	private Path generate(List<File> sources) throws IOException {
+		Path output = this.output.toPath();
+		deleteRecursively(output);
+		Files.createDirectories(output);
+		List<String> sourceNames = new ArrayList<>();
+		for (File source : sources) {
+			sourceNames.add("\"" + source.getAbsolutePath().replace("\\", "\\\\") + "\"");
+		}
+		File sourcesFile = new File(this.optionsFile.getParentFile(), "javadoc.sources");
+		Files.write(sourcesFile.toPath(), sourceNames, StandardCharsets.UTF_8);
+		DocumentationTool documentationTool = ToolProvider.getSystemDocumentationTool();
+		if (documentationTool == null) {
+			throw new IllegalStateException("Unable to find the documentation tool of "
+					+ System.getProperty("java.home") + ". Run Gradle with a JDK");
+		}
+		int result = documentationTool.run(null, null, null, "@" + this.optionsFile.getAbsolutePath(),
+				"@" + sourcesFile.getAbsolutePath());
+		if (result != 0) {
+			throw new IllegalStateException("Javadoc generation failed with exit code " + result
+					+ ". See the options in " + this.optionsFile + " and " + sourcesFile + " and the output above.");
+		}
+		return output;
+	}
+
+	/**
+	 * Copies the pages of a type, including the pages of its nested types, or the
+	 * summary of a package.
+	 * @param output the generated Javadoc
+	 * @param destination the preview
+	 * @param packagePath the path of the package, which is empty or ends with a slash
+	 * @param typeName the simple name of the type or {@code package-info}
+	 * @return the paths of the copied pages, relative to the preview
+	 * @throws IOException if the pages cannot be copied
+	 */
+	static List<String> copyPages(Path output, Path destination, String packagePath, String typeName)
+			throws IOException {
+		List<String> copied = new ArrayList<>();
+		Path packageDirectory = output.resolve(packagePath);
+		List<Path> pages = PACKAGE_INFO.equals(typeName) ? existing(packageDirectory.resolve(PACKAGE_SUMMARY))
+				: pages(packageDirectory, typeName);
+		for (Path page : pages) {
+			Path target = destination.resolve(packagePath).resolve(page.getFileName().toString());
+			Files.createDirectories(target.getParent());
+			Files.copy(page, target, StandardCopyOption.REPLACE_EXISTING);
+			copied.add(packagePath + page.getFileName());
+		}
+		return copied;
+	}
+
+	private static List<Path> pages(Path packageDirectory, String typeName) throws IOException {
+		if (!Files.isDirectory(packageDirectory)) {
+			return Collections.emptyList();
+		}
+		try (Stream<Path> files = Files.list(packageDirectory)) {
+			return files.filter((file) -> isPage(file.getFileName().toString(), typeName)).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static boolean isPage(String fileName, String typeName) {
+		return fileName.equals(typeName + ".html")
+				|| (fileName.startsWith(typeName + ".") && fileName.endsWith(".html"));
+	}
+
+	private static List<Path> existing(Path file) {
+		return Files.isRegularFile(file) ? Collections.singletonList(file) : Collections.emptyList();
+	}
+
+	private static List<File> javaSources(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter((file) -> file.toString().endsWith(".java") && Files.isRegularFile(file))
+					.map(Path::toFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static void deleteRecursively(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.collect(Collectors.toCollection(ArrayList::new));
+		}
+		Collections.reverse(paths);
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves a Javadoc preview in a process of its own, which is started by
+ * {@link JavadocPreview} so that the preview stops when the build is cancelled. The
+ * documentation tool stays loaded in the process, so the pages of the changed sources
+ * are regenerated by a warm documentation tool.
+ * <p>
+ * The arguments are the port, the javadoc options file, the destination directory of the
+ * options file, the directory of the preview and the source directories.
+ *
+ * @author Rob Winch
+ */
+final class JavadocPreviewMain {
+
+	private JavadocPreviewMain() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = Integer.parseInt(args[0]);
+		List<File> sourceDirectories = new ArrayList<>();
+		for (int i = 4; i < args.length; i++) {
+			sourceDirectories.add(new File(args[i]));
+		}
+		File destination = new File(args[3]);
+		JavadocPreviewGenerator generator = new JavadocPreviewGenerator(new File(args[1]), new File(args[2]),
+				sourceDirectories, destination);
+		try (JavadocPreviewWatcher watcher = new JavadocPreviewWatcher(sourceDirectories)) {
+			generator.warmUp();
+			JavadocPreviewServer server = new JavadocPreviewServer(destination, port);
+			server.start();
+			System.out.println("Serving the Javadoc preview at http://localhost:" + server.getPort() + "/index.html");
+			try {
+				watch(watcher, generator, server);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				server.stop();
+			}
+		}
+	}
+
+	private static void watch(JavadocPreviewWatcher watcher, JavadocPreviewGenerator generator,
+			JavadocPreviewServer server) throws InterruptedException, IOException {
+		while (!Thread.currentThread().isInterrupted()) {
+			Set<File> changed = watcher.take();
+			if (changed.isEmpty()) {
+				continue;
+			}
+			long start = System.nanoTime();
+			try {
+				List<String> pages = generator.regenerate(changed);
+				if (!pages.isEmpty()) {
+					server.reload();
+				}
+				System.out.println("Updated " + pages + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+			}
+			catch (IllegalStateException ex) {
+				System.err.println(ex.getMessage());
+			}
+		}
+	}
+
+}
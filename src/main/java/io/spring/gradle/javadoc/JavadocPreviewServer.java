@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the files of a Javadoc preview from the loopback address with the HTTP server
+ * of the JDK. Every HTML page is served with a script that listens to the
+ * {@link #RELOAD_PATH reload events} of the server, so that the pages that are open in
+ * a browser are reloaded when the Javadoc is {@link #reload() regenerated}.
+ *
+ * @author Rob Winch
+ */
+final class JavadocPreviewServer {
+
+	/**
+	 * The path of the server-sent events that reload the pages.
+	 */
+	static final String RELOAD_PATH = "/.javadoc-preview/reload";
+
+	private static final String RELOAD_SCRIPT = "<script>new EventSource(\"" + RELOAD_PATH
+			+ "\").onmessage = function() { location.reload(); };</script>";
+
+	private static final Map<String, String> CONTENT_TYPES;
+
+	static {
+		Map<String, String> contentTypes = new HashMap<>();
+		contentTypes.put("html", "text/html; charset=utf-8");
+		contentTypes.put("css", "text/css; charset=utf-8");
+		contentTypes.put("js", "application/javascript; charset=utf-8");
+		contentTypes.put("json", "application/json");
+		contentTypes.put("png", "image/png");
+		contentTypes.put("gif", "image/gif");
+		contentTypes.put("svg", "image/svg+xml");
+		contentTypes.put("zip", "application/zip");
+		CONTENT_TYPES = contentTypes;
+	}
+
+	private final Path root;
+
+	private final HttpServer server;
+
+	private final List<HttpExchange> clients = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates a server that is not started yet.
+	 * @param root the directory to serve
+	 * @param port the port to listen on or {@code 0} for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	JavadocPreviewServer(File root, int port) throws IOException {
+		this.root = root.toPath().toAbsolutePath().normalize();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.createContext("/", this::serve);
+		this.server.createContext(RELOAD_PATH, this::subscribe);
+	}
+
+	void start() {
+		this.server.start();
+	}
+
+	int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Reloads the pages that are open in a browser.
+	 */
+	void reload() {
+		for (HttpExchange client : this.clients) {
+			try {
+				OutputStream body = client.getResponseBody();
+				body.write("data: reload\n\n".getBytes(StandardCharsets.UTF_8));
+				body.flush();
+			}
+			catch (IOException ex) {
+				this.clients.remove(client);
+				client.close();
+			}
+		}
+	}
+
+	void stop() {
+		for (HttpExchange client : this.clients) {
+			client.close();
+		}
+		this.clients.clear();
+		this.server.stop(0);
+	}
+
+	private void subscribe(HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+		OutputStream body = exchange.getResponseBody();
+		body.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+		body.flush();
+		this.clients.add(exchange);
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			Path file = resolve(exchange.getRequestURI().getPath());
+			if (file == null) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			String name = file.getFileName().toString();
+			String extension = name.substring(name.lastIndexOf('.') + 1);
+			byte[] content = Files.readAllBytes(file);
+			if ("html".equals(extension)) {
+				content = injectReloadScript(new String(content, StandardCharsets.UTF_8))
+						.getBytes(StandardCharsets.UTF_8);
+			}
+			exchange.getResponseHeaders().set("Content-Type",
+					CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"));
+			exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, content.length);
+			exchange.getResponseBody().write(content);
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Resolves the file of a request path.
+	 * @param path the decoded path of the request
+	 * @return the file or {@code null} if the path does not denote a file of the served
+	 * directory
+	 */
+	private Path resolve(String path) {
+		Path file = this.root.resolve(path.replaceFirst("^/+", "")).normalize();
+		if (!file.startsWith(this.root)) {
+			return null;
+		}
+		if (Files.isDirectory(file)) {
+			file = file.resolve("index.html");
+		}
+		return Files.isRegularFile(file) ? file : null;
+	}
+
+	/**
+	 * Adds the script that reloads the page to an HTML page.
+	 * @param html the page
+	 * @return the page with the script
+	 */
+	static String injectReloadScript(String html) {
+		int body = html.lastIndexOf("</body>");
+		if (body == -1) {
+			return html + RELOAD_SCRIPT;
+		}
+		return html.substring(0, body) + RELOAD_SCRIPT + html.substring(body);
+	}
+
+}
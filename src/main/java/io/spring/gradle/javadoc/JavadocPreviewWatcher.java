@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches directories of Java sources, including the directories that are created while
+ * watching, with a {@link WatchService}. The events of a save are usually spread over a
+ * few milliseconds, so the changes are only reported once no event was received for a
+ * {@link #QUIET_PERIOD_MILLIS quiet period}.
+ *
+ * @author Rob Winch
+ */
+final class JavadocPreviewWatcher implements Closeable {
+
+	/**
+	 * The time without events after which the changes are reported.
+	 */
+	static final long QUIET_PERIOD_MILLIS = 50;
+
+	private final WatchService watchService;
+
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+
+	JavadocPreviewWatcher(Iterable<File> roots) throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		for (File root : roots) {
+			if (root.isDirectory()) {
+				register(root.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Waits for changes to Java sources.
+	 * @return the Java sources that were created, modified or deleted, which is empty if
+	 * only other files changed
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws IOException if a created directory cannot be watched
+	 */
+	Set<File> take() throws InterruptedException, IOException {
+		Set<File> changed = new TreeSet<>();
+		WatchKey key = this.watchService.take();
+		while (key != null) {
+			collect(key, changed);
+			key = this.watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		return changed;
+	}
+
+	private void collect(WatchKey key, Set<File> changed) throws IOException {
+		Path directory = this.directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				continue;
+			}
+			Path path = directory.resolve((Path) event.context());
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+				for (Path created : register(path)) {
+					changed.add(created.toFile());
+				}
+			}
+			else if (isJavaSource(path)) {
+				changed.add(path.toFile());
+			}
+		}
+		if (!key.reset()) {
+			this.directories.remove(key);
+		}
+	}
+
+	/**
+	 * Watches a directory and its subdirectories.
+	 * @param root the directory
+	 * @return the Java sources that the directories already contain
+	 * @throws IOException if a directory cannot be watched
+	 */
+	private List<Path> register(Path root) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(root)) {
+			paths = walk.collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			if (Files.isDirectory(path)) {
+				WatchKey key = path.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				this.directories.put(key, path);
+			}
+		}
+		return paths.stream().filter((path) -> isJavaSource(path) && Files.isRegularFile(path))
+				.collect(Collectors.toList());
+	}
+
+	private static boolean isJavaSource(Path path) {
+		return path.getFileName().toString().endsWith(".java");
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+	}
+
+}
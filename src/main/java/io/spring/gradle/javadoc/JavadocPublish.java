@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Publishes generated Javadoc incrementally. The {@link GenerateJavadocManifest manifest}
+ * of the Javadoc is compared with the manifest of what was last published to the
+ * {@link #getTarget() target}, and only the files that were added, changed or deleted
+ * since are transferred. The task has no outputs, since what was published is tracked by
+ * the target, so it runs every time and does nothing when the target is up to date.
+ *
+ * @author Rob Winch
+ */
+public class JavadocPublish extends DefaultTask {
+
+	private final DirectoryProperty source;
+
+	private final RegularFileProperty manifestFile;
+
+	private final DirectoryProperty targetDirectory;
+
+	private final Property<JavadocPublishTarget> target;
+
+	@Inject
+	public JavadocPublish(ObjectFactory objects) {
+		this.source = objects.directoryProperty();
+		this.manifestFile = objects.fileProperty();
+		this.targetDirectory = objects.directoryProperty();
+		this.target = objects.property(JavadocPublishTarget.class).convention(
+				this.targetDirectory.map((directory) -> new LocalJavadocPublishTarget(directory.getAsFile())));
+	}
+
+	/**
+	 * The directory that contains the generated Javadoc.
+	 * @return the source directory
+	 */
+	@InputDirectory
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public DirectoryProperty getSource() {
+		return this.source;
+	}
+
+	/**
+	 * The manifest of the generated Javadoc.
+	 * @return the manifest file
+	 */
+	@InputFile
+	@PathSensitive(PathSensitivity.NONE)
+	public RegularFileProperty getManifestFile() {
+		return this.manifestFile;
+	}
+
+	/**
+	 * The directory to publish to when no other {@link #getTarget() target} is set.
+	 * @return the target directory
+	 */
+	@Internal
+	public DirectoryProperty getTargetDirectory() {
+		return this.targetDirectory;
+	}
+
+	/**
+	 * The target to publish to. Defaults to a {@link LocalJavadocPublishTarget} for the
+	 * {@link #getTargetDirectory() target directory}.
+	 * @return the target
+	 */
+	@Internal
+	public Property<JavadocPublishTarget> getTarget() {
+		return this.target;
+	}
+
+	@TaskAction
+	public void publish() throws IOException {
+		if (!this.target.isPresent()) {
+			throw new GradleException("No target to publish to. Set the targetDirectory or the target of " + getPath());
+		}
+		JavadocPublishTarget target = this.target.get();
+		File manifestFile = this.manifestFile.get().getAsFile();
+		JavadocManifest manifest = JavadocManifest.read(manifestFile.toPath());
+		JavadocManifest.Diff diff = manifest.diff(JavadocManifest.parse(target.readManifest()));
+		Path source = this.source.get().getAsFile().toPath();
+		for (String path : diff.getAdded()) {
+			target.put(path, source.resolve(path).toFile());
+		}
+		for (String path : diff.getChanged()) {
+			target.put(path, source.resolve(path).toFile());
+		}
+		for (String path : diff.getDeleted()) {
+			target.delete(path);
+		}
+		if (!diff.isEmpty()) {
+			target.writeManifest(manifestFile);
+		}
+		getLogger().info("Published {} added, {} changed and {} deleted files of {} files", diff.getAdded().size(),
+				diff.getChanged().size(), diff.getDeleted().size(), manifest.getHashes().size());
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where {@link JavadocPublish} publishes generated Javadoc to. A target keeps the
+ * manifest of what was last published to it, so that only the files that changed since
+ * are transferred.
+ *
+ * @author Rob Winch
+ * @see LocalJavadocPublishTarget
+ */
+public interface JavadocPublishTarget {
+
+	/**
+	 * Reads the manifest of what was last published, in the format of {@code sha256sum}.
+	 * @return the lines of the manifest or an empty list if nothing was published
+	 * @throws IOException if the manifest cannot be read
+	 */
+	List<String> readManifest() throws IOException;
+
+	/**
+	 * Publishes a file that was added or changed.
+	 * @param path the path of the file relative to the root of the site
+	 * @param file the content of the file
+	 * @throws IOException if the file cannot be published
+	 */
+	void put(String path, File file) throws IOException;
+
+	/**
+	 * Deletes a file that is no longer part of the site.
+	 * @param path the path of the file relative to the root of the site
+	 * @throws IOException if the file cannot be deleted
+	 */
+	void delete(String path) throws IOException;
+
+	/**
+	 * Replaces the manifest of what was published. Called once every file was published,
+	 * so that a publication that fails is retried in full.
+	 * @param manifest the manifest in the format of {@code sha256sum}
+	 * @throws IOException if the manifest cannot be written
+	 */
+	void writeManifest(File manifest) throws IOException;
+
+}
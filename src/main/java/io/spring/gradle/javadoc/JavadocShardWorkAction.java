@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.inject.Inject;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.process.ExecOperations;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Generates the Javadoc of a single shard of the aggregate Javadoc by forking the
+ * javadoc executable. Shards are submitted to the Worker API so that they are generated
+ * concurrently.
+ *
+ * @author Rob Winch
+ */
+public abstract class JavadocShardWorkAction implements WorkAction<JavadocShardWorkAction.Parameters> {
+
+	private static final Logger logger = Logging.getLogger(JavadocShardWorkAction.class);
+
+	private final ExecOperations exec;
+
+	@Inject
+	public JavadocShardWorkAction(ExecOperations exec) {
+		this.exec = exec;
+	}
+
+	@Override
+	public void execute() {
+		Parameters parameters = getParameters();
+		String optionsFile = parameters.getOptionsFile().get().getAsFile().getAbsolutePath();
+		this.exec.exec((spec) -> {
+			spec.setExecutable(parameters.getExecutable().get());
+			spec.args("@" + optionsFile);
+		});
+		logger.info("Generated {} by running {}", optionsFile, parameters.getExecutable().get());
+		writeKey(parameters);
+	}
+
+	/**
+	 * Writes the key of a shard once it was generated.
+	 * @param parameters the parameters of the shard
+	 */
+	static void writeKey(Parameters parameters) {
+		try {
+			Files.write(parameters.getKeyFile().get().getAsFile().toPath(),
+					parameters.getKey().get().getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * The parameters for generating a shard.
+	 */
+	public interface Parameters extends WorkParameters {
+
+		/**
+		 * The javadoc executable.
+		 * @return the javadoc executable
+		 */
+		Property<String> getExecutable();
+
+		/**
+		 * The javadoc options file that describes the shard.
+		 * @return the options file
+		 */
+		RegularFileProperty getOptionsFile();
+
+		/**
+		 * The file to write the key of the shard to once it was generated.
+		 * @return the key file
+		 */
+		RegularFileProperty getKeyFile();
+
+		/**
+		 * The key of the shard.
+		 * @return the key
+		 */
+		Property<String> getKey();
+
+	}
+
+}
@@ -0,0 +1,1017 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Merges the Javadoc generated separately for each module into a single site. Pages
+ * that are specific to a type are copied as is. The pages that describe the whole site
+ * (overview, all-classes, tree, index, search index and package list) and the pages of a
+ * package that is split across modules are merged from the pages that javadoc generated
+ * for each module: one of them is used as the template and the rows of its summary
+ * tables, lists, hierarchies and index are replaced by the rows of every module, so the
+ * merged pages keep the markup of the JDK that generated them.
+ * <p>
+ * The pages are merged from their markup, which differs between the releases of the
+ * JDK, so only the Javadoc of the JDKs from {@value #OLDEST_SUPPORTED_JDK} to
+ * {@value #LATEST_SUPPORTED_JDK} is supported, which are those that the merger is tested
+ * against.
+ *
+ * @author Rob Winch
+ */
+final class JavadocSiteMerger {
+
+	/**
+	 * The time of the entries of generated archives, which is fixed so that the archives
+	 * are reproducible. This is the same time that Gradle uses for reproducible archives.
+	 */
+	static final long ZIP_ENTRY_TIME = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0)
+			.getTimeInMillis();
+
+	/**
+	 * The oldest JDK whose Javadoc can be merged.
+	 */
+	static final int OLDEST_SUPPORTED_JDK = 8;
+
+	/**
+	 * The latest JDK whose Javadoc can be merged.
+	 */
+	static final int LATEST_SUPPORTED_JDK = 21;
+
+	private static final Set<String> LIST_FILES = new HashSet<>(Arrays.asList("package-list", "element-list"));
+
+	private static final String INDEX_PAGE = "index-all.html";
+
+	private static final Set<String> MERGED_PAGES = new HashSet<>(Arrays.asList("index.html",
+			"overview-summary.html", "overview-frame.html", "overview-tree.html", "allclasses.html",
+			"allclasses-frame.html", "allclasses-noframe.html", "allclasses-index.html", "allpackages-index.html",
+			INDEX_PAGE));
+
+	private static final Set<String> CONCATENATED_PAGES = new HashSet<>(
+			Arrays.asList("deprecated-list.html", "constant-values.html", "serialized-form.html"));
+
+	private static final Set<String> PACKAGE_PAGES = new HashSet<>(
+			Arrays.asList("package-summary.html", "package-frame.html", "package-tree.html", "package-use.html"));
+
+	/**
+	 * The pages that list links rather than summary tables, which are the frames of JDK 8
+	 * and the all-classes list of JDK 9 and later.
+	 */
+	private static final Set<String> LIST_PAGES = new HashSet<>(Arrays.asList("overview-frame.html",
+			"allclasses.html", "allclasses-frame.html", "allclasses-noframe.html", "package-frame.html"));
+
+	private static final Set<String> HIERARCHY_PAGES = new HashSet<>(
+			Arrays.asList("overview-tree.html", "package-tree.html"));
+
+	/**
+	 * The pages whose tables have the same headers and are told apart by their captions,
+	 * which name the package that uses the package of the page.
+	 */
+	private static final Set<String> CAPTIONED_PAGES = new HashSet<>(Arrays.asList("package-use.html"));
+
+	private static final Pattern SEARCH_INDEX = Pattern.compile("[a-z]+-search-index\\.(js|zip)");
+
+	private static final Pattern TABLE = Pattern.compile("<table\\b[^>]*>(.*?)</table>", Pattern.DOTALL);
+
+	private static final Pattern TABLE_CAPTION = Pattern.compile("<caption>(.*?)</caption>", Pattern.DOTALL);
+
+	private static final Pattern TABLE_ROW = Pattern.compile("<tr\\b[^>]*>.*?</tr>", Pattern.DOTALL);
+
+	private static final Pattern TABLE_CELL = Pattern.compile("<t[dh]\\b[^>]*>.*?</t[dh]>", Pattern.DOTALL);
+
+	private static final Pattern SUMMARY_TABLE = Pattern.compile("<div class=\"summary-table\\b[^\"]*\"[^>]*>");
+
+	private static final Pattern SUMMARY_TABLE_CAPTION = Pattern.compile("<div class=\"caption\">");
+
+	private static final Pattern DIV = Pattern.compile("<div\\b[^>]*>|</div>");
+
+	private static final Pattern UL = Pattern.compile("<ul\\b[^>]*>|</ul>");
+
+	private static final Pattern LI = Pattern.compile("<li\\b[^>]*>|</li>");
+
+	private static final Pattern CLASS = Pattern.compile("^<div class=\"([^\" ]*)");
+
+	private static final Pattern LIST = Pattern
+			.compile("(?:<h2 title=\"[^\"]*\">[^<]*</h2>\\s*)?<ul(?: title=\"([^\"]*)\")?>(.*?)</ul>", Pattern.DOTALL);
+
+	private static final Pattern LIST_ITEM = Pattern.compile("<li>.*?</li>", Pattern.DOTALL);
+
+	private static final Pattern HIERARCHY = Pattern
+			.compile("(<section class=\"hierarchy\">\\s*)?<h2 title=\"([^\"]*)\">[^<]*</h2>\\s*(<ul>)");
+
+	private static final String HIERARCHY_SECTION_END = "</section>";
+
+	private static final Pattern PACKAGE_HIERARCHIES = Pattern.compile("<ul class=\"horizontal\\b[^\"]*\">(.*?)</ul>",
+			Pattern.DOTALL);
+
+	private static final String PACKAGE_HIERARCHY_SEPARATOR = ", </li>";
+
+	private static final Pattern INDEX_SECTION = Pattern
+			.compile("((?:<a (?:name|id)=\"I:[^\"]*\">\\s*<!--\\s*-->\\s*</a>\\s*)?"
+					+ "<h2 class=\"title\"[^>]*>(.*?)</h2>\\s*<dl[^>]*>)(.*?)</dl>", Pattern.DOTALL);
+
+	private static final Pattern INDEX_ID = Pattern.compile("\"I:([^\"]*)\"");
+
+	private static final Pattern INDEX_ENTRY = Pattern.compile("(<dt>.*?</dt>)\\s*<dd>.*?</dd>", Pattern.DOTALL);
+
+	private static final Pattern INDEX_LETTERS = Pattern.compile("(?:<a href=\"#I:[^\"]*\">[^<]*</a>&nbsp;)+");
+
+	private static final Pattern LINK = Pattern.compile("<a\\b[^>]*?href=\"([^\"]*)\"[^>]*>(.*?)</a>", Pattern.DOTALL);
+
+	private static final Pattern ROW_COLOR = Pattern.compile("\\b(?:altColor|rowColor)\\b");
+
+	private static final Pattern ROW_COLOR_CLASS = Pattern.compile("\\b(?:even|odd)-row-color\\b");
+
+	private static final Pattern ROW_ID = Pattern.compile("id=\"(i\\d+)\"");
+
+	private static final Pattern TAB_DATA = Pattern.compile("var data = \\{([^}]*)\\};");
+
+	private static final Pattern TAB_DATA_ENTRY = Pattern.compile("\"(i\\d+)\":(\\d+)");
+
+	private static final Pattern TAB_DEFINITIONS = Pattern.compile("var tabs = \\{(.*?)\\};");
+
+	private static final Pattern TAB_DEFINITION = Pattern.compile("(\\d+):\\[\"t\\d+\",\"([^\"]*)\"\\]");
+
+	private static final Pattern TAB_NUMBER = Pattern.compile("\\d+");
+
+	private static final Pattern TAB = Pattern.compile("role=\"tab\"|<span id=\"t\\d+\"|<frame ");
+
+	private static final Pattern TAG = Pattern.compile("<[^>]+>");
+
+	private static final Pattern WHITESPACE = Pattern.compile("(?:\\s|&nbsp;)+");
+
+	private static final Pattern MAIN = Pattern.compile("<main[^>]*>(.*)</main>", Pattern.DOTALL);
+
+	private static final Pattern NAVBAR = Pattern
+			.compile("<!-- =+ END OF TOP NAVBAR =+ -->(.*)<!-- =+ START OF BOTTOM NAVBAR =+ -->", Pattern.DOTALL);
+
+	private static final Pattern HEADER = Pattern.compile("^\\s*<div class=\"header\">((?!<div).)*?</div>",
+			Pattern.DOTALL);
+
+	private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER
+			.thenComparing(Comparator.naturalOrder());
+
+	private static final Comparator<Item> ITEM_ORDER = Comparator.comparing((Item item) -> item.name, NAME_ORDER)
+			.thenComparing((item) -> item.identity);
+
+	private static final Comparator<Node> NODE_ORDER = Comparator.comparing((node) -> node.name, NAME_ORDER);
+
+	/**
+	 * Returns whether the Javadoc generated by a JDK can be merged.
+	 * @param jdk the feature version of the JDK
+	 * @return whether the Javadoc of the JDK is supported
+	 */
+	static boolean isSupported(int jdk) {
+		return jdk >= OLDEST_SUPPORTED_JDK && jdk <= LATEST_SUPPORTED_JDK;
+	}
+
+	/**
+	 * Merges the Javadoc of each module into the destination directory. Any existing
+	 * content of the destination directory is replaced.
+	 * @param modules the Javadoc output directory of each module keyed by the name of
+	 * the module, in the order they should be listed
+	 * @param destination the directory to write the merged site to
+	 * @throws IOException if the site cannot be merged
+	 */
+	void merge(Map<String, File> modules, File destination) throws IOException {
+		Path destinationPath = destination.toPath();
+		deleteRecursively(destinationPath);
+		Files.createDirectories(destinationPath);
+		Map<String, List<Path>> sharedFiles = new TreeMap<>();
+		Set<String> packages = new TreeSet<>();
+		for (File module : modules.values()) {
+			copySite(module.toPath(), destinationPath, sharedFiles);
+			packages.addAll(packages(module.toPath()));
+		}
+		for (Map.Entry<String, List<Path>> shared : sharedFiles.entrySet()) {
+			Path merged = destinationPath.resolve(shared.getKey());
+			String name = merged.getFileName().toString();
+			List<Path> modulePages = shared.getValue();
+			Matcher searchIndex = SEARCH_INDEX.matcher(name);
+			if (LIST_FILES.contains(name)) {
+				writeList(merged, packages);
+			}
+			else if (modulePages.size() == 1) {
+				Files.copy(modulePages.get(0), merged, StandardCopyOption.REPLACE_EXISTING);
+			}
+			else if (searchIndex.matches()) {
+				if ("zip".equals(searchIndex.group(1))) {
+					writeSearchIndexArchive(merged, modulePages);
+				}
+				else {
+					writeSearchIndexScript(merged, modulePages);
+				}
+			}
+			else if (CONCATENATED_PAGES.contains(name)) {
+				writeConcatenatedPage(merged, modulePages);
+			}
+			else {
+				writeMergedPage(merged, modulePages);
+			}
+		}
+	}
+
+	private void copySite(Path source, Path destination, Map<String, List<Path>> sharedFiles) throws IOException {
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(destination.resolve(source.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				String relativePath = source.relativize(file).toString().replace(File.separatorChar, '/');
+				if (isShared(relativePath)) {
+					sharedFiles.computeIfAbsent(relativePath, (key) -> new ArrayList<>()).add(file);
+				}
+				else {
+					Files.copy(file, destination.resolve(relativePath), StandardCopyOption.REPLACE_EXISTING);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	private boolean isShared(String relativePath) {
+		int separator = relativePath.lastIndexOf('/');
+		String name = relativePath.substring(separator + 1);
+		if (PACKAGE_PAGES.contains(name)) {
+			return true;
+		}
+		return separator == -1 && (LIST_FILES.contains(name) || MERGED_PAGES.contains(name)
+				|| CONCATENATED_PAGES.contains(name) || SEARCH_INDEX.matcher(name).matches());
+	}
+
+	private Set<String> packages(Path module) throws IOException {
+		Set<String> packages = new TreeSet<>();
+		for (String listFile : LIST_FILES) {
+			Path list = module.resolve(listFile);
+			if (Files.exists(list)) {
+				for (String line : Files.readAllLines(list, StandardCharsets.UTF_8)) {
+					if (!line.trim().isEmpty() && !line.startsWith("module:")) {
+						packages.add(line.trim());
+					}
+				}
+			}
+		}
+		return packages;
+	}
+
+	private void writeList(Path list, Set<String> packages) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (String name : packages) {
+			content.append(name).append('\n');
+		}
+		write(list, content.toString());
+	}
+
+	/**
+	 * Writes a page that is merged row by row. The page of the module with the most tabs
+	 * is used as the template, so that the merged page offers every tab, or else the
+	 * longest page, and each of its summary tables, lists, hierarchies or index letters
+	 * gets the rows of every module in order.
+	 */
+	private void writeMergedPage(Path page, List<Path> modulePages) throws IOException {
+		String name = page.getFileName().toString();
+		List<String> pages = new ArrayList<>();
+		for (Path modulePage : modulePages) {
+			pages.add(read(modulePage));
+		}
+		String template = pages.stream()
+				.max(Comparator.comparingInt(JavadocSiteMerger::tabs).thenComparingInt(String::length)).get();
+		if (INDEX_PAGE.equals(name)) {
+			write(page, mergeIndex(template, pages));
+		}
+		else if (HIERARCHY_PAGES.contains(name)) {
+			write(page, mergeHierarchies(template, pages));
+		}
+		else {
+			write(page, mergeContainers(template, pages, LIST_PAGES.contains(name), CAPTIONED_PAGES.contains(name)));
+		}
+	}
+
+	/**
+	 * Merges the summary tables or lists of the pages into the template. Tables that the
+	 * template does not have are added after its last table.
+	 */
+	private String mergeContainers(String template, List<String> pages, boolean lists, boolean captioned) {
+		List<Container> templateContainers = containers(template, lists, captioned);
+		if (templateContainers.isEmpty()) {
+			return template;
+		}
+		Set<String> templateKeys = new HashSet<>();
+		templateContainers.forEach((container) -> templateKeys.add(container.key));
+		Map<String, List<List<Item>>> items = new HashMap<>();
+		Map<String, Container> addedContainers = new LinkedHashMap<>();
+		for (String page : pages) {
+			for (Container container : containers(page, lists, captioned)) {
+				items.computeIfAbsent(container.key, (key) -> new ArrayList<>()).add(container.items);
+				if (!templateKeys.contains(container.key)) {
+					addedContainers.putIfAbsent(container.key, container);
+				}
+			}
+		}
+		Map<String, String> tabLabels = new HashMap<>();
+		Matcher tabDefinitions = TAB_DEFINITIONS.matcher(template);
+		if (tabDefinitions.find()) {
+			Matcher tab = TAB_DEFINITION.matcher(tabDefinitions.group(1));
+			while (tab.find()) {
+				tabLabels.put(tab.group(2), tab.group(1));
+			}
+		}
+		Map<String, String> tabs = new LinkedHashMap<>();
+		StringBuilder merged = new StringBuilder();
+		int position = 0;
+		for (Container container : templateContainers) {
+			merged.append(template, position, container.itemsStart);
+			merged.append(rows(mergeItems(items.get(container.key)), tabLabels, tabs));
+			position = container.itemsEnd;
+		}
+		int end = templateContainers.get(templateContainers.size() - 1).end;
+		merged.append(template, position, end);
+		for (Container container : addedContainers.values()) {
+			merged.append('\n').append(container.page, container.start, container.itemsStart);
+			merged.append(rows(mergeItems(items.get(container.key)), tabLabels, tabs));
+			merged.append(container.page, container.itemsEnd, container.end);
+		}
+		merged.append(template, end, template.length());
+		Matcher data = TAB_DATA.matcher(merged);
+		if (data.find()) {
+			List<String> entries = new ArrayList<>();
+			tabs.forEach((id, tab) -> entries.add("\"" + id + "\":" + tab));
+			merged.replace(data.start(1), data.end(1), String.join(",", entries));
+		}
+		return merged.toString();
+	}
+
+	/**
+	 * Merges the entries of each letter of the index into the template and lists the
+	 * letters of every module in the navigation between the letters.
+	 */
+	private String mergeIndex(String template, List<String> pages) {
+		Matcher first = INDEX_SECTION.matcher(template);
+		if (!first.find()) {
+			return template;
+		}
+		int end = first.end();
+		for (Matcher section = INDEX_SECTION.matcher(template); section.find();) {
+			end = section.end();
+		}
+		Map<String, String> letters = new TreeMap<>();
+		Map<String, List<List<Item>>> entries = new TreeMap<>();
+		for (String page : pages) {
+			Matcher section = INDEX_SECTION.matcher(page);
+			while (section.find()) {
+				String id = indexId(section.group(1));
+				letters.putIfAbsent(id, section.group(2));
+				List<Item> items = new ArrayList<>();
+				Matcher entry = INDEX_ENTRY.matcher(section.group(3));
+				while (entry.find()) {
+					Matcher link = LINK.matcher(entry.group(1));
+					items.add(new Item(entry.group(), link.find() ? text(link.group(2)) : text(entry.group(1)),
+							entry.group(1), null));
+				}
+				entries.computeIfAbsent(id, (key) -> new ArrayList<>()).add(items);
+			}
+		}
+		String heading = first.group(1);
+		String templateId = indexId(heading);
+		StringBuilder sections = new StringBuilder();
+		StringBuilder navigation = new StringBuilder();
+		for (Map.Entry<String, List<List<Item>>> letter : entries.entrySet()) {
+			String id = letter.getKey();
+			sections.append((sections.length() != 0) ? "\n" : "");
+			sections.append(heading.replace("\"I:" + templateId + "\"", "\"I:" + id + "\"")
+					.replace(">" + first.group(2) + "</h2>", ">" + letters.get(id) + "</h2>"));
+			for (Item item : mergeItems(letter.getValue())) {
+				sections.append('\n').append(item.html);
+			}
+			sections.append("\n</dl>");
+			navigation.append("<a href=\"#I:").append(id).append("\">").append(letters.get(id)).append("</a>&nbsp;");
+		}
+		String merged = template.substring(0, first.start()) + sections + template.substring(end);
+		return INDEX_LETTERS.matcher(merged).replaceAll(Matcher.quoteReplacement(navigation.toString()));
+	}
+
+	private static String indexId(String heading) {
+		Matcher id = INDEX_ID.matcher(heading);
+		return id.find() ? id.group(1) : "";
+	}
+
+	/**
+	 * Merges the class, interface, annotation and enum hierarchies of the pages into the
+	 * template, where the subtypes of a type that is in the hierarchy of more than one
+	 * module are merged, and lists the packages of every module in the links to the
+	 * hierarchy of each package. Hierarchies that the template does not have are added
+	 * after its last hierarchy.
+	 */
+	private String mergeHierarchies(String template, List<String> pages) {
+		Map<String, String> headings = new LinkedHashMap<>();
+		Map<String, List<List<Node>>> hierarchies = new HashMap<>();
+		Map<String, String> packageHierarchies = new TreeMap<>(NAME_ORDER);
+		for (String page : pages) {
+			Matcher hierarchy = HIERARCHY.matcher(page);
+			while (hierarchy.find()) {
+				int end = elementEnd(page, hierarchy.start(3), UL);
+				headings.putIfAbsent(hierarchy.group(2), page.substring(hierarchy.start(), hierarchy.end()));
+				hierarchies.computeIfAbsent(hierarchy.group(2), (title) -> new ArrayList<>())
+						.add(nodes(page, hierarchy.end(), end - "</ul>".length()));
+			}
+			Matcher packageHierarchy = PACKAGE_HIERARCHIES.matcher(page);
+			if (packageHierarchy.find()) {
+				Matcher item = LIST_ITEM.matcher(packageHierarchy.group(1));
+				while (item.find()) {
+					packageHierarchies.putIfAbsent(text(item.group()),
+							item.group().replace(PACKAGE_HIERARCHY_SEPARATOR, "</li>"));
+				}
+			}
+		}
+		StringBuilder merged = new StringBuilder();
+		int position = 0;
+		boolean sections = false;
+		Matcher hierarchy = HIERARCHY.matcher(template);
+		while (hierarchy.find()) {
+			merged.append(template, position, hierarchy.end());
+			merged.append(nodesHtml(mergeNodes(hierarchies.get(hierarchy.group(2))))).append("\n</ul>");
+			headings.remove(hierarchy.group(2));
+			position = elementEnd(template, hierarchy.start(3), UL);
+			sections = hierarchy.group(1) != null;
+		}
+		if (position == 0) {
+			return template;
+		}
+		if (sections && !headings.isEmpty()) {
+			int sectionEnd = template.indexOf(HIERARCHY_SECTION_END, position) + HIERARCHY_SECTION_END.length();
+			merged.append(template, position, sectionEnd);
+			position = sectionEnd;
+		}
+		for (Map.Entry<String, String> heading : headings.entrySet()) {
+			merged.append('\n').append(heading.getValue());
+			merged.append(nodesHtml(mergeNodes(hierarchies.get(heading.getKey())))).append("\n</ul>");
+			merged.append(heading.getValue().startsWith("<section") ? "\n" + HIERARCHY_SECTION_END : "");
+		}
+		merged.append(template, position, template.length());
+		Matcher packageHierarchy = PACKAGE_HIERARCHIES.matcher(merged);
+		if (!packageHierarchies.isEmpty() && packageHierarchy.find()) {
+			List<String> items = new ArrayList<>(packageHierarchies.values());
+			for (int i = 0; i < items.size() - 1; i++) {
+				items.set(i, items.get(i).replace("</li>", PACKAGE_HIERARCHY_SEPARATOR));
+			}
+			merged.replace(packageHierarchy.start(1), packageHierarchy.end(1), "\n" + String.join("\n", items) + "\n");
+		}
+		return merged.toString();
+	}
+
+	/**
+	 * Returns the types of a hierarchy between the given positions, which are the items
+	 * of a list that may each have a list of subtypes.
+	 */
+	private static List<Node> nodes(String page, int start, int end) {
+		List<Node> nodes = new ArrayList<>();
+		Matcher item = LI.matcher(page).region(start, end);
+		while (item.find()) {
+			int itemEnd = elementEnd(page, item.start(), LI);
+			int labelEnd = itemEnd - "</li>".length();
+			List<Node> children = new ArrayList<>();
+			Matcher subtypes = UL.matcher(page).region(item.end(), labelEnd);
+			if (subtypes.find()) {
+				children = nodes(page, subtypes.end(), elementEnd(page, subtypes.start(), UL) - "</ul>".length());
+				labelEnd = subtypes.start();
+			}
+			nodes.add(new Node(item.group(), page.substring(item.end(), labelEnd).trim(), children));
+			item.region(itemEnd, end);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Merges the types of the same hierarchy of each module, which are interleaved by
+	 * name. The subtypes of a type that more than one module lists are merged.
+	 */
+	private static List<Node> mergeNodes(List<List<Node>> modules) {
+		Map<String, Node> unique = new LinkedHashMap<>();
+		for (Node node : mergeSorted(modules, NODE_ORDER)) {
+			unique.merge(node.name, node, (existing, added) -> new Node(existing.tag, existing.label,
+					mergeNodes(Arrays.asList(existing.children, added.children))));
+		}
+		return new ArrayList<>(unique.values());
+	}
+
+	private static String nodesHtml(List<Node> nodes) {
+		StringBuilder html = new StringBuilder();
+		for (Node node : nodes) {
+			html.append('\n').append(node.tag).append(node.label);
+			if (!node.children.isEmpty()) {
+				html.append("\n<ul>").append(nodesHtml(node.children)).append("\n</ul>\n");
+			}
+			html.append("</li>");
+		}
+		return html.toString();
+	}
+
+	/**
+	 * Merges the rows of the same table of each module. The rows of each module are
+	 * already in the order that javadoc chose, which is kept while the rows of the
+	 * modules are interleaved by name. Rows that more than one module generated, such as
+	 * a package that is split across modules, are only kept once.
+	 */
+	private static List<Item> mergeItems(List<List<Item>> modules) {
+		Map<String, Item> unique = new LinkedHashMap<>();
+		for (Item item : mergeSorted(modules, ITEM_ORDER)) {
+			unique.merge(item.identity, item,
+					(existing, added) -> (added.html.length() > existing.html.length()) ? added : existing);
+		}
+		return new ArrayList<>(unique.values());
+	}
+
+	private static <T> List<T> mergeSorted(List<List<T>> lists, Comparator<T> order) {
+		List<T> merged = new ArrayList<>();
+		int[] positions = new int[lists.size()];
+		while (true) {
+			int next = -1;
+			for (int i = 0; i < lists.size(); i++) {
+				if (positions[i] < lists.get(i).size() && (next == -1
+						|| order.compare(lists.get(i).get(positions[i]), lists.get(next).get(positions[next])) < 0)) {
+					next = i;
+				}
+			}
+			if (next == -1) {
+				return merged;
+			}
+			merged.add(lists.get(next).get(positions[next]++));
+		}
+	}
+
+	/**
+	 * Returns the rows with alternating colors. The rows of JDK 11 to 15 are numbered
+	 * and the tab of each numbered row is recorded, where the rows of a table that has
+	 * no tabs belong to the tab that is named like its caption.
+	 */
+	private static String rows(List<Item> items, Map<String, String> tabLabels, Map<String, String> tabs) {
+		StringBuilder rows = new StringBuilder();
+		for (int i = 0; i < items.size(); i++) {
+			Item item = items.get(i);
+			String row = ROW_COLOR.matcher(item.html).replaceAll((i % 2 == 0) ? "altColor" : "rowColor");
+			row = ROW_COLOR_CLASS.matcher(row).replaceAll((i % 2 == 0) ? "even-row-color" : "odd-row-color");
+			if (ROW_ID.matcher(row).find()) {
+				row = ROW_ID.matcher(row).replaceFirst("id=\"i" + i + "\"");
+				String tab = tabLabels.getOrDefault(item.tab, item.tab);
+				if (tab != null && TAB_NUMBER.matcher(tab).matches()) {
+					tabs.put("i" + i, tab);
+				}
+			}
+			rows.append((i != 0) ? "\n" : "").append(row);
+		}
+		return rows.toString();
+	}
+
+	/**
+	 * Returns the summary tables or lists of a page. A table is identified by its column
+	 * headers. The caption, which depends on the kinds of types that a module has, only
+	 * tells apart the tables of a captioned page and the tables that have the same
+	 * headers, such as the groups of packages.
+	 */
+	private static List<Container> containers(String page, boolean lists, boolean captioned) {
+		List<Container> containers = new ArrayList<>();
+		if (lists) {
+			addLists(page, containers);
+			return containers;
+		}
+		addTables(page, containers);
+		addSummaryTables(page, containers);
+		containers.sort(Comparator.comparingInt((container) -> container.start));
+		Map<String, Integer> headers = new HashMap<>();
+		containers.forEach((container) -> headers.merge(container.key, 1, Integer::sum));
+		List<Container> identified = new ArrayList<>();
+		for (Container container : containers) {
+			boolean identifiedByCaption = captioned || headers.get(container.key) > 1;
+			String key = (identifiedByCaption && container.caption != null)
+					? container.key + "|" + container.caption : container.key;
+			int start = captioned ? listItemStart(page, container) : -1;
+			identified.add((start != -1) ? container.within(key, start, elementEnd(page, start, LI))
+					: container.within(key, container.start, container.end));
+		}
+		return identified;
+	}
+
+	/**
+	 * Returns the start of the list item that encloses a table along with its anchor
+	 * and caption, or -1 if the table is not in a list item.
+	 */
+	private static int listItemStart(String page, Container container) {
+		int start = -1;
+		Matcher item = LI.matcher(page).region(0, container.start);
+		while (item.find()) {
+			start = item.group().startsWith("</") ? start : item.start();
+		}
+		return (start != -1 && elementEnd(page, start, LI) >= container.end) ? start : -1;
+	}
+
+	/**
+	 * Adds the tables of JDK 15 and earlier.
+	 */
+	private static void addTables(String page, List<Container> containers) {
+		Map<String, String> tabs = new HashMap<>();
+		Matcher data = TAB_DATA.matcher(page);
+		if (data.find()) {
+			Matcher entry = TAB_DATA_ENTRY.matcher(data.group(1));
+			while (entry.find()) {
+				tabs.put(entry.group(1), entry.group(2));
+			}
+		}
+		Matcher table = TABLE.matcher(page);
+		while (table.find()) {
+			Matcher captionMatcher = TABLE_CAPTION.matcher(table.group(1));
+			String caption = (captionMatcher.find() && !TAB.matcher(captionMatcher.group(1)).find())
+					? text(captionMatcher.group(1)) : null;
+			StringBuilder key = new StringBuilder("table:");
+			List<Item> items = new ArrayList<>();
+			int itemsStart = -1;
+			int itemsEnd = -1;
+			Matcher row = TABLE_ROW.matcher(page).region(table.start(1), table.end(1));
+			while (row.find()) {
+				if (row.group().contains("scope=\"col\"")) {
+					key.append('|').append(text(row.group()));
+					continue;
+				}
+				Matcher cell = TABLE_CELL.matcher(row.group());
+				Matcher id = ROW_ID.matcher(row.group());
+				String tab = id.find() ? tabs.get(id.group(1)) : null;
+				items.add(item(row.group(), cell.find() ? cell.group() : row.group(), (tab != null) ? tab : caption));
+				itemsStart = (itemsStart != -1) ? itemsStart : row.start();
+				itemsEnd = row.end();
+			}
+			if (!items.isEmpty()) {
+				containers.add(new Container(key.toString(), caption, page, table.start(), table.end(),
+						itemsStart, itemsEnd, items));
+			}
+		}
+	}
+
+	/**
+	 * Adds the summary tables of JDK 16 and later, which are made of a cell for each
+	 * column of each row. A row starts with a cell of the same class as the first cell
+	 * of the table.
+	 */
+	private static void addSummaryTables(String page, List<Container> containers) {
+		Matcher table = SUMMARY_TABLE.matcher(page);
+		while (table.find()) {
+			int end = elementEnd(page, table.start(), DIV);
+			StringBuilder key = new StringBuilder("summary-table:");
+			List<Item> items = new ArrayList<>();
+			String rowClass = null;
+			int itemsStart = -1;
+			int rowStart = -1;
+			int firstCellEnd = -1;
+			int rowEnd = -1;
+			Matcher cell = DIV.matcher(page).region(table.end(), end);
+			while (cell.find() && !cell.group().startsWith("</")) {
+				int cellEnd = elementEnd(page, cell.start(), DIV);
+				Matcher cellClass = CLASS.matcher(cell.group());
+				String className = cellClass.find() ? cellClass.group(1) : "";
+				if ("table-header".equals(className)) {
+					key.append('|').append(text(page.substring(cell.start(), cellEnd)));
+				}
+				else {
+					rowClass = (rowClass != null) ? rowClass : className;
+					if (className.equals(rowClass)) {
+						if (rowStart != -1) {
+							items.add(item(page.substring(rowStart, rowEnd), page.substring(rowStart, firstCellEnd),
+									null));
+						}
+						rowStart = cell.start();
+						firstCellEnd = cellEnd;
+						itemsStart = (itemsStart != -1) ? itemsStart : rowStart;
+					}
+					rowEnd = cellEnd;
+				}
+				cell.region(cellEnd, end);
+			}
+			if (rowStart != -1) {
+				items.add(item(page.substring(rowStart, rowEnd), page.substring(rowStart, firstCellEnd), null));
+				containers.add(new Container(key.toString(), summaryTableCaption(page, table.start()), page,
+						table.start(), end, itemsStart, rowEnd, items));
+			}
+		}
+	}
+
+	/**
+	 * Returns the text of the caption that immediately precedes a summary table, or
+	 * {@code null} if the table has no caption.
+	 */
+	private static String summaryTableCaption(String page, int tableStart) {
+		String caption = null;
+		Matcher captions = SUMMARY_TABLE_CAPTION.matcher(page).region(0, tableStart);
+		while (captions.find()) {
+			int captionEnd = elementEnd(page, captions.start(), DIV);
+			caption = page.substring(captionEnd, tableStart).trim().isEmpty()
+					? text(page.substring(captions.start(), captionEnd)) : null;
+		}
+		return caption;
+	}
+
+	/**
+	 * Adds the lists of links of the frames of JDK 8 and of the all-classes list. A list
+	 * is identified by its title and is added along with the heading that precedes it.
+	 */
+	private static void addLists(String page, List<Container> containers) {
+		Matcher list = LIST.matcher(page);
+		while (list.find()) {
+			List<Item> items = new ArrayList<>();
+			Matcher item = LIST_ITEM.matcher(page).region(list.start(2), list.end(2));
+			int itemsStart = -1;
+			int itemsEnd = -1;
+			while (item.find()) {
+				items.add(item(item.group(), item.group(), null));
+				itemsStart = (itemsStart != -1) ? itemsStart : item.start();
+				itemsEnd = item.end();
+			}
+			if (!items.isEmpty()) {
+				String title = (list.group(1) != null) ? list.group(1) : "";
+				containers.add(new Container("list:" + title, null, page, list.start(), list.end(), itemsStart,
+						itemsEnd, items));
+			}
+		}
+	}
+
+	private static Item item(String html, String firstCell, String tab) {
+		Matcher link = LINK.matcher(firstCell);
+		String name = text(firstCell);
+		return new Item(html, name, name + " " + (link.find() ? link.group(1) : ""), tab);
+	}
+
+	/**
+	 * Returns the end of the element that starts at the given position, where the tags
+	 * of the element match the given pattern.
+	 */
+	private static int elementEnd(String page, int start, Pattern tags) {
+		Matcher tag = tags.matcher(page).region(start, page.length());
+		int depth = 0;
+		while (tag.find()) {
+			depth += tag.group().startsWith("</") ? -1 : 1;
+			if (depth == 0) {
+				return tag.end();
+			}
+		}
+		return page.length();
+	}
+
+	private static int tabs(String page) {
+		int tabs = 0;
+		for (Matcher tab = TAB.matcher(page); tab.find();) {
+			tabs++;
+		}
+		return tabs;
+	}
+
+	private static String text(String html) {
+		return WHITESPACE.matcher(TAG.matcher(html).replaceAll(" ")).replaceAll(" ").trim();
+	}
+
+	private void writeConcatenatedPage(Path page, List<Path> modulePages) throws IOException {
+		String template = read(modulePages.get(0));
+		Matcher region = contentRegion(template);
+		if (region == null) {
+			Files.copy(modulePages.get(0), page, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < modulePages.size(); i++) {
+			Matcher moduleRegion = (i != 0) ? contentRegion(read(modulePages.get(i))) : region;
+			if (moduleRegion != null) {
+				String moduleContent = moduleRegion.group(1);
+				content.append((i != 0) ? HEADER.matcher(moduleContent).replaceFirst("") : moduleContent);
+			}
+		}
+		write(page, template.substring(0, region.start(1)) + content + template.substring(region.end(1)));
+	}
+
+	private Matcher contentRegion(String page) {
+		Matcher main = MAIN.matcher(page);
+		if (main.find()) {
+			return main;
+		}
+		Matcher navbar = NAVBAR.matcher(page);
+		return navbar.find() ? navbar : null;
+	}
+
+	private void writeSearchIndexScript(Path script, List<Path> moduleScripts) throws IOException {
+		String template = read(moduleScripts.get(0));
+		int start = template.indexOf('[');
+		int end = template.lastIndexOf(']');
+		if (start == -1 || end < start) {
+			Files.copy(moduleScripts.get(0), script, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		Set<String> entries = new LinkedHashSet<>();
+		for (Path moduleScript : moduleScripts) {
+			entries.addAll(searchEntries(read(moduleScript)));
+		}
+		write(script, template.substring(0, start + 1) + String.join(",", entries) + template.substring(end));
+	}
+
+	private void writeSearchIndexArchive(Path archive, List<Path> moduleArchives) throws IOException {
+		String entryName = null;
+		Set<String> entries = new LinkedHashSet<>();
+		for (Path moduleArchive : moduleArchives) {
+			try (ZipFile zip = new ZipFile(moduleArchive.toFile())) {
+				Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+				while (zipEntries.hasMoreElements()) {
+					ZipEntry zipEntry = zipEntries.nextElement();
+					entryName = (entryName != null) ? entryName : zipEntry.getName();
+					try (InputStream json = zip.getInputStream(zipEntry)) {
+						entries.addAll(searchEntries(new String(readAllBytes(json), StandardCharsets.UTF_8)));
+					}
+				}
+			}
+		}
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+			ZipEntry zipEntry = new ZipEntry((entryName != null) ? entryName
+					: archive.getFileName().toString().replace(".zip", ".json"));
+			zipEntry.setTime(ZIP_ENTRY_TIME);
+			zip.putNextEntry(zipEntry);
+			zip.write(("[" + String.join(",", entries) + "]").getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+	}
+
+	private List<String> searchEntries(String index) {
+		List<String> entries = new ArrayList<>();
+		for (Map<String, String> entry : CompactSearchIndex.parseEntries(index)) {
+			entries.add(CompactSearchIndex.toJson(entry));
+		}
+		return entries;
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readAllBytes(InputStream input) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	/**
+	 * A table or list of a page along with its rows. A table of a captioned page starts
+	 * and ends with the list item that holds its anchor and caption.
+	 */
+	private static final class Container {
+
+		private final String key;
+
+		private final String caption;
+
+		private final String page;
+
+		private final int start;
+
+		private final int end;
+
+		private final int itemsStart;
+
+		private final int itemsEnd;
+
+		private final List<Item> items;
+
+		private Container(String key, String caption, String page, int start, int end, int itemsStart, int itemsEnd,
+				List<Item> items) {
+			this.key = key;
+			this.caption = caption;
+			this.page = page;
+			this.start = start;
+			this.end = end;
+			this.itemsStart = itemsStart;
+			this.itemsEnd = itemsEnd;
+			this.items = items;
+		}
+
+		private Container within(String key, int start, int end) {
+			return new Container(key, this.caption, this.page, start, end, this.itemsStart, this.itemsEnd, this.items);
+		}
+
+	}
+
+	/**
+	 * A row of a table, an item of a list or an entry of the index.
+	 */
+	private static final class Item {
+
+		private final String html;
+
+		private final String name;
+
+		private final String identity;
+
+		private final String tab;
+
+		private Item(String html, String name, String identity, String tab) {
+			this.html = html;
+			this.name = name;
+			this.identity = identity;
+			this.tab = tab;
+		}
+
+	}
+
+	/**
+	 * A type of a hierarchy along with its subtypes.
+	 */
+	private static final class Node {
+
+		private final String tag;
+
+		private final String label;
+
+		private final String name;
+
+		private final List<Node> children;
+
+		private Node(String tag, String label, List<Node> children) {
+			this.tag = tag;
+			this.label = label;
+			this.name = text(label);
+			this.children = children;
+		}
+
+	}
+
+}
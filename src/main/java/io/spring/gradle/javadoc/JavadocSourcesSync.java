@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Syncs the Java sources that Javadoc is generated from into a directory. A source file
+ * whose {@link DocumentedApiFingerprint documented API} did not change is not copied
+ * again, so the directory only changes when the Javadoc would change. Javadoc tasks that
+ * use the directory as their source are then up-to-date after changes to the
+ * implementation only.
+ * <p>
+ * Sources of packages that are not {@link JavadocPackages included} are synced into the
+ * {@link #getExcludedDirectory() excluded directory} instead, so that the destination
+ * directory can be published while the Javadoc of the project itself still documents
+ * every package.
+ *
+ * @author Rob Winch
+ */
+public class JavadocSourcesSync extends DefaultTask {
+
+	private final ConfigurableFileCollection source;
+
+	private final ListProperty<String> packageIncludes;
+
+	private final ListProperty<String> packageExcludes;
+
+	private final DirectoryProperty destinationDirectory;
+
+	private final DirectoryProperty excludedDirectory;
+
+	@Inject
+	public JavadocSourcesSync(ObjectFactory objects) {
+		this.source = objects.fileCollection();
+		this.packageIncludes = objects.listProperty(String.class).empty();
+		this.packageExcludes = objects.listProperty(String.class).empty();
+		this.destinationDirectory = objects.directoryProperty();
+		this.excludedDirectory = objects.directoryProperty();
+	}
+
+	/**
+	 * The Java sources to sync, which are expected to be encoded in UTF-8. The sources
+	 * are synced using their path relative to the root of their file tree.
+	 * @return the sources
+	 */
+	@InputFiles
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public ConfigurableFileCollection getSource() {
+		return this.source;
+	}
+
+	/**
+	 * The patterns of the packages whose sources are synced into the destination
+	 * directory. Defaults to every package.
+	 * @return the package patterns
+	 * @see JavadocPackages
+	 */
+	@Input
+	public ListProperty<String> getPackageIncludes() {
+		return this.packageIncludes;
+	}
+
+	/**
+	 * The patterns of the packages whose sources are synced into the excluded directory.
+	 * @return the package patterns
+	 * @see JavadocPackages
+	 */
+	@Input
+	public ListProperty<String> getPackageExcludes() {
+		return this.packageExcludes;
+	}
+
+	/**
+	 * The directory that the sources of the included packages are synced into.
+	 * @return the destination directory
+	 */
+	@OutputDirectory
+	public DirectoryProperty getDestinationDirectory() {
+		return this.destinationDirectory;
+	}
+
+	/**
+	 * The directory that the sources of the packages that are not included are synced
+	 * into.
+	 * @return the excluded directory
+	 */
+	@OutputDirectory
+	public DirectoryProperty getExcludedDirectory() {
+		return this.excludedDirectory;
+	}
+
+	@TaskAction
+	public void sync() throws IOException {
+		Path destination = this.destinationDirectory.get().getAsFile().toPath();
+		Path excluded = this.excludedDirectory.get().getAsFile().toPath();
+		List<String> includes = this.packageIncludes.get();
+		List<String> excludes = this.packageExcludes.get();
+		Map<Path, File> sources = new HashMap<>();
+		this.source.getAsFileTree().visit((details) -> {
+			if (!details.isDirectory()) {
+				RelativePath path = details.getRelativePath();
+				Path directory = JavadocPackages.isIncluded(includes, excludes, path) ? destination : excluded;
+				sources.put(directory.resolve(path.getPathString()), details.getFile());
+			}
+		});
+		int copied = 0;
+		for (Map.Entry<Path, File> source : sources.entrySet()) {
+			if (copyIfDocumentedApiChanged(source.getValue().toPath(), source.getKey())) {
+				copied++;
+			}
+		}
+		deleteStaleFiles(destination, sources);
+		deleteStaleFiles(excluded, sources);
+		getLogger().info("Synced {} of {} sources whose documented API changed", copied, sources.size());
+	}
+
+	private static boolean copyIfDocumentedApiChanged(Path source, Path destination) throws IOException {
+		if (Files.isRegularFile(destination)
+				&& DocumentedApiFingerprint.of(source).equals(DocumentedApiFingerprint.of(destination))) {
+			return false;
+		}
+		Files.createDirectories(destination.getParent());
+		Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	private static void deleteStaleFiles(Path destination, Map<Path, File> sources) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(destination)) {
+			paths = walk.collect(Collectors.toCollection(ArrayList::new));
+		}
+		Collections.reverse(paths);
+		for (Path path : paths) {
+			if (path.equals(destination)) {
+				continue;
+			}
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> children = Files.list(path)) {
+					if (!children.findAny().isPresent()) {
+						Files.delete(path);
+					}
+				}
+			}
+			else if (!sources.containsKey(path)) {
+				Files.delete(path);
+			}
+		}
+	}
+
+}
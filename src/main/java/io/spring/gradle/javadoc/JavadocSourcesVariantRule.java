@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import javax.inject.Inject;
+
+import org.gradle.api.artifacts.ComponentMetadataContext;
+import org.gradle.api.artifacts.ComponentMetadataRule;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.model.ObjectFactory;
+
+/**
+ * Adds a variant for the {@code -sources.jar} of a module, with the attributes of the
+ * sources that projects with {@link JavadocPlugin} publish. This allows the sources of
+ * modules that are only published with a POM to be aggregated. The variant is marked as
+ * not {@link UnpackJavadocSources#UNPACKED_ATTRIBUTE unpacked}, so that
+ * {@link UnpackJavadocSources} unpacks it.
+ *
+ * @author Rob Winch
+ */
+public class JavadocSourcesVariantRule implements ComponentMetadataRule {
+
+	/**
+	 * The name of the variant that is added.
+	 */
+	public static final String VARIANT_NAME = "javadocSources";
+
+	private final ObjectFactory objects;
+
+	@Inject
+	public JavadocSourcesVariantRule(ObjectFactory objects) {
+		this.objects = objects;
+	}
+
+	@Override
+	public void execute(ComponentMetadataContext context) {
+		ModuleVersionIdentifier id = context.getDetails().getId();
+		context.getDetails().addVariant(VARIANT_NAME, (variant) -> {
+			variant.attributes((attributes) -> {
+				attributes.attribute(Usage.USAGE_ATTRIBUTE, this.objects.named(Usage.class, Usage.JAVA_RUNTIME));
+				attributes.attribute(Category.CATEGORY_ATTRIBUTE,
+						this.objects.named(Category.class, Category.DOCUMENTATION));
+				attributes.attribute(DocsType.DOCS_TYPE_ATTRIBUTE,
+						this.objects.named(DocsType.class, DocsType.SOURCES));
+				attributes.attribute(Attribute.of("org.gradle.docselements", String.class), "sources");
+				attributes.attribute(UnpackJavadocSources.UNPACKED_ATTRIBUTE, false);
+			});
+			variant.withFiles((files) -> files.addFile(id.getName() + "-" + id.getVersion() + "-sources.jar"));
+		});
+	}
+
+}
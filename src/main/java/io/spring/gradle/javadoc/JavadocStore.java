@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Stores generated Javadoc as a version of a content-addressed store, so that the files
+ * that are identical across versions are only stored once. Each version gets a manifest
+ * of the hash of each of its files and, when {@link #getLinkSite() enabled}, a copy of
+ * the site whose files are hard links to the stored content.
+ *
+ * @author Rob Winch
+ * @see ContentAddressedStore
+ */
+public class JavadocStore extends DefaultTask {
+
+	private final DirectoryProperty source;
+
+	private final DirectoryProperty storeDirectory;
+
+	private final Property<String> version;
+
+	private final Property<Boolean> linkSite;
+
+	@Inject
+	public JavadocStore(ObjectFactory objects) {
+		this.source = objects.directoryProperty();
+		this.storeDirectory = objects.directoryProperty();
+		this.version = objects.property(String.class);
+		this.linkSite = objects.property(Boolean.class).convention(true);
+	}
+
+	/**
+	 * The directory that contains the generated Javadoc.
+	 * @return the source directory
+	 */
+	@InputDirectory
+	@SkipWhenEmpty
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public DirectoryProperty getSource() {
+		return this.source;
+	}
+
+	/**
+	 * The directory of the store. The store is shared by every version, so only the
+	 * {@link #getManifestFile() manifest} of the version is tracked as an output.
+	 * @return the store directory
+	 */
+	@Internal
+	public DirectoryProperty getStoreDirectory() {
+		return this.storeDirectory;
+	}
+
+	/**
+	 * The version to store the Javadoc as. Storing a version again replaces it.
+	 * @return the version
+	 */
+	@Input
+	public Property<String> getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Whether the files of the version are hard linked into
+	 * {@code sites/<version>} of the store. Files are copied instead on file systems
+	 * that do not support hard links. Defaults to {@code true}.
+	 * @return whether the site is linked
+	 */
+	@Input
+	public Property<Boolean> getLinkSite() {
+		return this.linkSite;
+	}
+
+	@OutputFile
+	public Provider<RegularFile> getManifestFile() {
+		return this.storeDirectory.file(this.version.map((version) -> ContentAddressedStore.MANIFESTS_DIRECTORY_NAME
+				+ "/" + version + ContentAddressedStore.MANIFEST_EXTENSION));
+	}
+
+	@TaskAction
+	public void store() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.storeDirectory.get().getAsFile().toPath());
+		ContentAddressedStore.Result result = store.store(this.source.get().getAsFile().toPath(), this.version.get(),
+				this.linkSite.get());
+		getLogger().info("Stored {} files ({} bytes) of version {}, {} new objects ({} bytes)", result.getFiles(),
+				result.getBytes(), this.version.get(), result.getObjects(), result.getObjectBytes());
+		if (result.getCopies() > 0) {
+			getLogger().warn("Copied {} files because hard links are not supported by {}", result.getCopies(),
+					this.storeDirectory.get());
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+
+/**
+ * A build service that extracts the Spring Javadoc stylesheet once per build, rather
+ * than once per project. The stylesheet is written to a directory named after the hash
+ * of its content, so an up-to-date copy is never written again and a changed stylesheet
+ * never overwrites a copy that is in use. A minified variant is available as well.
+ *
+ * @author Rob Winch
+ */
+public abstract class JavadocStylesheet implements BuildService<JavadocStylesheet.Parameters> {
+
+	private static final String SERVICE_NAME = "io.spring.javadoc.stylesheet";
+
+	private final byte[] stylesheet;
+
+	private final String hash;
+
+	public JavadocStylesheet() {
+		this.stylesheet = readResource();
+		this.hash = sha256(this.stylesheet);
+	}
+
+	/**
+	 * The extracted stylesheet.
+	 * @return the stylesheet
+	 */
+	public File getStylesheet() {
+		return extract("stylesheet.css", this.stylesheet);
+	}
+
+	/**
+	 * The extracted stylesheet with comments and insignificant whitespace removed.
+	 * @return the minified stylesheet
+	 */
+	public File getMinifiedStylesheet() {
+		return extract("stylesheet.min.css", minify(new String(this.stylesheet, StandardCharsets.UTF_8))
+				.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private synchronized File extract(String name, byte[] content) {
+		Path file = getParameters().getDirectory().get().getAsFile().toPath().resolve(this.hash).resolve(name);
+		if (Files.isRegularFile(file)) {
+			return file.toFile();
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			Path temp = Files.createTempFile(file.getParent(), name, ".tmp");
+			Files.write(temp, content);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return file.toFile();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to extract the Javadoc stylesheet to " + file, ex);
+		}
+	}
+
+	/**
+	 * Removes comments and insignificant whitespace from a stylesheet. Quoted strings
+	 * are kept as is and whitespace before a colon is kept, as it is significant in
+	 * selectors.
+	 * @param css the stylesheet
+	 * @return the minified stylesheet
+	 */
+	static String minify(String css) {
+		StringBuilder minified = new StringBuilder(css.length());
+		boolean whitespace = false;
+		for (int i = 0; i < css.length(); i++) {
+			char c = css.charAt(i);
+			if (c == '/' && i + 1 < css.length() && css.charAt(i + 1) == '*') {
+				int end = css.indexOf("*/", i + 2);
+				i = (end != -1) ? end + 1 : css.length();
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				whitespace = true;
+				continue;
+			}
+			if (whitespace && minified.length() > 0 && !isSeparator(c)
+					&& !isSeparator(minified.charAt(minified.length() - 1))
+					&& minified.charAt(minified.length() - 1) != ':') {
+				minified.append(' ');
+			}
+			whitespace = false;
+			if (c == '"' || c == '\'') {
+				int end = i + 1;
+				while (end < css.length() && css.charAt(end) != c) {
+					end += (css.charAt(end) == '\\') ? 2 : 1;
+				}
+				end = Math.min(end, css.length() - 1);
+				minified.append(css, i, end + 1);
+				i = end;
+				continue;
+			}
+			if (c == '}' && minified.length() > 0 && minified.charAt(minified.length() - 1) == ';') {
+				minified.setLength(minified.length() - 1);
+			}
+			minified.append(c);
+		}
+		return minified.toString();
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '{' || c == '}' || c == ';' || c == ',' || c == '>';
+	}
+
+	private static byte[] readResource() {
+		try (InputStream input = JavadocStylesheet.class
+				.getResourceAsStream(JavadocConventionsPlugin.STYLESHEET_RESOURCE_NAME)) {
+			if (input == null) {
+				throw new GradleException("Unable to find " + JavadocConventionsPlugin.STYLESHEET_RESOURCE_NAME);
+			}
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+			return content.toByteArray();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			StringBuilder hash = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+				hash.append(String.format("%02x", b));
+			}
+			return hash.substring(0, 16);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new GradleException("SHA-256 is not supported", ex);
+		}
+	}
+
+	static Provider<JavadocStylesheet> registerIfAbsent(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(SERVICE_NAME, JavadocStylesheet.class,
+				(spec) -> spec.getParameters().getDirectory()
+						.set(new File(project.getRootDir(), "build/io.spring.gradle.javadoc-conventions")));
+	}
+
+	/**
+	 * An action that passes a stylesheet to the Javadoc of a task with the
+	 * {@code -stylesheetfile} option.
+	 * @param stylesheetFile the stylesheet, which is queried when the action runs
+	 * @return the action
+	 */
+	static Action<Task> stylesheetFileOption(Provider<File> stylesheetFile) {
+		return new StylesheetFileOption(stylesheetFile);
+	}
+
+	private static final class StylesheetFileOption implements Action<Task> {
+
+		private final Provider<File> stylesheetFile;
+
+		private StylesheetFileOption(Provider<File> stylesheetFile) {
+			this.stylesheetFile = stylesheetFile;
+		}
+
+		@Override
+		public void execute(Task task) {
+			StandardJavadocDocletOptions options = JavadocTaskOptions.of(task);
+			options.addFileOption("stylesheetfile", this.stylesheetFile.get());
+		}
+
+	}
+
+	/**
+	 * The parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		/**
+		 * The directory to extract the stylesheet to.
+		 * @return the directory
+		 */
+		DirectoryProperty getDirectory();
+
+	}
+
+}
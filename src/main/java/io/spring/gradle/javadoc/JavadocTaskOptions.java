@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.gradle.api.Task;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+
+/**
+ * Access to the options of the tasks that run javadoc, for the actions that add options
+ * when a task runs.
+ *
+ * @author Rob Winch
+ */
+final class JavadocTaskOptions {
+
+	private JavadocTaskOptions() {
+	}
+
+	/**
+	 * The options of a {@link Javadoc}, {@link IncrementalAggregateJavadoc} or
+	 * {@link JavadocPreview} task.
+	 * @param task the task
+	 * @return the options of the task
+	 */
+	static StandardJavadocDocletOptions of(Task task) {
+		if (task instanceof IncrementalAggregateJavadoc) {
+			return ((IncrementalAggregateJavadoc) task).getOptions();
+		}
+		if (task instanceof JavadocPreview) {
+			return ((JavadocPreview) task).getOptions();
+		}
+		return (StandardJavadocDocletOptions) ((Javadoc) task).getOptions();
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.gradle.api.file.FileCollection;
+
+/**
+ * The size of the workload of a javadoc run and the heap that was estimated for it and
+ * used by it. Workloads are recorded so that the heap of the next run can be estimated
+ * from the heap that was actually used.
+ *
+ * @author Rob Winch
+ */
+final class JavadocWorkload {
+
+	private static final Pattern GC_HEAP_BEFORE = Pattern.compile("(\\d+)([KMG])->\\d+[KMG]\\(\\d+[KMG]\\)");
+
+	private final long sourceFiles;
+
+	private final long sourceBytes;
+
+	private final long classpathEntries;
+
+	private final long classpathBytes;
+
+	private final int estimatedHeapMegabytes;
+
+	private final int peakHeapMegabytes;
+
+	private JavadocWorkload(long sourceFiles, long sourceBytes, long classpathEntries, long classpathBytes,
+			int estimatedHeapMegabytes, int peakHeapMegabytes) {
+		this.sourceFiles = sourceFiles;
+		this.sourceBytes = sourceBytes;
+		this.classpathEntries = classpathEntries;
+		this.classpathBytes = classpathBytes;
+		this.estimatedHeapMegabytes = estimatedHeapMegabytes;
+		this.peakHeapMegabytes = peakHeapMegabytes;
+	}
+
+	long getSourceFiles() {
+		return this.sourceFiles;
+	}
+
+	long getSourceBytes() {
+		return this.sourceBytes;
+	}
+
+	long getClasspathEntries() {
+		return this.classpathEntries;
+	}
+
+	long getClasspathBytes() {
+		return this.classpathBytes;
+	}
+
+	long getTotalBytes() {
+		return this.sourceBytes + this.classpathBytes;
+	}
+
+	int getEstimatedHeapMegabytes() {
+		return this.estimatedHeapMegabytes;
+	}
+
+	int getPeakHeapMegabytes() {
+		return this.peakHeapMegabytes;
+	}
+
+	JavadocWorkload withHeap(int estimatedHeapMegabytes, int peakHeapMegabytes) {
+		return new JavadocWorkload(this.sourceFiles, this.sourceBytes, this.classpathEntries, this.classpathBytes,
+				estimatedHeapMegabytes, peakHeapMegabytes);
+	}
+
+	/**
+	 * Measures the workload of javadoc.
+	 * @param source the sources
+	 * @param classpath the classpath
+	 * @return the workload
+	 */
+	static JavadocWorkload measure(FileCollection source, FileCollection classpath) {
+		long sourceFiles = 0;
+		long sourceBytes = 0;
+		for (File file : source) {
+			sourceFiles++;
+			sourceBytes += file.length();
+		}
+		long classpathEntries = 0;
+		long classpathBytes = 0;
+		for (File entry : classpath) {
+			classpathEntries++;
+			classpathBytes += size(entry.toPath());
+		}
+		return new JavadocWorkload(sourceFiles, sourceBytes, classpathEntries, classpathBytes, -1, -1);
+	}
+
+	private static long size(Path path) {
+		if (!Files.isDirectory(path)) {
+			return path.toFile().length();
+		}
+		try (Stream<Path> files = Files.walk(path)) {
+			return files.filter(Files::isRegularFile).mapToLong((file) -> file.toFile().length()).sum();
+		}
+		catch (IOException ex) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Reads the peak heap from a GC log that was written by the javadoc JVM. The peak is
+	 * the largest heap occupancy before a collection, so it is unknown if no collection
+	 * happened.
+	 * @param gcLog the GC log
+	 * @return the peak heap in megabytes or {@code -1} if it is unknown
+	 * @throws IOException if the log cannot be read
+	 */
+	static int peakHeapMegabytes(File gcLog) throws IOException {
+		if (!gcLog.isFile()) {
+			return -1;
+		}
+		long peakKilobytes = -1;
+		String log = new String(Files.readAllBytes(gcLog.toPath()), StandardCharsets.UTF_8);
+		Matcher matcher = GC_HEAP_BEFORE.matcher(log);
+		while (matcher.find()) {
+			long kilobytes = Long.parseLong(matcher.group(1));
+			if ("M".equals(matcher.group(2))) {
+				kilobytes *= 1024;
+			}
+			else if ("G".equals(matcher.group(2))) {
+				kilobytes *= 1024 * 1024;
+			}
+			peakKilobytes = Math.max(peakKilobytes, kilobytes);
+		}
+		return (peakKilobytes != -1) ? (int) ((peakKilobytes + 1023) / 1024) : -1;
+	}
+
+	static JavadocWorkload read(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		Properties properties = new Properties();
+		try (InputStream input = Files.newInputStream(file.toPath())) {
+			properties.load(input);
+		}
+		try {
+			return new JavadocWorkload(Long.parseLong(properties.getProperty("sourceFiles")),
+					Long.parseLong(properties.getProperty("sourceBytes")),
+					Long.parseLong(properties.getProperty("classpathEntries")),
+					Long.parseLong(properties.getProperty("classpathBytes")),
+					Integer.parseInt(properties.getProperty("estimatedHeapMegabytes")),
+					Integer.parseInt(properties.getProperty("peakHeapMegabytes")));
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	void write(File file) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("sourceFiles", String.valueOf(this.sourceFiles));
+		properties.setProperty("sourceBytes", String.valueOf(this.sourceBytes));
+		properties.setProperty("classpathEntries", String.valueOf(this.classpathEntries));
+		properties.setProperty("classpathBytes", String.valueOf(this.classpathBytes));
+		properties.setProperty("estimatedHeapMegabytes", String.valueOf(this.estimatedHeapMegabytes));
+		properties.setProperty("peakHeapMegabytes", String.valueOf(this.peakHeapMegabytes));
+		Files.createDirectories(file.getParentFile().toPath());
+		try (OutputStream output = Files.newOutputStream(file.toPath())) {
+			properties.store(output, "Javadoc workload");
+		}
+	}
+
+}
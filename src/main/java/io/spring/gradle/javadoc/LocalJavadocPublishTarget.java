@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Publishes generated Javadoc to a directory, for example one that is served by a web
+ * server or synchronized to a remote host. Files are replaced atomically, so that the
+ * directory can be served while it is published to, and directories that become empty
+ * are deleted. The manifest of what was published is kept as
+ * {@value #MANIFEST_FILE_NAME} in the directory.
+ *
+ * @author Rob Winch
+ */
+public class LocalJavadocPublishTarget implements JavadocPublishTarget {
+
+	/**
+	 * The name of the manifest of what was published.
+	 */
+	public static final String MANIFEST_FILE_NAME = ".javadoc-manifest.sha256";
+
+	private final Path directory;
+
+	public LocalJavadocPublishTarget(File directory) {
+		this.directory = directory.toPath();
+	}
+
+	@Override
+	public List<String> readManifest() throws IOException {
+		Path manifest = this.directory.resolve(MANIFEST_FILE_NAME);
+		return Files.exists(manifest) ? Files.readAllLines(manifest, StandardCharsets.UTF_8)
+				: Collections.emptyList();
+	}
+
+	@Override
+	public void put(String path, File file) throws IOException {
+		replace(this.directory.resolve(path), file.toPath());
+	}
+
+	@Override
+	public void delete(String path) throws IOException {
+		Path file = this.directory.resolve(path);
+		Files.deleteIfExists(file);
+		for (Path parent = file.getParent(); parent != null && !parent.equals(this.directory); parent = parent
+				.getParent()) {
+			try {
+				if (!Files.deleteIfExists(parent)) {
+					return;
+				}
+			}
+			catch (DirectoryNotEmptyException ex) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void writeManifest(File manifest) throws IOException {
+		replace(this.directory.resolve(MANIFEST_FILE_NAME), manifest.toPath());
+	}
+
+	private static void replace(Path target, Path source) throws IOException {
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+		try {
+			Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.gradle.api.Project;
+
+/**
+ * Support for the opt-in reproducible mode, which is enabled by setting the
+ * {@value #PROPERTY_NAME} project property to {@code true}. In that mode the aggregate
+ * tasks are cacheable, so that the output can be reused from the build cache by a
+ * checkout in another directory or on another machine. Gradle passes
+ * {@code -notimestamp} to javadoc by default, so the output is reproducible.
+ *
+ * @author Rob Winch
+ */
+final class ReproducibleJavadoc {
+
+	/**
+	 * The name of the project property that enables the reproducible mode.
+	 */
+	static final String PROPERTY_NAME = "io.spring.javadoc.reproducible";
+
+	private ReproducibleJavadoc() {
+	}
+
+	static boolean isEnabled(Project project) {
+		Object reproducible = project.findProperty(PROPERTY_NAME);
+		return (reproducible != null) && Boolean.parseBoolean(reproducible.toString());
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.gradle.api.Project;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+
+/**
+ * Support for the opt-in separate doclint mode, which is enabled by setting the
+ * {@value #PROPERTY_NAME} project property to {@code true}. In that mode the Javadoc is
+ * generated with doclint disabled and the sources are linted by {@link JavadocLint}
+ * tasks instead, which run in parallel with each other and can be restored from the
+ * build cache.
+ *
+ * @author Rob Winch
+ */
+final class SeparateDoclint {
+
+	/**
+	 * The name of the project property that enables the separate doclint mode.
+	 */
+	static final String PROPERTY_NAME = "io.spring.javadoc.doclint.separate";
+
+	private SeparateDoclint() {
+	}
+
+	static boolean isEnabled(Project project) {
+		Object separate = project.findProperty(PROPERTY_NAME);
+		return (separate != null) && Boolean.parseBoolean(separate.toString());
+	}
+
+	/**
+	 * Disables doclint when generating Javadoc with the given options.
+	 * @param options the options
+	 */
+	static void disable(StandardJavadocDocletOptions options) {
+		options.addBooleanOption("Xdoclint:none", true);
+	}
+
+}
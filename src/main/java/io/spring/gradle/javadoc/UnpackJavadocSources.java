@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.gradle.api.artifacts.transform.CacheableTransform;
+import org.gradle.api.artifacts.transform.InputArtifact;
+import org.gradle.api.artifacts.transform.TransformAction;
+import org.gradle.api.artifacts.transform.TransformOutputs;
+import org.gradle.api.artifacts.transform.TransformParameters;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.file.FileSystemLocation;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+/**
+ * Unpacks the Java sources of a {@code -sources.jar} into a directory, which is how
+ * projects with {@link JavadocPlugin} publish their sources. Resources and other files
+ * of the jar are skipped.
+ * <p>
+ * The jars of external modules are immutable, so Gradle runs the transform once per
+ * jar and keeps its output in the transforms cache of the Gradle user home, where later
+ * builds reuse it. The jar is fingerprinted by its content only, so the output can also
+ * be reused from the build cache.
+ * <p>
+ * The transform is registered from jars of sources documentation whose
+ * {@link #UNPACKED_ATTRIBUTE} is {@code false}, as in the variant that
+ * {@link JavadocSourcesVariantRule} adds, to directories whose attribute is
+ * {@code true}, so that other requests for a directory do not unpack jars.
+ *
+ * @author Rob Winch
+ */
+@CacheableTransform
+public abstract class UnpackJavadocSources implements TransformAction<TransformParameters.None> {
+
+	/**
+	 * The attribute that marks whether Java sources for the aggregate Javadoc are
+	 * unpacked.
+	 */
+	public static final Attribute<Boolean> UNPACKED_ATTRIBUTE = Attribute.of("io.spring.javadoc.sources.unpacked",
+			Boolean.class);
+
+	@InputArtifact
+	@PathSensitive(PathSensitivity.NONE)
+	public abstract Provider<FileSystemLocation> getSourcesJar();
+
+	@Override
+	public void transform(TransformOutputs outputs) {
+		File jar = getSourcesJar().get().getAsFile();
+		String name = jar.getName();
+		File destination = outputs.dir(name.endsWith(".jar") ? name.substring(0, name.length() - 4) : name);
+		try {
+			unpack(jar, destination.toPath());
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to unpack " + jar, ex);
+		}
+	}
+
+	/**
+	 * Unpacks the Java sources of a jar.
+	 * @param jar the jar
+	 * @param destination the directory to unpack to
+	 * @throws IOException if the jar cannot be read or a source cannot be written
+	 */
+	static void unpack(File jar, Path destination) throws IOException {
+		Path root = destination.toAbsolutePath().normalize();
+		try (ZipFile zip = new ZipFile(jar)) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory() || !entry.getName().endsWith(".java")) {
+					continue;
+				}
+				Path source = root.resolve(entry.getName()).normalize();
+				if (!source.startsWith(root)) {
+					throw new IOException("Entry " + entry.getName() + " is outside of the destination");
+				}
+				Files.createDirectories(source.getParent());
+				try (InputStream input = zip.getInputStream(entry)) {
+					Files.copy(input, source);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Loads the shards of a compact search index on demand. The package, type and member
+ * search indexes are split into shards by the first two to four characters of each word
+ * of their names. When the search input changes, the shards for the first word of the
+ * last segment of the query are loaded and appended to the search index arrays that
+ * search.js uses, and the search is run again. Nothing is loaded until the last segment
+ * has two characters, unless it is an abbreviation such as HM.
+ */
+(function() {
+	var shards = /*SHARDS*/{};
+	var indexes = { "package": "packageSearchIndex", "type": "typeSearchIndex", "member": "memberSearchIndex" };
+	var base = document.currentScript.src.replace(/[^\/]*$/, "");
+	var requested = {};
+	var seen = {};
+
+	function normalize(prefix) {
+		return prefix.toLowerCase().replace(/[^a-z0-9]/g, "_");
+	}
+
+	function prefixOf(term) {
+		var segments = term.split(/[.\/]/).filter(function(segment) {
+			return /\w/.test(segment);
+		});
+		if (!segments.length) {
+			return "";
+		}
+		var segment = segments[segments.length - 1].replace(/^[^A-Za-z0-9_$]+/, "");
+		if (segment.length < 2) {
+			return "";
+		}
+		return normalize(segment.split(/(?=[A-Z,()<>\[])/)[0].substring(0, 4));
+	}
+
+	function shardsFor(prefix) {
+		var result = [];
+		if (!prefix) {
+			return result;
+		}
+		Object.keys(shards).forEach(function(kind) {
+			shards[kind].forEach(function(key) {
+				var id = kind + "-" + key;
+				if ((key.indexOf(prefix) === 0 || prefix.indexOf(key) === 0) && !requested[id]) {
+					result.push(id);
+				}
+			});
+		});
+		return result;
+	}
+
+	function rerun(input) {
+		if (input.value !== input.getAttribute("data-search-term") || !window.jQuery) {
+			return;
+		}
+		var element = window.jQuery(input);
+		try {
+			element.catcomplete("search");
+		}
+		catch (ex) {
+			element.trigger("input");
+		}
+	}
+
+	function load(input) {
+		var term = input.value;
+		var pending = shardsFor(prefixOf(term));
+		if (!pending.length) {
+			return;
+		}
+		input.setAttribute("data-search-term", term);
+		var remaining = pending.length;
+		pending.forEach(function(id) {
+			requested[id] = true;
+			var script = document.createElement("script");
+			script.src = base + id + ".js";
+			script.onload = script.onerror = function() {
+				remaining--;
+				if (remaining === 0) {
+					rerun(input);
+				}
+			};
+			document.head.appendChild(script);
+		});
+	}
+
+	window.javadocSearchShard = function(kind, shard) {
+		var name = indexes[kind];
+		var index = window[name] || [];
+		var added = seen[kind] || (seen[kind] = []);
+		shard.e.forEach(function(values) {
+			if (added[values[0]]) {
+				return;
+			}
+			added[values[0]] = true;
+			var item = {};
+			for (var i = 1; i < values.length; i++) {
+				if (values[i] !== null) {
+					item[shard.k[i - 1]] = (typeof values[i] === "number") ? shard.s[values[i]] : values[i];
+				}
+			}
+			index.push(item);
+		});
+		window[name] = index;
+	};
+
+	document.addEventListener("input", function(event) {
+		var id = event.target.id;
+		if (id === "search-input" || id === "search" || id === "page-search-input") {
+			load(event.target);
+		}
+	}, true);
+})();
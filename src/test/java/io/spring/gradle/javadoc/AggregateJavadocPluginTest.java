@@ -20,6 +20,7 @@ import java.io.File;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.PluginContainer;
@@ -54,6 +55,79 @@ class AggregateJavadocPluginTest {
 		assertThat(classpath.getFiles()).extracting(File::getName).contains("slf4j-api-1.7.30.jar");
 	}
 
+	@Test
+	void classpathWhenApiThenExcludesRuntimeOnlyDependencies() {
+		Project root = ProjectBuilder.builder().withName("root").build();
+		root.getExtensions().getExtraProperties().set(ApiClasspath.PROPERTY_NAME, ApiClasspath.API);
+		root.getPlugins().apply(AggregateJavadocPlugin.class);
+		addMavenCentral(root);
+
+		Project module1 = projectWithPlugins("module1", root);
+		addImplementationDependencies(module1, "org.slf4j:slf4j-api:1.7.30");
+		module1.getDependencies().add(JavaPlugin.RUNTIME_ONLY_CONFIGURATION_NAME, "org.slf4j:slf4j-simple:1.7.30");
+
+		Configuration apiClasspath = root.getConfigurations()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_API_CLASSPATH_CONFIGURATION_NAME);
+		assertThat(apiClasspath.isCanBeResolved()).isTrue();
+		assertThat(apiClasspath.isCanBeConsumed()).isFalse();
+
+		Javadoc aggregateJavadoc = (Javadoc) root.getTasks()
+				.findByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		FileCollection classpath = aggregateJavadoc.getClasspath();
+		assertThat(classpath.getFiles()).extracting(File::getName).contains("slf4j-api-1.7.30.jar");
+		assertThat(classpath.getFiles()).extracting(File::getName).doesNotContain("slf4j-simple-1.7.30.jar");
+	}
+
+	@Test
+	void aggregatedConfigurationThenIncludesRegisteredContributors() {
+		Project root = rootProject();
+		projectWithPlugins("module1", root);
+		Project module2 = ProjectBuilder.builder().withParent(root).withName("module2").build();
+		module2.getPlugins().apply(JavaPlugin.class);
+
+		Configuration aggregated = root.getConfigurations()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_CLASSPATH_CONFIGURATION_NAME);
+
+		assertThat(aggregated.getIncoming().getDependencies()).extracting(Dependency::getName)
+				.containsExactly("module1");
+		assertThat(aggregated.isCanBeResolved()).isTrue();
+		assertThat(aggregated.isCanBeConsumed()).isFalse();
+	}
+
+	@Test
+	void aggregateJavadocJarThenPackagesAggregateJavadoc() {
+		Project root = rootProject();
+
+		Javadoc aggregateJavadoc = (Javadoc) root.getTasks()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		JavadocJar jar = (JavadocJar) root.getTasks().getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_JAR_TASK_NAME);
+
+		assertThat(jar.getSource().get().getAsFile()).isEqualTo(aggregateJavadoc.getDestinationDir());
+		assertThat(jar.getArchiveFile().get().getAsFile()).hasName("root-javadoc.jar");
+		assertThat(jar.getTaskDependencies().getDependencies(jar)).contains(aggregateJavadoc);
+		assertThat(jar.getPrecompressed().get()).isFalse();
+	}
+
+	@Test
+	void publishAggregateJavadocThenPublishesManifestOfAggregateJavadoc() {
+		Project root = rootProject();
+
+		Javadoc aggregateJavadoc = (Javadoc) root.getTasks()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_TASK_NAME);
+		GenerateJavadocManifest manifest = (GenerateJavadocManifest) root.getTasks()
+				.getByName(AggregateJavadocPlugin.AGGREGATE_JAVADOC_MANIFEST_TASK_NAME);
+		JavadocPublish publish = (JavadocPublish) root.getTasks()
+				.getByName(AggregateJavadocPlugin.PUBLISH_AGGREGATE_JAVADOC_TASK_NAME);
+
+		assertThat(manifest.getSource().get().getAsFile()).isEqualTo(aggregateJavadoc.getDestinationDir());
+		assertThat(manifest.getTaskDependencies().getDependencies(manifest)).contains(aggregateJavadoc);
+		assertThat(publish.getManifestFile().get()).isEqualTo(manifest.getManifestFile().get());
+		assertThat(publish.getTaskDependencies().getDependencies(publish)).contains(manifest);
+		assertThat(publish.getTarget().isPresent()).isFalse();
+		publish.getTargetDirectory().set(root.file("site"));
+		assertThat(publish.getTarget().get()).isInstanceOf(LocalJavadocPublishTarget.class);
+	}
+
 	private void addImplementationDependencies(Project project, String... dependencies) {
 		Configuration implementation = project.getConfigurations()
 				.getByName(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME);
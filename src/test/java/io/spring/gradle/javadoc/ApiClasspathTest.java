@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ApiClasspath.
+ *
+ * @author Rob Winch
+ */
+class ApiClasspathTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void referencesThenImportsAndQualifiedNamesInSignaturesAndDocComments() throws IOException {
+		Path source = write("src/module1/M1.java",
+				"package module1;\n\nimport java.util.*;\nimport liba.LibA;\nimport libb.LibB;\n"
+						+ "import static libc.Constants.NAME;\n\n/**\n * See {@link libd.LibD#run()}.\n */\n"
+						+ "public class M1 extends Base implements libe.Api {\n\n"
+						+ "\tpublic LibA a(List<String> names) {\n\t\tnew libf.Body();\n\t\treturn null;\n\t}\n\n}\n");
+
+		List<String> tokens = DocumentedApiFingerprint.tokens(source);
+
+		assertThat(ApiClasspath.references(tokens)).contains("java.util.*", "liba.LibA", "libb.LibB",
+				"libc.Constants", "libd.LibD", "libe.Api", "module1.Base", "java.util.Base", "module1.M1")
+				.doesNotContain("libf.Body", "module1.LibA");
+	}
+
+	@Test
+	void pruneThenEntriesOfReferencedTypesAndTheirSupertypes() throws IOException {
+		File libc = compile("libc", "LibBase", "package libc; public class LibBase { }");
+		File liba = compile("liba", "LibA", "package liba; public class LibA extends libc.LibBase { }", libc);
+		File libb = compile("libb", "LibB", "package libb; public class LibB { }");
+		File libd = compile("libd", "LibD", "package libd; public class LibD { }");
+		File source = write("src/module1/M1.java",
+				"package module1;\n\nimport liba.LibA;\nimport libb.LibB;\n\n/** M1. */\npublic class M1 {\n\n"
+						+ "\t/** @return a */\n\tpublic LibA a() {\n\t\treturn new LibB() != null ? null : null;\n"
+						+ "\t}\n\n}\n")
+				.toFile();
+
+		List<File> classpath = ApiClasspath.prune(Collections.singletonList(source),
+				Arrays.asList(libd, libb, liba, libc));
+
+		assertThat(classpath).containsExactly(libb, liba, libc);
+	}
+
+	@Test
+	void pruneWhenOnDemandImportThenEveryEntryOfPackage() throws IOException {
+		File liba = compile("liba", "LibA", "package lib; public class LibA { }");
+		File libb = compile("libb", "LibB", "package lib; public class LibB { }");
+		File libc = compile("libc", "LibC", "package libc; public class LibC { }");
+		File source = write("src/module1/M1.java",
+				"package module1;\n\nimport lib.*;\n\n/** M1. */\npublic class M1 {\n}\n").toFile();
+
+		List<File> classpath = ApiClasspath.prune(Collections.singletonList(source), Arrays.asList(liba, libb, libc));
+
+		assertThat(classpath).containsExactly(liba, libb);
+	}
+
+	@Test
+	void pruneWhenAnnotationWithArgumentsThenReferencesOfTypeBody() throws IOException {
+		File liba = compile("liba", "LibA", "package liba; public class LibA { }");
+		File source = write("src/module1/M1.java",
+				"package module1;\n\n/** M1. */\n@SuppressWarnings(\"unused\")\npublic class M1 {\n\n"
+						+ "\t/** @return a */\n\tpublic liba.LibA a() {\n\t\treturn null;\n\t}\n\n}\n")
+				.toFile();
+
+		List<File> classpath = ApiClasspath.prune(Collections.singletonList(source), Arrays.asList(liba));
+
+		assertThat(classpath).containsExactly(liba);
+	}
+
+	private File compile(String name, String type, String source, File... classpath) throws IOException {
+		Path sourceFile = write(name + "-src/" + name + "/" + type + ".java", source);
+		File classes = this.dir.resolve(name).toFile();
+		classes.mkdirs();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringBuilder path = new StringBuilder(".");
+		for (File entry : classpath) {
+			path.append(File.pathSeparator).append(entry.getAbsolutePath());
+		}
+		int result = compiler.run(null, null, null, "-d", classes.getAbsolutePath(), "-cp", path.toString(),
+				"-implicit:none", sourceFile.toString());
+		assertThat(result).isZero();
+		return classes;
+	}
+
+	private Path write(String path, String content) throws IOException {
+		Path file = this.dir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+}
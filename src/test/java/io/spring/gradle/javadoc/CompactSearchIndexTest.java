@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CompactSearchIndex.
+ *
+ * @author Rob Winch
+ */
+class CompactSearchIndexTest {
+
+	@TempDir
+	Path site;
+
+	@Test
+	void wordsThenWordStarts() {
+		assertThat(CompactSearchIndex.words("HashMap")).containsExactly("hash", "map");
+		assertThat(CompactSearchIndex.words("URLEncoder")).containsExactly("enco", "lenc", "rlen", "urle");
+		assertThat(CompactSearchIndex.words("org.springframework.web")).containsExactly("org", "spri", "web");
+		assertThat(CompactSearchIndex.words("doIt(java.lang.String)")).containsExactly("do", "it");
+		assertThat(CompactSearchIndex.words("$")).containsExactly("_");
+	}
+
+	@Test
+	void compactThenIndexScriptsOnlyHoldSummaryEntries() throws IOException {
+		write("type-search-index.js", "typeSearchIndex = [{\"l\":\"All Classes and Interfaces\","
+				+ "\"u\":\"allclasses-index.html\"},{\"p\":\"module1\",\"l\":\"M1\"}];updateSearchResults();");
+
+		CompactSearchIndex.compact(this.site);
+
+		assertThat(read("type-search-index.js")).startsWith("typeSearchIndex = [{\"l\":\"All Classes and Interfaces\","
+				+ "\"u\":\"allclasses-index.html\"}];updateSearchResults();").contains("search-index/loader.js");
+		assertThat(read("search-index/type-m1.js")).isEqualTo(
+				"javadocSearchShard(\"type\",{\"k\":[\"p\",\"l\"],\"s\":[\"module1\"],\"e\":[[0,0,\"M1\"]]});");
+		assertThat(read("search-index/loader.js")).contains("var shards = {\"type\":[\"m1\"]};");
+	}
+
+	@Test
+	void compactThenMembersShardedByWordsWithSharedStrings() throws IOException {
+		write("member-search-index.js", "memberSearchIndex = [{\"p\":\"module1\",\"c\":\"M1\",\"l\":\"getValue()\"},"
+				+ "{\"p\":\"module1\",\"c\":\"M1\",\"l\":\"setValue(int)\",\"u\":\"setValue(int)\"}]");
+
+		int shards = CompactSearchIndex.compact(this.site);
+
+		assertThat(shards).isEqualTo(3);
+		assertThat(read("search-index/member-va.js"))
+				.isEqualTo("javadocSearchShard(\"member\",{\"k\":[\"p\",\"c\",\"l\",\"u\"],\"s\":[\"module1\",\"M1\"],"
+						+ "\"e\":[[0,0,1,\"getValue()\"],[1,0,1,\"setValue(int)\",\"setValue(int)\"]]});");
+		assertThat(read("search-index/member-ge.js")).contains("[0,0,1,\"getValue()\"]").doesNotContain("setValue");
+		assertThat(read("search-index/member-se.js")).contains("[1,0,1,\"setValue(int)\"");
+	}
+
+	@Test
+	void compactWhenLargeShardThenSplitByNextCharacter() throws IOException {
+		StringBuilder entries = new StringBuilder();
+		for (int i = 0; i < 1500; i++) {
+			entries.append((i > 0) ? "," : "").append("{\"p\":\"module1\",\"l\":\"")
+					.append((i % 2 == 0) ? "Request" : "Response").append(i).append("\"}");
+		}
+		write("type-search-index.js", "typeSearchIndex = [" + entries + "];");
+
+		CompactSearchIndex.compact(this.site);
+
+		assertThat(this.site.resolve("search-index/type-re.js")).doesNotExist();
+		assertThat(read("search-index/type-req.js")).contains("Request0").doesNotContain("Response");
+		assertThat(read("search-index/type-res.js")).contains("Response1").doesNotContain("Request");
+	}
+
+	@Test
+	void compactWhenSearchIndexArchiveThenArchiveOnlyHoldsSummaryEntries() throws IOException {
+		String entries = "[{\"l\":\"All Classes\",\"url\":\"allclasses-index.html\"},{\"p\":\"module1\",\"l\":\"M1\"}]";
+		write("type-search-index.js", "typeSearchIndex = " + entries);
+		try (ZipOutputStream zip = new ZipOutputStream(
+				Files.newOutputStream(this.site.resolve("type-search-index.zip")))) {
+			zip.putNextEntry(new ZipEntry("type-search-index.json"));
+			zip.write(entries.getBytes(StandardCharsets.UTF_8));
+		}
+
+		CompactSearchIndex.compact(this.site);
+
+		assertThat(read("type-search-index.js")).startsWith(
+				"typeSearchIndex = [{\"l\":\"All Classes\",\"url\":\"allclasses-index.html\"}];(function(){");
+		try (ZipFile zip = new ZipFile(this.site.resolve("type-search-index.zip").toFile());
+				InputStream json = zip.getInputStream(zip.getEntry("type-search-index.json"))) {
+			assertThat(json).hasContent("[{\"l\":\"All Classes\",\"url\":\"allclasses-index.html\"}]");
+		}
+	}
+
+	@Test
+	void compactWhenCompactedThenUnchanged() throws IOException {
+		write("type-search-index.js", "typeSearchIndex = [{\"p\":\"module1\",\"l\":\"M1\"}];");
+		CompactSearchIndex.compact(this.site);
+		String compacted = read("type-search-index.js");
+
+		assertThat(CompactSearchIndex.compact(this.site)).isZero();
+		assertThat(read("type-search-index.js")).isEqualTo(compacted);
+	}
+
+	@Test
+	void compactWhenNoSearchIndexThenUnchanged() throws IOException {
+		write("index.html", "<html></html>");
+
+		assertThat(CompactSearchIndex.compact(this.site)).isZero();
+		assertThat(this.site.resolve("search-index")).doesNotExist();
+	}
+
+	private void write(String path, String content) throws IOException {
+		Files.write(this.site.resolve(path), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String read(String path) throws IOException {
+		return new String(Files.readAllBytes(this.site.resolve(path)), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ContentAddressedStore.
+ *
+ * @author Rob Winch
+ */
+class ContentAddressedStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void storeThenManifestOfEachFile() throws IOException {
+		Path site = site("1.0");
+		ContentAddressedStore store = new ContentAddressedStore(this.dir.resolve("store"));
+
+		ContentAddressedStore.Result result = store.store(site, "1.0", false);
+
+		assertThat(result.getFiles()).isEqualTo(3);
+		assertThat(result.getObjects()).isEqualTo(2);
+		assertThat(Files.readAllLines(store.manifest("1.0"))).containsExactly(
+				JavadocManifest.hash(site.resolve("index.html")) + "  index.html",
+				JavadocManifest.hash(site.resolve("module1/M1.html")) + "  module1/M1.html",
+				JavadocManifest.hash(site.resolve("stylesheet.css")) + "  stylesheet.css");
+		assertThat(store.site("1.0")).doesNotExist();
+	}
+
+	@Test
+	void storeWhenSecondVersionThenOnlyChangedFilesStored() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.dir.resolve("store"));
+		store.store(site("1.0"), "1.0", true);
+
+		ContentAddressedStore.Result result = store.store(site("1.1"), "1.1", true);
+
+		assertThat(result.getFiles()).isEqualTo(3);
+		assertThat(result.getObjects()).isEqualTo(1);
+		assertThat(result.getObjectBytes()).isEqualTo("<h1>1.1</h1>".length());
+		assertThat(Files.isSameFile(store.site("1.0").resolve("module1/M1.html"),
+				store.site("1.1").resolve("module1/M1.html"))).isTrue();
+		assertThat(store.site("1.1").resolve("index.html")).hasContent("<h1>1.1</h1>");
+		assertThat(store.site("1.0").resolve("index.html")).hasContent("<h1>1.0</h1>");
+	}
+
+	@Test
+	void storeWhenVersionStoredAgainThenReplaced() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.dir.resolve("store"));
+		Path site = site("1.0");
+		store.store(site, "1.0", true);
+		Files.delete(site.resolve("stylesheet.css"));
+
+		ContentAddressedStore.Result result = store.store(site, "1.0", true);
+
+		assertThat(result.getObjects()).isZero();
+		assertThat(Files.readAllLines(store.manifest("1.0"))).hasSize(2);
+		assertThat(store.site("1.0").resolve("stylesheet.css")).doesNotExist();
+	}
+
+	private Path site(String version) throws IOException {
+		Path site = this.dir.resolve("site-" + version);
+		Files.createDirectories(site.resolve("module1"));
+		write(site.resolve("index.html"), "<h1>" + version + "</h1>");
+		write(site.resolve("module1/M1.html"), "<h1>M1</h1>");
+		write(site.resolve("stylesheet.css"), "<h1>M1</h1>");
+		return site;
+	}
+
+	private void write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DocumentedApiFingerprint.
+ *
+ * @author Rob Winch
+ */
+class DocumentedApiFingerprintTest {
+
+	// @formatter:off
+	private static final String SOURCE = "package sample;\n"
+			+ "\n"
+			+ "/**\n"
+			+ " * Class A.\n"
+			+ " */\n"
+			+ "public class A {\n"
+			+ "\n"
+			+ "\tpublic static final int CONSTANT = 1;\n"
+			+ "\n"
+			+ "\tstatic {\n"
+			+ "\t\tint initialized = 1;\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "\t/**\n"
+			+ "\t * Method m.\n"
+			+ "\t */\n"
+			+ "\tpublic void m() throws Exception {\n"
+			+ "\t\tString brace = \"}\"; // }\n"
+			+ "\t\tint local = 1;\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "\t@interface Values {\n"
+			+ "\t\tint[] value() default { 1, 2 };\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "\trecord R(int x) {\n"
+			+ "\t\t/** Method r. */\n"
+			+ "\t\tvoid r() {\n"
+			+ "\t\t}\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "}\n";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String ANNOTATED_SOURCE = "package sample;\n"
+			+ "\n"
+			+ "/**\n"
+			+ " * Class B.\n"
+			+ " */\n"
+			+ "@SuppressWarnings(\"x\")\n"
+			+ "public class B {\n"
+			+ "\n"
+			+ "\t/**\n"
+			+ "\t * Method m.\n"
+			+ "\t */\n"
+			+ "\tpublic void m() {\n"
+			+ "\t\tint local = 1;\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "\t@Deprecated(since = \"1\")\n"
+			+ "\tstatic class Nested {\n"
+			+ "\n"
+			+ "\t\t/**\n"
+			+ "\t\t * Method n.\n"
+			+ "\t\t */\n"
+			+ "\t\tvoid n() {\n"
+			+ "\t\t}\n"
+			+ "\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "}\n";
+	// @formatter:on
+
+	@Test
+	void fingerprintWhenMethodBodyChangesThenSame() throws IOException {
+		assertSameFingerprint(SOURCE.replace("int local = 1;", "int local = 2; if (local > 1) { local--; }"));
+	}
+
+	@Test
+	void fingerprintWhenInitializerChangesThenSame() throws IOException {
+		assertSameFingerprint(SOURCE.replace("int initialized = 1;", "int initialized = 2;"));
+	}
+
+	@Test
+	void fingerprintWhenCommentsAndWhitespaceChangeThenSame() throws IOException {
+		assertSameFingerprint(SOURCE.replace("// }", "// {").replace("\tpublic void", "  public  void"));
+	}
+
+	@Test
+	void fingerprintWhenDocCommentChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("Method m.", "Method m changed."));
+	}
+
+	@Test
+	void fingerprintWhenSignatureChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("m() throws Exception", "m(int a) throws Exception"));
+	}
+
+	@Test
+	void fingerprintWhenThrowsClauseChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("throws Exception", "throws java.io.IOException"));
+	}
+
+	@Test
+	void fingerprintWhenConstantChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("CONSTANT = 1", "CONSTANT = 2"));
+	}
+
+	@Test
+	void fingerprintWhenAnnotationDefaultChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("{ 1, 2 }", "{ 1, 3 }"));
+	}
+
+	@Test
+	void fingerprintWhenRecordMemberChangesThenDifferent() throws IOException {
+		assertDifferentFingerprint(SOURCE.replace("Method r.", "Method r changed."));
+	}
+
+	@Test
+	void fingerprintWhenAnnotatedTypeMethodBodyChangesThenSame() throws IOException {
+		assertThat(fingerprint(ANNOTATED_SOURCE.replace("int local = 1;", "int local = 2;")))
+				.isEqualTo(fingerprint(ANNOTATED_SOURCE));
+	}
+
+	@Test
+	void fingerprintWhenAnnotatedTypeDocCommentChangesThenDifferent() throws IOException {
+		assertThat(fingerprint(ANNOTATED_SOURCE.replace("Method m.", "Method m changed.")))
+				.isNotEqualTo(fingerprint(ANNOTATED_SOURCE));
+	}
+
+	@Test
+	void fingerprintWhenAnnotatedTypeMethodRenamedThenDifferent() throws IOException {
+		assertThat(fingerprint(ANNOTATED_SOURCE.replace("void m()", "void renamed()")))
+				.isNotEqualTo(fingerprint(ANNOTATED_SOURCE));
+	}
+
+	@Test
+	void fingerprintWhenAnnotatedNestedTypeDocCommentChangesThenDifferent() throws IOException {
+		assertThat(fingerprint(ANNOTATED_SOURCE.replace("Method n.", "Method n changed.")))
+				.isNotEqualTo(fingerprint(ANNOTATED_SOURCE));
+	}
+
+	@Test
+	void fingerprintWhenAnnotatedNestedTypeMethodRenamedThenDifferent() throws IOException {
+		assertThat(fingerprint(ANNOTATED_SOURCE.replace("void n()", "void renamed()")))
+				.isNotEqualTo(fingerprint(ANNOTATED_SOURCE));
+	}
+
+	private void assertSameFingerprint(String changed) throws IOException {
+		assertThat(fingerprint(changed)).isEqualTo(fingerprint(SOURCE));
+	}
+
+	private void assertDifferentFingerprint(String changed) throws IOException {
+		assertThat(fingerprint(changed)).isNotEqualTo(fingerprint(SOURCE));
+	}
+
+	private String fingerprint(String source) throws IOException {
+		return DocumentedApiFingerprint.of(new StringReader(source));
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocArchiveWriter.
+ *
+ * @author Rob Winch
+ */
+class JavadocArchiveWriterTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void writeThenEntriesInPathOrder() throws IOException {
+		Path source = site();
+		Path archive = this.dir.resolve("javadoc.jar");
+
+		int entries = new JavadocArchiveWriter(4, false, false).write(source, archive);
+
+		assertThat(entries).isEqualTo(7);
+		try (ZipFile jar = new ZipFile(archive.toFile())) {
+			List<String> names = Collections.list(jar.entries()).stream().map(ZipEntry::getName)
+					.collect(Collectors.toList());
+			assertThat(names).containsExactly("META-INF/", "META-INF/MANIFEST.MF", "index.html", "module1/",
+					"module1/M1.html", "package-list", "stylesheet.css");
+			assertThat(content(jar, "module1/M1.html")).isEqualTo(page("M1"));
+			assertThat(jar.getEntry("module1/M1.html").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+		}
+	}
+
+	@Test
+	void writeWhenPrecompressedThenGzipSidecars() throws IOException {
+		Path source = site();
+		Path archive = this.dir.resolve("javadoc.jar");
+
+		new JavadocArchiveWriter(2, true, false).write(source, archive);
+
+		try (ZipFile jar = new ZipFile(archive.toFile())) {
+			assertThat(jar.getEntry("index.html.gz")).isNotNull();
+			assertThat(jar.getEntry("stylesheet.css.gz")).isNotNull();
+			assertThat(jar.getEntry("package-list.gz")).isNull();
+			try (InputStream sidecar = new GZIPInputStream(jar.getInputStream(jar.getEntry("module1/M1.html.gz")))) {
+				assertThat(new String(readAllBytes(sidecar), StandardCharsets.UTF_8)).isEqualTo(page("M1"));
+			}
+		}
+	}
+
+	@Test
+	void writeWhenNotPreservingTimestampsThenReproducible() throws IOException {
+		Path source = site();
+		Path first = this.dir.resolve("first.jar");
+		Path second = this.dir.resolve("second.jar");
+
+		new JavadocArchiveWriter(1, true, false).write(source, first);
+		new JavadocArchiveWriter(8, true, false).write(source, second);
+
+		assertThat(Files.readAllBytes(second)).isEqualTo(Files.readAllBytes(first));
+	}
+
+	@Test
+	void writeWhenMoreThan65535EntriesThenZip64() throws IOException {
+		Path source = this.dir.resolve("site");
+		for (int module = 0; module < 70; module++) {
+			Path moduleDir = Files.createDirectories(source.resolve("module" + module));
+			for (int page = 0; page < 1000; page++) {
+				Files.write(moduleDir.resolve("P" + page + ".html"), new byte[] { 'p' });
+			}
+		}
+		Path archive = this.dir.resolve("javadoc.jar");
+
+		int entries = new JavadocArchiveWriter(4, false, false).write(source, archive);
+
+		assertThat(entries).isEqualTo(70072);
+		try (ZipFile jar = new ZipFile(archive.toFile())) {
+			assertThat(jar.size()).isEqualTo(70072);
+			assertThat(content(jar, "module69/P999.html")).isEqualTo("p");
+		}
+	}
+
+	private Path site() throws IOException {
+		Path source = this.dir.resolve("site");
+		Files.createDirectories(source.resolve("module1"));
+		write(source.resolve("index.html"), page("Overview"));
+		write(source.resolve("module1/M1.html"), page("M1"));
+		write(source.resolve("package-list"), "module1\n");
+		write(source.resolve("stylesheet.css"), "body { color: #353833; }\n");
+		return source;
+	}
+
+	private String page(String title) {
+		StringBuilder page = new StringBuilder("<html><head><title>" + title + "</title></head><body>\n");
+		for (int i = 0; i < 100; i++) {
+			page.append("<p>").append(title).append(" paragraph ").append(i).append("</p>\n");
+		}
+		return page.append("</body></html>\n").toString();
+	}
+
+	private void write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String content(ZipFile jar, String name) throws IOException {
+		try (InputStream content = jar.getInputStream(jar.getEntry(name))) {
+			return new String(readAllBytes(content), StandardCharsets.UTF_8);
+		}
+	}
+
+	private byte[] readAllBytes(InputStream input) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -17,19 +17,29 @@
 package io.spring.gradle.javadoc;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.plugins.JavaBasePlugin;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.PluginContainer;
 import org.gradle.api.tasks.javadoc.Javadoc;
 import org.gradle.external.javadoc.JavadocMemberLevel;
+import org.gradle.external.javadoc.JavadocOfflineLink;
 import org.gradle.external.javadoc.JavadocOutputLevel;
 import org.gradle.external.javadoc.StandardJavadocDocletOptions;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.contentOf;
 
 /**
  * Unit tests for JavadocConventionsPlugin.
@@ -50,8 +60,8 @@ class JavadocConventionsPluginTest {
 		assertThat(options.getMemberLevel()).isEqualTo(JavadocMemberLevel.PROTECTED);
 		assertThat(options.getOutputLevel()).isEqualTo(JavadocOutputLevel.QUIET);
 		assertThat(options.isSplitIndex()).isTrue();
-		File stylesheetFile = project.file(JavadocConventionsPlugin.STYLESHEET_FILE_NAME);
-		assertThat(options.getStylesheetFile()).isEqualTo(stylesheetFile);
+		assertThat(options.getStylesheetFile()).isNull();
+		assertThat(javadoc.getInputs().getFiles().getFiles()).extracting(File::getName).contains("stylesheet.css");
 		assertThat(options.isUse()).isTrue();
 		assertThat(options.getWindowTitle()).isEqualTo("Spring Security API");
 	}
@@ -67,8 +77,136 @@ class JavadocConventionsPluginTest {
 		assertThat(options.getWindowTitle()).isEqualTo("Spring Security API");
 	}
 
-	private Project projectWithPlugins(String name) {
+	@Test
+	void linksThenDescriptorsResolvedAndLinkedOffline(@TempDir Path docs) throws IOException {
+		Files.write(docs.resolve("package-list"), "com.example\n".getBytes(StandardCharsets.UTF_8));
+		String url = docs.toUri().toString();
+		Project project = projectWithPlugins("spring-security");
+		JavadocLinks links = project.getExtensions().getByType(JavadocLinks.class);
+		links.link(url);
+		links.link(url);
+
+		assertThat(links.getUrls().get()).containsExactly(url);
+		JavadocLinksSync sync = (JavadocLinksSync) project.getTasks()
+				.getByName(JavadocConventionsPlugin.SYNC_JAVADOC_LINKS_TASK_NAME);
+		assertThat(sync.getDescriptorFiles().getFiles()).extracting(File::getName).containsExactly("package-list");
+		sync.sync();
+		Javadoc javadoc = (Javadoc) project.getTasks().findByPath(":javadoc");
+		JavadocLinksSync.linkOffline(links.getUrls(), sync.getDestinationDirectory()).execute(javadoc);
+
+		StandardJavadocDocletOptions options = (StandardJavadocDocletOptions) javadoc.getOptions();
+		assertThat(options.getLinksOffline()).hasSize(1);
+		JavadocOfflineLink link = options.getLinksOffline().get(0);
+		assertThat(link.getExtDocUrl()).isEqualTo(url);
+		assertThat(new File(link.getPackagelistLoc(), "package-list")).hasContent("com.example");
+	}
+
+	@Test
+	void linksWhenDeclaredAfterJavadocConfiguredThenJavadocDependsOnSync(@TempDir Path docs) {
+		Project project = projectWithPlugins("spring-security");
+		Javadoc javadoc = (Javadoc) project.getTasks().findByPath(":javadoc");
+
+		assertThat(javadoc.getTaskDependencies().getDependencies(javadoc)).extracting(Task::getName)
+				.doesNotContain(JavadocConventionsPlugin.SYNC_JAVADOC_LINKS_TASK_NAME);
+		project.getExtensions().getByType(JavadocLinks.class).link(docs.toUri().toString());
+		assertThat(javadoc.getTaskDependencies().getDependencies(javadoc)).extracting(Task::getName)
+				.contains(JavadocConventionsPlugin.SYNC_JAVADOC_LINKS_TASK_NAME);
+	}
+
+	@Test
+	void javadocLintThenLintsMainSources() throws IOException {
+		Project project = projectWithPlugins("spring-security");
+		JavadocLint lint = (JavadocLint) project.getTasks()
+				.getByName(JavadocConventionsPlugin.JAVADOC_LINT_TASK_NAME);
+		Task check = project.getTasks().getByName(JavaBasePlugin.CHECK_TASK_NAME);
+		Path source = project.getProjectDir().toPath().resolve("src/main/java/example/Example.java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, "package example;\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(lint.getSource().getFiles()).containsExactly(source.toFile());
+		assertThat(lint.getDoclint().get()).isEqualTo("all/protected");
+		assertThat(lint.getJavaVersion()).isEqualTo(JavaVersion.current().toString());
+		assertThat(lint.getReportFile().get().getAsFile())
+				.isEqualTo(new File(project.getBuildDir(), "reports/javadoc/javadocLint.json"));
+		assertThat(lint.getTaskDependencies().getDependencies(lint)).extracting(Task::getName)
+				.doesNotContain(JavadocPlugin.SYNC_JAVADOC_SOURCES_TASK_NAME, JavaPlugin.JAVADOC_TASK_NAME);
+		assertThat(check.getTaskDependencies().getDependencies(check)).doesNotContain(lint);
+	}
+
+	@Test
+	void javadocLintWhenSeparateDoclintThenDoclintDisabledAndChecked(@TempDir Path dir) throws IOException {
+		Project project = projectWithPlugins("spring-security", SeparateDoclint.PROPERTY_NAME);
+		Javadoc javadoc = (Javadoc) project.getTasks().findByPath(":javadoc");
+		File optionsFile = dir.resolve("javadoc.options").toFile();
+		((StandardJavadocDocletOptions) javadoc.getOptions()).write(optionsFile);
+		Task check = project.getTasks().getByName(JavaBasePlugin.CHECK_TASK_NAME);
+
+		assertThat(contentOf(optionsFile)).contains("-Xdoclint:none");
+		assertThat(check.getTaskDependencies().getDependencies(check)).extracting(Task::getName)
+				.contains(JavadocConventionsPlugin.JAVADOC_LINT_TASK_NAME);
+	}
+
+	@Test
+	void stylesheetWhenConfiguredThenPassedWhenTaskRuns(@TempDir Path dir) throws IOException {
+		Project project = projectWithPlugins("spring-security");
+		Javadoc javadoc = (Javadoc) project.getTasks().findByPath(":javadoc");
+		StandardJavadocDocletOptions options = (StandardJavadocDocletOptions) javadoc.getOptions();
+		File optionsFile = dir.resolve("javadoc.options").toFile();
+		options.write(optionsFile);
+		File stylesheet = dir.resolve("stylesheet.css").toFile();
+
+		assertThat(contentOf(optionsFile)).doesNotContain("-stylesheetfile");
+		assertThat(new File(project.getRootDir(), "build/io.spring.gradle.javadoc-conventions")).doesNotExist();
+		JavadocStylesheet.stylesheetFileOption(project.provider(() -> stylesheet)).execute(javadoc);
+		options.write(optionsFile);
+		assertThat(contentOf(optionsFile)).contains("-stylesheetfile", stylesheet.getName());
+	}
+
+	@Test
+	void javadocPreviewThenPreviewsJavadocOfMainSources() {
+		Project project = projectWithPlugins("spring-security");
+		JavadocPreview preview = (JavadocPreview) project.getTasks()
+				.getByName(JavadocConventionsPlugin.JAVADOC_PREVIEW_TASK_NAME);
+		Javadoc javadoc = (Javadoc) project.getTasks().getByName(JavaPlugin.JAVADOC_TASK_NAME);
+
+		assertThat(preview.getSourceDirectories()).contains(project.file("src/main/java"));
+		assertThat(preview.getOptions()).isNotSameAs(javadoc.getOptions());
+		assertThat(preview.getOptions().getDocTitle()).isEqualTo("Spring Security API");
+		assertThat(preview.getJavadocDirectory().get().getAsFile()).isEqualTo(javadoc.getDestinationDir());
+		assertThat(preview.getDestinationDirectory().get().getAsFile())
+				.isEqualTo(new File(project.getBuildDir(), "javadoc-preview"));
+		assertThat(preview.getPort().get()).isEqualTo(8000);
+		assertThat(preview.getTaskDependencies().getDependencies(preview)).contains(javadoc);
+	}
+
+	@Test
+	void javadocPreviewWhenStylesheetAndLinksThenPassedWhenTaskRuns(@TempDir Path docs) throws IOException {
+		Files.write(docs.resolve("package-list"), "com.example\n".getBytes(StandardCharsets.UTF_8));
+		Project project = projectWithPlugins("spring-security");
+		project.getExtensions().getByType(JavadocLinks.class).link(docs.toUri().toString());
+		JavadocPreview preview = (JavadocPreview) project.getTasks()
+				.getByName(JavadocConventionsPlugin.JAVADOC_PREVIEW_TASK_NAME);
+		JavadocLinksSync sync = (JavadocLinksSync) project.getTasks()
+				.getByName(JavadocConventionsPlugin.SYNC_JAVADOC_LINKS_TASK_NAME);
+
+		assertThat(preview.getTaskDependencies().getDependencies(preview)).contains(sync);
+		assertThat(preview.getInputs().getFiles().getFiles()).extracting(File::getName).contains("stylesheet.css");
+		sync.sync();
+		for (Action<? super Task> action : preview.getActions().subList(0, 2)) {
+			action.execute(preview);
+		}
+		File optionsFile = docs.resolve("javadoc.options").toFile();
+		preview.getOptions().write(optionsFile);
+		assertThat(contentOf(optionsFile)).contains("-stylesheetfile", "-linkoffline");
+		Javadoc javadoc = (Javadoc) project.getTasks().getByName(JavaPlugin.JAVADOC_TASK_NAME);
+		assertThat(((StandardJavadocDocletOptions) javadoc.getOptions()).getLinksOffline()).isEmpty();
+	}
+
+	private Project projectWithPlugins(String name, String... enabledProperties) {
 		Project project = ProjectBuilder.builder().withName(name).build();
+		for (String property : enabledProperties) {
+			project.getExtensions().getExtraProperties().set(property, "true");
+		}
 		PluginContainer plugins = project.getPlugins();
 		plugins.apply(JavaPlugin.class);
 		plugins.apply(JavadocPlugin.class);
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.api.Project;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocHeapSizing.
+ *
+ * @author Rob Winch
+ */
+class JavadocHeapSizingTest {
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	void estimateWhenNoPreviousRunThenModel() throws IOException {
+		JavadocHeapSizing sizing = sizing();
+		JavadocWorkload workload = workload(10 * MEGABYTE, 100 * MEGABYTE);
+		assertThat(sizing.estimateMegabytes(workload, null)).isEqualTo(128 + 48 * 10 + 4 * 100);
+	}
+
+	@Test
+	void estimateWhenPreviousRunThenScaledPeak() throws IOException {
+		JavadocHeapSizing sizing = sizing();
+		JavadocWorkload previous = workload(10 * MEGABYTE, 90 * MEGABYTE).withHeap(1000, 800);
+		JavadocWorkload workload = workload(20 * MEGABYTE, 180 * MEGABYTE);
+		assertThat(sizing.estimateMegabytes(workload, previous)).isEqualTo(2000);
+	}
+
+	@Test
+	void estimateWhenPreviousRunWithoutPeakThenModel() throws IOException {
+		JavadocHeapSizing sizing = sizing();
+		JavadocWorkload previous = workload(10 * MEGABYTE, 100 * MEGABYTE).withHeap(1000, -1);
+		JavadocWorkload workload = workload(10 * MEGABYTE, 100 * MEGABYTE);
+		assertThat(sizing.estimateMegabytes(workload, previous)).isEqualTo(1008);
+	}
+
+	@Test
+	void estimateIsClamped() throws IOException {
+		JavadocHeapSizing sizing = sizing();
+		sizing.getMaximumMegabytes().set(512);
+		assertThat(sizing.estimateMegabytes(workload(0, 0), null)).isEqualTo(256);
+		assertThat(sizing.estimateMegabytes(workload(100 * MEGABYTE, 0), null)).isEqualTo(512);
+	}
+
+	@Test
+	void peakHeapMegabytesThenLargestOccupancyBeforeCollection() throws IOException {
+		File gcLog = new File(this.tempDir, "gc.log");
+		String log = "[0.566s][info][gc] GC(0) Pause Young (Allocation Failure) 40M->10M(150M) 6.624ms\n"
+				+ "[0.863s][info][gc] GC(1) Pause Young (Allocation Failure) 60M->30M(150M) 8.144ms\n"
+				+ "[GC (Allocation Failure)  51200K->600K(158720K), 0.0012 secs]\n";
+		Files.write(gcLog.toPath(), log.getBytes(StandardCharsets.UTF_8));
+		assertThat(JavadocWorkload.peakHeapMegabytes(gcLog)).isEqualTo(60);
+	}
+
+	@Test
+	void workloadWhenWrittenThenRead() throws IOException {
+		File file = new File(this.tempDir, "workload.properties");
+		workload(10, 20).withHeap(300, 200).write(file);
+		JavadocWorkload workload = JavadocWorkload.read(file);
+		assertThat(workload.getSourceBytes()).isEqualTo(10);
+		assertThat(workload.getClasspathBytes()).isEqualTo(20);
+		assertThat(workload.getEstimatedHeapMegabytes()).isEqualTo(300);
+		assertThat(workload.getPeakHeapMegabytes()).isEqualTo(200);
+	}
+
+	@Test
+	void logGcWhenExecutableOfJdk8ThenJdk8Flags() throws IOException {
+		File bin = new File(this.tempDir, "jdk8/bin");
+		bin.mkdirs();
+		Files.write(new File(bin.getParentFile(), "release").toPath(),
+				"JAVA_VERSION=\"1.8.0_392\"\n".getBytes(StandardCharsets.UTF_8));
+		Javadoc javadoc = ProjectBuilder.builder().build().getTasks().create("javadoc", Javadoc.class);
+		javadoc.setExecutable(new File(bin, "javadoc").getAbsolutePath());
+		File gcLog = new File(this.tempDir, "gc.log");
+		JavadocHeap.logGc(javadoc, gcLog);
+		assertThat(JavadocHeap.javaVersion(javadoc)).isEqualTo(JavaVersion.VERSION_1_8);
+		assertThat(javadoc.getOptions().getJFlags()).containsExactly("-Xloggc:" + gcLog.getAbsolutePath(),
+				"-XX:+PrintGC");
+	}
+
+	@Test
+	void logGcWhenNoExecutableThenFlagsOfCurrentJdk() throws IOException {
+		Javadoc javadoc = ProjectBuilder.builder().build().getTasks().create("javadoc", Javadoc.class);
+		File gcLog = new File(this.tempDir, "gc.log");
+		JavadocHeap.logGc(javadoc, gcLog);
+		JavadocHeap.logGc(javadoc, gcLog);
+		assertThat(JavadocHeap.javaVersion(javadoc)).isEqualTo(JavaVersion.current());
+		assertThat(javadoc.getOptions().getJFlags()).hasSize(JavaVersion.current().isJava9Compatible() ? 1 : 2);
+	}
+
+	@Test
+	void configureThenHeapSizedWhenTaskRuns() throws IOException {
+		Project project = ProjectBuilder.builder().withProjectDir(this.tempDir).build();
+		File source = new File(this.tempDir, "src/Example.java");
+		source.getParentFile().mkdirs();
+		Files.write(source.toPath(), "public class Example {\n}\n".getBytes(StandardCharsets.UTF_8));
+		Javadoc javadoc = project.getTasks().create("javadoc", Javadoc.class);
+		javadoc.source(source);
+		JavadocHeap.configure(javadoc, project.getBuildDir(), sizing());
+		assertThat(javadoc.getMaxMemory()).isNull();
+		assertThat(javadoc.getOptions().getJFlags()).isEmpty();
+		javadoc.getActions().get(0).execute(javadoc);
+		assertThat(javadoc.getMaxMemory()).isEqualTo("256m");
+		assertThat(javadoc.getOptions().getJFlags()).isNotEmpty();
+	}
+
+	@Test
+	void configureWhenMaxMemoryThenHeapNotSized() throws IOException {
+		Project project = ProjectBuilder.builder().withProjectDir(this.tempDir).build();
+		File source = new File(this.tempDir, "src/Example.java");
+		source.getParentFile().mkdirs();
+		Files.write(source.toPath(), "public class Example {\n}\n".getBytes(StandardCharsets.UTF_8));
+		Javadoc javadoc = project.getTasks().create("javadoc", Javadoc.class);
+		javadoc.source(source);
+		javadoc.setMaxMemory("300m");
+		JavadocHeap.configure(javadoc, project.getBuildDir(), sizing());
+		javadoc.getActions().get(0).execute(javadoc);
+		assertThat(javadoc.getMaxMemory()).isEqualTo("300m");
+		assertThat(javadoc.getOptions().getJFlags()).isEmpty();
+	}
+
+	private JavadocHeapSizing sizing() {
+		Project project = ProjectBuilder.builder().build();
+		return project.getObjects().newInstance(JavadocHeapSizing.class);
+	}
+
+	private JavadocWorkload workload(long sourceBytes, long classpathBytes) throws IOException {
+		File source = new File(this.tempDir, "Source" + sourceBytes + ".java");
+		File classpath = new File(this.tempDir, "classpath" + classpathBytes + ".jar");
+		try (RandomAccessFile file = new RandomAccessFile(source, "rw")) {
+			file.setLength(sourceBytes);
+		}
+		try (RandomAccessFile file = new RandomAccessFile(classpath, "rw")) {
+			file.setLength(classpathBytes);
+		}
+		Project project = ProjectBuilder.builder().build();
+		return JavadocWorkload.measure(project.files(source), project.files(classpath));
+	}
+
+}
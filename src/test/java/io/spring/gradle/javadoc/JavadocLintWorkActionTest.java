@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocLintWorkAction.
+ *
+ * @author Rob Winch
+ */
+class JavadocLintWorkActionTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void lintThenDoclintProblemsReported() throws IOException {
+		File source = source("/**\n * Class A.\n */\npublic class A {\n\n\t/**\n\t * Method.\n"
+				+ "\t * @param nope not a parameter\n\t */\n\tpublic void m() {\n\t}\n\n"
+				+ "\tpublic void undocumented() {\n\t}\n\n\tvoid packagePrivate() {\n\t}\n\n}\n");
+
+		List<JavadocLintWorkAction.Problem> problems = lint(source, "all/protected");
+
+		assertThat(problems).extracting(JavadocLintWorkAction.Problem::getMessage)
+				.containsExactly("@param name not found", "no comment");
+		assertThat(problems).extracting(JavadocLintWorkAction.Problem::isError).containsExactly(true, false);
+	}
+
+	@Test
+	void lintWhenGroupDisabledThenNotReported() throws IOException {
+		File source = source("/**\n * Class A.\n */\npublic class A {\n\n\tpublic void undocumented() {\n\t}\n\n}\n");
+
+		assertThat(lint(source, "all/protected,-missing")).isEmpty();
+	}
+
+	@Test
+	void reportThenProblemsRelativeToProjectDirectory() throws IOException {
+		File source = source("/**\n * Class A.\n */\npublic class A {\n\n\tpublic void undocumented() {\n\t}\n\n}\n");
+		List<JavadocLintWorkAction.Problem> problems = lint(source, "all/protected");
+
+		String report = JavadocLintWorkAction.report(":a:javadocLint", 1, problems, this.dir);
+
+		assertThat(report).contains("\"task\": \":a:javadocLint\"", "\"sourceFiles\": 1", "\"errors\": 0",
+				"\"warnings\": 1", "{ \"file\": \"src/A.java\", \"line\": 6, \"column\": 21, \"kind\": \"warning\", "
+						+ "\"message\": \"no comment\" }");
+	}
+
+	private List<JavadocLintWorkAction.Problem> lint(File source, String doclint) {
+		return JavadocLintWorkAction.lint(Collections.singletonList(source), Collections.emptyList(), doclint,
+				this.dir.resolve("classes").toFile());
+	}
+
+	private File source(String content) throws IOException {
+		Path source = this.dir.resolve("src/A.java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+		return source.toFile();
+	}
+
+}
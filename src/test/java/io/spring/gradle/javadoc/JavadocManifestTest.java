@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocManifest.
+ *
+ * @author Rob Winch
+ */
+class JavadocManifestTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void ofThenHashOfEachFileSortedByPath() throws IOException {
+		write("index.html", "index");
+		write("module1/M1.html", "M1");
+		write("allclasses.html", "all");
+
+		JavadocManifest manifest = JavadocManifest.of(this.dir, 4);
+
+		assertThat(manifest.lines()).containsExactly(
+				JavadocManifest.hash(this.dir.resolve("allclasses.html")) + "  allclasses.html",
+				JavadocManifest.hash(this.dir.resolve("index.html")) + "  index.html",
+				JavadocManifest.hash(this.dir.resolve("module1/M1.html")) + "  module1/M1.html");
+	}
+
+	@Test
+	void hashThenSha256() throws IOException {
+		write("index.html", "abc");
+
+		assertThat(JavadocManifest.hash(this.dir.resolve("index.html")))
+				.isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+	}
+
+	@Test
+	void parseWhenLinesThenSameManifest() throws IOException {
+		write("index.html", "index");
+		write("module1/M1.html", "M1");
+		JavadocManifest manifest = JavadocManifest.of(this.dir, 1);
+
+		JavadocManifest parsed = JavadocManifest.parse(manifest.lines());
+
+		assertThat(parsed.getHashes()).isEqualTo(manifest.getHashes());
+		assertThat(manifest.diff(parsed).isEmpty()).isTrue();
+	}
+
+	@Test
+	void diffThenAddedChangedAndDeleted() {
+		JavadocManifest previous = JavadocManifest
+				.parse(Arrays.asList("aa  index.html", "bb  module1/M1.html", "cc  module2/M2.html"));
+		JavadocManifest current = JavadocManifest
+				.parse(Arrays.asList("aa  index.html", "dd  module1/M1.html", "ee  module3/M3.html"));
+
+		JavadocManifest.Diff diff = current.diff(previous);
+
+		assertThat(diff.getAdded()).containsExactly("module3/M3.html");
+		assertThat(diff.getChanged()).containsExactly("module1/M1.html");
+		assertThat(diff.getDeleted()).containsExactly("module2/M2.html");
+	}
+
+	@Test
+	void readWhenMissingThenEmpty() throws IOException {
+		assertThat(JavadocManifest.read(this.dir.resolve("missing.sha256")).getHashes()).isEmpty();
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.dir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
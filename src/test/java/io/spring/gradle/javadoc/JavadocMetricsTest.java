@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocMetrics.
+ *
+ * @author Rob Winch
+ */
+class JavadocMetricsTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void warningsThenCountedPerSourceFile() {
+		String output = "/src/module1/M1.java:4: warning: empty <p> tag\n * <p>\n   ^\n"
+				+ "/src/module1/M1.java:7: warning - Tag @link: reference not found: Missing\n"
+				+ "javadoc: warning - Multiple sources of package comments found for package \"module1\"\n"
+				+ "/src/module2/M2.java:3: error: unknown tag: foo\n2 warnings\n1 error\n";
+
+		Map<String, Integer> warnings = JavadocMetrics.warnings(output);
+
+		assertThat(warnings).containsEntry("/src/module1/M1.java", 2).containsEntry("", 1).hasSize(2);
+	}
+
+	@Test
+	void breakDownThenSourcesOutputsAndWarningsPerProject() throws IOException {
+		File m1 = write("module1/module1/M1.java", "class M1 {}");
+		File m2 = write("module2/module2/M2.java", "class M2 {}");
+		write("module2/module2/sub/Sub.java", "class Sub {}");
+		File sub = this.dir.resolve("module2/module2/sub/Sub.java").toFile();
+		write("docs/index.html", "index");
+		write("docs/module1/M1.html", "M1");
+		write("docs/module1/class-use/M1.html", "uses");
+		write("docs/module2/M2.html", "M2M2");
+		write("docs/module2/sub/Sub.html", "Sub");
+		Map<String, Path> roots = new LinkedHashMap<>();
+		roots.put(":module1", this.dir.resolve("module1"));
+		roots.put(":module2", this.dir.resolve("module2"));
+		Path docs = this.dir.resolve("docs");
+
+		List<JavadocMetrics.ProjectMetrics> projects = JavadocMetrics.breakDown(Arrays.asList(m1, m2, sub), roots,
+				docs, files(docs), Collections.singletonMap(m2.getAbsolutePath(), 3));
+
+		assertThat(projects).extracting(JavadocMetrics.ProjectMetrics::getPath).containsExactly(":module1",
+				":module2");
+		assertThat(projects.get(0).getSourceFiles()).isEqualTo(1);
+		assertThat(projects.get(0).getOutputFiles()).isEqualTo(2);
+		assertThat(projects.get(0).getOutputBytes()).isEqualTo(6);
+		assertThat(projects.get(0).getWarnings()).isZero();
+		assertThat(projects.get(1).getSourceFiles()).isEqualTo(2);
+		assertThat(projects.get(1).getSourceBytes()).isEqualTo(23);
+		assertThat(projects.get(1).getOutputFiles()).isEqualTo(2);
+		assertThat(projects.get(1).getWarnings()).isEqualTo(3);
+	}
+
+	@Test
+	void breakDownWhenOnlyProjectThenEverythingAttributedToProject() throws IOException {
+		File m1 = write("src/module1/M1.java", "class M1 {}");
+		write("docs/index.html", "index");
+		write("docs/module1/M1.html", "M1");
+		Path docs = this.dir.resolve("docs");
+
+		List<JavadocMetrics.ProjectMetrics> projects = JavadocMetrics.breakDown(Collections.singletonList(m1),
+				Collections.singletonMap(":module1", null), docs, files(docs),
+				Collections.singletonMap(m1.getAbsolutePath(), 1));
+
+		assertThat(projects).hasSize(1);
+		assertThat(projects.get(0).getSourceFiles()).isEqualTo(1);
+		assertThat(projects.get(0).getOutputFiles()).isEqualTo(2);
+		assertThat(projects.get(0).getWarnings()).isEqualTo(1);
+	}
+
+	private File write(String path, String content) throws IOException {
+		Path file = this.dir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file.toFile();
+	}
+
+	private List<Path> files(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocPackages.
+ *
+ * @author Rob Winch
+ */
+class JavadocPackagesTest {
+
+	@Test
+	void isIncludedWhenNoPatternsThenIncluded() {
+		JavadocPackages packages = packages();
+
+		assertThat(packages.isIncluded(file("com/example/Type.java"))).isTrue();
+		assertThat(packages.isIncluded(file("Type.java"))).isTrue();
+	}
+
+	@Test
+	void isIncludedWhenExcludedThenPackageAndSubpackagesExcluded() {
+		JavadocPackages packages = packages();
+		packages.exclude("com.example.internal");
+
+		assertThat(packages.isIncluded(file("com/example/internal/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/internal/sub/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(directory("com/example/internal"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/Type.java"))).isTrue();
+		assertThat(packages.isIncluded(file("com/example/internals/Type.java"))).isTrue();
+	}
+
+	@Test
+	void isIncludedWhenWildcardsThenMatchesSegments() {
+		JavadocPackages packages = packages();
+		packages.exclude("**.internal", "com.*.impl*");
+
+		assertThat(packages.isIncluded(file("internal/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/internal/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/implementation/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/api/impl/Type.java"))).isTrue();
+		assertThat(packages.isIncluded(file("com/example/api/Type.java"))).isTrue();
+	}
+
+	@Test
+	void isIncludedWhenIncludedThenOnlyIncludedPackagesExceptExcluded() {
+		JavadocPackages packages = packages();
+		packages.include("com.example.api");
+		packages.exclude("com.example.api.internal");
+
+		assertThat(packages.isIncluded(file("com/example/api/Type.java"))).isTrue();
+		assertThat(packages.isIncluded(file("com/example/api/sub/Type.java"))).isTrue();
+		assertThat(packages.isIncluded(file("com/example/api/internal/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(file("com/example/Type.java"))).isFalse();
+		assertThat(packages.isIncluded(directory("com/example"))).isTrue();
+	}
+
+	private JavadocPackages packages() {
+		return ProjectBuilder.builder().build().getObjects().newInstance(JavadocPackages.class);
+	}
+
+	private RelativePath file(String path) {
+		return RelativePath.parse(true, path);
+	}
+
+	private RelativePath directory(String path) {
+		return RelativePath.parse(false, path);
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.contentOf;
+
+/**
+ * Unit tests for JavadocPreviewGenerator.
+ *
+ * @author Rob Winch
+ */
+class JavadocPreviewGeneratorTest {
+
+	@TempDir
+	Path dir;
+
+	private Path sources;
+
+	private Path preview;
+
+	private JavadocPreviewGenerator generator;
+
+	@BeforeEach
+	void generateJavadoc() throws IOException {
+		this.sources = this.dir.resolve("src");
+		this.preview = this.dir.resolve("preview");
+		writeSource("p/A.java", "package p;\n\n/**\n * Class A, see {@link B} and {@link q.C}.\n */\n"
+				+ "public class A {\n\n\t/**\n\t * Nested.\n\t */\n\tpublic static class Nested {\n\t}\n\n}\n");
+		writeSource("p/B.java", "package p;\n\n/**\n * Class B.\n */\npublic class B {\n}\n");
+		writeSource("q/C.java", "package q;\n\n/**\n * Class C.\n */\npublic class C {\n}\n");
+		int result = ToolProvider.getSystemDocumentationTool().run(null, null, null, "-quiet", "-d",
+				this.preview.toString(), "-sourcepath", this.sources.toString(), "-subpackages", "p:q");
+		assertThat(result).isZero();
+		Path options = this.dir.resolve("javadoc.options");
+		Files.write(options, Arrays.asList("-quiet", "-d '" + this.dir.resolve("javadoc") + "'",
+				"-sourcepath '" + this.sources + "'", "-linkoffline . '" + this.preview + "'"));
+		this.generator = new JavadocPreviewGenerator(options.toFile(), this.dir.resolve("javadoc").toFile(),
+				Collections.singletonList(this.sources.toFile()), this.preview.toFile());
+	}
+
+	@Test
+	void regenerateThenPagesOfChangedTypeUpdatedAndLinked() throws IOException {
+		File a = writeSource("p/A.java", "package p;\n\n/**\n * Changed A, see {@link B} and {@link q.C}.\n */\n"
+				+ "public class A {\n\n\t/**\n\t * Nested.\n\t */\n\tpublic static class Nested {\n\t}\n\n}\n");
+		String packageSummary = contentOf(this.preview.resolve("p/package-summary.html").toFile());
+
+		List<String> pages = this.generator.regenerate(Collections.singletonList(a));
+
+		assertThat(pages).containsExactly("p/A.Nested.html", "p/A.html");
+		String page = contentOf(this.preview.resolve("p/A.html").toFile());
+		assertThat(page).contains("Changed A", "href=\"B.html\"", "href=\"../q/C.html\"");
+		assertThat(this.preview.resolve("p/package-summary.html")).hasContent(packageSummary);
+	}
+
+	@Test
+	void regenerateWhenPackageInfoThenPackageSummaryUpdated() throws IOException {
+		File packageInfo = writeSource("p/package-info.java", "/**\n * Package p.\n */\npackage p;\n");
+
+		List<String> pages = this.generator.regenerate(Collections.singletonList(packageInfo));
+
+		assertThat(pages).containsExactly("p/package-summary.html");
+		assertThat(contentOf(this.preview.resolve("p/package-summary.html").toFile())).contains("Package p.",
+				"A.html", "B.html");
+	}
+
+	@Test
+	void regenerateWhenDeletedThenPagesDeleted() throws IOException {
+		File a = this.sources.resolve("p/A.java").toFile();
+		Files.delete(a.toPath());
+
+		List<String> pages = this.generator.regenerate(Collections.singletonList(a));
+
+		assertThat(pages).containsExactly("p/A.Nested.html", "p/A.html");
+		assertThat(this.preview.resolve("p/A.html")).doesNotExist();
+		assertThat(this.preview.resolve("p/B.html")).exists();
+	}
+
+	@Test
+	void regenerateWhenNotInSourceDirectoryThenIgnored() throws IOException {
+		Path other = this.dir.resolve("other/p/A.java");
+		Files.createDirectories(other.getParent());
+		Files.write(other, "package p;\n\n/**\n * Other.\n */\npublic class A {\n}\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(this.generator.regenerate(Collections.singletonList(other.toFile()))).isEmpty();
+	}
+
+	@Test
+	void regenerateWhenJavadocFailsThenException() throws IOException {
+		File b = writeSource("p/B.java",
+				"package p;\n\n/**\n * Class B, see {@link Missing}.\n */\npublic class B {\n}\n");
+
+		assertThatIllegalStateException().isThrownBy(() -> this.generator.regenerate(Collections.singletonList(b)))
+				.withMessageContaining("Javadoc generation failed");
+		assertThat(contentOf(this.preview.resolve("p/B.html").toFile())).doesNotContain("Missing");
+	}
+
+	private File writeSource(String path, String content) throws IOException {
+		Path source = this.sources.resolve(path);
+		Files.createDirectories(source.getParent());
+		Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+		return source.toFile();
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocPreviewServer.
+ *
+ * @author Rob Winch
+ */
+class JavadocPreviewServerTest {
+
+	@TempDir
+	Path dir;
+
+	private JavadocPreviewServer server;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		Path root = this.dir.resolve("preview");
+		Files.createDirectories(root.resolve("p"));
+		Files.write(root.resolve("index.html"), "<html><body>Index</body></html>".getBytes(StandardCharsets.UTF_8));
+		Files.write(root.resolve("p/A.html"), "<html><body>A</body></html>".getBytes(StandardCharsets.UTF_8));
+		Files.write(root.resolve("script.js"), "var a;".getBytes(StandardCharsets.UTF_8));
+		Files.write(this.dir.resolve("secret.txt"), "secret".getBytes(StandardCharsets.UTF_8));
+		this.server = new JavadocPreviewServer(root.toFile(), 0);
+		this.server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		this.server.stop();
+	}
+
+	@Test
+	void getWhenHtmlThenReloadScriptInjected() throws IOException {
+		HttpURLConnection connection = open("/p/A.html");
+
+		assertThat(connection.getResponseCode()).isEqualTo(200);
+		assertThat(connection.getContentType()).isEqualTo("text/html; charset=utf-8");
+		assertThat(read(connection.getInputStream())).startsWith("<html><body>A<script>new EventSource(")
+				.endsWith("</script></body></html>");
+	}
+
+	@Test
+	void getWhenDirectoryThenIndex() throws IOException {
+		HttpURLConnection connection = open("/");
+
+		assertThat(connection.getResponseCode()).isEqualTo(200);
+		assertThat(read(connection.getInputStream())).contains("Index");
+	}
+
+	@Test
+	void getWhenScriptThenServedUnchanged() throws IOException {
+		HttpURLConnection connection = open("/script.js");
+
+		assertThat(connection.getContentType()).isEqualTo("application/javascript; charset=utf-8");
+		assertThat(read(connection.getInputStream())).isEqualTo("var a;");
+	}
+
+	@Test
+	void getWhenMissingThenNotFound() throws IOException {
+		assertThat(open("/p/B.html").getResponseCode()).isEqualTo(404);
+	}
+
+	@Test
+	void getWhenOutsideRootThenNotFound() throws IOException {
+		assertThat(open("/p/%2e%2e/%2e%2e/secret.txt").getResponseCode()).isEqualTo(404);
+	}
+
+	@Test
+	void reloadThenEventSent() throws IOException {
+		HttpURLConnection connection = open(JavadocPreviewServer.RELOAD_PATH);
+		connection.setReadTimeout(5000);
+		assertThat(connection.getContentType()).isEqualTo("text/event-stream");
+		try (BufferedReader events = new BufferedReader(
+				new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+			assertThat(events.readLine()).isEqualTo(": connected");
+			assertThat(events.readLine()).isEmpty();
+
+			this.server.reload();
+
+			assertThat(events.readLine()).isEqualTo("data: reload");
+		}
+	}
+
+	@Test
+	void injectReloadScriptWhenNoBodyThenAppended() {
+		assertThat(JavadocPreviewServer.injectReloadScript("<p>A</p>")).startsWith("<p>A</p><script>");
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		URL url = new URL("http://localhost:" + this.server.getPort() + path);
+		return (HttpURLConnection) url.openConnection();
+	}
+
+	private static String read(InputStream input) throws IOException {
+		try (InputStream in = input) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocSiteMerger.
+ *
+ * @author Rob Winch
+ */
+class JavadocSiteMergerTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void mergeThenPackageListHasPackagesOfEveryModule() throws IOException {
+		write("a/element-list", "p\nq\n");
+		write("b/element-list", "p\nr\n");
+
+		merge();
+
+		assertThat(read("element-list")).isEqualTo("p\nq\nr\n");
+	}
+
+	@Test
+	void mergeThenSplitPackageSummaryHasRowsOfEveryModule() throws IOException {
+		write("a/p/package-summary.html", summaryTable("<a href=\"A1.html\">A1</a>"));
+		write("b/p/package-summary.html", summaryTable("<a href=\"B2.html\">B2</a>", "<a href=\"B3.html\">B3</a>"));
+
+		merge();
+
+		assertThat(read("p/package-summary.html")).isEqualTo(summaryTable("<a href=\"A1.html\">A1</a>",
+				"<a href=\"B2.html\">B2</a>", "<a href=\"B3.html\">B3</a>"));
+	}
+
+	@Test
+	void mergeThenOverviewHasEachPackageOnce() throws IOException {
+		write("a/index.html", summaryTable("<a href=\"p/package-summary.html\">p</a>",
+				"<a href=\"q/package-summary.html\">q</a>"));
+		write("b/index.html", summaryTable("<a href=\"p/package-summary.html\">p</a>",
+				"<a href=\"r/package-summary.html\">r</a>"));
+
+		merge();
+
+		assertThat(read("index.html")).isEqualTo(summaryTable("<a href=\"p/package-summary.html\">p</a>",
+				"<a href=\"q/package-summary.html\">q</a>", "<a href=\"r/package-summary.html\">r</a>"));
+	}
+
+	@Test
+	void mergeThenPackageUseHasTableOfEveryUsingPackage() throws IOException {
+		write("a/p/package-use.html", packageUse("q"));
+		write("b/p/package-use.html", packageUse("s"));
+
+		merge();
+
+		String packageUse = read("p/package-use.html");
+		assertThat(packageUse).contains("<li class=\"blockList\"><a name=\"q\"></a>",
+				"<li class=\"blockList\"><a name=\"s\"></a>", "<caption><span>Classes in p used by q</span></caption>",
+				"<caption><span>Classes in p used by s</span></caption>");
+		assertThat(packageUse.indexOf("name=\"s\"")).isGreaterThan(packageUse.indexOf("used by q</span>"));
+		assertThat(packageUse).containsSubsequence(
+				"<tr class=\"altColor\">\n<td class=\"colFirst\"><a href=\"#q\">q</a>",
+				"<tr class=\"rowColor\">\n<td class=\"colFirst\"><a href=\"#s\">s</a>");
+	}
+
+	@Test
+	void mergeThenHierarchyHasSubtypesOfEveryModule() throws IOException {
+		write("a/overview-tree.html", hierarchy("<li><a href=\"p/package-tree.html\">p</a></li>",
+				"<li class=\"circle\">p.<a href=\"p/A1.html\">A1</a></li>"));
+		write("b/overview-tree.html", hierarchy("<li><a href=\"r/package-tree.html\">r</a></li>",
+				"<li class=\"circle\">r.<a href=\"r/R1.html\">R1</a></li>"));
+
+		merge();
+
+		assertThat(read("overview-tree.html")).isEqualTo(hierarchy(
+				"<li><a href=\"p/package-tree.html\">p</a>, </li>\n<li><a href=\"r/package-tree.html\">r</a></li>",
+				"<li class=\"circle\">p.<a href=\"p/A1.html\">A1</a></li>\n"
+						+ "<li class=\"circle\">r.<a href=\"r/R1.html\">R1</a></li>"));
+	}
+
+	@Test
+	void mergeThenIndexHasLettersOfEveryModule() throws IOException {
+		write("a/index-all.html", index("A", "<dt><a href=\"p/A1.html\">A1</a></dt>\n<dd>Class A1.</dd>"));
+		write("b/index-all.html", index("B", "<dt><a href=\"p/B2.html\">B2</a></dt>\n<dd>Class B2.</dd>"));
+
+		merge();
+
+		String index = read("index-all.html");
+		assertThat(index).startsWith("<a href=\"#I:A\">A</a>&nbsp;<a href=\"#I:B\">B</a>&nbsp;\n");
+		assertThat(index).containsSubsequence("<h2 class=\"title\" id=\"I:A\">A</h2>", "A1.html",
+				"<h2 class=\"title\" id=\"I:B\">B</h2>", "B2.html");
+	}
+
+	@Test
+	void mergeThenSearchIndexHasEntriesOfEveryModule() throws IOException {
+		write("a/type-search-index.js", "typeSearchIndex = [{\"p\":\"p\",\"l\":\"A1\"}];updateSearchResults();");
+		write("b/type-search-index.js",
+				"typeSearchIndex = [{\"p\":\"r\",\"l\":\"R1\",\"d\":\"{@code \\\"}\\\"}\"}];updateSearchResults();");
+
+		merge();
+
+		assertThat(read("type-search-index.js")).isEqualTo("typeSearchIndex = [{\"p\":\"p\",\"l\":\"A1\"},"
+				+ "{\"p\":\"r\",\"l\":\"R1\",\"d\":\"{@code \\\"}\\\"}\"}];updateSearchResults();");
+	}
+
+	@Test
+	void mergeThenTypePagesCopied() throws IOException {
+		write("a/p/A1.html", "A1");
+		write("b/p/B2.html", "B2");
+
+		merge();
+
+		assertThat(read("p/A1.html")).isEqualTo("A1");
+		assertThat(read("p/B2.html")).isEqualTo("B2");
+	}
+
+	@Test
+	void mergeWhenJdk8ThenSiteMerged() throws Exception {
+		mergeJdk(8);
+
+		assertThat(read("package-list")).isEqualTo("p\nq\nr\n");
+		assertThat(read("overview-summary.html")).contains("q/package-summary.html", "r/package-summary.html");
+		assertThat(read("overview-frame.html")).contains("q/package-frame.html", "r/package-frame.html");
+		assertThat(read("allclasses-frame.html")).contains("p/A1.html", "p/B2.html", "q/Q1.html", "r/R1.html");
+		assertThat(read("p/package-frame.html")).contains("A1.html", "B2.html");
+		assertMerged();
+	}
+
+	@Test
+	void mergeWhenJdk11ThenSiteMerged() throws Exception {
+		mergeJdk(11);
+
+		assertThat(read("element-list")).isEqualTo("p\nq\nr\n");
+		assertThat(read("allclasses.html")).contains("p/A1.html", "p/B2.html", "q/Q1.html", "r/R1.html");
+		assertMergedWithSearch();
+	}
+
+	@Test
+	void mergeWhenJdk17ThenSiteMerged() throws Exception {
+		mergeJdk(17);
+
+		assertThat(read("element-list")).isEqualTo("p\nq\nr\n");
+		assertMergedWithSearch();
+	}
+
+	@Test
+	void mergeWhenJdk21ThenSiteMerged() throws Exception {
+		mergeJdk(21);
+
+		assertThat(read("element-list")).isEqualTo("p\nq\nr\n");
+		assertMergedWithSearch();
+	}
+
+	@Test
+	void isSupportedThenJdk8To21() {
+		assertThat(JavadocSiteMerger.isSupported(7)).isFalse();
+		assertThat(JavadocSiteMerger.isSupported(8)).isTrue();
+		assertThat(JavadocSiteMerger.isSupported(21)).isTrue();
+		assertThat(JavadocSiteMerger.isSupported(22)).isFalse();
+	}
+
+	/**
+	 * Merges the Javadoc that a JDK generated for two modules: {@code a}, with the
+	 * packages {@code p} and {@code q}, and {@code b}, with the packages {@code p} and
+	 * {@code r}.
+	 * @param jdk the version of the JDK
+	 */
+	private void mergeJdk(int jdk) throws Exception {
+		Path fixture = Paths.get(getClass().getResource("/javadoc/merge/jdk" + jdk).toURI());
+		Map<String, File> modules = new LinkedHashMap<>();
+		modules.put("a", fixture.resolve("a").toFile());
+		modules.put("b", fixture.resolve("b").toFile());
+		new JavadocSiteMerger().merge(modules, this.dir.resolve("merged").toFile());
+	}
+
+	private void assertMergedWithSearch() throws IOException {
+		assertMerged();
+		assertThat(read("allclasses-index.html")).contains("p/A1.html", "p/B2.html", "q/Q1.html", "r/R1.html");
+		assertThat(read("allpackages-index.html")).contains("p/package-summary.html", "q/package-summary.html",
+				"r/package-summary.html");
+		assertThat(read("index.html")).contains("q/package-summary.html", "r/package-summary.html");
+		assertThat(read("type-search-index.js")).contains("\"l\":\"A1\"", "\"l\":\"B2\"", "\"l\":\"Q1\"",
+				"\"l\":\"R1\"");
+		assertThat(read("member-search-index.js")).contains("a1()", "b2()", "q1(", "r1()");
+		assertThat(read("package-search-index.js")).contains("\"l\":\"q\"", "\"l\":\"r\"");
+	}
+
+	private void assertMerged() throws IOException {
+		assertThat(read("p/package-summary.html")).contains("A1.html", "B2.html");
+		assertThat(read("p/package-tree.html")).contains("A1.html", "B2.html");
+		assertThat(read("overview-tree.html")).contains("p/A1.html", "p/B2.html", "q/Q1.html", "r/R1.html");
+		assertThat(read("index-all.html")).contains("p/A1.html", "p/B2.html", "q/Q1.html", "r/R1.html",
+				"a1()", "b2()", "r1()");
+	}
+
+	private void merge() throws IOException {
+		Map<String, File> modules = new LinkedHashMap<>();
+		modules.put("a", this.dir.resolve("a").toFile());
+		modules.put("b", this.dir.resolve("b").toFile());
+		new JavadocSiteMerger().merge(modules, this.dir.resolve("merged").toFile());
+	}
+
+	private static String summaryTable(String... names) {
+		StringBuilder page = new StringBuilder("<main>\n<div class=\"summary-table two-column-summary\">\n"
+				+ "<div class=\"table-header col-first\">Name</div>\n"
+				+ "<div class=\"table-header col-last\">Description</div>\n");
+		for (int i = 0; i < names.length; i++) {
+			String color = (i % 2 == 0) ? "even-row-color" : "odd-row-color";
+			page.append("<div class=\"col-first ").append(color).append("\">").append(names[i]).append("</div>\n");
+			page.append("<div class=\"col-last ").append(color).append("\">&nbsp;</div>\n");
+		}
+		return page.append("</div>\n</main>\n").toString();
+	}
+
+	private static String packageUse(String user) {
+		return "<ul class=\"blockList\">\n<li class=\"blockList\">\n<table>\n"
+				+ "<caption><span>Packages that use p</span></caption>\n"
+				+ "<tr>\n<th class=\"colFirst\" scope=\"col\">Package</th>\n</tr>\n"
+				+ "<tr class=\"altColor\">\n<td class=\"colFirst\"><a href=\"#" + user + "\">" + user + "</a></td>\n"
+				+ "</tr>\n</table>\n</li>\n<li class=\"blockList\"><a name=\"" + user + "\"></a>\n<table>\n"
+				+ "<caption><span>Classes in p used by " + user + "</span></caption>\n"
+				+ "<tr>\n<th class=\"colOne\" scope=\"col\">Class</th>\n</tr>\n"
+				+ "<tr class=\"altColor\">\n<td class=\"colOne\"><a href=\"class-use/X.html#" + user + "\">X</a></td>\n"
+				+ "</tr>\n</table>\n</li>\n</ul>\n";
+	}
+
+	private static String hierarchy(String packages, String subtypes) {
+		return "<ul class=\"horizontal\">\n" + packages + "\n</ul>\n"
+				+ "<h2 title=\"Class Hierarchy\">Class Hierarchy</h2>\n<ul>\n"
+				+ "<li class=\"circle\">java.lang.Object\n<ul>\n" + subtypes + "\n</ul>\n</li>\n</ul>\n";
+	}
+
+	private static String index(String letter, String entries) {
+		return "<a href=\"#I:" + letter + "\">" + letter + "</a>&nbsp;\n<h2 class=\"title\" id=\"I:" + letter
+				+ "\">" + letter + "</h2>\n<dl class=\"index\">\n" + entries + "\n</dl>\n";
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.dir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String read(String path) throws IOException {
+		return new String(Files.readAllBytes(this.dir.resolve("merged").resolve(path)), StandardCharsets.UTF_8);
+	}
+
+}
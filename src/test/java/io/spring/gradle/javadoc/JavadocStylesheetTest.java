@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JavadocStylesheet.
+ *
+ * @author Rob Winch
+ */
+class JavadocStylesheetTest {
+
+	@Test
+	void minifyThenCommentsAndWhitespaceRemoved() {
+		String css = "/* Header */\nbody {\n\tcolor: #353833;\n\tmargin: 0;\n}\n\na > b, c {\n\tfont-size: 14px;\n}\n";
+		assertThat(JavadocStylesheet.minify(css)).isEqualTo("body{color:#353833;margin:0}a>b,c{font-size:14px}");
+	}
+
+	@Test
+	void minifyThenSignificantWhitespaceKept() {
+		String css = "div :hover {\n\tfont-family: 'DejaVu  Sans', \"Times New Roman\";\n}\n"
+				+ "@media screen and (max-width: 800px) {\n}\n";
+		assertThat(JavadocStylesheet.minify(css)).isEqualTo(
+				"div :hover{font-family:'DejaVu  Sans',\"Times New Roman\"}@media screen and (max-width:800px){}");
+	}
+
+}
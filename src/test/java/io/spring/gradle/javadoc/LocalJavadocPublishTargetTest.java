@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LocalJavadocPublishTarget.
+ *
+ * @author Rob Winch
+ */
+class LocalJavadocPublishTargetTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readManifestWhenNothingPublishedThenEmpty() throws IOException {
+		LocalJavadocPublishTarget target = new LocalJavadocPublishTarget(this.dir.resolve("target").toFile());
+
+		assertThat(target.readManifest()).isEmpty();
+	}
+
+	@Test
+	void putThenFileReplaced() throws IOException {
+		Path targetDir = this.dir.resolve("target");
+		LocalJavadocPublishTarget target = new LocalJavadocPublishTarget(targetDir.toFile());
+		target.put("module1/M1.html", write("M1.html", "old"));
+
+		target.put("module1/M1.html", write("M1.html", "new"));
+
+		assertThat(targetDir.resolve("module1/M1.html")).hasContent("new");
+		assertThat(targetDir.resolve("module1").toFile().list()).containsExactly("M1.html");
+	}
+
+	@Test
+	void deleteWhenLastFileOfDirectoryThenDirectoryDeleted() throws IOException {
+		Path targetDir = this.dir.resolve("target");
+		LocalJavadocPublishTarget target = new LocalJavadocPublishTarget(targetDir.toFile());
+		target.put("index.html", write("index.html", "index"));
+		target.put("module1/a/M1.html", write("M1.html", "M1"));
+		target.put("module1/M2.html", write("M2.html", "M2"));
+
+		target.delete("module1/a/M1.html");
+
+		assertThat(targetDir.resolve("module1/a")).doesNotExist();
+		assertThat(targetDir.resolve("module1/M2.html")).exists();
+		target.delete("module1/M2.html");
+		assertThat(targetDir.resolve("module1")).doesNotExist();
+		assertThat(targetDir.resolve("index.html")).exists();
+	}
+
+	@Test
+	void writeManifestThenReadManifest() throws IOException {
+		LocalJavadocPublishTarget target = new LocalJavadocPublishTarget(this.dir.resolve("target").toFile());
+
+		target.writeManifest(write("manifest.sha256", "aa  index.html"));
+
+		assertThat(target.readManifest()).isEqualTo(Collections.singletonList("aa  index.html"));
+		assertThat(this.dir.resolve("target").resolve(LocalJavadocPublishTarget.MANIFEST_FILE_NAME)).exists();
+	}
+
+	private File write(String name, String content) throws IOException {
+		Path file = this.dir.resolve(name);
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file.toFile();
+	}
+
+}
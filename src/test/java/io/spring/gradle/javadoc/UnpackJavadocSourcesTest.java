@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Unit tests for UnpackJavadocSources.
+ *
+ * @author Rob Winch
+ */
+class UnpackJavadocSourcesTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void unpackThenOnlyJavaSourcesUnpacked() throws IOException {
+		File jar = jar("ext/Ext.java", "ext/package-info.java", "ext/messages.properties", "META-INF/MANIFEST.MF");
+		Path destination = this.dir.resolve("sources");
+
+		UnpackJavadocSources.unpack(jar, destination);
+
+		assertThat(destination.resolve("ext/Ext.java")).hasContent("ext/Ext.java");
+		assertThat(destination.resolve("ext/package-info.java")).exists();
+		assertThat(destination.resolve("ext/messages.properties")).doesNotExist();
+		assertThat(destination.resolve("META-INF")).doesNotExist();
+	}
+
+	@Test
+	void unpackWhenEntryOutsideOfDestinationThenException() throws IOException {
+		File jar = jar("../Evil.java");
+
+		assertThatIOException().isThrownBy(() -> UnpackJavadocSources.unpack(jar, this.dir.resolve("sources")));
+		assertThat(this.dir.resolve("Evil.java")).doesNotExist();
+	}
+
+	private File jar(String... entries) throws IOException {
+		File jar = this.dir.resolve("ext-1.0-sources.jar").toFile();
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+			for (String entry : entries) {
+				zip.putNextEntry(new ZipEntry(entry));
+				zip.write(entry.getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+}
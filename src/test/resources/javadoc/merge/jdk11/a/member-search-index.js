@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"p","c":"A1","l":"a1()"},{"p":"p","c":"A1","l":"A1()","url":"%3Cinit%3E()"},{"p":"q","c":"Q1","l":"Q1()","url":"%3Cinit%3E()"},{"p":"q","c":"Q1","l":"q1(A1)","url":"q1(p.A1)"}]
\ No newline at end of file
@@ -0,0 +1 @@
+packageSearchIndex = [{"l":"All Packages","url":"allpackages-index.html"},{"l":"p"},{"l":"q"}]
\ No newline at end of file
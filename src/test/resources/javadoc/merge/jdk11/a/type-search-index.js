@@ -0,0 +1 @@
+typeSearchIndex = [{"p":"p","l":"A1"},{"l":"All Classes","url":"allclasses-index.html"},{"p":"q","l":"Q1"}]
\ No newline at end of file
@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes","url":"allclasses-index.html"},{"p":"p","l":"B2"},{"p":"r","l":"R1"}]
\ No newline at end of file
@@ -0,0 +1 @@
+packageSearchIndex = [{"l":"All Packages","u":"allpackages-index.html"},{"l":"p"},{"l":"r"}];updateSearchResults();
\ No newline at end of file
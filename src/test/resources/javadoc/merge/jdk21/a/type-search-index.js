@@ -0,0 +1 @@
+typeSearchIndex = [{"p":"p","l":"A1"},{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"q","l":"Q1"}];updateSearchResults();
\ No newline at end of file
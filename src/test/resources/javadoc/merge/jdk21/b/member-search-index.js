@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"p","c":"B2","l":"b2()"},{"p":"p","c":"B2","l":"B2()","u":"%3Cinit%3E()"},{"p":"r","c":"R1","l":"r1()"}];updateSearchResults();
\ No newline at end of file
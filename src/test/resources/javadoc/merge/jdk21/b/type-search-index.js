@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"p","l":"B2"},{"p":"r","l":"R1"}];updateSearchResults();
\ No newline at end of file